@@ -11,6 +11,16 @@ public class AndroidLauncher extends AndroidApplication {
 		super.onCreate(savedInstanceState);
 		AndroidApplicationConfiguration config = new AndroidApplicationConfiguration();
         config.useWakelock = true;
-		initialize(new RaccoonRoll(), config);
+		// adb shell am start -n fi.tuni.tiko2d/.AndroidLauncher -e soakHours 8 starts a soak test
+		String soakHours = getIntent().getStringExtra("soakHours");
+		RaccoonRoll game;
+		if (soakHours != null) {
+			game = new RaccoonRoll(new SoakTest(Float.parseFloat(soakHours), new String[0]));
+		} else {
+			game = new RaccoonRoll();
+		}
+		// Null unless the build was given -PleaderboardUrl=address
+		game.setLeaderboardUrl(BuildConfig.LEADERBOARD_URL);
+		initialize(game, config);
 	}
 }
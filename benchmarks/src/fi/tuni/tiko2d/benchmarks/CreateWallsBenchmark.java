@@ -0,0 +1,53 @@
+package fi.tuni.tiko2d.benchmarks;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.World;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+
+import fi.tuni.tiko2d.RaccoonRoll;
+import fi.tuni.tiko2d.TiledMapUtil;
+import fi.tuni.tiko2d.headless.HeadlessEnvironment;
+
+/**
+ * Measures creating the wall bodies of each level with TiledMapUtil.createWalls
+ *
+ * @author Heikki Kangas
+ */
+@State(Scope.Thread)
+public class CreateWallsBenchmark {
+    @Param({"tutorial", "london", "manchester", "paris", "marseille", "kairo", "alexandria",
+            "newyork", "philadelphia", "anadyr", "egvekinot", "peking", "shanghai"})
+    public String levelName;
+
+    private TiledMapUtil tiledMapUtil;
+    private ArrayList<Rectangle> wallRectangles;
+
+    /**
+     * Reads the wall rectangles of the level
+     */
+    @Setup
+    public void setUp() {
+        HeadlessEnvironment.init();
+        tiledMapUtil = new TiledMapUtil(new RaccoonRoll());
+        TiledMap tiledMap = HeadlessEnvironment.loadLevel(levelName);
+        wallRectangles = tiledMapUtil.getWallRectangles(tiledMap);
+        tiledMap.dispose();
+    }
+
+    @Benchmark
+    public World createWalls() {
+        World world = new World(new Vector2(0, 0), true);
+        tiledMapUtil.createWalls(wallRectangles, world);
+        world.dispose();
+        return world;
+    }
+}
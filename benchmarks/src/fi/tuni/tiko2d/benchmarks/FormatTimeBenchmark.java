@@ -0,0 +1,34 @@
+package fi.tuni.tiko2d.benchmarks;
+
+import com.badlogic.gdx.utils.StringBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import fi.tuni.tiko2d.RaccoonRoll;
+
+/**
+ * Compares formatting the hud time with String.format and with a reused StringBuilder
+ *
+ * @author Heikki Kangas
+ */
+@State(Scope.Thread)
+public class FormatTimeBenchmark {
+    private RaccoonRoll game = new RaccoonRoll();
+    private StringBuilder builder = new StringBuilder();
+    private float timeSpent = 123.45f;
+
+    @Benchmark
+    public String formatTime() {
+        timeSpent += 1 / 60f;
+        return game.formatTime(timeSpent);
+    }
+
+    @Benchmark
+    public StringBuilder appendTime() {
+        timeSpent += 1 / 60f;
+        builder.setLength(0);
+        return game.appendTime(builder, timeSpent);
+    }
+}
@@ -0,0 +1,58 @@
+package fi.tuni.tiko2d.benchmarks;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import fi.tuni.tiko2d.MazeGenerator;
+import fi.tuni.tiko2d.headless.HeadlessEnvironment;
+
+/**
+ * Measures generating mazes of different sizes with MazeGenerator
+ *
+ * @author Heikki Kangas
+ */
+@State(Scope.Thread)
+public class GenerateMazeBenchmark {
+    @Param({"100", "300", "1000"})
+    public int size;
+
+    private Texture tileSet;
+    private Texture goodObjects;
+    private Texture badObjects;
+    private MazeGenerator generator;
+    private long seed;
+
+    /**
+     * Loads the tileset textures
+     */
+    @Setup
+    public void setUp() {
+        HeadlessEnvironment.init();
+        tileSet = new Texture("tilemaps/tutorial/tileset.png");
+        goodObjects = new Texture("tilemaps/good_objects.png");
+        badObjects = new Texture("tilemaps/bad_objects.png");
+        generator = new MazeGenerator(tileSet, goodObjects, badObjects);
+    }
+
+    @Benchmark
+    public TiledMap generate() {
+        return generator.generate(size, size, seed++);
+    }
+
+    /**
+     * Disposes the textures
+     */
+    @TearDown
+    public void tearDown() {
+        tileSet.dispose();
+        goodObjects.dispose();
+        badObjects.dispose();
+    }
+}
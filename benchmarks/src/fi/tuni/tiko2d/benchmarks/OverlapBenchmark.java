@@ -0,0 +1,78 @@
+package fi.tuni.tiko2d.benchmarks;
+
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.math.Circle;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.math.Rectangle;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+
+import fi.tuni.tiko2d.ObjectGrid;
+import fi.tuni.tiko2d.RaccoonRoll;
+import fi.tuni.tiko2d.TiledMapUtil;
+import fi.tuni.tiko2d.headless.HeadlessEnvironment;
+
+/**
+ * Measures the good and bad object overlap checks done every frame in the maze.
+ * The player circle is moved through the same pseudo random positions on every run
+ *
+ * @author Heikki Kangas
+ */
+@State(Scope.Thread)
+public class OverlapBenchmark {
+    @Param({"london", "egvekinot", "shanghai"})
+    public String levelName;
+
+    private final int positionCount = 1024;
+    private ObjectGrid goodObjectGrid;
+    private ObjectGrid badObjectGrid;
+    private float[] positions;
+    private Circle playerCircle;
+    private ArrayList<Rectangle> overlapping;
+    private int position;
+
+    /**
+     * Builds the object grids and the player positions
+     */
+    @Setup
+    public void setUp() {
+        HeadlessEnvironment.init();
+        RaccoonRoll game = new RaccoonRoll();
+        TiledMapUtil tiledMapUtil = new TiledMapUtil(game);
+        TiledMap tiledMap = HeadlessEnvironment.loadLevel(levelName);
+        MapProperties mapProps = tiledMap.getProperties();
+        int columns = mapProps.get("width", Integer.class);
+        int rows = mapProps.get("height", Integer.class);
+        float cellSize = 64f * game.getScale();
+
+        goodObjectGrid = new ObjectGrid(tiledMapUtil.getGoodRectangles(tiledMap), columns, rows, cellSize);
+        badObjectGrid = new ObjectGrid(tiledMapUtil.getBadRectangles(tiledMap), columns, rows, cellSize);
+        tiledMap.dispose();
+
+        RandomXS128 random = new RandomXS128(1234);
+        positions = new float[positionCount * 2];
+        for (int i = 0; i < positionCount; i++) {
+            positions[i * 2] = random.nextFloat() * columns * cellSize;
+            positions[i * 2 + 1] = random.nextFloat() * rows * cellSize;
+        }
+        playerCircle = new Circle(0, 0, 48 * game.getScale());
+        overlapping = new ArrayList<Rectangle>();
+    }
+
+    @Benchmark
+    public int checkOverlaps() {
+        position = (position + 1) & (positionCount - 1);
+        playerCircle.setPosition(positions[position * 2], positions[position * 2 + 1]);
+        goodObjectGrid.getOverlapping(playerCircle, overlapping);
+        int overlaps = overlapping.size();
+        badObjectGrid.getOverlapping(playerCircle, overlapping);
+        return overlaps + overlapping.size();
+    }
+}
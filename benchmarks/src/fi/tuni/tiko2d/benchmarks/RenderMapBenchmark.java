@@ -0,0 +1,71 @@
+package fi.tuni.tiko2d.benchmarks;
+
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import fi.tuni.tiko2d.ChunkedTiledMapRenderer;
+import fi.tuni.tiko2d.RaccoonRoll;
+import fi.tuni.tiko2d.headless.HeadlessEnvironment;
+import fi.tuni.tiko2d.headless.NoOpGL;
+
+/**
+ * Measures the CPU side of rendering a tilemap with ChunkedTiledMapRenderer while the camera
+ * moves diagonally across the map, so chunks keep coming into view on the big maps.
+ * GL calls do nothing so only building and selecting the chunks is measured
+ *
+ * @author Heikki Kangas
+ */
+@State(Scope.Thread)
+public class RenderMapBenchmark {
+    @Param({"shanghai", "generated-300", "generated-1000"})
+    public String levelName;
+
+    private final float speed = 0.1f;
+    private TiledMap tiledMap;
+    private ChunkedTiledMapRenderer renderer;
+    private OrthographicCamera camera;
+    private float mapWidth;
+    private float mapHeight;
+
+    /**
+     * Loads the level and creates the renderer
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        HeadlessEnvironment.init();
+        NoOpGL.install();
+        RaccoonRoll game = new RaccoonRoll();
+        tiledMap = HeadlessEnvironment.loadLevel(levelName);
+        renderer = new ChunkedTiledMapRenderer(tiledMap, game.getScale());
+        camera = new OrthographicCamera(10, 6);
+        mapWidth = tiledMap.getProperties().get("width", Integer.class) * 64 * game.getScale();
+        mapHeight = tiledMap.getProperties().get("height", Integer.class) * 64 * game.getScale();
+        camera.position.set(5, 3, 0);
+    }
+
+    /**
+     * Disposes the renderer and the map
+     */
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        renderer.dispose();
+        tiledMap.dispose();
+    }
+
+    @Benchmark
+    public void render() {
+        camera.position.x = (camera.position.x + speed) % mapWidth;
+        camera.position.y = (camera.position.y + speed) % mapHeight;
+        camera.update();
+        renderer.setView(camera);
+        renderer.render();
+    }
+}
@@ -0,0 +1,96 @@
+package fi.tuni.tiko2d.benchmarks;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.math.Rectangle;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import fi.tuni.tiko2d.CompiledLevel;
+import fi.tuni.tiko2d.MazeSimulation;
+import fi.tuni.tiko2d.Player;
+import fi.tuni.tiko2d.RaccoonRoll;
+import fi.tuni.tiko2d.headless.HeadlessEnvironment;
+import fi.tuni.tiko2d.headless.ScriptedInput;
+
+/**
+ * Measures one frame of the maze simulation: moving the player, overlap checks and stepping
+ * the world with FixedTimestep
+ *
+ * @author Heikki Kangas
+ */
+@State(Scope.Thread)
+public class StepWorldBenchmark {
+    @Param({"london", "egvekinot", "shanghai", "generated-1000"})
+    public String levelName;
+
+    private final float delta = 1 / 60f;
+    private TiledMap tiledMap;
+    private MazeSimulation simulation;
+
+    /**
+     * Loads the level and starts the player rolling around the maze
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        HeadlessEnvironment.init();
+        CompiledLevel level = HeadlessEnvironment.loadCompiledLevel(levelName);
+        tiledMap = level.getTiledMap();
+        Player player = new Player(new RaccoonRoll());
+        ScriptedInput input = new ScriptedInput();
+        for (int i = 0; i < 1000; i++) {
+            input.addStep(1, 30, 0);
+            input.addStep(1, 0, 30);
+            input.addStep(1, -30, 0);
+            input.addStep(1, 0, -30);
+        }
+        player.setInput(input);
+        simulation = new MazeSimulation(new RaccoonRoll(), tiledMap, level.getLevelData(), player, new NoListener());
+    }
+
+    /**
+     * Disposes the world and the map
+     */
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        simulation.dispose();
+        tiledMap.dispose();
+    }
+
+    @Benchmark
+    public void stepWorld() {
+        simulation.step(delta);
+    }
+
+    @Benchmark
+    public void updateAndStepWorld() {
+        simulation.update(delta);
+        simulation.step(delta);
+    }
+
+    /**
+     * Listener ignoring all the events
+     */
+    static class NoListener implements MazeSimulation.Listener {
+        @Override
+        public void goodObjectCollected(Rectangle rectangle) {
+        }
+
+        @Override
+        public void badObjectHit(Rectangle rectangle) {
+        }
+
+        @Override
+        public void goalReached() {
+        }
+
+        @Override
+        public void wallHit(float impulse) {
+        }
+    }
+}
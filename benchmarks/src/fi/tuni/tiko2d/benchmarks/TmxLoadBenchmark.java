@@ -0,0 +1,82 @@
+package fi.tuni.tiko2d.benchmarks;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+
+import fi.tuni.tiko2d.CompiledLevel;
+import fi.tuni.tiko2d.LevelData;
+import fi.tuni.tiko2d.RaccoonRoll;
+import fi.tuni.tiko2d.TiledMapUtil;
+import fi.tuni.tiko2d.headless.HeadlessEnvironment;
+
+/**
+ * Measures parsing each level's maze.tmx with TmxMapLoader and reading the level data from it
+ * against loading the same level compiled with {@link CompiledLevel}.
+ * Textures are created through a GL that does nothing so only parsing and image decoding is
+ * measured
+ *
+ * @author Heikki Kangas
+ */
+@State(Scope.Thread)
+public class TmxLoadBenchmark {
+    @Param({"tutorial", "london", "manchester", "paris", "marseille", "kairo", "alexandria",
+            "newyork", "philadelphia", "anadyr", "egvekinot", "peking", "shanghai"})
+    public String levelName;
+
+    private TiledMapUtil tiledMapUtil;
+    private FileHandle compiledFile;
+
+    /**
+     * Compiles the level to a temporary file
+     */
+    @Setup
+    public void setUp() throws IOException {
+        HeadlessEnvironment.init();
+        tiledMapUtil = new TiledMapUtil(new RaccoonRoll());
+        TiledMap tiledMap = HeadlessEnvironment.loadLevel(levelName);
+        compiledFile = FileHandle.tempFile(levelName);
+        CompiledLevel.write(tiledMap, tiledMapUtil.getLevelData(tiledMap), "tilemaps/" + levelName,
+                null, compiledFile.write(false));
+        tiledMap.dispose();
+    }
+
+    /**
+     * Deletes the temporary file
+     */
+    @TearDown
+    public void tearDown() {
+        compiledFile.delete();
+    }
+
+    @Benchmark
+    public TiledMap loadTmx() {
+        TiledMap tiledMap = HeadlessEnvironment.loadLevel(levelName);
+        tiledMap.dispose();
+        return tiledMap;
+    }
+
+    @Benchmark
+    public LevelData loadTmxAndLevelData() {
+        TiledMap tiledMap = HeadlessEnvironment.loadLevel(levelName);
+        LevelData levelData = tiledMapUtil.getLevelData(tiledMap);
+        tiledMap.dispose();
+        return levelData;
+    }
+
+    @Benchmark
+    public LevelData loadCompiled() {
+        CompiledLevel level = CompiledLevel.load(compiledFile, Texture.TextureFilter.Nearest);
+        level.getTiledMap().dispose();
+        return level.getLevelData();
+    }
+}
@@ -6,8 +6,9 @@ import com.badlogic.gdx.Screen;
 import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.scenes.scene2d.InputEvent;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.Label;
@@ -35,7 +36,7 @@ public class AboutScreen extends ApplicationAdapter implements Screen {
     private Stage stage;
     private float bgWidth;
     private float bgHeight;
-    private Texture background;
+    private TextureRegion background;
     private Label programmerTitle;
     private Label programmer1;
     private Label programmer2;
@@ -48,10 +49,25 @@ public class AboutScreen extends ApplicationAdapter implements Screen {
     private Label fontCredit;
     private Label uiCredit;
     private I18NBundle aboutBundle;
-    private boolean screenActive = true;
     private Options options;
     private AssetManager assetManager;
 
+    /**
+     * Returns the cached information screen, or queues its assets and returns a loading screen
+     * that shows it when the assets have been loaded
+     *
+     * @param game main game class
+     * @return the screen to show
+     */
+    public static Screen load(final RaccoonRoll game) {
+        return game.getScreens().get(AboutScreen.class, AssetGroup.ABOUT, new LoadingScreen.NextScreen() {
+            @Override
+            public Screen create() {
+                return new AboutScreen(game);
+            }
+        });
+    }
+
     /**
      * Sets up the information screen
      *
@@ -64,22 +80,26 @@ public class AboutScreen extends ApplicationAdapter implements Screen {
         options = game.getOptions();
         batch = game.getBatch();
         textCamera = game.getTextCamera();
-        background = assetManager.get("graphics/othermenus/Tausta75.png");
+        TextureAtlas atlas = assetManager.get("atlases/othermenus.atlas");
+        background = atlas.findRegion("Tausta75");
 
         stage = new Stage(new ScreenViewport(), batch);
-        Gdx.input.setInputProcessor(stage);
 
         aboutBundle = I18NBundle.createBundle(Gdx.files.internal("localization/AboutBundle"), options.getLocale());
 
-        bgWidth = game.scaleFromFHD(background.getWidth());
-        bgHeight = game.scaleFromFHD(background.getHeight());
+        bgWidth = game.scaleFromFHD(background.getRegionWidth());
+        bgHeight = game.scaleFromFHD(background.getRegionHeight());
 
         createTables();
     }
 
+    /**
+     * Resets the cached screen when it is shown
+     */
     @Override
     public void show() {
-
+        ScreenCache.resetStage(stage);
+        Gdx.input.setInputProcessor(stage);
     }
 
     /**
@@ -136,8 +156,7 @@ public class AboutScreen extends ApplicationAdapter implements Screen {
             @Override
             public void clicked(InputEvent event, float x, float y) {
                 Gdx.app.log("Back", "Button clicked");
-                game.setScreen(new MenuScreen(game));
-                screenActive = false;
+                game.setScreen(MenuScreen.load(game));
             }
         });
     }
@@ -180,10 +199,6 @@ public class AboutScreen extends ApplicationAdapter implements Screen {
 
         stage.act(Gdx.graphics.getDeltaTime());
         stage.draw();
-
-        if(!screenActive) {
-            dispose();
-        }
     }
 
     @Override
@@ -210,6 +225,7 @@ public class AboutScreen extends ApplicationAdapter implements Screen {
 
     @Override
     public void dispose() {
+        AssetGroup.ABOUT.unload(assetManager);
         stage.dispose();
         if (game.DEBUGGING()) {
             Gdx.app.log("Disposed", "AboutScreen");
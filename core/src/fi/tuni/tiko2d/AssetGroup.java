@@ -0,0 +1,124 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.audio.Music;
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+
+/**
+ * Assets needed by each screen.
+ * A screen queues its group before it is created and unloads it when disposed. AssetManager
+ * counts references so assets shared by several screens stay loaded while any of them uses them.
+ * Menu images are packed to atlases from the images folder with AtlasPacker of the headless module
+ *
+ * @author Heikki Kangas
+ */
+public enum AssetGroup {
+    MENU(
+            atlas("atlases/mainmenu.atlas"),
+            music("sounds/backgroundMusic/main_menu_loop.mp3")
+    ),
+    OPTIONS(
+            atlas("atlases/othermenus.atlas"),
+            music("sounds/backgroundMusic/main_menu_loop.mp3")
+    ),
+    ABOUT(
+            atlas("atlases/othermenus.atlas")
+    ),
+    LEVEL_COMPLETED(
+            atlas("atlases/othermenus.atlas"),
+            music("sounds/backgroundMusic/main_menu_loop.mp3")
+    ),
+    MAP(
+            texture("graphics/worldmap/map1.png"),
+            texture("graphics/worldmap/map2.png"),
+            atlas("atlases/worldmap.atlas"),
+            music("sounds/backgroundMusic/main_menu_loop.mp3")
+    ),
+    MAZE(
+            sound("sounds/wallHit/WALL_HIT_01.mp3"),
+            sound("sounds/wallHit/WALL_HIT_02.mp3"),
+            sound("sounds/wallHit/WALL_HIT_03.mp3"),
+            sound("sounds/wallHit/WALL_HIT_04.mp3"),
+            sound("sounds/wallHit/WALL_HIT_05.mp3"),
+            sound("sounds/badObject/BAD_01.mp3"),
+            sound("sounds/goodObject/GOOD_01.mp3"),
+            sound("sounds/victory/VICTORY_01.mp3"),
+            music("sounds/backgroundMusic/maze.mp3"),
+            atlas("graphics/player/roll_animation/racc_roll.txt")
+    ),
+    TUTORIAL(
+            texture("tilemaps/good_objects.png"),
+            texture("tilemaps/bad_objects.png"),
+            sound("sounds/wallHit/WALL_HIT_01.mp3"),
+            sound("sounds/wallHit/WALL_HIT_02.mp3"),
+            sound("sounds/wallHit/WALL_HIT_03.mp3"),
+            sound("sounds/wallHit/WALL_HIT_04.mp3"),
+            sound("sounds/wallHit/WALL_HIT_05.mp3"),
+            music("sounds/backgroundMusic/maze.mp3"),
+            atlas("graphics/player/roll_animation/racc_roll.txt")
+    );
+
+    private AssetDescriptor<?>[] assets;
+
+    /**
+     * Creates the group
+     *
+     * @param assets assets in the group
+     */
+    AssetGroup(AssetDescriptor<?>... assets) {
+        this.assets = assets;
+    }
+
+    /**
+     * Queues every asset of the group, already loaded assets get one more reference
+     *
+     * @param assetManager where to load
+     */
+    public void load(AssetManager assetManager) {
+        for (AssetDescriptor<?> asset : assets) {
+            assetManager.load(asset);
+        }
+    }
+
+    /**
+     * Removes one reference from every asset of the group, assets without references are disposed
+     *
+     * @param assetManager where the group was loaded
+     */
+    public void unload(AssetManager assetManager) {
+        for (AssetDescriptor<?> asset : assets) {
+            assetManager.unload(asset.fileName);
+        }
+    }
+
+    /**
+     * Creates descriptor for a texture
+     */
+    private static AssetDescriptor<Texture> texture(String fileName) {
+        return new AssetDescriptor<Texture>(fileName, Texture.class);
+    }
+
+    /**
+     * Creates descriptor for a sound effect
+     */
+    private static AssetDescriptor<Sound> sound(String fileName) {
+        return new AssetDescriptor<Sound>(fileName, Sound.class);
+    }
+
+    /**
+     * Creates descriptor for music
+     */
+    private static AssetDescriptor<Music> music(String fileName) {
+        return new AssetDescriptor<Music>(fileName, Music.class);
+    }
+
+    /**
+     * Creates descriptor for a texture atlas
+     */
+    private static AssetDescriptor<TextureAtlas> atlas(String fileName) {
+        return new AssetDescriptor<TextureAtlas>(fileName, TextureAtlas.class);
+    }
+}
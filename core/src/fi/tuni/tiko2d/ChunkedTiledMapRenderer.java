@@ -0,0 +1,468 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteCache;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.MapLayers;
+import com.badlogic.gdx.maps.MapRenderer;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Disposable;
+
+import java.util.Arrays;
+
+/**
+ * Renders the tile layers of a tilemap from meshes kept in the GPU instead of sending every
+ * visible tile to a SpriteBatch each frame.
+ * The map is split to square chunks that each have their own cache in a SpriteCache holding the
+ * visible layers in order, so a frame only draws the chunks inside the camera view with one draw
+ * call each.
+ * A chunk is rebuilt when a tile in it is removed with {@link #invalidate(Rectangle)} and all the
+ * chunks are rebuilt when the visibility of a layer changes, for example when the goal is shown.
+ * Maps with more than {@link #MAX_RESIDENT_CHUNKS} chunks keep only that many chunks in the GPU:
+ * a chunk coming into view takes the place of the chunk that has been out of view the longest,
+ * so the memory used does not grow with the size of the map.
+ * Tiles are not animated
+ *
+ * @author Heikki Kangas
+ */
+public class ChunkedTiledMapRenderer implements MapRenderer, Disposable {
+    private static final int X1 = 0, Y1 = 1, C1 = 2, U1 = 3, V1 = 4;
+    private static final int X2 = 5, Y2 = 6, C2 = 7, U2 = 8, V2 = 9;
+    private static final int X3 = 10, Y3 = 11, C3 = 12, U3 = 13, V3 = 14;
+    private static final int X4 = 15, Y4 = 16, C4 = 17, U4 = 18, V4 = 19;
+
+    /**
+     * How many chunks are kept in the GPU at most, enough for the view and the chunks around it
+     */
+    public static final int MAX_RESIDENT_CHUNKS = 64;
+
+    private final int chunkSize = 16;
+
+    private TiledMap map;
+    private float unitScale;
+    private int tileWidth;
+    private int tileHeight;
+    private int chunkColumns;
+    private int chunkRows;
+    private int chunkCount;
+    private SpriteCache cache;
+    private boolean[] layerVisible;
+    private int[] chunkSlots;
+    private int[] slotChunks;
+    private int[] slotFrames;
+    private int frame;
+
+    private Matrix4 projection;
+    private Rectangle viewBounds;
+    private float[] vertices;
+    private float[] triangles;
+
+    /**
+     * Creates the chunks and builds their meshes from the current tiles of the map. If the map has
+     * too many chunks to keep them all, room is reserved for {@link #MAX_RESIDENT_CHUNKS} chunks
+     * and they are built when they come into view
+     *
+     * @param map       tilemap to render, its tile layers must be the same size
+     * @param unitScale how many world units one pixel of a tile is
+     */
+    public ChunkedTiledMapRenderer(TiledMap map, float unitScale) {
+        this.map = map;
+        this.unitScale = unitScale;
+        tileWidth = map.getProperties().get("tilewidth", Integer.class);
+        tileHeight = map.getProperties().get("tileheight", Integer.class);
+        chunkColumns = (map.getProperties().get("width", Integer.class) + chunkSize - 1) / chunkSize;
+        chunkRows = (map.getProperties().get("height", Integer.class) + chunkSize - 1) / chunkSize;
+
+        projection = new Matrix4();
+        viewBounds = new Rectangle();
+        vertices = new float[20];
+        triangles = new float[30];
+        chunkCount = chunkColumns * chunkRows;
+        layerVisible = new boolean[map.getLayers().getCount()];
+        updateLayerVisibility();
+
+        int[] chunkTiles = countChunkTiles();
+        int slotCount = Math.min(chunkCount, MAX_RESIDENT_CHUNKS);
+        chunkSlots = new int[chunkCount];
+        slotChunks = new int[slotCount];
+        slotFrames = new int[slotCount];
+        Arrays.fill(chunkSlots, -1);
+        Arrays.fill(slotChunks, -1);
+
+        if (slotCount == chunkCount) {
+            int tiles = 0;
+            for (int count : chunkTiles) {
+                tiles += count;
+            }
+            cache = new SpriteCache(Math.max(1, tiles), false);
+            for (int i = 0; i < chunkCount; i++) {
+                reserveChunk(i % chunkColumns, i / chunkColumns);
+                chunkSlots[i] = i;
+                slotChunks[i] = i;
+            }
+            buildAllChunks();
+        } else {
+            // Every slot is reserved with the tiles of the fullest chunk so any chunk fits in it
+            int fullest = 0;
+            for (int i = 1; i < chunkCount; i++) {
+                if (chunkTiles[i] > chunkTiles[fullest]) {
+                    fullest = i;
+                }
+            }
+            cache = new SpriteCache(Math.max(1, chunkTiles[fullest] * slotCount), false);
+            for (int i = 0; i < slotCount; i++) {
+                reserveChunk(fullest % chunkColumns, fullest / chunkColumns);
+                slotFrames[i] = -1;
+            }
+        }
+    }
+
+    /**
+     * Sets the view to the area the camera sees
+     *
+     * @param camera camera showing the map
+     */
+    @Override
+    public void setView(OrthographicCamera camera) {
+        float width = camera.viewportWidth * camera.zoom;
+        float height = camera.viewportHeight * camera.zoom;
+        setView(camera.combined, camera.position.x - width / 2, camera.position.y - height / 2, width, height);
+    }
+
+    /**
+     * Sets the projection and the area that is drawn
+     *
+     * @param projectionMatrix projection used for drawing
+     * @param viewboundsX      left edge of the view in world units
+     * @param viewboundsY      bottom edge of the view in world units
+     * @param viewboundsWidth  width of the view in world units
+     * @param viewboundsHeight height of the view in world units
+     */
+    @Override
+    public void setView(Matrix4 projectionMatrix, float viewboundsX, float viewboundsY,
+                        float viewboundsWidth, float viewboundsHeight) {
+        projection.set(projectionMatrix);
+        viewBounds.set(viewboundsX, viewboundsY, viewboundsWidth, viewboundsHeight);
+    }
+
+    /**
+     * Draws the chunks inside the view
+     */
+    @Override
+    public void render() {
+        if (updateLayerVisibility()) {
+            buildAllChunks();
+        }
+
+        float chunkWidth = chunkSize * tileWidth * unitScale;
+        float chunkHeight = chunkSize * tileHeight * unitScale;
+        int startX = Math.max(0, (int) (viewBounds.x / chunkWidth));
+        int startY = Math.max(0, (int) (viewBounds.y / chunkHeight));
+        int endX = Math.min(chunkColumns - 1, (int) ((viewBounds.x + viewBounds.width) / chunkWidth));
+        int endY = Math.min(chunkRows - 1, (int) ((viewBounds.y + viewBounds.height) / chunkHeight));
+
+        frame++;
+        for (int y = startY; y <= endY; y++) {
+            for (int x = startX; x <= endX; x++) {
+                makeResident(x, y);
+            }
+        }
+
+        Gdx.gl.glEnable(GL20.GL_BLEND);
+        Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+        cache.setProjectionMatrix(projection);
+        cache.begin();
+        for (int y = startY; y <= endY; y++) {
+            for (int x = startX; x <= endX; x++) {
+                int slot = chunkSlots[y * chunkColumns + x];
+                if (slot != -1) {
+                    cache.draw(slot);
+                }
+            }
+        }
+        cache.end();
+        Gdx.gl.glDisable(GL20.GL_BLEND);
+    }
+
+    /**
+     * Draws all the chunks, layers can not be selected since each chunk holds all the layers
+     *
+     * @param layers not used
+     */
+    @Override
+    public void render(int[] layers) {
+        render();
+    }
+
+    /**
+     * Rebuilds the chunks under a rectangle after its tiles have been changed
+     *
+     * @param rectangle changed area in world units
+     */
+    public void invalidate(Rectangle rectangle) {
+        float chunkWidth = chunkSize * tileWidth * unitScale;
+        float chunkHeight = chunkSize * tileHeight * unitScale;
+        int startX = Math.max(0, (int) (rectangle.x / chunkWidth));
+        int startY = Math.max(0, (int) (rectangle.y / chunkHeight));
+        int endX = Math.min(chunkColumns - 1, (int) ((rectangle.x + rectangle.width) / chunkWidth));
+        int endY = Math.min(chunkRows - 1, (int) ((rectangle.y + rectangle.height) / chunkHeight));
+        for (int y = startY; y <= endY; y++) {
+            for (int x = startX; x <= endX; x++) {
+                if (chunkSlots[y * chunkColumns + x] != -1) {
+                    buildChunk(x, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds a chunk in view to the slot that has been out of view the longest if it is not
+     * in the GPU already. If every slot is in view the chunk is left out of this frame
+     */
+    private void makeResident(int chunkX, int chunkY) {
+        int chunk = chunkY * chunkColumns + chunkX;
+        int slot = chunkSlots[chunk];
+        if (slot == -1) {
+            slot = 0;
+            for (int i = 1; i < slotFrames.length; i++) {
+                if (slotFrames[i] < slotFrames[slot]) {
+                    slot = i;
+                }
+            }
+            if (slotFrames[slot] == frame) {
+                return;
+            }
+            if (slotChunks[slot] != -1) {
+                chunkSlots[slotChunks[slot]] = -1;
+            }
+            chunkSlots[chunk] = slot;
+            slotChunks[slot] = chunk;
+            buildChunk(chunkX, chunkY);
+        }
+        slotFrames[slot] = frame;
+    }
+
+    /**
+     * Getter for the amount of chunks in the GPU
+     *
+     * @return amount of chunks that have been built
+     */
+    public int getResidentChunkCount() {
+        int resident = 0;
+        for (int chunk : slotChunks) {
+            if (chunk != -1) {
+                resident++;
+            }
+        }
+        return resident;
+    }
+
+    /**
+     * Stores the visibility of every layer
+     *
+     * @return true if the visibility of any layer changed
+     */
+    private boolean updateLayerVisibility() {
+        boolean changed = false;
+        MapLayers layers = map.getLayers();
+        for (int i = 0; i < layerVisible.length; i++) {
+            boolean visible = layers.get(i).isVisible();
+            changed |= visible != layerVisible[i];
+            layerVisible[i] = visible;
+        }
+        return changed;
+    }
+
+    /**
+     * Counts the tiles of all the tile layers in each chunk
+     */
+    private int[] countChunkTiles() {
+        int[] counts = new int[chunkCount];
+        for (MapLayer layer : map.getLayers()) {
+            if (layer instanceof TiledMapTileLayer) {
+                TiledMapTileLayer tileLayer = (TiledMapTileLayer) layer;
+                for (int y = 0; y < tileLayer.getHeight(); y++) {
+                    for (int x = 0; x < tileLayer.getWidth(); x++) {
+                        TiledMapTileLayer.Cell cell = tileLayer.getCell(x, y);
+                        if (cell != null && cell.getTile() != null) {
+                            counts[y / chunkSize * chunkColumns + x / chunkSize]++;
+                        }
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Creates the cache of a chunk with the tiles of all the layers, hidden layers included.
+     * A cache can not grow after it has been created so this reserves room for every tile
+     * the chunk can ever show
+     */
+    private void reserveChunk(int chunkX, int chunkY) {
+        cache.beginCache();
+        for (MapLayer layer : map.getLayers()) {
+            if (layer instanceof TiledMapTileLayer) {
+                addTiles((TiledMapTileLayer) layer, chunkX, chunkY);
+            }
+        }
+        cache.endCache();
+    }
+
+    /**
+     * Rebuilds every chunk in the GPU
+     */
+    private void buildAllChunks() {
+        for (int chunk : slotChunks) {
+            if (chunk != -1) {
+                buildChunk(chunk % chunkColumns, chunk / chunkColumns);
+            }
+        }
+    }
+
+    /**
+     * Redefines the cache in the slot of a chunk with the tiles of the visible layers
+     */
+    private void buildChunk(int chunkX, int chunkY) {
+        cache.beginCache(chunkSlots[chunkY * chunkColumns + chunkX]);
+        for (MapLayer layer : map.getLayers()) {
+            if (layer.isVisible() && layer instanceof TiledMapTileLayer) {
+                addTiles((TiledMapTileLayer) layer, chunkX, chunkY);
+            }
+        }
+        cache.endCache();
+    }
+
+    /**
+     * Adds the tiles of one layer inside a chunk to the cache, flipped and rotated like
+     * OrthogonalTiledMapRenderer does
+     */
+    private void addTiles(TiledMapTileLayer layer, int chunkX, int chunkY) {
+        float color = Color.toFloatBits(1f, 1f, 1f, layer.getOpacity());
+        float layerTileWidth = layer.getTileWidth() * unitScale;
+        float layerTileHeight = layer.getTileHeight() * unitScale;
+
+        for (int row = chunkY * chunkSize; row < (chunkY + 1) * chunkSize; row++) {
+            for (int col = chunkX * chunkSize; col < (chunkX + 1) * chunkSize; col++) {
+                TiledMapTileLayer.Cell cell = layer.getCell(col, row);
+                if (cell == null || cell.getTile() == null) {
+                    continue;
+                }
+                TiledMapTile tile = cell.getTile();
+                TextureRegion region = tile.getTextureRegion();
+
+                float x1 = col * layerTileWidth + tile.getOffsetX() * unitScale;
+                float y1 = row * layerTileHeight + tile.getOffsetY() * unitScale;
+                float x2 = x1 + region.getRegionWidth() * unitScale;
+                float y2 = y1 + region.getRegionHeight() * unitScale;
+
+                vertices[X1] = x1;
+                vertices[Y1] = y1;
+                vertices[C1] = color;
+                vertices[U1] = region.getU();
+                vertices[V1] = region.getV2();
+
+                vertices[X2] = x1;
+                vertices[Y2] = y2;
+                vertices[C2] = color;
+                vertices[U2] = region.getU();
+                vertices[V2] = region.getV();
+
+                vertices[X3] = x2;
+                vertices[Y3] = y2;
+                vertices[C3] = color;
+                vertices[U3] = region.getU2();
+                vertices[V3] = region.getV();
+
+                vertices[X4] = x2;
+                vertices[Y4] = y1;
+                vertices[C4] = color;
+                vertices[U4] = region.getU2();
+                vertices[V4] = region.getV2();
+
+                if (cell.getFlipHorizontally()) {
+                    swap(U1, U3);
+                    swap(U2, U4);
+                }
+                if (cell.getFlipVertically()) {
+                    swap(V1, V3);
+                    swap(V2, V4);
+                }
+                rotate(cell.getRotation());
+                addQuad(region.getTexture());
+            }
+        }
+    }
+
+    /**
+     * Adds the current tile as two triangles since the cache is too big to use indices
+     */
+    private void addQuad(Texture texture) {
+        System.arraycopy(vertices, X1, triangles, 0, 15);
+        System.arraycopy(vertices, X3, triangles, 15, 5);
+        System.arraycopy(vertices, X4, triangles, 20, 5);
+        System.arraycopy(vertices, X1, triangles, 25, 5);
+        cache.add(texture, triangles, 0, 30);
+    }
+
+    /**
+     * Rotates the texture coordinates of the current tile by 90 degree steps
+     */
+    private void rotate(int rotation) {
+        switch (rotation) {
+            case TiledMapTileLayer.Cell.ROTATE_90:
+                shift(V1, V2, V3, V4);
+                shift(U1, U2, U3, U4);
+                break;
+            case TiledMapTileLayer.Cell.ROTATE_180:
+                swap(U1, U3);
+                swap(U2, U4);
+                swap(V1, V3);
+                swap(V2, V4);
+                break;
+            case TiledMapTileLayer.Cell.ROTATE_270:
+                shift(V1, V4, V3, V2);
+                shift(U1, U4, U3, U2);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Swaps two values of the current tile's vertices
+     */
+    private void swap(int a, int b) {
+        float temp = vertices[a];
+        vertices[a] = vertices[b];
+        vertices[b] = temp;
+    }
+
+    /**
+     * Moves every value to the previous index, the first one to the last index
+     */
+    private void shift(int a, int b, int c, int d) {
+        float temp = vertices[a];
+        vertices[a] = vertices[b];
+        vertices[b] = vertices[c];
+        vertices[c] = vertices[d];
+        vertices[d] = temp;
+    }
+
+    /**
+     * Disposes the mesh holding the chunks
+     */
+    @Override
+    public void dispose() {
+        cache.dispose();
+    }
+}
@@ -0,0 +1,441 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSets;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Level compiled from maze.tmx to a compact binary file so entering a level does not need to
+ * parse XML or walk the object layers.
+ * The file contains {@link LevelData}, the tilesets and the raw cells of every tile layer,
+ * compressed with deflate. Tilesets are regions of the images listed at the start of the file,
+ * usually all the tilesets of a level are packed to one atlas page so the level is drawn from one texture
+ *
+ * @author Heikki Kangas
+ */
+public class CompiledLevel implements Disposable {
+    private static final int MAGIC = 0x52524c56;
+    private static final int VERSION = 2;
+
+    private static final int FLAG_FLIP_HORIZONTALLY = 0x80000000;
+    private static final int FLAG_FLIP_VERTICALLY = 0x40000000;
+    private static final int ROTATION_SHIFT = 28;
+    private static final int MASK_ID = 0x0fffffff;
+
+    private TiledMap tiledMap;
+    private LevelData levelData;
+
+    /**
+     * Creates compiled level from loaded tilemap and level data
+     *
+     * @param tiledMap  tilemap with tile layers
+     * @param levelData game play data of the level
+     */
+    public CompiledLevel(TiledMap tiledMap, LevelData levelData) {
+        this.tiledMap = tiledMap;
+        this.levelData = levelData;
+    }
+
+    /**
+     * Writes the level data, tilesets and tile layers of the given tilemap.
+     * Object layers are not written, their content is in the level data.
+     * If the tileset images have been packed to an atlas the tiles are cut from its pages,
+     * otherwise from the original images
+     *
+     * @param tiledMap     tilemap loaded from maze.tmx
+     * @param levelData    game play data of the level
+     * @param imageRoot    folder the tileset image paths are relative to, written relative to assets
+     * @param tileSetAtlas tileset images packed with region names from {@link #getImagePath(TiledMapTileSet, String)},
+     *                     null to use the original images
+     * @param output       where to write
+     * @throws IOException if writing fails
+     */
+    public static void write(TiledMap tiledMap, LevelData levelData, String imageRoot,
+                             TextureAtlas.TextureAtlasData tileSetAtlas, OutputStream output) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(output)));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+
+        TiledMapTileSets tileSets = tiledMap.getTileSets();
+        Array<String> imagePaths = new Array<String>();
+        IntArray pages = new IntArray();
+        Array<Rectangle> regions = new Array<Rectangle>();
+        for (TiledMapTileSet tileSet : tileSets) {
+            String imagePath = getImagePath(tileSet, imageRoot);
+            if (tileSetAtlas == null) {
+                MapProperties props = tileSet.getProperties();
+                regions.add(new Rectangle(0, 0, props.get("imagewidth", Integer.class),
+                        props.get("imageheight", Integer.class)));
+            } else {
+                TextureAtlas.TextureAtlasData.Region region = findRegion(tileSetAtlas, imagePath);
+                imagePath = normalizePath(imageRoot + "/" + region.page.textureFile.name());
+                regions.add(new Rectangle(region.left, region.top, region.width, region.height));
+            }
+            if (!imagePaths.contains(imagePath, false)) {
+                imagePaths.add(imagePath);
+            }
+            pages.add(imagePaths.indexOf(imagePath, false));
+        }
+        out.writeInt(imagePaths.size);
+        for (String imagePath : imagePaths) {
+            out.writeUTF(imagePath);
+        }
+
+        levelData.write(out);
+        out.writeInt(regions.size);
+        int index = 0;
+        for (TiledMapTileSet tileSet : tileSets) {
+            MapProperties props = tileSet.getProperties();
+            Rectangle region = regions.get(index);
+            out.writeInt(pages.get(index++));
+            out.writeInt((int) region.x);
+            out.writeInt((int) region.y);
+            out.writeInt((int) region.width);
+            out.writeInt((int) region.height);
+            out.writeInt(props.get("firstgid", Integer.class));
+            out.writeInt(props.get("tilewidth", Integer.class));
+            out.writeInt(props.get("tileheight", Integer.class));
+            out.writeInt(props.get("margin", Integer.class));
+            out.writeInt(props.get("spacing", Integer.class));
+        }
+
+        Array<TiledMapTileLayer> tileLayers = tiledMap.getLayers().getByType(TiledMapTileLayer.class);
+        out.writeInt(tileLayers.size);
+        for (TiledMapTileLayer layer : tileLayers) {
+            out.writeUTF(layer.getName());
+            out.writeBoolean(layer.isVisible());
+            out.writeFloat(layer.getOpacity());
+            out.writeInt(layer.getWidth());
+            out.writeInt(layer.getHeight());
+            for (int y = 0; y < layer.getHeight(); y++) {
+                for (int x = 0; x < layer.getWidth(); x++) {
+                    out.writeInt(encodeCell(layer.getCell(x, y)));
+                }
+            }
+        }
+        out.close();
+    }
+
+    /**
+     * Getter for the path of a tileset image relative to assets, also used as its region name
+     * when the tileset images are packed to an atlas
+     *
+     * @param tileSet   tileset loaded from maze.tmx
+     * @param imageRoot folder the tileset image paths are relative to
+     * @return path of the tileset image
+     */
+    public static String getImagePath(TiledMapTileSet tileSet, String imageRoot) {
+        String imageSource = tileSet.getProperties().get("imagesource", String.class);
+        return normalizePath(imageRoot + "/" + imageSource);
+    }
+
+    /**
+     * Finds packed tileset image from the atlas
+     */
+    private static TextureAtlas.TextureAtlasData.Region findRegion(TextureAtlas.TextureAtlasData atlas,
+                                                                   String name) {
+        for (TextureAtlas.TextureAtlasData.Region region : atlas.getRegions()) {
+            if (region.name.equals(name)) {
+                return region;
+            }
+        }
+        throw new GdxRuntimeException("Tileset image not found from atlas: " + name);
+    }
+
+    /**
+     * Getter for the file a level is loaded from: maze.bin if the level has been compiled,
+     * otherwise maze.tmx
+     *
+     * @param levelName name of the level under tilemaps/
+     * @return path of the level file
+     */
+    public static String getFileName(String levelName) {
+        String compiledFile = "tilemaps/" + levelName + "/maze.bin";
+        if (Gdx.files.internal(compiledFile).exists()) {
+            return compiledFile;
+        }
+        return "tilemaps/" + levelName + "/maze.tmx";
+    }
+
+    /**
+     * Loads tilemaps/levelName/maze.bin, or maze.tmx if the level has not been compiled
+     *
+     * @param levelName    name of the level under tilemaps/
+     * @param tiledMapUtil used for reading the level data from maze.tmx
+     * @param filter       filter used for the tileset textures
+     * @return the loaded level
+     */
+    public static CompiledLevel loadLevel(String levelName, TiledMapUtil tiledMapUtil,
+                                          Texture.TextureFilter filter) {
+        String fileName = getFileName(levelName);
+        if (fileName.endsWith(".bin")) {
+            return load(Gdx.files.internal(fileName), filter);
+        }
+        TmxMapLoader.Parameters parameters = new TmxMapLoader.Parameters();
+        parameters.textureMinFilter = filter;
+        parameters.textureMagFilter = filter;
+        TiledMap tiledMap = new TmxMapLoader().load(fileName, parameters);
+        return new CompiledLevel(tiledMap, tiledMapUtil.getLevelData(tiledMap));
+    }
+
+    /**
+     * Loads a compiled level and creates the tilemap and textures it needs.
+     * The textures are owned and disposed by the tilemap
+     *
+     * @param file   compiled level file
+     * @param filter filter used for the tileset textures
+     * @return the loaded level
+     */
+    public static CompiledLevel load(FileHandle file, Texture.TextureFilter filter) {
+        Array<Texture> textures = new Array<Texture>();
+        for (String imagePath : readImagePaths(file)) {
+            Texture texture = new Texture(Gdx.files.internal(imagePath));
+            texture.setFilter(filter, filter);
+            textures.add(texture);
+        }
+        CompiledLevel level = read(file, textures);
+        level.getTiledMap().setOwnedResources(textures);
+        return level;
+    }
+
+    /**
+     * Reads only the paths of the images the tiles are cut from, either the tileset images
+     * or the pages of the atlas they were packed to
+     *
+     * @param file compiled level file
+     * @return internal paths of the images
+     */
+    public static Array<String> readImagePaths(FileHandle file) {
+        DataInputStream in = openFile(file);
+        try {
+            int imageCount = in.readInt();
+            Array<String> imagePaths = new Array<String>(imageCount);
+            for (int i = 0; i < imageCount; i++) {
+                imagePaths.add(in.readUTF());
+            }
+            return imagePaths;
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Couldn't load compiled level '" + file.path() + "'", e);
+        } finally {
+            closeFile(in);
+        }
+    }
+
+    /**
+     * Reads a compiled level using already loaded tileset textures.
+     * Does not touch OpenGL so it can be called outside the rendering thread
+     *
+     * @param file     compiled level file
+     * @param textures textures of the images in the order of {@link #readImagePaths(FileHandle)}
+     * @return the read level
+     */
+    public static CompiledLevel read(FileHandle file, Array<Texture> textures) {
+        DataInputStream in = openFile(file);
+        try {
+            int imageCount = in.readInt();
+            for (int i = 0; i < imageCount; i++) {
+                in.readUTF();
+            }
+            LevelData levelData = LevelData.read(in);
+
+            TiledMap tiledMap = new TiledMap();
+            int tileSetCount = in.readInt();
+            for (int i = 0; i < tileSetCount; i++) {
+                tiledMap.getTileSets().addTileSet(readTileSet(in, textures));
+            }
+
+            MapProperties mapProps = tiledMap.getProperties();
+            mapProps.put("width", levelData.getColumns());
+            mapProps.put("height", levelData.getRows());
+            mapProps.put("tilewidth", (int) levelData.getTileSize());
+            mapProps.put("tileheight", (int) levelData.getTileSize());
+
+            int layerCount = in.readInt();
+            for (int i = 0; i < layerCount; i++) {
+                tiledMap.getLayers().add(readLayer(in, tiledMap.getTileSets(), levelData.getTileSize()));
+            }
+            return new CompiledLevel(tiledMap, levelData);
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Couldn't load compiled level '" + file.path() + "'", e);
+        } finally {
+            closeFile(in);
+        }
+    }
+
+    /**
+     * Opens compiled level for reading and checks its header
+     */
+    private static DataInputStream openFile(FileHandle file) {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(file.read())));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new GdxRuntimeException("Not a compiled level or wrong version: " + file.path());
+            }
+        } catch (IOException e) {
+            closeFile(in);
+            throw new GdxRuntimeException("Couldn't load compiled level '" + file.path() + "'", e);
+        }
+        return in;
+    }
+
+    /**
+     * Closes the stream ignoring errors
+     */
+    private static void closeFile(DataInputStream in) {
+        try {
+            in.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Reads one tileset and cuts its image region to tiles like TmxMapLoader does
+     */
+    private static TiledMapTileSet readTileSet(DataInputStream in, Array<Texture> textures) throws IOException {
+        Texture texture = textures.get(in.readInt());
+        int regionX = in.readInt();
+        int regionY = in.readInt();
+        int regionWidth = in.readInt();
+        int regionHeight = in.readInt();
+        int firstgid = in.readInt();
+        int tileWidth = in.readInt();
+        int tileHeight = in.readInt();
+        int margin = in.readInt();
+        int spacing = in.readInt();
+
+        TiledMapTileSet tileSet = new TiledMapTileSet();
+        tileSet.getProperties().put("firstgid", firstgid);
+        int stopWidth = regionX + regionWidth - tileWidth;
+        int stopHeight = regionY + regionHeight - tileHeight;
+        int id = firstgid;
+        for (int y = regionY + margin; y <= stopHeight; y += tileHeight + spacing) {
+            for (int x = regionX + margin; x <= stopWidth; x += tileWidth + spacing) {
+                TiledMapTile tile = new StaticTiledMapTile(new TextureRegion(texture, x, y, tileWidth, tileHeight));
+                tile.setId(id);
+                tileSet.putTile(id++, tile);
+            }
+        }
+        return tileSet;
+    }
+
+    /**
+     * Reads one tile layer and its cells
+     */
+    private static MapLayer readLayer(DataInputStream in, TiledMapTileSets tileSets, float tileSize) throws IOException {
+        String name = in.readUTF();
+        boolean visible = in.readBoolean();
+        float opacity = in.readFloat();
+        int width = in.readInt();
+        int height = in.readInt();
+
+        TiledMapTileLayer layer = new TiledMapTileLayer(width, height, (int) tileSize, (int) tileSize);
+        layer.setName(name);
+        layer.setVisible(visible);
+        layer.setOpacity(opacity);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int value = in.readInt();
+                if (value == 0) {
+                    continue;
+                }
+                TiledMapTileLayer.Cell cell = new TiledMapTileLayer.Cell();
+                cell.setTile(tileSets.getTile(value & MASK_ID));
+                cell.setFlipHorizontally((value & FLAG_FLIP_HORIZONTALLY) != 0);
+                cell.setFlipVertically((value & FLAG_FLIP_VERTICALLY) != 0);
+                cell.setRotation((value >>> ROTATION_SHIFT) & 3);
+                layer.setCell(x, y, cell);
+            }
+        }
+        return layer;
+    }
+
+    /**
+     * Encodes cell's tile id, flips and rotation to one int, 0 for empty cell
+     */
+    private static int encodeCell(TiledMapTileLayer.Cell cell) {
+        if (cell == null || cell.getTile() == null) {
+            return 0;
+        }
+        int value = cell.getTile().getId() & MASK_ID;
+        if (cell.getFlipHorizontally()) {
+            value |= FLAG_FLIP_HORIZONTALLY;
+        }
+        if (cell.getFlipVertically()) {
+            value |= FLAG_FLIP_VERTICALLY;
+        }
+        return value | (cell.getRotation() & 3) << ROTATION_SHIFT;
+    }
+
+    /**
+     * Removes "folder/.." parts from the path so it works with internal files on Android
+     */
+    private static String normalizePath(String path) {
+        Array<String> parts = new Array<String>();
+        for (String part : path.split("/")) {
+            if (part.equals("..") && parts.size > 0 && !parts.peek().equals("..")) {
+                parts.pop();
+            } else if (!part.equals(".") && part.length() > 0) {
+                parts.add(part);
+            }
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < parts.size; i++) {
+            if (i > 0) {
+                builder.append('/');
+            }
+            builder.append(parts.get(i));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Getter for the tilemap containing the tile layers
+     *
+     * @return the tilemap
+     */
+    public TiledMap getTiledMap() {
+        return tiledMap;
+    }
+
+    /**
+     * Getter for the game play data of the level
+     *
+     * @return the level data
+     */
+    public LevelData getLevelData() {
+        return levelData;
+    }
+
+    /**
+     * Disposes the tilemap and the textures it owns
+     */
+    @Override
+    public void dispose() {
+        tiledMap.dispose();
+    }
+}
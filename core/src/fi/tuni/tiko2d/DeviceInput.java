@@ -0,0 +1,69 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * Reads the player's force from keys pressed (desktop) or accelerometer values (android)
+ *
+ * @author Heikki Kangas
+ */
+public class DeviceInput implements PlayerInput {
+    private final boolean debugAccelerometer = false;
+    private RaccoonRoll game;
+
+    /**
+     * Creates input reading the device the game is running on
+     *
+     * @param game main game class
+     */
+    public DeviceInput(RaccoonRoll game) {
+        this.game = game;
+    }
+
+    /**
+     * Reads the force from arrow keys on desktop or from accelerometer on android
+     *
+     * @param deltatime how long since last frame
+     * @param force     vector where the force is stored
+     */
+    @Override
+    public void getForce(float deltatime, Vector2 force) {
+        float x = 0;
+        float y = 0;
+
+        if (Gdx.app.getType() == Application.ApplicationType.Desktop) {
+            if (Gdx.input.isKeyPressed(Input.Keys.RIGHT)) {
+                x = 30f * deltatime;
+            } else if (Gdx.input.isKeyPressed(Input.Keys.LEFT)) {
+                x = -30f * deltatime;
+            }
+            if (Gdx.input.isKeyPressed(Input.Keys.UP)) {
+                y = 30f * deltatime;
+            } else if (Gdx.input.isKeyPressed(Input.Keys.DOWN)) {
+                y = -30f * deltatime;
+            }
+        } else if (Gdx.app.getType() == Application.ApplicationType.Android) {
+            x = MathUtils.clamp(Gdx.input.getAccelerometerY() * 15, -100f, 100f) * deltatime;
+            y = MathUtils.clamp(Gdx.input.getAccelerometerX() * 15, -100f, 100f) * deltatime;
+            if (game.DEBUGGING() && debugAccelerometer) {
+                Gdx.app.log("Accelerometer", "X: " + x / deltatime + " Y: " + y / deltatime);
+            }
+            if (x < 0.2 && x > -0.2) {
+                x = 0;
+            }
+            if (y < 0.2 && y > -0.2) {
+                y = 0;
+            }
+            if (y > 0) {
+                y = -y;
+            } else {
+                y = Math.abs(y);
+            }
+        }
+        force.set(x, y);
+    }
+}
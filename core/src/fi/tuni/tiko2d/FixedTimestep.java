@@ -0,0 +1,118 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.gdx.physics.box2d.World;
+
+/**
+ * Steps the world with fixed length steps so the simulation runs at the same speed regardless
+ * of the frame rate.
+ * Frame time is collected to an accumulator and as many steps are taken as fit in it, the time
+ * left over is kept for the next frame and used for interpolating the player between the last
+ * two steps
+ *
+ * @author Heikki Kangas
+ */
+public class FixedTimestep {
+    /**
+     * Steps per second the player movement was tuned with
+     */
+    public static final int DEFAULT_STEPS_PER_SECOND = 61;
+
+    private final float maxFrameTime = 1 / 4f;
+
+    private int stepsPerSecond;
+    private float stepTime;
+    private int velocityIterations;
+    private int positionIterations;
+    private float accumulator;
+    private float alpha;
+
+    /**
+     * Creates timestep with the default step rate and Box2D iterations
+     */
+    public FixedTimestep() {
+        this(DEFAULT_STEPS_PER_SECOND, 6, 2);
+    }
+
+    /**
+     * Creates timestep with given step rate and Box2D iterations
+     *
+     * @param stepsPerSecond     how many steps are taken per second, lower is lighter for weak devices
+     * @param velocityIterations Box2D velocity iterations per step
+     * @param positionIterations Box2D position iterations per step
+     */
+    public FixedTimestep(int stepsPerSecond, int velocityIterations, int positionIterations) {
+        this.stepsPerSecond = stepsPerSecond;
+        stepTime = 1f / stepsPerSecond;
+        this.velocityIterations = velocityIterations;
+        this.positionIterations = positionIterations;
+    }
+
+    /**
+     * Adds frame time to the accumulator and moves the player and steps the world for every
+     * full step in it. Frames longer than 1/4s are cut so a hiccup does not cause a burst of steps
+     *
+     * @param delta  time since last frame
+     * @param world  world to step
+     * @param player player moved before every step
+     * @return how many steps were taken
+     */
+    public int update(float delta, World world, Player player) {
+        accumulator += Math.min(delta, maxFrameTime);
+        int steps = 0;
+        while (accumulator >= stepTime) {
+            player.savePreviousPosition();
+            player.movePlayer(stepTime);
+            world.step(stepTime, velocityIterations, positionIterations);
+            accumulator -= stepTime;
+            steps++;
+        }
+        alpha = accumulator / stepTime;
+        player.interpolate(alpha);
+        return steps;
+    }
+
+    /**
+     * Getter for the length of one step
+     *
+     * @return step length in seconds
+     */
+    public float getStepTime() {
+        return stepTime;
+    }
+
+    /**
+     * Getter for how many steps are taken per second
+     *
+     * @return the step rate
+     */
+    public int getStepsPerSecond() {
+        return stepsPerSecond;
+    }
+
+    /**
+     * Getter for Box2D velocity iterations per step
+     *
+     * @return velocity iterations
+     */
+    public int getVelocityIterations() {
+        return velocityIterations;
+    }
+
+    /**
+     * Getter for Box2D position iterations per step
+     *
+     * @return position iterations
+     */
+    public int getPositionIterations() {
+        return positionIterations;
+    }
+
+    /**
+     * Getter for how far the time left in the accumulator is from the last step to the next one
+     *
+     * @return value between 0 and 1
+     */
+    public float getAlpha() {
+        return alpha;
+    }
+}
@@ -0,0 +1,397 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.PixmapIO;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+
+/**
+ * Generates fonts with FreeType and caches the glyph pages and font data to local storage so
+ * later launches can load them without rasterizing the font again.
+ * Each font is cached with a key made of the font file hash, the generator parameters and the
+ * screen resolution, and regenerated when the key changes
+ *
+ * @author Heikki Kangas
+ */
+public class FontCache implements Disposable {
+    private static final int MAGIC = 0x52524654;
+    private static final int VERSION = 1;
+    private static final String CACHE_FOLDER = "fontcache";
+    private static final int PAGE_SIZE = 1024;
+
+    private FileHandle fontFile;
+    private String fontHash;
+    private FreeTypeFontGenerator generator;
+
+    /**
+     * Creates cache for the given font file, the generator is created only when a font is not
+     * found in the cache
+     *
+     * @param fontFile TrueType font file
+     */
+    public FontCache(FileHandle fontFile) {
+        this.fontFile = fontFile;
+        CRC32 crc = new CRC32();
+        crc.update(fontFile.readBytes());
+        fontHash = Long.toHexString(crc.getValue());
+    }
+
+    /**
+     * Loads the font from the cache or generates and caches it
+     *
+     * @param parameter parameters for generating the font, packer is not used
+     * @return the font
+     */
+    public BitmapFont getFont(FreeTypeFontGenerator.FreeTypeFontParameter parameter) {
+        String key = getKey(parameter);
+        FileHandle folder = getCacheFolder();
+        if (folder != null) {
+            folder = folder.child(Integer.toHexString(key.hashCode()));
+            BitmapFont font = readFont(folder, key, parameter);
+            if (font != null) {
+                return font;
+            }
+        }
+        return generateFont(folder, key, parameter);
+    }
+
+    /**
+     * Getter for the folder where fonts are cached. On desktop local storage is the working
+     * directory, which is the assets folder, so the cache is put next to the preferences instead
+     *
+     * @return the cache folder or null if there is no storage for it
+     */
+    private FileHandle getCacheFolder() {
+        if (Gdx.app.getType() == Application.ApplicationType.Desktop) {
+            return Gdx.files.isExternalStorageAvailable() ? Gdx.files.external(".raccoonroll/" + CACHE_FOLDER) : null;
+        }
+        return Gdx.files.isLocalStorageAvailable() ? Gdx.files.local(CACHE_FOLDER) : null;
+    }
+
+    /**
+     * Creates the cache key of the font from everything that affects the generated glyphs
+     *
+     * @param parameter parameters for generating the font
+     * @return the key
+     */
+    private String getKey(FreeTypeFontGenerator.FreeTypeFontParameter parameter) {
+        StringBuilder key = new StringBuilder();
+        key.append(fontFile.name()).append(' ').append(fontHash)
+                .append(" size ").append(parameter.size)
+                .append(" color ").append(parameter.color)
+                .append(" border ").append(parameter.borderWidth).append(' ').append(parameter.borderColor)
+                .append(' ').append(parameter.borderStraight).append(' ').append(parameter.borderGamma)
+                .append(" shadow ").append(parameter.shadowOffsetX).append(' ').append(parameter.shadowOffsetY)
+                .append(' ').append(parameter.shadowColor)
+                .append(" gamma ").append(parameter.gamma).append(' ').append(parameter.renderCount)
+                .append(" mono ").append(parameter.mono).append(' ').append(parameter.hinting)
+                .append(" space ").append(parameter.spaceX).append(' ').append(parameter.spaceY)
+                .append(" pad ").append(parameter.padTop).append(' ').append(parameter.padLeft)
+                .append(' ').append(parameter.padBottom).append(' ').append(parameter.padRight)
+                .append(" kerning ").append(parameter.kerning)
+                .append(" flip ").append(parameter.flip)
+                .append(" characters ").append(parameter.characters.hashCode())
+                .append(" resolution ").append(Gdx.graphics.getWidth()).append('x').append(Gdx.graphics.getHeight());
+        return key.toString();
+    }
+
+    /**
+     * Generates the font with FreeType and writes it to the cache folder
+     *
+     * @param folder    cache folder of the font, null if local storage is not available
+     * @param key       cache key of the font
+     * @param parameter parameters for generating the font
+     * @return the generated font
+     */
+    private BitmapFont generateFont(FileHandle folder, String key,
+                                    FreeTypeFontGenerator.FreeTypeFontParameter parameter) {
+        if (generator == null) {
+            generator = new FreeTypeFontGenerator(fontFile);
+        }
+        PixmapPacker packer = new PixmapPacker(PAGE_SIZE, PAGE_SIZE, Pixmap.Format.RGBA8888, 1, false,
+                new PixmapPacker.SkylineStrategy());
+        packer.setTransparentColor(parameter.borderWidth > 0 ? parameter.borderColor : parameter.color);
+        packer.getTransparentColor().a = 0;
+        parameter.packer = packer;
+        BitmapFont.BitmapFontData data = generator.generateData(parameter);
+        parameter.packer = null;
+
+        Array<TextureRegion> regions = new Array<TextureRegion>();
+        packer.updateTextureRegions(regions, parameter.minFilter, parameter.magFilter, parameter.genMipMaps);
+
+        if (folder != null) {
+            try {
+                writeFont(folder, key, data, packer);
+            } catch (Exception e) {
+                Gdx.app.error("FontCache", "Couldn't cache font " + key, e);
+                folder.deleteDirectory();
+            }
+        }
+
+        BitmapFont font = new BitmapFont(data, regions, true);
+        font.setOwnsTexture(true);
+        return font;
+    }
+
+    /**
+     * Writes glyph pages as PNG files and the font data next to them
+     *
+     * @param folder cache folder of the font
+     * @param key    cache key of the font
+     * @param data   generated font data
+     * @param packer packer containing the glyph pages
+     * @throws IOException if writing fails
+     */
+    private void writeFont(FileHandle folder, String key, BitmapFont.BitmapFontData data,
+                           PixmapPacker packer) throws IOException {
+        folder.deleteDirectory();
+        Array<PixmapPacker.Page> pages = packer.getPages();
+        for (int i = 0; i < pages.size; i++) {
+            PixmapIO.writePNG(folder.child("page" + i + ".png"), pages.get(i).getPixmap());
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(folder.child("font.bin").write(false)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(key);
+            out.writeInt(pages.size);
+            writeFontData(out, data);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Writes the metrics and glyphs of the font
+     */
+    private void writeFontData(DataOutputStream out, BitmapFont.BitmapFontData data) throws IOException {
+        out.writeBoolean(data.flipped);
+        out.writeFloat(data.padTop);
+        out.writeFloat(data.padRight);
+        out.writeFloat(data.padBottom);
+        out.writeFloat(data.padLeft);
+        out.writeFloat(data.lineHeight);
+        out.writeFloat(data.capHeight);
+        out.writeFloat(data.ascent);
+        out.writeFloat(data.descent);
+        out.writeFloat(data.down);
+        out.writeFloat(data.blankLineScale);
+        out.writeFloat(data.scaleX);
+        out.writeFloat(data.scaleY);
+        out.writeBoolean(data.markupEnabled);
+        out.writeFloat(data.cursorX);
+        out.writeFloat(data.spaceXadvance);
+        out.writeFloat(data.xHeight);
+        writeChars(out, data.breakChars);
+        writeChars(out, data.xChars);
+        writeChars(out, data.capChars);
+        out.writeInt(data.missingGlyph != null ? data.missingGlyph.id : -1);
+
+        Array<BitmapFont.Glyph> glyphs = new Array<BitmapFont.Glyph>();
+        for (BitmapFont.Glyph[] page : data.glyphs) {
+            if (page == null) {
+                continue;
+            }
+            for (BitmapFont.Glyph glyph : page) {
+                if (glyph != null) {
+                    glyphs.add(glyph);
+                }
+            }
+        }
+        out.writeInt(glyphs.size);
+        for (BitmapFont.Glyph glyph : glyphs) {
+            writeGlyph(out, glyph);
+        }
+    }
+
+    /**
+     * Writes one glyph and its kerning with the following characters
+     */
+    private void writeGlyph(DataOutputStream out, BitmapFont.Glyph glyph) throws IOException {
+        out.writeInt(glyph.id);
+        out.writeInt(glyph.srcX);
+        out.writeInt(glyph.srcY);
+        out.writeInt(glyph.width);
+        out.writeInt(glyph.height);
+        out.writeInt(glyph.xoffset);
+        out.writeInt(glyph.yoffset);
+        out.writeInt(glyph.xadvance);
+        out.writeInt(glyph.page);
+        out.writeBoolean(glyph.fixedWidth);
+
+        IntArray kernings = new IntArray();
+        if (glyph.kerning != null) {
+            for (int page = 0; page < glyph.kerning.length; page++) {
+                byte[] values = glyph.kerning[page];
+                for (int i = 0; values != null && i < values.length; i++) {
+                    if (values[i] != 0) {
+                        kernings.add(page * values.length + i);
+                        kernings.add(values[i]);
+                    }
+                }
+            }
+        }
+        out.writeInt(kernings.size / 2);
+        for (int i = 0; i < kernings.size; i += 2) {
+            out.writeChar(kernings.get(i));
+            out.writeByte(kernings.get(i + 1));
+        }
+    }
+
+    /**
+     * Writes char array that may be null
+     */
+    private void writeChars(DataOutputStream out, char[] chars) throws IOException {
+        if (chars == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(chars.length);
+        for (char c : chars) {
+            out.writeChar(c);
+        }
+    }
+
+    /**
+     * Reads char array written with {@link #writeChars(DataOutputStream, char[])}
+     */
+    private char[] readChars(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = in.readChar();
+        }
+        return chars;
+    }
+
+    /**
+     * Loads the font from the cache folder if it has been cached with the same key
+     *
+     * @param folder    cache folder of the font
+     * @param key       cache key of the font
+     * @param parameter parameters for the texture filters
+     * @return the font or null if it is not cached
+     */
+    private BitmapFont readFont(FileHandle folder, String key,
+                                FreeTypeFontGenerator.FreeTypeFontParameter parameter) {
+        FileHandle dataFile = folder.child("font.bin");
+        if (!dataFile.exists()) {
+            return null;
+        }
+        DataInputStream in = new DataInputStream(new BufferedInputStream(dataFile.read()));
+        Array<TextureRegion> regions = new Array<TextureRegion>();
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(key)) {
+                return null;
+            }
+            int pageCount = in.readInt();
+            BitmapFont.BitmapFontData data = readFontData(in);
+            for (int i = 0; i < pageCount; i++) {
+                Texture texture = new Texture(folder.child("page" + i + ".png"), parameter.genMipMaps);
+                texture.setFilter(parameter.minFilter, parameter.magFilter);
+                regions.add(new TextureRegion(texture));
+            }
+            BitmapFont font = new BitmapFont(data, regions, true);
+            font.setOwnsTexture(true);
+            return font;
+        } catch (Exception e) {
+            Gdx.app.error("FontCache", "Couldn't read cached font " + key, e);
+            for (TextureRegion region : regions) {
+                region.getTexture().dispose();
+            }
+            return null;
+        } finally {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Reads the metrics and glyphs written with {@link #writeFontData(DataOutputStream, BitmapFont.BitmapFontData)}
+     */
+    private BitmapFont.BitmapFontData readFontData(DataInputStream in) throws IOException {
+        BitmapFont.BitmapFontData data = new BitmapFont.BitmapFontData();
+        data.flipped = in.readBoolean();
+        data.padTop = in.readFloat();
+        data.padRight = in.readFloat();
+        data.padBottom = in.readFloat();
+        data.padLeft = in.readFloat();
+        data.lineHeight = in.readFloat();
+        data.capHeight = in.readFloat();
+        data.ascent = in.readFloat();
+        data.descent = in.readFloat();
+        data.down = in.readFloat();
+        data.blankLineScale = in.readFloat();
+        data.scaleX = in.readFloat();
+        data.scaleY = in.readFloat();
+        data.markupEnabled = in.readBoolean();
+        data.cursorX = in.readFloat();
+        data.spaceXadvance = in.readFloat();
+        data.xHeight = in.readFloat();
+        data.breakChars = readChars(in);
+        data.xChars = readChars(in);
+        data.capChars = readChars(in);
+        int missingGlyphId = in.readInt();
+
+        int glyphCount = in.readInt();
+        for (int i = 0; i < glyphCount; i++) {
+            BitmapFont.Glyph glyph = new BitmapFont.Glyph();
+            glyph.id = in.readInt();
+            glyph.srcX = in.readInt();
+            glyph.srcY = in.readInt();
+            glyph.width = in.readInt();
+            glyph.height = in.readInt();
+            glyph.xoffset = in.readInt();
+            glyph.yoffset = in.readInt();
+            glyph.xadvance = in.readInt();
+            glyph.page = in.readInt();
+            glyph.fixedWidth = in.readBoolean();
+            int kerningCount = in.readInt();
+            for (int j = 0; j < kerningCount; j++) {
+                glyph.setKerning(in.readChar(), in.readByte());
+            }
+            data.setGlyph(glyph.id, glyph);
+        }
+        if (missingGlyphId >= 0) {
+            data.missingGlyph = data.getGlyph((char) missingGlyphId);
+            if (data.missingGlyph == null) {
+                throw new GdxRuntimeException("Missing glyph not found");
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Disposes the font generator if it was needed
+     */
+    @Override
+    public void dispose() {
+        if (generator != null) {
+            generator.dispose();
+            generator = null;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.profiling.GLProfiler;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.StringBuilder;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Measures how long each part of a frame takes and shows the percentiles of the last frames
+ * on top of the game.
+ * Toggled with F3 on desktop or by touching the screen with three fingers. While it is on every
+ * frame is recorded and F4 writes the last ten minutes of the session to a CSV file.
+ * Garbage collections are noticed from a weakly referenced object being collected since
+ * java.lang.management is not available on Android
+ *
+ * @author Heikki Kangas
+ */
+public class FrameProfiler implements Disposable {
+    /**
+     * Parts of a frame that are measured
+     */
+    public enum Section {
+        FRAME, PHYSICS, OVERLAPS, TILEMAP, PLAYER, HUD
+    }
+
+    private static final Section[] SECTIONS = Section.values();
+    private static final int COLUMNS = SECTIONS.length + 3;
+    private static final String[] COLUMN_NAMES = createColumnNames();
+
+    /**
+     * Frames kept for the CSV file, ten minutes at 60 frames per second
+     */
+    private static final int SESSION_FRAMES = 36000;
+
+    private final int windowSize = 300;
+    private final float overlayUpdateInterval = 0.5f;
+
+    private RaccoonRoll game;
+    private boolean enabled;
+    private boolean enablePending;
+    private long[] sectionStart;
+    private float[] frame;
+    private float[][] window;
+    private int windowIndex;
+    private int windowCount;
+    private float[] session;
+    private int sessionIndex;
+    private int sessionCount;
+
+    private GLProfiler glProfiler;
+    private int drawCallsAtStart;
+    private int textureBindingsAtStart;
+    private WeakReference<Object> gcSentinel;
+
+    private BitmapFont font;
+    private StringBuilder overlayText;
+    private float[] sorted;
+    private float overlayTimer;
+
+    /**
+     * Creates disabled profiler
+     *
+     * @param game main game class for scaling the overlay text
+     */
+    public FrameProfiler(RaccoonRoll game) {
+        this.game = game;
+        sectionStart = new long[SECTIONS.length];
+        frame = new float[COLUMNS];
+        window = new float[COLUMNS][windowSize];
+        overlayText = new StringBuilder();
+        sorted = new float[windowSize];
+    }
+
+    /**
+     * Turns profiling on or off, turning on starts a new session.
+     * OpenGL calls are counted only while profiling is on since the profiler checks for errors
+     * after every call, unless {@link RenderDebug} is counting them too
+     */
+    public void toggle() {
+        enabled = !enabled;
+        if (enabled) {
+            glProfiler = RenderDebug.getProfiler();
+            glProfiler.enable();
+            gcSentinel = new WeakReference<Object>(new Object());
+            windowIndex = 0;
+            windowCount = 0;
+            overlayTimer = overlayUpdateInterval;
+            if (session == null) {
+                session = new float[SESSION_FRAMES * COLUMNS];
+            }
+            sessionIndex = 0;
+            sessionCount = 0;
+        } else if (!RenderDebug.isEnabled()) {
+            glProfiler.disable();
+        }
+        Gdx.app.log("FrameProfiler", enabled ? "on" : "off");
+    }
+
+    /**
+     * Turns profiling on when the next frame begins, for screens created in the middle of
+     * a frame whose first part was not measured. Does nothing if profiling is already on
+     */
+    public void enableNextFrame() {
+        enablePending = !enabled;
+    }
+
+    /**
+     * Is profiling on
+     *
+     * @return true if frames are measured
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts measuring a frame, checks the toggle and save keys
+     */
+    public void beginFrame() {
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F3) || (Gdx.input.justTouched() && Gdx.input.isTouched(2))) {
+            toggle();
+        }
+        if (enablePending) {
+            enablePending = false;
+            if (!enabled) {
+                toggle();
+            }
+        }
+        if (!enabled) {
+            return;
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F4)) {
+            writeCsv(Gdx.files.local("profiles/session_" + System.currentTimeMillis() + ".csv"));
+        }
+        Arrays.fill(frame, 0);
+        drawCallsAtStart = glProfiler.getDrawCalls();
+        textureBindingsAtStart = glProfiler.getTextureBindings();
+        begin(Section.FRAME);
+    }
+
+    /**
+     * Starts measuring a section, does nothing when profiling is off
+     *
+     * @param section part of the frame
+     */
+    public void begin(Section section) {
+        if (enabled) {
+            sectionStart[section.ordinal()] = System.nanoTime();
+        }
+    }
+
+    /**
+     * Stops measuring a section and adds its time to the current frame
+     *
+     * @param section part of the frame
+     */
+    public void end(Section section) {
+        if (enabled) {
+            frame[section.ordinal()] += (System.nanoTime() - sectionStart[section.ordinal()]) / 1000000f;
+        }
+    }
+
+    /**
+     * Stops measuring the frame, records it and draws the overlay
+     *
+     * @param delta time since last frame
+     */
+    public void endFrame(float delta) {
+        if (!enabled) {
+            return;
+        }
+        end(Section.FRAME);
+        int sections = SECTIONS.length;
+        frame[sections] = glProfiler.getDrawCalls() - drawCallsAtStart;
+        frame[sections + 1] = glProfiler.getTextureBindings() - textureBindingsAtStart;
+        if (gcSentinel.get() == null) {
+            frame[sections + 2] = 1;
+            gcSentinel = new WeakReference<Object>(new Object());
+        }
+
+        for (int i = 0; i < COLUMNS; i++) {
+            window[i][windowIndex] = frame[i];
+        }
+        windowIndex = (windowIndex + 1) % windowSize;
+        windowCount = Math.min(windowCount + 1, windowSize);
+        System.arraycopy(frame, 0, session, sessionIndex * COLUMNS, COLUMNS);
+        sessionIndex = (sessionIndex + 1) % SESSION_FRAMES;
+        sessionCount = Math.min(sessionCount + 1, SESSION_FRAMES);
+
+        overlayTimer += delta;
+        if (overlayTimer >= overlayUpdateInterval) {
+            overlayTimer = 0;
+            updateOverlayText();
+        }
+        drawOverlay();
+    }
+
+    /**
+     * Writes p50, p95 and p99 of every column of the last frames to the overlay text,
+     * garbage collections are shown as their count
+     */
+    private void updateOverlayText() {
+        overlayText.setLength(0);
+        overlayText.append(windowCount).append(" frames       p50     p95     p99\n");
+        for (int i = 0; i < COLUMNS - 1; i++) {
+            System.arraycopy(window[i], 0, sorted, 0, windowCount);
+            Arrays.sort(sorted, 0, windowCount);
+            overlayText.append(COLUMN_NAMES[i]);
+            appendValue(percentile(0.5f));
+            appendValue(percentile(0.95f));
+            appendValue(percentile(0.99f));
+            overlayText.append('\n');
+        }
+        int gcs = 0;
+        for (int i = 0; i < windowCount; i++) {
+            gcs += (int) window[COLUMNS - 1][i];
+        }
+        overlayText.append(COLUMN_NAMES[COLUMNS - 1]).append("  ").append(gcs);
+    }
+
+    /**
+     * Appends value with two decimals
+     */
+    private void appendValue(float value) {
+        int hundredths = Math.round(value * 100);
+        overlayText.append("  ").append(hundredths / 100).append('.');
+        if (hundredths % 100 < 10) {
+            overlayText.append('0');
+        }
+        overlayText.append(hundredths % 100);
+    }
+
+    /**
+     * Returns the value below which the given fraction of the sorted values are
+     */
+    private float percentile(float fraction) {
+        if (windowCount == 0) {
+            return 0;
+        }
+        return sorted[Math.min(windowCount - 1, (int) (fraction * windowCount))];
+    }
+
+    /**
+     * Draws the overlay text to the top left corner of the screen
+     */
+    private void drawOverlay() {
+        if (font == null) {
+            font = new BitmapFont();
+            font.getData().setScale(Math.max(1, game.scaleFromFHD(2)));
+            font.setColor(Color.YELLOW);
+        }
+        SpriteBatch batch = game.getBatch();
+        OrthographicCamera textCamera = game.getTextCamera();
+        batch.setProjectionMatrix(textCamera.combined);
+        batch.begin();
+        font.draw(batch, overlayText, 10, Gdx.graphics.getHeight() - 10);
+        batch.end();
+    }
+
+    /**
+     * Writes the frames recorded since profiling was turned on to a CSV file, at most the last
+     * ten minutes. Times are in milliseconds and gc is 1 for frames during which garbage was collected
+     *
+     * @param file where to write
+     */
+    public void writeCsv(FileHandle file) {
+        Writer writer = file.writer(false, "UTF-8");
+        try {
+            for (int i = 0; i < COLUMNS; i++) {
+                writer.write(i == 0 ? "" : ",");
+                writer.write(COLUMN_NAMES[i].trim());
+            }
+            writer.write('\n');
+            int oldest = (sessionIndex - sessionCount + SESSION_FRAMES) % SESSION_FRAMES;
+            for (int frameIndex = 0; frameIndex < sessionCount; frameIndex++) {
+                int row = (oldest + frameIndex) % SESSION_FRAMES * COLUMNS;
+                for (int i = 0; i < COLUMNS; i++) {
+                    writer.write(i == 0 ? "" : ",");
+                    writer.write(Float.toString(session[row + i]));
+                }
+                writer.write('\n');
+            }
+            Gdx.app.log("FrameProfiler", sessionCount + " frames written to " + file.path());
+        } catch (IOException e) {
+            Gdx.app.error("FrameProfiler", "Couldn't write " + file.path(), e);
+        } finally {
+            try {
+                writer.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Creates the names of the recorded columns padded to the same width
+     */
+    private static String[] createColumnNames() {
+        String[] names = new String[COLUMNS];
+        for (int i = 0; i < SECTIONS.length; i++) {
+            names[i] = String.format("%-9s", SECTIONS[i].name().toLowerCase(Locale.ROOT));
+        }
+        names[SECTIONS.length] = "drawcalls";
+        names[SECTIONS.length + 1] = "binds    ";
+        names[SECTIONS.length + 2] = "gc       ";
+        return names;
+    }
+
+    /**
+     * Disposes the overlay font
+     */
+    @Override
+    public void dispose() {
+        if (font != null) {
+            font.dispose();
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.ByteArray;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Trajectory of the player's best run of a level, drawn as a translucent raccoon racing along.
+ * The player's position and rotation are sampled on every physics step. Positions are quantized
+ * to the size of a pixel of the tiles and stored as the change of the step's movement from the
+ * previous step's, which is zero or close to it while rolling, and rotations as the change from
+ * the previous step in 1/256 turns. Every value is a variable length integer of usually one byte
+ * and the file is compressed with deflate, so a minute of running takes about two kilobytes.
+ * Playback decodes the samples in order while the time moves forward, so drawing the ghost
+ * does not allocate anything
+ *
+ * @author Heikki Kangas
+ */
+public class Ghost {
+    private static final int MAGIC = 0x52524754;
+    private static final int VERSION = 1;
+    private static final float UNITS_PER_METER = 128f;
+    private static final float DEGREES_PER_UNIT = 360f / 256f;
+    private static final float ALPHA = 0.4f;
+
+    private String levelName;
+    private int stepsPerSecond;
+    private ByteArray samples;
+    private int sampleCount;
+
+    // Last encoded or decoded sample
+    private int x;
+    private int y;
+    private int velocityX;
+    private int velocityY;
+    private int rotation;
+
+    // Playback
+    private int readIndex;
+    private int decodedSample;
+    private float previousX;
+    private float previousY;
+    private float previousRotation;
+    private Vector2 position;
+    private float drawnRotation;
+    private float stateTime;
+    private Animation<TextureRegion> animation;
+    private float radius;
+
+    /**
+     * Creates empty ghost for recording a run
+     *
+     * @param levelName      name of the level under tilemaps/
+     * @param stepsPerSecond step rate the run is simulated with
+     */
+    public Ghost(String levelName, int stepsPerSecond) {
+        this.levelName = levelName;
+        this.stepsPerSecond = stepsPerSecond;
+        samples = new ByteArray(16 * 1024);
+        position = new Vector2();
+        decodedSample = -1;
+    }
+
+    /**
+     * Wraps input so the player's position and rotation are sampled before every physics step,
+     * set the returned input to the player
+     *
+     * @param input  input moving the player during the run
+     * @param player the recorded player
+     * @return input recording the trajectory
+     */
+    public PlayerInput record(final PlayerInput input, final Player player) {
+        return new PlayerInput() {
+            @Override
+            public void getForce(float deltatime, Vector2 force) {
+                Vector2 velocity = player.getBody().getLinearVelocity();
+                int sampleRotation = rotation;
+                if (velocity.x != 0 || velocity.y != 0) {
+                    sampleRotation = Math.round(velocity.angle() / DEGREES_PER_UNIT);
+                }
+                addSample(player.getPosition(), sampleRotation);
+                input.getForce(deltatime, force);
+            }
+        };
+    }
+
+    /**
+     * Encodes a sample as the change from the previous one
+     */
+    private void addSample(Vector2 samplePosition, int sampleRotation) {
+        int sampleX = Math.round(samplePosition.x * UNITS_PER_METER);
+        int sampleY = Math.round(samplePosition.y * UNITS_PER_METER);
+        if (sampleCount == 0) {
+            writeVarInt(sampleX);
+            writeVarInt(sampleY);
+        } else {
+            writeVarInt(sampleX - x - velocityX);
+            writeVarInt(sampleY - y - velocityY);
+            velocityX = sampleX - x;
+            velocityY = sampleY - y;
+        }
+        samples.add((byte) (sampleRotation - rotation));
+        x = sampleX;
+        y = sampleY;
+        rotation = sampleRotation;
+        sampleCount++;
+    }
+
+    /**
+     * Appends a zigzag encoded variable length integer, 7 bits per byte
+     */
+    private void writeVarInt(int value) {
+        int zigzag = (value << 1) ^ (value >> 31);
+        while ((zigzag & ~0x7f) != 0) {
+            samples.add((byte) ((zigzag & 0x7f) | 0x80));
+            zigzag >>>= 7;
+        }
+        samples.add((byte) zigzag);
+    }
+
+    /**
+     * Reads a variable length integer written by {@link #writeVarInt(int)}
+     */
+    private int readVarInt() {
+        int zigzag = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = samples.get(readIndex++);
+            zigzag |= (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    /**
+     * Decodes the next sample, the previous one is kept for interpolating
+     */
+    private void decodeNext() {
+        previousX = x / UNITS_PER_METER;
+        previousY = y / UNITS_PER_METER;
+        previousRotation = rotation * DEGREES_PER_UNIT;
+        if (decodedSample == -1) {
+            x = readVarInt();
+            y = readVarInt();
+        } else {
+            velocityX += readVarInt();
+            velocityY += readVarInt();
+            x += velocityX;
+            y += velocityY;
+        }
+        rotation += samples.get(readIndex++);
+        decodedSample++;
+        if (decodedSample == 0) {
+            previousX = x / UNITS_PER_METER;
+            previousY = y / UNITS_PER_METER;
+            previousRotation = rotation * DEGREES_PER_UNIT;
+        }
+    }
+
+    /**
+     * Starts playback from the first sample
+     */
+    private void rewind() {
+        readIndex = 0;
+        decodedSample = -1;
+        x = 0;
+        y = 0;
+        velocityX = 0;
+        velocityY = 0;
+        rotation = 0;
+        stateTime = 0;
+    }
+
+    /**
+     * Moves the ghost to where the recorded player was after the given time, the ghost stays
+     * at the last sample after the recorded run has ended
+     *
+     * @param time seconds simulated since the start of the level
+     */
+    public void setTime(float time) {
+        if (sampleCount == 0) {
+            return;
+        }
+        float sample = Math.min(time * stepsPerSecond, sampleCount - 1);
+        int wanted = (int) sample;
+        if (wanted < decodedSample - 1) {
+            rewind();
+        }
+        while (decodedSample < wanted + 1 && decodedSample < sampleCount - 1) {
+            decodeNext();
+        }
+        float oldX = position.x;
+        float oldY = position.y;
+        float alpha = decodedSample == wanted ? 1 : sample - wanted;
+        position.set(previousX + (x / UNITS_PER_METER - previousX) * alpha,
+                previousY + (y / UNITS_PER_METER - previousY) * alpha);
+        float turn = rotation * DEGREES_PER_UNIT - previousRotation;
+        turn -= 360 * Math.round(turn / 360);
+        drawnRotation = previousRotation + turn * alpha;
+        stateTime += Math.max(Math.abs(position.x - oldX), Math.abs(position.y - oldY));
+    }
+
+    /**
+     * Creates the animation the ghost is drawn with, call before drawing
+     *
+     * @param assetManager manager the player's animation has been loaded to
+     * @param playerRadius radius of the drawn raccoon
+     */
+    public void createAnimation(AssetManager assetManager, float playerRadius) {
+        TextureAtlas atlas = assetManager.get("graphics/player/roll_animation/racc_roll.txt");
+        animation = new Animation<TextureRegion>(1 / 30f, atlas.findRegions("racc_roll"));
+        radius = playerRadius;
+    }
+
+    /**
+     * Draws the ghost translucent with the player's animation, the batch must have been begun
+     *
+     * @param batch batch to draw with
+     */
+    public void draw(SpriteBatch batch) {
+        if (sampleCount == 0) {
+            return;
+        }
+        batch.setColor(1, 1, 1, ALPHA);
+        batch.draw(animation.getKeyFrame(stateTime, true), position.x - radius, position.y - radius,
+                radius, radius, radius * 2, radius * 2, 1, 1, drawnRotation - 90);
+        batch.setColor(Color.WHITE);
+    }
+
+    /**
+     * Getter for the name of the recorded level
+     *
+     * @return name of the level under tilemaps/
+     */
+    public String getLevelName() {
+        return levelName;
+    }
+
+    /**
+     * Getter for the amount of recorded steps
+     *
+     * @return amount of samples
+     */
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * Writes the trajectory to a temporary file and renames it over the given one, so the
+     * previous ghost stays whole if writing is interrupted. Can be called on a background
+     * thread once the recording has ended
+     *
+     * @param file where to write
+     * @throws IOException if writing fails
+     */
+    public void write(FileHandle file) throws IOException {
+        File temp = file.sibling(file.name() + ".tmp").file();
+        File target = file.file();
+        temp.getParentFile().mkdirs();
+        FileOutputStream fileOut = new FileOutputStream(temp);
+        DeflaterOutputStream deflater = new DeflaterOutputStream(fileOut);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(deflater));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(levelName);
+            out.writeInt(stepsPerSecond);
+            out.writeInt(sampleCount);
+            out.writeInt(samples.size);
+            out.write(samples.items, 0, samples.size);
+            out.flush();
+            deflater.finish();
+            fileOut.getFD().sync();
+        } finally {
+            out.close();
+        }
+        // Renaming over an existing file fails on Windows, there the old file is deleted first
+        if (!temp.renameTo(target) && !(target.delete() && temp.renameTo(target))) {
+            throw new IOException("Couldn't rename " + temp.getPath() + " to " + target.getPath());
+        }
+    }
+
+    /**
+     * Reads a trajectory written with {@link #write(FileHandle)}
+     *
+     * @param file ghost file
+     * @return the read ghost ready for playback
+     */
+    public static Ghost read(FileHandle file) {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(file.read())));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new GdxRuntimeException("Not a ghost or wrong version: " + file.path());
+            }
+            Ghost ghost = new Ghost(in.readUTF(), in.readInt());
+            ghost.sampleCount = in.readInt();
+            int size = in.readInt();
+            ghost.samples.ensureCapacity(size);
+            in.readFully(ghost.samples.items, 0, size);
+            ghost.samples.size = size;
+            ghost.rewind();
+            return ghost;
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Couldn't load ghost '" + file.path() + "'", e);
+        } finally {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
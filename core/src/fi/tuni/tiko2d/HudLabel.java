@@ -0,0 +1,74 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.utils.StringBuilder;
+
+/**
+ * Label of the maze's HUD showing a text followed by a time or an amount.
+ * The text is rebuilt in the same StringBuilder and given to the label only when the shown
+ * value changes, so updating the label every frame does not allocate
+ *
+ * @author Heikki Kangas
+ */
+public class HudLabel extends Label {
+    private RaccoonRoll game;
+    private String prefix;
+    private StringBuilder builder;
+    private int displayed;
+
+    /**
+     * Creates label without text, call {@link #showTime(float)} or {@link #showAmount(int)} to set it
+     *
+     * @param game   main game class for formatting times
+     * @param prefix text shown before the value
+     * @param style  style of the label
+     */
+    public HudLabel(RaccoonRoll game, String prefix, LabelStyle style) {
+        super("", style);
+        this.game = game;
+        this.prefix = prefix;
+        builder = new StringBuilder();
+        displayed = -1;
+    }
+
+    /**
+     * Changes the text shown before the value, for example when the language changes
+     *
+     * @param prefix text shown before the value
+     */
+    public void setPrefix(String prefix) {
+        this.prefix = prefix;
+        displayed = -1;
+    }
+
+    /**
+     * Shows a time in minutes and seconds, the text changes only when the shown second changes
+     *
+     * @param timeSpent time in seconds
+     */
+    public void showTime(float timeSpent) {
+        if ((int) timeSpent == displayed) {
+            return;
+        }
+        displayed = (int) timeSpent;
+        builder.setLength(0);
+        builder.append(prefix);
+        game.appendTime(builder, timeSpent);
+        setText(builder);
+    }
+
+    /**
+     * Shows an amount, the text changes only when the amount changes
+     *
+     * @param amount amount to show, not negative
+     */
+    public void showAmount(int amount) {
+        if (amount == displayed) {
+            return;
+        }
+        displayed = amount;
+        builder.setLength(0);
+        builder.append(prefix).append(amount);
+        setText(builder);
+    }
+}
@@ -0,0 +1,142 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.gdx.physics.box2d.Contact;
+import com.badlogic.gdx.physics.box2d.ContactImpulse;
+import com.badlogic.gdx.physics.box2d.ContactListener;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.Manifold;
+
+import java.util.ArrayList;
+
+/**
+ * Contact listener collecting the wall hits of world steps so they can be handled after stepping
+ * instead of inside Box2D callbacks.
+ * A contact that begins is remembered until it is solved for the first time, the impulse of that
+ * solve is how hard the player hit the wall. Box2D reuses its Contact objects so contacts are
+ * recognized by their fixtures
+ *
+ * @author Heikki Kangas
+ */
+public class ImpactCollector implements ContactListener {
+    /**
+     * Impulse of a hit after rolling about a second with full force, hits this hard or harder
+     * are played at full volume
+     */
+    public static final float FULL_VOLUME_IMPULSE = 0.2f;
+
+    /**
+     * Volume of the softest hits so grazing a wall is still heard
+     */
+    public static final float MIN_VOLUME = 0.2f;
+
+    private ArrayList<Fixture> beganA;
+    private ArrayList<Fixture> beganB;
+    private int hits;
+    private float maxImpulse;
+
+    /**
+     * Creates collector without any hits
+     */
+    public ImpactCollector() {
+        beganA = new ArrayList<Fixture>();
+        beganB = new ArrayList<Fixture>();
+    }
+
+    /**
+     * Converts impulse of a hit to volume between {@link #MIN_VOLUME} and 1
+     *
+     * @param impulse normal impulse of the hit
+     * @return volume of the hit sound
+     */
+    public static float getVolume(float impulse) {
+        return Math.max(MIN_VOLUME, Math.min(1, impulse / FULL_VOLUME_IMPULSE));
+    }
+
+    /**
+     * Remembers the contact until it is solved
+     *
+     * @param contact the contact that began
+     */
+    @Override
+    public void beginContact(Contact contact) {
+        beganA.add(contact.getFixtureA());
+        beganB.add(contact.getFixtureB());
+    }
+
+    /**
+     * Forgets a contact that ended without being solved, for example with a sensor
+     *
+     * @param contact the contact that ended
+     */
+    @Override
+    public void endContact(Contact contact) {
+        forget(contact);
+    }
+
+    @Override
+    public void preSolve(Contact contact, Manifold oldManifold) {
+
+    }
+
+    /**
+     * Counts a hit when a contact that began is solved for the first time
+     *
+     * @param contact the solved contact
+     * @param impulse impulses used for separating the bodies
+     */
+    @Override
+    public void postSolve(Contact contact, ContactImpulse impulse) {
+        if (!forget(contact)) {
+            return;
+        }
+        float[] normalImpulses = impulse.getNormalImpulses();
+        for (int i = 0; i < impulse.getCount(); i++) {
+            maxImpulse = Math.max(maxImpulse, normalImpulses[i]);
+        }
+        hits++;
+    }
+
+    /**
+     * Removes the contact from the contacts waiting to be solved
+     *
+     * @return true if the contact was waiting
+     */
+    private boolean forget(Contact contact) {
+        Fixture fixtureA = contact.getFixtureA();
+        Fixture fixtureB = contact.getFixtureB();
+        for (int i = 0; i < beganA.size(); i++) {
+            if (beganA.get(i) == fixtureA && beganB.get(i) == fixtureB) {
+                beganA.remove(i);
+                beganB.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Getter for how many walls were hit since the last clear
+     *
+     * @return amount of hits
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * Getter for the impulse of the hardest hit since the last clear
+     *
+     * @return the biggest normal impulse
+     */
+    public float getMaxImpulse() {
+        return maxImpulse;
+    }
+
+    /**
+     * Forgets the collected hits, contacts waiting to be solved are kept
+     */
+    public void clear() {
+        hits = 0;
+        maxImpulse = 0;
+    }
+}
@@ -0,0 +1,563 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.JsonWriter;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.StreamUtils;
+import com.badlogic.gdx.utils.Timer;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncTask;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Client of the online leaderboard that works offline first.
+ * New best times are put to an outbox that is saved to local storage before anything is sent,
+ * so scores set offline or while the game is closed are sent later. The outbox is sent in gzip
+ * compressed batches, a batch that fails is retried with an exponentially growing random delay
+ * and every score has an id so the server can ignore a batch it already got.
+ * Top lists of levels are cached for a minute in memory and in local storage with their ETags,
+ * so showing a list again is free and an unchanged list is not downloaded again. When the server
+ * can't be reached the cached list is given and marked stale.
+ * All the file and network access happens on one background thread, methods called from the
+ * render thread only queue work and listeners are called back on the render thread.
+ * Run the stand-in server of the headless module to try it locally
+ *
+ * @author Heikki Kangas
+ */
+public class Leaderboard implements Disposable {
+    /**
+     * Receives a requested top list on the render thread
+     */
+    public interface TopListListener {
+        /**
+         * Called when the top list has been fetched or read from the cache
+         *
+         * @param topList the best times of the level
+         */
+        void topListReceived(TopList topList);
+    }
+
+    /**
+     * Best times of a level, never changed after it has been created
+     */
+    public static class TopList {
+        private String levelName;
+        private FloatArray times;
+        private String etag;
+        private long fetchedAt;
+        private boolean stale;
+
+        /**
+         * Creates the list
+         */
+        private TopList(String levelName, FloatArray times, String etag, long fetchedAt, boolean stale) {
+            this.levelName = levelName;
+            this.times = times;
+            this.etag = etag;
+            this.fetchedAt = fetchedAt;
+            this.stale = stale;
+        }
+
+        /**
+         * Getter for the name of the level
+         *
+         * @return name of the level
+         */
+        public String getLevelName() {
+            return levelName;
+        }
+
+        /**
+         * Getter for the amount of times in the list
+         *
+         * @return amount of times, at most {@link #TOP_LIST_SIZE}
+         */
+        public int getSize() {
+            return times.size;
+        }
+
+        /**
+         * Getter for a time in the list
+         *
+         * @param rank index in the list, 0 for the best time
+         * @return the time in seconds
+         */
+        public float getTime(int rank) {
+            return times.get(rank);
+        }
+
+        /**
+         * Is the list old because the server could not be reached
+         *
+         * @return true if the list is from the cache and could not be checked
+         */
+        public boolean isStale() {
+            return stale;
+        }
+    }
+
+    /**
+     * Score waiting in the outbox
+     */
+    private static class Submission {
+        private String id;
+        private String levelName;
+        private float time;
+    }
+
+    /**
+     * Amount of times fetched for a level
+     */
+    public static final int TOP_LIST_SIZE = 10;
+
+    private static final int MAGIC = 0x5252424f;
+    private static final int VERSION = 1;
+    private static final int MAX_BATCH = 50;
+    private static final long CACHE_TIME = 60000;
+    private static final float FIRST_RETRY_DELAY = 2f;
+    private static final float MAX_RETRY_DELAY = 300f;
+    private static final int TIMEOUT = 5000;
+
+    private String baseUrl;
+    private FileHandle outboxFile;
+    private FileHandle tempFile;
+    private FileHandle playerFile;
+    private FileHandle cacheDirectory;
+    private volatile boolean disposed;
+    private volatile int pendingCount;
+
+    // Used only on the background thread
+    private String playerId;
+    private Array<Submission> outbox;
+    private ObjectMap<String, TopList> topLists;
+    private int failedAttempts;
+    private RandomXS128 random;
+
+    private AsyncExecutor executor;
+    private Timer retryTimer;
+    private Timer.Task retryTask;
+    private AsyncTask<Void> sendTask;
+
+    /**
+     * Starts sending the scores left in the outbox by earlier sessions in the background
+     *
+     * @param baseUrl   address of the leaderboard server ending with a slash
+     * @param directory local directory the outbox and cached top lists are kept in
+     */
+    public Leaderboard(String baseUrl, FileHandle directory) {
+        this.baseUrl = baseUrl;
+        outboxFile = directory.child("outbox.bin");
+        tempFile = directory.child("outbox.bin.tmp");
+        playerFile = directory.child("player.txt");
+        cacheDirectory = directory.child("top");
+        outbox = new Array<Submission>();
+        topLists = new ObjectMap<String, TopList>();
+        random = new RandomXS128();
+        executor = new AsyncExecutor(1);
+        retryTimer = new Timer();
+        sendTask = new AsyncTask<Void>() {
+            @Override
+            public Void call() {
+                send();
+                return null;
+            }
+        };
+        retryTask = new Timer.Task() {
+            @Override
+            public void run() {
+                if (!disposed) {
+                    executor.submit(sendTask);
+                }
+            }
+        };
+        executor.submit(new AsyncTask<Void>() {
+            @Override
+            public Void call() {
+                readPlayerId();
+                readOutbox();
+                send();
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Queues a new best time of the player to be sent, returns right away
+     *
+     * @param levelName name of the level
+     * @param time      the time in seconds
+     */
+    public void submit(final String levelName, final float time) {
+        executor.submit(new AsyncTask<Void>() {
+            @Override
+            public Void call() {
+                addSubmission(levelName, time);
+                writeOutbox();
+                retryTask.cancel();
+                send();
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Requests the top list of a level, returns right away. The listener is called on the render
+     * thread with the cached list if it is less than a minute old, otherwise with the list from
+     * the server or with the stale cached one if the server can't be reached. The listener is not
+     * called if there is no list at all
+     *
+     * @param levelName name of the level
+     * @param listener  receives the list
+     */
+    public void getTopList(final String levelName, final TopListListener listener) {
+        executor.submit(new AsyncTask<Void>() {
+            @Override
+            public Void call() {
+                final TopList topList = fetchTopList(levelName);
+                if (topList != null && !disposed) {
+                    Gdx.app.postRunnable(new Runnable() {
+                        @Override
+                        public void run() {
+                            listener.topListReceived(topList);
+                        }
+                    });
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Getter for the amount of scores not yet accepted by the server
+     *
+     * @return scores in the outbox
+     */
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * Adds a score to the outbox, an unsent score of the same level is replaced if it is slower
+     */
+    private void addSubmission(String levelName, float time) {
+        for (int i = 0; i < outbox.size; i++) {
+            Submission queued = outbox.get(i);
+            if (queued.levelName.equals(levelName)) {
+                if (time < queued.time) {
+                    queued.id = UUID.randomUUID().toString();
+                    queued.time = time;
+                }
+                return;
+            }
+        }
+        Submission submission = new Submission();
+        submission.id = UUID.randomUUID().toString();
+        submission.levelName = levelName;
+        submission.time = time;
+        outbox.add(submission);
+        pendingCount = outbox.size;
+    }
+
+    /**
+     * Sends the outbox in batches until it is empty, schedules a retry if a batch fails
+     */
+    private void send() {
+        while (outbox.size > 0 && !disposed) {
+            int count = Math.min(MAX_BATCH, outbox.size);
+            try {
+                int status = postScores(count);
+                if (status >= 400) {
+                    // The server will never accept the batch, sending it again would block the outbox
+                    Gdx.app.error("Leaderboard", "Server refused " + count + " scores with HTTP " + status);
+                }
+            } catch (IOException e) {
+                scheduleRetry(e);
+                return;
+            }
+            for (int i = 0; i < count; i++) {
+                topLists.remove(outbox.get(i).levelName);
+            }
+            outbox.removeRange(0, count - 1);
+            pendingCount = outbox.size;
+            failedAttempts = 0;
+            writeOutbox();
+        }
+    }
+
+    /**
+     * Schedules sending again after a random delay that doubles after every failed attempt
+     */
+    private void scheduleRetry(IOException e) {
+        failedAttempts++;
+        float delay = Math.min(MAX_RETRY_DELAY, FIRST_RETRY_DELAY * (1 << Math.min(failedAttempts - 1, 16)));
+        delay *= 0.5f + 0.5f * random.nextFloat();
+        Gdx.app.log("Leaderboard", String.format("Sending %d scores failed (%s), retrying in %.0f s",
+                outbox.size, e.getMessage(), delay));
+        if (!retryTask.isScheduled()) {
+            retryTimer.scheduleTask(retryTask, delay);
+        }
+    }
+
+    /**
+     * Posts the first scores of the outbox to the server as gzip compressed JSON
+     *
+     * @return HTTP status of a refused batch, 200 if it was accepted
+     * @throws IOException if the server can't be reached or fails, or refuses for now
+     */
+    private int postScores(int count) throws IOException {
+        StringWriter json = new StringWriter();
+        JsonWriter writer = new JsonWriter(json);
+        writer.object().set("player", playerId).array("scores");
+        for (int i = 0; i < count; i++) {
+            Submission submission = outbox.get(i);
+            writer.object()
+                    .set("id", submission.id)
+                    .set("level", submission.levelName)
+                    .set("time", submission.time)
+                    .pop();
+        }
+        writer.pop().pop();
+        writer.close();
+        byte[] body = gzip(json.toString().getBytes("UTF-8"));
+
+        HttpURLConnection connection = open(baseUrl + "scores");
+        try {
+            connection.setDoOutput(true);
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setRequestProperty("Content-Encoding", "gzip");
+            connection.setFixedLengthStreamingMode(body.length);
+            OutputStream out = connection.getOutputStream();
+            out.write(body);
+            out.close();
+            int status = connection.getResponseCode();
+            if (status >= 500 || status == HttpURLConnection.HTTP_CLIENT_TIMEOUT || status == 429) {
+                throw new IOException("HTTP " + status);
+            }
+            return status;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Returns the fresh cached top list or fetches it from the server, sending the ETag of the
+     * cached list so an unchanged list is not downloaded again
+     *
+     * @return the list, null if it is neither cached nor available
+     */
+    private TopList fetchTopList(String levelName) {
+        long now = System.currentTimeMillis();
+        TopList cached = topLists.get(levelName);
+        if (cached == null) {
+            cached = readCachedTopList(levelName);
+        }
+        if (cached != null && !cached.stale && now - cached.fetchedAt < CACHE_TIME) {
+            return cached;
+        }
+
+        HttpURLConnection connection = null;
+        try {
+            connection = open(baseUrl + "levels/" + URLEncoder.encode(levelName, "UTF-8")
+                    + "/top?count=" + TOP_LIST_SIZE);
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+            if (cached != null && cached.etag != null) {
+                connection.setRequestProperty("If-None-Match", cached.etag);
+            }
+            int status = connection.getResponseCode();
+            TopList topList;
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                topList = new TopList(levelName, cached.times, cached.etag, now, false);
+            } else if (status == HttpURLConnection.HTTP_OK) {
+                InputStream in = connection.getInputStream();
+                if ("gzip".equals(connection.getContentEncoding())) {
+                    in = new GZIPInputStream(in);
+                }
+                String body = new String(StreamUtils.copyStreamToByteArray(in), "UTF-8");
+                in.close();
+                String etag = connection.getHeaderField("ETag");
+                topList = new TopList(levelName, parseTimes(body), etag, now, false);
+                cacheDirectory.child(levelName + ".json").writeString((etag == null ? "" : etag) + "\n" + body,
+                        false, "UTF-8");
+            } else {
+                throw new IOException("HTTP " + status);
+            }
+            topLists.put(levelName, topList);
+            return topList;
+        } catch (IOException e) {
+            Gdx.app.log("Leaderboard", "Couldn't fetch top list of " + levelName + " (" + e.getMessage() + ")");
+            if (cached == null) {
+                return null;
+            }
+            TopList stale = new TopList(levelName, cached.times, cached.etag, cached.fetchedAt, true);
+            topLists.put(levelName, stale);
+            return stale;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Reads a top list saved by an earlier session, it is always checked from the server before
+     * it is used
+     *
+     * @return the list, null if there is no valid list saved
+     */
+    private TopList readCachedTopList(String levelName) {
+        FileHandle file = cacheDirectory.child(levelName + ".json");
+        if (!file.exists()) {
+            return null;
+        }
+        String text = file.readString("UTF-8");
+        int lineEnd = text.indexOf('\n');
+        try {
+            String etag = lineEnd > 0 ? text.substring(0, lineEnd) : null;
+            return new TopList(levelName, parseTimes(text.substring(lineEnd + 1)), etag, 0, false);
+        } catch (RuntimeException e) {
+            Gdx.app.error("Leaderboard", "Broken cached top list " + file.path());
+            return null;
+        }
+    }
+
+    /**
+     * Parses the times of a top list sent by the server
+     */
+    private FloatArray parseTimes(String body) {
+        JsonValue scores = new JsonReader().parse(body).get("scores");
+        FloatArray times = new FloatArray(scores.size);
+        for (JsonValue score = scores.child; score != null; score = score.next) {
+            times.add(score.getFloat("time"));
+        }
+        return times;
+    }
+
+    /**
+     * Opens a connection with timeouts so a slow network never keeps the outbox waiting for long
+     */
+    private HttpURLConnection open(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(TIMEOUT);
+        connection.setReadTimeout(TIMEOUT);
+        return connection;
+    }
+
+    /**
+     * Compresses bytes with gzip
+     */
+    private byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        GZIPOutputStream out = new GZIPOutputStream(compressed);
+        out.write(bytes);
+        out.close();
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Reads the anonymous id of the player or creates one on the first run
+     */
+    private void readPlayerId() {
+        if (playerFile.exists()) {
+            playerId = playerFile.readString("UTF-8").trim();
+        }
+        if (playerId == null || playerId.length() == 0) {
+            playerId = UUID.randomUUID().toString();
+            playerFile.writeString(playerId, false, "UTF-8");
+        }
+    }
+
+    /**
+     * Reads the scores left unsent by earlier sessions, a broken outbox is ignored
+     */
+    private void readOutbox() {
+        if (!outboxFile.exists()) {
+            return;
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(outboxFile.readBytes()));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Submission submission = new Submission();
+                submission.id = in.readUTF();
+                submission.levelName = in.readUTF();
+                submission.time = in.readFloat();
+                outbox.add(submission);
+            }
+        } catch (IOException e) {
+            Gdx.app.error("Leaderboard", "Broken outbox " + outboxFile.path());
+            outbox.clear();
+        }
+        pendingCount = outbox.size;
+    }
+
+    /**
+     * Writes the outbox to a temporary file and moves it over the outbox, so a crash while
+     * writing leaves the previous outbox
+     */
+    private void writeOutbox() {
+        if (outbox.size == 0) {
+            outboxFile.delete();
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(outbox.size);
+            for (int i = 0; i < outbox.size; i++) {
+                Submission submission = outbox.get(i);
+                out.writeUTF(submission.id);
+                out.writeUTF(submission.levelName);
+                out.writeFloat(submission.time);
+            }
+        } catch (IOException e) {
+            // Writing to memory does not fail
+            throw new IllegalStateException(e);
+        }
+        tempFile.writeBytes(bytes.toByteArray(), false);
+        File temp = tempFile.file();
+        File target = outboxFile.file();
+        // Renaming over an existing file fails on Windows
+        if (!temp.renameTo(target) && !(target.delete() && temp.renameTo(target))) {
+            Gdx.app.error("Leaderboard", "Couldn't rename " + temp.getPath() + " to " + target.getPath());
+        }
+    }
+
+    /**
+     * Stops retrying and waits for a request being sent to finish, the outbox is already saved
+     */
+    @Override
+    public void dispose() {
+        disposed = true;
+        retryTimer.stop();
+        retryTimer.clear();
+        executor.dispose();
+    }
+}
@@ -3,14 +3,14 @@ package fi.tuni.tiko2d;
 import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
-import com.badlogic.gdx.Preferences;
 import com.badlogic.gdx.Screen;
 import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.scenes.scene2d.InputEvent;
 import com.badlogic.gdx.scenes.scene2d.Stage;
@@ -37,27 +37,54 @@ public class LevelCompletedScreen extends ApplicationAdapter implements Screen {
     private OrthographicCamera textCamera;
     private Skin skin;
     private Stage stage;
+    private Table table;
+    private TextButton ok;
     private int posNum;
     private float timeSpent;
     private float bgWidth;
     private float bgHeight;
     private float raunoHeight;
     private float raunoWidth;
-    private Texture background;
-    private Texture rauno;
+    private TextureRegion background;
+    private TextureRegion rauno;
     private Label raunoTalk;
     private Label timeSpentLabel;
     private Label title;
     private Label unlocked;
     private Label highscore;
+    private Label worldRecord;
+    private String levelName;
+    private Leaderboard.TopListListener topListListener;
     private I18NBundle positiveBundle;
     private Options options;
     private AssetManager assetManager;
-    private Preferences highScores;
+    private SaveGame saveGame;
     private boolean newHighscore;
     private boolean levelUnlocked;
     private Music backgroundMusic;
 
+    /**
+     * Returns the cached screen showed after completing a level, or queues its assets and returns
+     * a loading screen that shows it when the assets have been loaded
+     *
+     * @param game      main game class
+     * @param timeSpent amount of time spent on the level
+     * @param levelName name of the completed level
+     * @return the screen to show
+     */
+    public static Screen load(final RaccoonRoll game, final float timeSpent, final String levelName) {
+        Screen screen = game.getScreens().get(LevelCompletedScreen.class, AssetGroup.LEVEL_COMPLETED, new LoadingScreen.NextScreen() {
+            @Override
+            public Screen create() {
+                return new LevelCompletedScreen(game, timeSpent, levelName);
+            }
+        });
+        if (screen instanceof LevelCompletedScreen) {
+            ((LevelCompletedScreen) screen).setResult(timeSpent, levelName);
+        }
+        return screen;
+    }
+
     /**
      * Sets up the screen showed after completing a level
      *
@@ -68,37 +95,63 @@ public class LevelCompletedScreen extends ApplicationAdapter implements Screen {
 
     public LevelCompletedScreen(RaccoonRoll game, float timeSpent, String levelName) {
         this.game = game;
-        this.timeSpent = timeSpent;
-        highScores = game.getHighScores();
+        saveGame = game.getSaveGame();
         assetManager = game.getAssetManager();
         options = game.getOptions();
         batch = game.getBatch();
         textCamera = game.getTextCamera();
-        rauno = assetManager.get("graphics/othermenus/pieniRauno.png");
-        background = assetManager.get("graphics/othermenus/Tausta75.png");
+        TextureAtlas atlas = assetManager.get("atlases/othermenus.atlas");
+        rauno = atlas.findRegion("pieniRauno");
+        background = atlas.findRegion("Tausta75");
         backgroundMusic = assetManager.get("sounds/backgroundMusic/main_menu_loop.mp3");
-        backgroundMusic.setVolume(game.getOptions().getMusicVolume());
-        backgroundMusic.play();
-
-        checkHighscore(levelName);
 
         positiveBundle = I18NBundle.createBundle(Gdx.files.internal("localization/Positive"), options.getLocale());
 
         scaleObjects();
 
         stage = new Stage(new ScreenViewport(), batch);
-        Gdx.input.setInputProcessor(stage);
-        Gdx.input.setCatchBackKey(true);
 
         createTables();
+        setResult(timeSpent, levelName);
         if (game.DEBUGGING()) {
             Gdx.app.log("Constructor ran", "LevelCompletedScreen");
         }
     }
 
+    /**
+     * Shows the result of a completed level, called again when the cached screen is reused
+     *
+     * @param timeSpent amount of time spent on the level
+     * @param levelName name of the completed level
+     */
+
+    public void setResult(float timeSpent, String levelName) {
+        this.timeSpent = timeSpent;
+        this.levelName = levelName;
+        newHighscore = false;
+        levelUnlocked = false;
+        checkHighscore(levelName);
+        worldRecord.setText("");
+        if (game.getLeaderboard() != null) {
+            game.getLeaderboard().getTopList(levelName, topListListener);
+        }
+
+        posNum = getRandomPositive();
+        raunoTalk.setText(positiveBundle.get("pos" + posNum));
+        timeSpentLabel.setText(positiveBundle.get("time") + game.formatTime(timeSpent));
+        layoutTable();
+    }
+
+    /**
+     * Resets the cached screen and starts the music when it is shown
+     */
     @Override
     public void show() {
-
+        ScreenCache.resetStage(stage);
+        Gdx.input.setInputProcessor(stage);
+        Gdx.input.setCatchBackKey(true);
+        backgroundMusic.setVolume(options.getMusicVolume());
+        backgroundMusic.play();
     }
 
     /**
@@ -108,13 +161,16 @@ public class LevelCompletedScreen extends ApplicationAdapter implements Screen {
      */
 
     private void checkHighscore(String levelName) {
-        float highScore = highScores.getFloat(levelName, 0);
+        float highScore = saveGame.getHighScore(levelName);
         if (highScore == 0 && !levelName.equals("tutorial") && !levelName.equals("shanghai")) {
             levelUnlocked = true;
         }
         if (highScore > timeSpent || highScore == 0) {
-            highScores.putFloat(levelName, timeSpent);
-            highScores.flush();
+            saveGame.setHighScore(levelName, timeSpent);
+            saveGame.flush();
+            if (game.getLeaderboard() != null) {
+                game.getLeaderboard().submit(levelName, timeSpent);
+            }
             newHighscore = true;
             if (game.DEBUGGING()) {
                 Gdx.app.log("HighScore", "New HighScore!");
@@ -123,11 +179,11 @@ public class LevelCompletedScreen extends ApplicationAdapter implements Screen {
     }
 
     /**
-     * Creates tables and places all elements in right places
+     * Creates the table, the button and the labels
      */
 
     private void createTables() {
-        Table table = new Table();
+        table = new Table();
         table.setFillParent(true);
         stage.addActor(table);
         if (game.DEBUGGING()) {
@@ -135,16 +191,32 @@ public class LevelCompletedScreen extends ApplicationAdapter implements Screen {
         }
 
         skin = assetManager.get("uiskin/comic-ui.json");
-        TextButton ok = new TextButton(positiveBundle.get("ok"), skin);
-        posNum = getRandomPositive();
-        float padding = game.scaleFromFHD(600);
-        float buttonHeight = game.scaleFromFHD(200f);
+        ok = new TextButton(positiveBundle.get("ok"), skin);
 
         createLabels();
+        raunoTalk.setAlignment(Align.center);
+
+        ok.addListener(new ClickListener(){
+            @Override
+            public void clicked(InputEvent event, float x, float y) {
+                Gdx.app.log("Continue", "Button clicked");
+                game.setScreen(MapScreen.load(game));
+            }
+        });
+    }
+
+    /**
+     * Places all elements in right places, the high score and unlocked texts are shown
+     * only when needed
+     */
+
+    private void layoutTable() {
+        float padding = game.scaleFromFHD(600);
+        float buttonHeight = game.scaleFromFHD(200f);
+        table.clearChildren();
 
         Table speechBubble = new Table(skin);
         speechBubble.background("bubble-lower-right");
-        raunoTalk.setAlignment(Align.center);
         speechBubble.add(raunoTalk);
 
 
@@ -165,6 +237,8 @@ public class LevelCompletedScreen extends ApplicationAdapter implements Screen {
         }
 
         table.add(timeSpentLabel).padLeft(padding * 1.85f);
+        table.row().padTop(padding / 14);
+        table.add(worldRecord).padLeft(padding * 1.85f);
 
         if(levelUnlocked) {
             table.row().padTop(padding / 14);
@@ -175,14 +249,6 @@ public class LevelCompletedScreen extends ApplicationAdapter implements Screen {
 
         //table.add(ok).width(Value.percentWidth(0.25f, table)).height(buttonHeight).padLeft(padding * 2);
         table.add(ok).width(Value.percentWidth(0.25f, table)).height(buttonHeight).right().bottom();
-        ok.addListener(new ClickListener(){
-            @Override
-            public void clicked(InputEvent event, float x, float y) {
-                Gdx.app.log("Continue", "Button clicked");
-                game.setScreen(new MapScreen(game));
-                dispose();
-            }
-        });
     }
 
     /**
@@ -190,10 +256,10 @@ public class LevelCompletedScreen extends ApplicationAdapter implements Screen {
      */
 
     private void scaleObjects() {
-        raunoWidth = game.scaleFromFHD(rauno.getWidth());
-        raunoHeight = game.scaleFromFHD(rauno.getHeight());
-        bgWidth = game.scaleFromFHD(background.getWidth());
-        bgHeight = game.scaleFromFHD(background.getHeight());
+        raunoWidth = game.scaleFromFHD(rauno.getRegionWidth());
+        raunoHeight = game.scaleFromFHD(rauno.getRegionHeight());
+        bgWidth = game.scaleFromFHD(background.getRegionWidth());
+        bgHeight = game.scaleFromFHD(background.getRegionHeight());
     }
 
     /**
@@ -203,11 +269,21 @@ public class LevelCompletedScreen extends ApplicationAdapter implements Screen {
      private void createLabels() {
         //for testing purposes
         //raunoTalk = new Label(positiveBundle.get("pos14"), skin);
-        raunoTalk = new Label(positiveBundle.get("pos" + posNum), skin);
-        timeSpentLabel = new Label(positiveBundle.get("time") + game.formatTime(timeSpent), skin);
+        raunoTalk = new Label("", skin);
+        timeSpentLabel = new Label("", skin);
         title = new Label(positiveBundle.get("title"), skin, "title");
         unlocked = new Label(positiveBundle.get("unlocked"), skin);
         highscore = new Label(positiveBundle.get("highscore"), skin);
+        worldRecord = new Label("", skin);
+        topListListener = new Leaderboard.TopListListener() {
+            @Override
+            public void topListReceived(Leaderboard.TopList topList) {
+                // The cached screen may already show another level
+                if (topList.getLevelName().equals(levelName) && topList.getSize() > 0) {
+                    worldRecord.setText(positiveBundle.get("worldRecord") + game.formatTime(topList.getTime(0)));
+                }
+            }
+        };
     }
 
     /**
@@ -231,8 +307,7 @@ public class LevelCompletedScreen extends ApplicationAdapter implements Screen {
         stage.draw();
 
         if (Gdx.input.isKeyJustPressed(Input.Keys.BACK)) {
-            game.setScreen(new MapScreen(game));
-            dispose();
+            game.setScreen(MapScreen.load(game));
         }
     }
 
@@ -260,6 +335,7 @@ public class LevelCompletedScreen extends ApplicationAdapter implements Screen {
 
     @Override
     public void dispose() {
+        AssetGroup.LEVEL_COMPLETED.unload(assetManager);
         if (game.DEBUGGING()) {
             Gdx.app.log("Disposed", "LevelCompletedScreen");
         }
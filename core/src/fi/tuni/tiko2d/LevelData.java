@@ -0,0 +1,216 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Game play data of a level scaled to meters: size, player start position and rectangles of
+ * walls, good objects, bad objects, goal and the goal block
+ *
+ * @author Heikki Kangas
+ */
+public class LevelData {
+    private int columns;
+    private int rows;
+    private float tileSize;
+    private Vector2 startPosition;
+    private Rectangle goalRectangle;
+    private Rectangle goalBlockRectangle;
+    private ArrayList<Rectangle> wallRectangles;
+    private ArrayList<Rectangle> goodRectangles;
+    private ArrayList<Rectangle> badRectangles;
+
+    /**
+     * Creates level data from already scaled values
+     *
+     * @param columns            width of the level in tiles
+     * @param rows               height of the level in tiles
+     * @param tileSize           size of one tile in pixels
+     * @param startPosition      player start position
+     * @param goalRectangle      rectangle for reaching the goal
+     * @param goalBlockRectangle rectangle blocking the goal
+     * @param wallRectangles     rectangles of the walls
+     * @param goodRectangles     rectangles of the good objects
+     * @param badRectangles      rectangles of the bad objects
+     */
+    public LevelData(int columns, int rows, float tileSize, Vector2 startPosition,
+                     Rectangle goalRectangle, Rectangle goalBlockRectangle,
+                     ArrayList<Rectangle> wallRectangles,
+                     ArrayList<Rectangle> goodRectangles,
+                     ArrayList<Rectangle> badRectangles) {
+        this.columns = columns;
+        this.rows = rows;
+        this.tileSize = tileSize;
+        this.startPosition = startPosition;
+        this.goalRectangle = goalRectangle;
+        this.goalBlockRectangle = goalBlockRectangle;
+        this.wallRectangles = wallRectangles;
+        this.goodRectangles = goodRectangles;
+        this.badRectangles = badRectangles;
+    }
+
+    /**
+     * Writes the level data to given stream
+     *
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(columns);
+        out.writeInt(rows);
+        out.writeFloat(tileSize);
+        out.writeFloat(startPosition.x);
+        out.writeFloat(startPosition.y);
+        writeRectangle(out, goalRectangle);
+        writeRectangle(out, goalBlockRectangle);
+        writeRectangles(out, wallRectangles);
+        writeRectangles(out, goodRectangles);
+        writeRectangles(out, badRectangles);
+    }
+
+    /**
+     * Reads level data written with {@link #write(DataOutputStream)}
+     *
+     * @param in where to read from
+     * @return the read level data
+     * @throws IOException if reading fails
+     */
+    public static LevelData read(DataInputStream in) throws IOException {
+        int columns = in.readInt();
+        int rows = in.readInt();
+        float tileSize = in.readFloat();
+        Vector2 startPosition = new Vector2(in.readFloat(), in.readFloat());
+        Rectangle goalRectangle = readRectangle(in);
+        Rectangle goalBlockRectangle = readRectangle(in);
+        ArrayList<Rectangle> wallRectangles = readRectangles(in);
+        ArrayList<Rectangle> goodRectangles = readRectangles(in);
+        ArrayList<Rectangle> badRectangles = readRectangles(in);
+        return new LevelData(columns, rows, tileSize, startPosition, goalRectangle,
+                goalBlockRectangle, wallRectangles, goodRectangles, badRectangles);
+    }
+
+    /**
+     * Writes one rectangle
+     */
+    private static void writeRectangle(DataOutputStream out, Rectangle rectangle) throws IOException {
+        out.writeFloat(rectangle.x);
+        out.writeFloat(rectangle.y);
+        out.writeFloat(rectangle.width);
+        out.writeFloat(rectangle.height);
+    }
+
+    /**
+     * Writes amount of rectangles followed by the rectangles
+     */
+    private static void writeRectangles(DataOutputStream out, ArrayList<Rectangle> rectangles) throws IOException {
+        out.writeInt(rectangles.size());
+        for (Rectangle rectangle : rectangles) {
+            writeRectangle(out, rectangle);
+        }
+    }
+
+    /**
+     * Reads one rectangle
+     */
+    private static Rectangle readRectangle(DataInputStream in) throws IOException {
+        return new Rectangle(in.readFloat(), in.readFloat(), in.readFloat(), in.readFloat());
+    }
+
+    /**
+     * Reads amount of rectangles followed by the rectangles
+     */
+    private static ArrayList<Rectangle> readRectangles(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        ArrayList<Rectangle> rectangles = new ArrayList<Rectangle>(count);
+        for (int i = 0; i < count; i++) {
+            rectangles.add(readRectangle(in));
+        }
+        return rectangles;
+    }
+
+    /**
+     * Getter for level width in tiles
+     *
+     * @return level width in tiles
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Getter for level height in tiles
+     *
+     * @return level height in tiles
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Getter for the size of one tile in pixels
+     *
+     * @return tile size in pixels
+     */
+    public float getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * Getter for player start position in meters
+     *
+     * @return player start position
+     */
+    public Vector2 getStartPosition() {
+        return startPosition;
+    }
+
+    /**
+     * Getter for the rectangle for reaching the goal
+     *
+     * @return the goal rectangle
+     */
+    public Rectangle getGoalRectangle() {
+        return goalRectangle;
+    }
+
+    /**
+     * Getter for the rectangle blocking the goal until all good objects are collected
+     *
+     * @return the goal block rectangle
+     */
+    public Rectangle getGoalBlockRectangle() {
+        return goalBlockRectangle;
+    }
+
+    /**
+     * Getter for the wall rectangles
+     *
+     * @return the wall rectangles
+     */
+    public ArrayList<Rectangle> getWallRectangles() {
+        return wallRectangles;
+    }
+
+    /**
+     * Getter for the good object rectangles
+     *
+     * @return the good object rectangles
+     */
+    public ArrayList<Rectangle> getGoodRectangles() {
+        return goodRectangles;
+    }
+
+    /**
+     * Getter for the bad object rectangles
+     *
+     * @return the bad object rectangles
+     */
+    public ArrayList<Rectangle> getBadRectangles() {
+        return badRectangles;
+    }
+}
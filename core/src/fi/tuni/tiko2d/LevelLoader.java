@@ -0,0 +1,141 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.assets.loaders.TextureLoader;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Loads levels with the AssetManager from maze.bin written by {@link CompiledLevel} or from
+ * maze.tmx with TmxMapLoader.
+ * Tileset textures are loaded as dependencies and the tilemap and level data are created in
+ * the loader thread so only uploading the textures happens in the rendering thread
+ *
+ * @author Heikki Kangas
+ */
+public class LevelLoader extends AsynchronousAssetLoader<CompiledLevel, LevelLoader.LevelParameter> {
+    /**
+     * Parameters for loading a level
+     */
+    public static class LevelParameter extends AssetLoaderParameters<CompiledLevel> {
+        /**
+         * Filter used for the tileset textures
+         */
+        public Texture.TextureFilter textureFilter = Texture.TextureFilter.Nearest;
+    }
+
+    private TiledMapUtil tiledMapUtil;
+    private TmxMapLoader tmxMapLoader;
+    private CompiledLevel level;
+
+    /**
+     * Creates the loader
+     *
+     * @param resolver     resolver for the level files
+     * @param tiledMapUtil used for reading the level data from maze.tmx
+     */
+    public LevelLoader(FileHandleResolver resolver, TiledMapUtil tiledMapUtil) {
+        super(resolver);
+        this.tiledMapUtil = tiledMapUtil;
+        tmxMapLoader = new TmxMapLoader(resolver);
+    }
+
+    /**
+     * Returns the tileset textures the level needs
+     *
+     * @param fileName path of maze.bin or maze.tmx
+     * @param file     resolved level file
+     * @param parameter loading parameters, may be null
+     * @return the tileset textures
+     */
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, LevelParameter parameter) {
+        if (isTmx(fileName)) {
+            return tmxMapLoader.getDependencies(fileName, file, getTmxParameters(parameter));
+        }
+        TextureLoader.TextureParameter textureParameter = getTextureParameter(parameter);
+        Array<AssetDescriptor> dependencies = new Array<AssetDescriptor>();
+        for (String imagePath : CompiledLevel.readImagePaths(file)) {
+            dependencies.add(new AssetDescriptor<Texture>(imagePath, Texture.class, textureParameter));
+        }
+        return dependencies;
+    }
+
+    /**
+     * Reads the tilemap and level data using the loaded textures
+     *
+     * @param manager   manager holding the loaded textures
+     * @param fileName  path of maze.bin or maze.tmx
+     * @param file      resolved level file
+     * @param parameter loading parameters, may be null
+     */
+    @Override
+    public void loadAsync(AssetManager manager, String fileName, FileHandle file, LevelParameter parameter) {
+        if (isTmx(fileName)) {
+            TmxMapLoader.Parameters tmxParameters = getTmxParameters(parameter);
+            tmxMapLoader.loadAsync(manager, fileName, file, tmxParameters);
+            TiledMap tiledMap = tmxMapLoader.loadSync(manager, fileName, file, tmxParameters);
+            level = new CompiledLevel(tiledMap, tiledMapUtil.getLevelData(tiledMap));
+        } else {
+            Array<Texture> textures = new Array<Texture>();
+            for (String imagePath : CompiledLevel.readImagePaths(file)) {
+                textures.add(manager.get(imagePath, Texture.class));
+            }
+            level = CompiledLevel.read(file, textures);
+        }
+    }
+
+    /**
+     * Returns the level read in {@link #loadAsync(AssetManager, String, FileHandle, LevelParameter)}
+     *
+     * @param manager   not used
+     * @param fileName  not used
+     * @param file      not used
+     * @param parameter not used
+     * @return the loaded level
+     */
+    @Override
+    public CompiledLevel loadSync(AssetManager manager, String fileName, FileHandle file, LevelParameter parameter) {
+        CompiledLevel loadedLevel = level;
+        level = null;
+        return loadedLevel;
+    }
+
+    /**
+     * Is the level loaded from maze.tmx
+     */
+    private boolean isTmx(String fileName) {
+        return fileName.endsWith(".tmx");
+    }
+
+    /**
+     * Creates TmxMapLoader parameters with the texture filter of the given parameters
+     */
+    private TmxMapLoader.Parameters getTmxParameters(LevelParameter parameter) {
+        TmxMapLoader.Parameters tmxParameters = new TmxMapLoader.Parameters();
+        if (parameter != null) {
+            tmxParameters.textureMinFilter = parameter.textureFilter;
+            tmxParameters.textureMagFilter = parameter.textureFilter;
+        }
+        return tmxParameters;
+    }
+
+    /**
+     * Creates texture parameters with the texture filter of the given parameters
+     */
+    private TextureLoader.TextureParameter getTextureParameter(LevelParameter parameter) {
+        TextureLoader.TextureParameter textureParameter = new TextureLoader.TextureParameter();
+        Texture.TextureFilter filter = parameter != null ? parameter.textureFilter : Texture.TextureFilter.Nearest;
+        textureParameter.minFilter = filter;
+        textureParameter.magFilter = filter;
+        return textureParameter;
+    }
+}
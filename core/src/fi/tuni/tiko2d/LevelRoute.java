@@ -0,0 +1,355 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Route from the player start position through every reachable good object to the goal.
+ * Which objects can be reached is found on a {@link NavigationGrid}, each object is visited at
+ * the cell overlapping it that is nearest to the start position.
+ * The order of the objects is picked from distances estimated on the grid's coarse grid, first
+ * by always going to the nearest object and then improved by reversing parts of the route while
+ * that makes it shorter. The searches of the estimates stop once the nearest objects have been
+ * reached and the distances to the goal come from one search from the goal. Only the legs of
+ * the chosen order are then searched on the full grid, which gives the path and the exact length
+ *
+ * @author Heikki Kangas
+ */
+public class LevelRoute {
+    /**
+     * How many of the nearest points the distances are searched to from each point
+     */
+    private static final int NEAREST_POINTS = 16;
+
+    private NavigationGrid grid;
+    private LevelData levelData;
+    private int startCell;
+    private boolean startFree;
+    private ArrayList<Rectangle> unreachableObjects;
+    private int[] objectCells;
+    private int[] order;
+    private IntArray path;
+    private float length;
+
+    /**
+     * Solves the route of a level
+     *
+     * @param grid         navigation grid of the level
+     * @param levelData    game play data of the level
+     * @param objectRadius radius used for overlapping good objects and the goal
+     */
+    public LevelRoute(NavigationGrid grid, LevelData levelData, float objectRadius) {
+        this.grid = grid;
+        this.levelData = levelData;
+        unreachableObjects = new ArrayList<Rectangle>();
+        path = new IntArray();
+        Vector2 start = levelData.getStartPosition();
+        startCell = grid.getCell(start.x, start.y);
+        startFree = grid.isFree(startCell, false);
+        length = Float.POSITIVE_INFINITY;
+        if (!startFree) {
+            return;
+        }
+
+        ArrayList<Rectangle> goodRectangles = levelData.getGoodRectangles();
+        IntArray cells = new IntArray();
+        grid.search(startCell, false);
+        for (Rectangle rectangle : goodRectangles) {
+            int cell = findNearest(grid.getOverlappingCells(rectangle, objectRadius, false));
+            if (cell == -1) {
+                unreachableObjects.add(rectangle);
+            } else {
+                cells.add(cell);
+            }
+        }
+        objectCells = cells.toArray();
+
+        int count = objectCells.length;
+        IntArray goalCells = grid.getOverlappingCells(levelData.getGoalRectangle(), objectRadius, true);
+        float[][] distances = estimateDistances(grid.getCoarseGrid(), goalCells);
+        order = getNearestNeighbourOrder(distances, count);
+        improveOrder(distances, order);
+        length = searchPath(goalCells);
+    }
+
+    /**
+     * Estimates the distances between the start, the objects and the goal on the coarse grid.
+     * Row 0 is the start, row i + 1 is object i and the last column is the goal. Each point is
+     * searched from only until its {@link #NEAREST_POINTS} nearest points have been reached,
+     * longer distances are the shortest ones going through those. A distance the coarse grid
+     * can't find, for example through a gap narrower than a tile, is estimated as the straight line
+     */
+    private float[][] estimateDistances(NavigationGrid coarse, IntArray goalCells) {
+        int count = objectCells.length;
+        int[] coarseCells = new int[count + 1];
+        IntArray targets = new IntArray(count + 1);
+        for (int point = 0; point <= count; point++) {
+            coarseCells[point] = toCoarseCell(coarse, getPointCell(point), false);
+            if (coarseCells[point] != -1) {
+                targets.add(coarseCells[point]);
+            }
+        }
+
+        float[][] between = new float[count + 1][count + 1];
+        for (int point = 0; point <= count; point++) {
+            Arrays.fill(between[point], Float.POSITIVE_INFINITY);
+            between[point][point] = 0;
+        }
+        for (int point = 0; point <= count; point++) {
+            if (coarseCells[point] == -1) {
+                continue;
+            }
+            // The point's own cell is one of the targets
+            coarse.searchNearest(coarseCells[point], false, targets, NEAREST_POINTS + 1);
+            for (int to = 0; to <= count; to++) {
+                if (coarseCells[to] != -1) {
+                    float distance = coarse.getDistance(coarseCells[to]);
+                    if (distance < between[point][to]) {
+                        between[point][to] = distance;
+                        between[to][point] = distance;
+                    }
+                }
+            }
+        }
+        for (int via = 0; via <= count; via++) {
+            for (int point = 0; point <= count; point++) {
+                for (int to = 0; to <= count; to++) {
+                    between[point][to] = Math.min(between[point][to], between[point][via] + between[via][to]);
+                }
+            }
+        }
+
+        IntArray coarseGoalCells = new IntArray(goalCells.size);
+        for (int i = 0; i < goalCells.size; i++) {
+            int coarseCell = toCoarseCell(coarse, goalCells.get(i), true);
+            if (coarseCell != -1) {
+                coarseGoalCells.add(coarseCell);
+            }
+        }
+        coarse.search(coarseGoalCells, true, targets);
+
+        Rectangle goal = levelData.getGoalRectangle();
+        float[][] distances = new float[count + 1][count + 1];
+        for (int point = 0; point <= count; point++) {
+            int cell = getPointCell(point);
+            for (int to = 0; to < count; to++) {
+                distances[point][to] = between[point][to + 1] != Float.POSITIVE_INFINITY
+                        ? between[point][to + 1]
+                        : Vector2.dst(grid.getCellX(cell), grid.getCellY(cell),
+                        grid.getCellX(objectCells[to]), grid.getCellY(objectCells[to]));
+            }
+            distances[point][count] = coarseCells[point] != -1
+                    && coarse.getDistance(coarseCells[point]) != Float.POSITIVE_INFINITY
+                    ? coarse.getDistance(coarseCells[point])
+                    : Vector2.dst(grid.getCellX(cell), grid.getCellY(cell),
+                    goal.x + goal.width / 2, goal.y + goal.height / 2);
+        }
+        return distances;
+    }
+
+    /**
+     * Getter for the cell of a point of the route
+     *
+     * @param point 0 for the start, i + 1 for object i
+     * @return index of the cell
+     */
+    private int getPointCell(int point) {
+        return point == 0 ? startCell : objectCells[point - 1];
+    }
+
+    /**
+     * Finds the coarse cell containing a free cell
+     *
+     * @return index of the coarse cell, -1 if it is not free on the coarse grid
+     */
+    private int toCoarseCell(NavigationGrid coarse, int cell, boolean goalOpen) {
+        int coarseCell = coarse.getCell(grid.getCellX(cell), grid.getCellY(cell));
+        return coarse.isFree(coarseCell, goalOpen) ? coarseCell : -1;
+    }
+
+    /**
+     * Searches the legs of the route in the chosen order on the full grid
+     *
+     * @param goalOverlapping cells overlapping the goal
+     * @return exact length of the route, infinity if the goal can't be reached
+     */
+    private float searchPath(IntArray goalOverlapping) {
+        IntArray target = new IntArray(1);
+        float routeLength = 0;
+        int from = startCell;
+        for (int i = 0; i < order.length; i++) {
+            target.clear();
+            target.add(objectCells[order[i]]);
+            from = grid.searchNearest(from, false, target);
+            routeLength += grid.getDistance(from);
+            addLeg(from);
+        }
+        int goalCell = grid.searchNearest(from, true, goalOverlapping);
+        if (goalCell == -1) {
+            path.clear();
+            return Float.POSITIVE_INFINITY;
+        }
+        addLeg(goalCell);
+        return routeLength + grid.getDistance(goalCell);
+    }
+
+    /**
+     * Finds the cell nearest to the cell searched from in the last search
+     *
+     * @return index of the nearest cell, -1 if none of the cells can be reached
+     */
+    private int findNearest(IntArray cells) {
+        int nearest = -1;
+        float nearestDistance = Float.POSITIVE_INFINITY;
+        for (int i = 0; i < cells.size; i++) {
+            float distance = grid.getDistance(cells.get(i));
+            if (distance < nearestDistance) {
+                nearestDistance = distance;
+                nearest = cells.get(i);
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Orders the objects by always going to the nearest object not visited yet
+     */
+    private int[] getNearestNeighbourOrder(float[][] distances, int count) {
+        int[] order = new int[count];
+        boolean[] visited = new boolean[count];
+        int from = 0;
+        for (int i = 0; i < count; i++) {
+            int nearest = -1;
+            for (int to = 0; to < count; to++) {
+                if (!visited[to] && (nearest == -1 || distances[from][to] < distances[from][nearest])) {
+                    nearest = to;
+                }
+            }
+            visited[nearest] = true;
+            order[i] = nearest;
+            from = nearest + 1;
+        }
+        return order;
+    }
+
+    /**
+     * Reverses parts of the order as long as some reversal makes the route shorter
+     *
+     * @return length of the improved route
+     */
+    private float improveOrder(float[][] distances, int[] order) {
+        float best = getLength(distances, order);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int i = 0; i < order.length - 1; i++) {
+                for (int j = i + 1; j < order.length; j++) {
+                    reverse(order, i, j);
+                    float length = getLength(distances, order);
+                    if (length < best - 0.001f) {
+                        best = length;
+                        improved = true;
+                    } else {
+                        reverse(order, i, j);
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Calculates the length of the route from the start through the objects in given order to the goal
+     */
+    private float getLength(float[][] distances, int[] order) {
+        int goal = order.length;
+        if (order.length == 0) {
+            return distances[0][goal];
+        }
+        float length = distances[0][order[0]];
+        for (int i = 1; i < order.length; i++) {
+            length += distances[order[i - 1] + 1][order[i]];
+        }
+        return length + distances[order[order.length - 1] + 1][goal];
+    }
+
+    /**
+     * Reverses the order between given indices, both included
+     */
+    private static void reverse(int[] order, int i, int j) {
+        for (; i < j; i++, j--) {
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+    }
+
+    /**
+     * Does the player start inside a wall
+     *
+     * @return true if the start position is free
+     */
+    public boolean isStartFree() {
+        return startFree;
+    }
+
+    /**
+     * Can the goal be reached after collecting the reachable objects
+     *
+     * @return true if there's a route to the goal
+     */
+    public boolean isGoalReachable() {
+        return length != Float.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Getter for the good objects the player can't reach from the start position
+     *
+     * @return the unreachable good objects
+     */
+    public ArrayList<Rectangle> getUnreachableObjects() {
+        return unreachableObjects;
+    }
+
+    /**
+     * Getter for the length of the route
+     *
+     * @return length in meters including the extra cost of bad objects, infinity if the goal
+     * can't be reached
+     */
+    public float getLength() {
+        return length;
+    }
+
+    /**
+     * Gets the cells the route goes through
+     *
+     * @param path cell indices from the start to the goal are added here
+     */
+    public void getPath(IntArray path) {
+        path.addAll(this.path);
+    }
+
+    /**
+     * Adds the path to a cell found by the last search, without repeating the cell the leg starts from
+     */
+    private void addLeg(int to) {
+        if (path.size > 0) {
+            path.pop();
+        }
+        grid.getPath(to, path);
+    }
+
+    /**
+     * Getter for the level the route was solved for
+     *
+     * @return game play data of the level
+     */
+    public LevelData getLevelData() {
+        return levelData;
+    }
+}
@@ -0,0 +1,147 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+
+/**
+ * Shows a progress bar while the AssetManager loads queued assets a bit every frame,
+ * then moves to the next screen.
+ * Does not use any assets itself so it can be shown before anything has been loaded
+ *
+ * @author Heikki Kangas
+ */
+public class LoadingScreen implements Screen {
+    /**
+     * Creates the screen shown after loading
+     */
+    public interface NextScreen {
+        /**
+         * Called when all the queued assets have been loaded
+         *
+         * @return the screen to show
+         */
+        Screen create();
+    }
+
+    private final int loadingTimePerFrame = 15;
+
+    private RaccoonRoll game;
+    private AssetManager assetManager;
+    private OrthographicCamera textCamera;
+    private ShapeRenderer shapeRenderer;
+    private NextScreen nextScreen;
+    private long start;
+
+    /**
+     * Creates the next screen right away if the queued assets are already loaded,
+     * otherwise a loading screen that creates it when they are
+     *
+     * @param game       main game class
+     * @param nextScreen creates the screen shown after loading
+     * @return the screen to show
+     */
+    public static Screen create(RaccoonRoll game, NextScreen nextScreen) {
+        if (game.getAssetManager().update()) {
+            return nextScreen.create();
+        }
+        return new LoadingScreen(game, nextScreen);
+    }
+
+    /**
+     * Sets up the loading screen, assets should be queued to the AssetManager before
+     *
+     * @param game       main game class
+     * @param nextScreen creates the screen shown after loading
+     */
+    public LoadingScreen(RaccoonRoll game, NextScreen nextScreen) {
+        this.game = game;
+        this.nextScreen = nextScreen;
+        assetManager = game.getAssetManager();
+        textCamera = game.getTextCamera();
+        shapeRenderer = new ShapeRenderer();
+        start = System.currentTimeMillis();
+    }
+
+    @Override
+    public void show() {
+
+    }
+
+    /**
+     * Loads assets for a while and draws the progress, moves to the next screen when done
+     *
+     * @param delta time since last frame
+     */
+    @Override
+    public void render(float delta) {
+        boolean loaded = assetManager.update(loadingTimePerFrame);
+
+        Gdx.gl.glClearColor(1, 1, 1, 1);
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+        drawProgressBar(assetManager.getProgress());
+
+        if (loaded) {
+            Gdx.app.log("Assets loaded", "in " + (System.currentTimeMillis() - start) + "ms, "
+                    + assetManager.getLoadedAssets() + " assets in memory");
+            MemoryDebug.peakMemory();
+            game.setScreen(nextScreen.create());
+            dispose();
+        }
+    }
+
+    /**
+     * Draws progress bar to the middle of the screen
+     *
+     * @param progress loading progress between 0 and 1
+     */
+    private void drawProgressBar(float progress) {
+        float width = Gdx.graphics.getWidth() * 0.6f;
+        float height = game.scaleVertical(40f);
+        float x = (Gdx.graphics.getWidth() - width) / 2;
+        float y = (Gdx.graphics.getHeight() - height) / 2;
+
+        shapeRenderer.setProjectionMatrix(textCamera.combined);
+        shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
+        shapeRenderer.setColor(Color.LIGHT_GRAY);
+        shapeRenderer.rect(x, y, width, height);
+        shapeRenderer.setColor(Color.DARK_GRAY);
+        shapeRenderer.rect(x, y, width * progress, height);
+        shapeRenderer.end();
+    }
+
+    @Override
+    public void resize(int width, int height) {
+
+    }
+
+    @Override
+    public void pause() {
+
+    }
+
+    @Override
+    public void resume() {
+
+    }
+
+    @Override
+    public void hide() {
+
+    }
+
+    /**
+     * Disposes the ShapeRenderer
+     */
+    @Override
+    public void dispose() {
+        shapeRenderer.dispose();
+        if (game.DEBUGGING()) {
+            Gdx.app.log("Disposed", "LoadingScreen");
+        }
+    }
+}
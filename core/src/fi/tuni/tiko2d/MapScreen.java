@@ -4,7 +4,6 @@ import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.InputMultiplexer;
-import com.badlogic.gdx.Preferences;
 import com.badlogic.gdx.Screen;
 import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.audio.Music;
@@ -12,6 +11,8 @@ import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.input.GestureDetector;
 import com.badlogic.gdx.scenes.scene2d.Group;
 import com.badlogic.gdx.scenes.scene2d.InputEvent;
@@ -44,24 +45,51 @@ public class MapScreen extends ApplicationAdapter implements Screen {
     private Skin skin;
     private Texture map1;
     private Texture map2;
+    private TextureAtlas flags;
     private float bgHeight;
     private float bgWidth;
     private float buttonHeight;
     private InputMultiplexer multiplexer;
     private GestureDetector mapScroller;
     private boolean showLevelSelect;
-    private Preferences highScores;
+    private SaveGame saveGame;
 
     private ArrayList<Country> levels;
     private I18NBundle mapBundle;
 
     private Group buttons;
+    private int unlockedCountries;
+
+    private Table levelButtonTable;
+    private Table levelSelectTable;
+    private Label countryName;
+    private TextButton levelButton1;
+    private TextButton levelButton2;
+    private Label levelTimeLabel1;
+    private Label levelTimeLabel2;
+    private Country selectedCountry;
 
     private AssetManager assetManager;
     private Music backgroundMusic;
 
     private float bgX;
 
+    /**
+     * Returns the cached map, or queues its assets and returns a loading screen that shows it
+     * when the assets have been loaded
+     *
+     * @param game the main game class
+     * @return the screen to show
+     */
+    public static Screen load(final RaccoonRoll game) {
+        return game.getScreens().get(MapScreen.class, AssetGroup.MAP, new LoadingScreen.NextScreen() {
+            @Override
+            public Screen create() {
+                return new MapScreen(game);
+            }
+        });
+    }
+
     /**
      * Creates the map where to choose the level to play
      *
@@ -69,7 +97,7 @@ public class MapScreen extends ApplicationAdapter implements Screen {
      */
     public MapScreen(RaccoonRoll game) {
         this.game = game;
-        highScores = game.getHighScores();
+        saveGame = game.getSaveGame();
         assetManager = game.getAssetManager();
         mapBundle = I18NBundle.createBundle(
                 Gdx.files.internal("localization/MapBundle"),
@@ -83,6 +111,7 @@ public class MapScreen extends ApplicationAdapter implements Screen {
         textCamera = game.getTextCamera();
         map1 = assetManager.get("graphics/worldmap/map1.png");
         map2 = assetManager.get("graphics/worldmap/map2.png");
+        flags = assetManager.get("atlases/worldmap.atlas");
 
         backgroundMusic = assetManager.get("sounds/backgroundMusic/main_menu_loop.mp3");
 
@@ -90,30 +119,44 @@ public class MapScreen extends ApplicationAdapter implements Screen {
         buttonStage = new Stage(new ScreenViewport(), batch);
         // Stage for tutorial button on right top edge of the screen
         tutorialStage = new Stage(new ScreenViewport(), batch);
+        // Stage for level selection menu shown when a flag is tapped
+        levelSelect = new Stage(new ScreenViewport(), batch);
 
         multiplexer = new InputMultiplexer();
         mapScroller = new GestureDetector(new MapScroller());
-        multiplexer.addProcessor(buttonStage);
-        multiplexer.addProcessor(tutorialStage);
-        multiplexer.addProcessor(mapScroller);
 
         bgHeight = game.scaleVertical(map1.getHeight());
         bgWidth = game.scaleVertical(map1.getWidth());
 
-        Gdx.input.setInputProcessor(multiplexer);
-        Gdx.input.setCatchBackKey(true);
-
         // Adjusts the map's start position
         bgX = game.scaleVertical(-600);
 
         skin = assetManager.get("uiskin/comic-ui.json");
 
         createButtons();
+        createLevelSelector();
     }
 
+    /**
+     * Resets the cached map when it is shown, flags are created again only if
+     * new countries have been unlocked
+     */
     @Override
     public void show() {
+        if (countUnlockedCountries() != unlockedCountries) {
+            createFlagButtons();
+        }
+        showLevelSelect = false;
+        multiplexer.clear();
+        multiplexer.addProcessor(buttonStage);
+        multiplexer.addProcessor(tutorialStage);
+        multiplexer.addProcessor(mapScroller);
+        ScreenCache.resetStage(buttonStage);
+        ScreenCache.resetStage(tutorialStage);
+        ScreenCache.resetStage(levelSelect);
 
+        Gdx.input.setInputProcessor(multiplexer);
+        Gdx.input.setCatchBackKey(true);
     }
 
     /**
@@ -151,8 +194,7 @@ public class MapScreen extends ApplicationAdapter implements Screen {
         }
 
         if (Gdx.input.isKeyJustPressed(Input.Keys.BACK)) {
-            game.setScreen(new MenuScreen(game));
-            dispose();
+            game.setScreen(MenuScreen.load(game));
         }
     }
 
@@ -202,48 +244,36 @@ public class MapScreen extends ApplicationAdapter implements Screen {
     }
 
     /**
-     * Generates level selection menu when flag on the map is tapped
-     * @param selectedCountry for which country to generate the menu
+     * Creates level selection menu, its texts are set when a flag on the map is tapped
      */
-    private void generateLevelSelector(Country selectedCountry) {
-        final Country country = selectedCountry;
+    private void createLevelSelector() {
         float padding = game.scaleVertical(50);
-        boolean firstLevelCompleted = game.getCompletedLevels().getBoolean(country.levels[0], false);
-        //boolean firstLevelCompleted = true;
-        levelSelect = new Stage(new ScreenViewport(), batch);
-        Table table = new Table(skin);
-        Table levelButtonTable = new Table();
+        levelSelectTable = new Table(skin);
+        levelButtonTable = new Table();
 
         if (game.DEBUGGING()) {
-            table.setDebug(true);
+            levelSelectTable.setDebug(true);
         }
 
-        Label countryName = new Label(country.countryName, skin);
+        countryName = new Label("", skin);
+        levelTimeLabel1 = new Label("", skin);
+        levelTimeLabel2 = new Label("", skin);
 
-        TextButton levelButton1 = new TextButton(country.levelNames[0], skin);
+        levelButton1 = new TextButton("", skin);
         levelButton1.addListener(new ClickListener() {
             @Override
             public void clicked(InputEvent event, float x, float y) {
-                Gdx.app.log(country.levelNames[0], "Clicked");
-                game.setScreen(new MazeScreen(game, country.levels[0]));
-                backgroundMusic.stop();
-                dispose();
+                startLevel(0);
             }
         });
 
-        TextButton levelButton2 = new TextButton("", skin);
-        if (firstLevelCompleted) {
-            levelButton2.setText(country.levelNames[1]);
-            levelButton2.addListener(new ClickListener() {
-                @Override
-                public void clicked(InputEvent event, float x, float y) {
-                    Gdx.app.log(country.levelNames[1], "Clicked");
-                    game.setScreen(new MazeScreen(game, country.levels[1]));
-                    backgroundMusic.stop();
-                    dispose();
-                }
-            });
-        }
+        levelButton2 = new TextButton("", skin);
+        levelButton2.addListener(new ClickListener() {
+            @Override
+            public void clicked(InputEvent event, float x, float y) {
+                startLevel(1);
+            }
+        });
 
         TextButton closeButton = new TextButton(mapBundle.get("close"), skin);
         closeButton.addListener(new ClickListener() {
@@ -254,54 +284,83 @@ public class MapScreen extends ApplicationAdapter implements Screen {
                 multiplexer.removeProcessor(levelSelect);
                 multiplexer.addProcessor(buttonStage);
                 multiplexer.addProcessor(mapScroller);
-                levelSelect.dispose();
             }
         });
 
+        levelSelectTable.add(countryName);
+        levelSelectTable.row();
+        levelSelectTable.add(levelButtonTable);
+        levelSelectTable.row();
+        levelSelectTable.add(closeButton).height(buttonHeight).padTop(padding);
+
+        levelSelectTable.setBackground("text-field");
+        levelSelect.addActor(levelSelectTable);
+    }
+
+    /**
+     * Starts a level of the selected country
+     *
+     * @param level index of the level in the country
+     */
+    private void startLevel(int level) {
+        Gdx.app.log(selectedCountry.levelNames[level], "Clicked");
+        game.setScreen(MazeScreen.load(game, selectedCountry.levels[level]));
+        backgroundMusic.stop();
+    }
+
+    /**
+     * Shows the levels of a country in the level selection menu when flag on the map is tapped
+     * @param country for which country to show the menu
+     */
+    private void showLevelSelector(Country country) {
+        selectedCountry = country;
+        float padding = game.scaleVertical(50);
+        boolean firstLevelCompleted = saveGame.isLevelCompleted(country.levels[0]);
+        //boolean firstLevelCompleted = true;
+
+        countryName.setText(country.countryName);
+        levelButton1.setText(country.levelNames[0]);
+        levelButton2.setText(country.levelNames[1]);
+        setLevelTime(levelTimeLabel1, country.levels[0]);
+        setLevelTime(levelTimeLabel2, country.levels[1]);
+
+        levelButtonTable.clearChildren();
         levelButtonTable.add(levelButton1).padTop(padding).uniformX().fillX().height(buttonHeight);
         levelButtonTable.row();
-
-        Label levelTimeLabel1 = new Label("", skin);
-        float levelTime1 = highScores.getFloat(country.levels[0], 0);
-        if (levelTime1 != 0f) {
-            levelTimeLabel1.setText(mapBundle.get("bestTime") + game.formatTime(levelTime1));
-        } else {
-            levelTimeLabel1.setText(mapBundle.get("notPlayedYet"));
-        }
         levelButtonTable.add(levelTimeLabel1);
 
         if (firstLevelCompleted) {
             levelButtonTable.row();
             levelButtonTable.add(levelButton2).padTop(padding).fillX().height(buttonHeight);
             levelButtonTable.row();
-
-            Label levelTimeLabel2 = new Label("", skin);
-            float levelTime2 = highScores.getFloat(country.levels[1], 0);
-            if (levelTime2 != 0f) {
-                levelTimeLabel2.setText(mapBundle.get("bestTime") + game.formatTime(levelTime2));
-            } else {
-                levelTimeLabel2.setText(mapBundle.get("notPlayedYet"));
-            }
             levelButtonTable.add(levelTimeLabel2);
         }
 
-        table.add(countryName);
-        table.row();
-        table.add(levelButtonTable);
-        table.row();
-        table.add(closeButton).height(buttonHeight).padTop(padding);
-
-        levelSelect.addActor(table);
+        levelSelectTable.invalidateHierarchy();
+        levelSelectTable.pack();
+        levelSelectTable.setPosition(
+                Gdx.graphics.getWidth() / 2 - levelSelectTable.getWidth() / 2,
+                Gdx.graphics.getHeight() / 2 - levelSelectTable.getHeight() / 2);
+        ScreenCache.resetStage(levelSelect);
+    }
 
-        table.setBackground("text-field");
-        table.pack();
-        table.setPosition(
-                Gdx.graphics.getWidth() / 2 - table.getWidth() / 2,
-                Gdx.graphics.getHeight() / 2 - table.getHeight() / 2);
+    /**
+     * Shows the best time of a level in a label
+     *
+     * @param label     label to show the time in
+     * @param levelName name of the level
+     */
+    private void setLevelTime(Label label, String levelName) {
+        float levelTime = saveGame.getHighScore(levelName);
+        if (levelTime != 0f) {
+            label.setText(mapBundle.get("bestTime") + game.formatTime(levelTime));
+        } else {
+            label.setText(mapBundle.get("notPlayedYet"));
+        }
     }
 
     /**
-     * Creates buttons on map for each contry
+     * Creates the tutorial button and the buttons on map for each country
      */
     private void createButtons() {
         buttons = new Group();
@@ -319,24 +378,45 @@ public class MapScreen extends ApplicationAdapter implements Screen {
             @Override
             public void clicked(InputEvent event, float x, float y) {
                 Gdx.app.log("TutorialButton", "Clicked");
-                game.setScreen(new TutorialScreen(game));
+                game.setScreen(TutorialScreen.load(game));
                 backgroundMusic.stop();
-                dispose();
             }
         });
 
-        for (Country entry : levels) {
-            final Country country = entry;
-            Group countryButtons = new Group();
-            Texture texture = assetManager.get(
-                    String.format("graphics/worldmap/buttons/%s.png", country.countryCode)
-            );
+        createFlagButtons();
+    }
+
+    /**
+     * Counts the countries whose flags are shown, the next country is unlocked when
+     * the last level of the previous one has been completed
+     *
+     * @return amount of unlocked countries
+     */
+    private int countUnlockedCountries() {
+        int count = 0;
+        for (Country country : levels) {
+            count++;
+            if (!saveGame.isLevelCompleted(country.levels[1])) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Creates buttons on map for each unlocked country, replacing the old ones
+     */
+    private void createFlagButtons() {
+        buttons.clearChildren();
+        unlockedCountries = countUnlockedCountries();
 
-            boolean addNextButton = game.getCompletedLevels().getBoolean(country.levels[1], false);
-            //boolean addNextButton = true;
+        for (int i = 0; i < unlockedCountries; i++) {
+            final Country country = levels.get(i);
+            Group countryButtons = new Group();
+            TextureRegion texture = flags.findRegion(country.countryCode);
 
-            float x = game.scaleVertical(entry.buttonX);
-            float y = game.scaleVertical(entry.buttonY);
+            float x = game.scaleVertical(country.buttonX);
+            float y = game.scaleVertical(country.buttonY);
 
             ImageButton btn1 = new ImageButton(new TextureRegionDrawable(texture));
             ImageButton btn2 = new ImageButton(new TextureRegionDrawable(texture));
@@ -362,17 +442,13 @@ public class MapScreen extends ApplicationAdapter implements Screen {
                     Gdx.app.log(country.countryName, "Clicked");
                     multiplexer.removeProcessor(buttonStage);
                     multiplexer.removeProcessor(mapScroller);
-                    generateLevelSelector(country);
+                    showLevelSelector(country);
                     multiplexer.addProcessor(levelSelect);
                     showLevelSelect = true;
                 }
             });
 
             buttons.addActor(countryButtons);
-
-            if (!addNextButton) {
-                break;
-            }
         }
     }
 
@@ -381,11 +457,10 @@ public class MapScreen extends ApplicationAdapter implements Screen {
      */
     @Override
     public void dispose() {
+        AssetGroup.MAP.unload(assetManager);
         buttonStage.dispose();
         tutorialStage.dispose();
-        if (levelSelect != null) {
-            levelSelect.dispose();
-        }
+        levelSelect.dispose();
         if (game.DEBUGGING()) {
             Gdx.app.log("MapScreen", "Disposed");
         }
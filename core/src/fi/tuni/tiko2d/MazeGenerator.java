@@ -0,0 +1,504 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.MapObject;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+import com.badlogic.gdx.math.RandomXS128;
+
+/**
+ * Generates random mazes with the same layers as the levels made with Tiled, described in
+ * tilemaps/TileMaps layer structure.txt, so they can be played and simulated like any level.
+ * Corridors are two tiles wide and walls one tile thick like in the hand made levels. The maze is
+ * carved with a randomized depth first search and a few extra walls are removed so there is
+ * more than one route. The player starts from the bottom left corner and the goal opens to
+ * the right edge at the top right corner.
+ * Tiles are shared between the cells of the layers, so even mazes of 1000 x 1000 tiles take only
+ * a few megabytes besides the wall objects
+ *
+ * @author Heikki Kangas
+ */
+public class MazeGenerator {
+    /**
+     * Size of the tiles in pixels
+     */
+    public static final int TILE_SIZE = 64;
+
+    /**
+     * Chance of removing a wall left by the depth first search
+     */
+    public static final float LOOP_CHANCE = 0.05f;
+
+    private static final int CORRIDOR = 2;
+    private static final int PITCH = CORRIDOR + 1;
+
+    // Tile ids of the tilesets, the same as in the levels made with Tiled
+    private static final int GROUND = 5;
+    private static final int WALL_CROSS = 11;
+    private static final int WALL_T = 12;
+    private static final int WALL_END = 13;
+    private static final int WALL_SINGLE = 14;
+    private static final int WALL_STRAIGHT = 15;
+    private static final int WALL_CORNER = 9;
+    private static final int GOAL = 20;
+    private static final int FIRST_GOOD = 21;
+    private static final int GOOD_COUNT = 4;
+    private static final int FIRST_BAD = 25;
+    private static final int BAD_COUNT = 3;
+
+    // Directions as bits of a wall tile's neighbour mask
+    private static final int UP = 1;
+    private static final int RIGHT = 2;
+    private static final int DOWN = 4;
+    private static final int LEFT = 8;
+
+    private TiledMapTileSet tileSet;
+    private TiledMapTileSet goodTileSet;
+    private TiledMapTileSet badTileSet;
+    private TiledMapTileLayer.Cell[] cells;
+
+    private RandomXS128 random;
+    private int columns;
+    private int rows;
+    private int mazeColumns;
+    private int mazeRows;
+    private boolean[] walls;
+
+    /**
+     * Creates generator using the given tileset images, laid out like the images of the levels
+     *
+     * @param tileSetTexture     tileset.png of a level with ground, walls and goal
+     * @param goodObjectsTexture good_objects.png
+     * @param badObjectsTexture  bad_objects.png
+     */
+    public MazeGenerator(Texture tileSetTexture, Texture goodObjectsTexture, Texture badObjectsTexture) {
+        tileSet = createTileSet("tileset", tileSetTexture, 1);
+        goodTileSet = createTileSet("good_objects", goodObjectsTexture, FIRST_GOOD);
+        badTileSet = createTileSet("bad_objects", badObjectsTexture, FIRST_BAD);
+        cells = new TiledMapTileLayer.Cell[(FIRST_BAD + BAD_COUNT) * 4];
+    }
+
+    /**
+     * Splits a texture to tiles numbered from the given id
+     */
+    private TiledMapTileSet createTileSet(String name, Texture texture, int firstId) {
+        TiledMapTileSet set = new TiledMapTileSet();
+        set.setName(name);
+        TextureRegion[][] regions = TextureRegion.split(texture, TILE_SIZE, TILE_SIZE);
+        for (int i = 0; i < regions[0].length; i++) {
+            StaticTiledMapTile tile = new StaticTiledMapTile(regions[0][i]);
+            tile.setId(firstId + i);
+            set.putTile(tile.getId(), tile);
+        }
+        return set;
+    }
+
+    /**
+     * Generates a maze with an amount of good and bad objects fitting its size
+     *
+     * @param columns width in tiles, rounded down so the corridors fit
+     * @param rows    height in tiles, rounded down so the corridors fit
+     * @param seed    seed of the random numbers, the same seed generates the same maze
+     * @return the generated maze, its textures are not owned by it
+     */
+    public TiledMap generate(int columns, int rows, long seed) {
+        int mazeCells = ((columns - 1) / PITCH) * ((rows - 1) / PITCH);
+        int goodObjects = Math.max(1, Math.min(mazeCells / 30, 60));
+        return generate(columns, rows, goodObjects, goodObjects / 2, seed);
+    }
+
+    /**
+     * Generates a maze
+     *
+     * @param columns     width in tiles, rounded down so the corridors fit
+     * @param rows        height in tiles, rounded down so the corridors fit
+     * @param goodObjects amount of good objects
+     * @param badObjects  amount of bad objects
+     * @param seed        seed of the random numbers, the same seed generates the same maze
+     * @return the generated maze, its textures are not owned by it
+     */
+    public TiledMap generate(int columns, int rows, int goodObjects, int badObjects, long seed) {
+        mazeColumns = (columns - 1) / PITCH;
+        mazeRows = (rows - 1) / PITCH;
+        if (mazeColumns < 2 || mazeRows < 2) {
+            throw new IllegalArgumentException("Maze must be at least 7 x 7 tiles: " + columns + " x " + rows);
+        }
+        if (goodObjects + badObjects >= mazeColumns * mazeRows) {
+            throw new IllegalArgumentException("Too many objects for " + columns + " x " + rows + " tiles");
+        }
+        this.columns = mazeColumns * PITCH + 1;
+        this.rows = mazeRows * PITCH + 1;
+        random = new RandomXS128(seed);
+
+        carveMaze();
+        removeExtraWalls();
+
+        TiledMap tiledMap = new TiledMap();
+        tiledMap.getTileSets().addTileSet(tileSet);
+        tiledMap.getTileSets().addTileSet(goodTileSet);
+        tiledMap.getTileSets().addTileSet(badTileSet);
+        MapProperties properties = tiledMap.getProperties();
+        properties.put("width", this.columns);
+        properties.put("height", this.rows);
+        properties.put("tilewidth", TILE_SIZE);
+        properties.put("tileheight", TILE_SIZE);
+
+        int goalRow = (mazeRows - 1) * PITCH + 1;
+        int goalColumn = this.columns - 1;
+        addStartPosition(tiledMap);
+        addGoalObjects(tiledMap, goalColumn, goalRow);
+        tiledMap.getLayers().add(createGroundLayer());
+        tiledMap.getLayers().add(createWallLayer());
+        addGoalLayers(tiledMap, goalColumn, goalRow);
+        tiledMap.getLayers().add(createWallObjects());
+        addObjects(tiledMap, goodObjects, badObjects);
+        return tiledMap;
+    }
+
+    /**
+     * Fills the walls and carves the corridors with a depth first search using an explicit stack
+     */
+    private void carveMaze() {
+        walls = new boolean[columns * rows];
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++) {
+                walls[y * columns + x] = x % PITCH == 0 || y % PITCH == 0;
+            }
+        }
+
+        boolean[] visited = new boolean[mazeColumns * mazeRows];
+        int[] stack = new int[mazeColumns * mazeRows];
+        int[] neighbours = new int[4];
+        int size = 0;
+        stack[size++] = 0;
+        visited[0] = true;
+        while (size > 0) {
+            int cell = stack[size - 1];
+            int x = cell % mazeColumns;
+            int y = cell / mazeColumns;
+            int count = 0;
+            if (x > 0 && !visited[cell - 1]) {
+                neighbours[count++] = cell - 1;
+            }
+            if (x < mazeColumns - 1 && !visited[cell + 1]) {
+                neighbours[count++] = cell + 1;
+            }
+            if (y > 0 && !visited[cell - mazeColumns]) {
+                neighbours[count++] = cell - mazeColumns;
+            }
+            if (y < mazeRows - 1 && !visited[cell + mazeColumns]) {
+                neighbours[count++] = cell + mazeColumns;
+            }
+            if (count == 0) {
+                size--;
+                continue;
+            }
+            int next = neighbours[random.nextInt(count)];
+            openWall(cell, next);
+            visited[next] = true;
+            stack[size++] = next;
+        }
+    }
+
+    /**
+     * Removes some of the walls between corridors so the maze has loops. A wall is kept if
+     * removing it would leave a wall tile without any walls next to it
+     */
+    private void removeExtraWalls() {
+        for (int y = 0; y < mazeRows; y++) {
+            for (int x = 0; x < mazeColumns; x++) {
+                int cell = y * mazeColumns + x;
+                if (x < mazeColumns - 1 && random.nextFloat() < LOOP_CHANCE
+                        && isWall(PITCH * (x + 1), PITCH * y + 1)
+                        && Integer.bitCount(getNeighbours(PITCH * (x + 1), PITCH * y)) > 1
+                        && Integer.bitCount(getNeighbours(PITCH * (x + 1), PITCH * (y + 1))) > 1) {
+                    openWall(cell, cell + 1);
+                }
+                if (y < mazeRows - 1 && random.nextFloat() < LOOP_CHANCE
+                        && isWall(PITCH * x + 1, PITCH * (y + 1))
+                        && Integer.bitCount(getNeighbours(PITCH * x, PITCH * (y + 1))) > 1
+                        && Integer.bitCount(getNeighbours(PITCH * (x + 1), PITCH * (y + 1))) > 1) {
+                    openWall(cell, cell + mazeColumns);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the wall tiles between two neighbouring maze cells
+     */
+    private void openWall(int cell, int next) {
+        int from = Math.min(cell, next);
+        int x = from % mazeColumns * PITCH;
+        int y = from / mazeColumns * PITCH;
+        boolean horizontal = Math.abs(next - cell) == 1;
+        for (int i = 1; i <= CORRIDOR; i++) {
+            if (horizontal) {
+                walls[(y + i) * columns + x + PITCH] = false;
+            } else {
+                walls[(y + PITCH) * columns + x + i] = false;
+            }
+        }
+    }
+
+    /**
+     * Is there a wall in the tile, tiles outside the maze are not walls
+     */
+    private boolean isWall(int x, int y) {
+        return x >= 0 && y >= 0 && x < columns && y < rows && walls[y * columns + x];
+    }
+
+    /**
+     * Gets the directions of the walls next to a tile as bits
+     */
+    private int getNeighbours(int x, int y) {
+        int mask = 0;
+        if (isWall(x, y + 1)) {
+            mask |= UP;
+        }
+        if (isWall(x + 1, y)) {
+            mask |= RIGHT;
+        }
+        if (isWall(x, y - 1)) {
+            mask |= DOWN;
+        }
+        if (isWall(x - 1, y)) {
+            mask |= LEFT;
+        }
+        return mask;
+    }
+
+    /**
+     * Creates the startpos layer with the center of the bottom left corridor
+     */
+    private void addStartPosition(TiledMap tiledMap) {
+        MapLayer layer = new MapLayer();
+        layer.setName("startpos");
+        MapObject start = new MapObject();
+        start.getProperties().put("x", (1f + CORRIDOR / 2f) * TILE_SIZE);
+        start.getProperties().put("y", (1f + CORRIDOR / 2f) * TILE_SIZE);
+        layer.getObjects().add(start);
+        tiledMap.getLayers().add(layer);
+    }
+
+    /**
+     * Creates the goal_object layer with a thin rectangle at the outer edge of the goal and
+     * the goal_blocking_object layer covering the opening
+     */
+    private void addGoalObjects(TiledMap tiledMap, int goalColumn, int goalRow) {
+        float edge = TILE_SIZE / 8f;
+        MapLayer goal = new MapLayer();
+        goal.setName("goal_object");
+        goal.setVisible(false);
+        goal.getObjects().add(new RectangleMapObject((goalColumn + 1) * TILE_SIZE - edge,
+                goalRow * TILE_SIZE, edge, CORRIDOR * TILE_SIZE));
+        tiledMap.getLayers().add(goal);
+
+        MapLayer goalBlock = new MapLayer();
+        goalBlock.setName("goal_blocking_object");
+        goalBlock.setVisible(false);
+        goalBlock.getObjects().add(new RectangleMapObject(goalColumn * TILE_SIZE,
+                goalRow * TILE_SIZE, TILE_SIZE, CORRIDOR * TILE_SIZE));
+        tiledMap.getLayers().add(goalBlock);
+    }
+
+    /**
+     * Creates the ground layer covering the whole maze
+     */
+    private TiledMapTileLayer createGroundLayer() {
+        TiledMapTileLayer layer = createLayer("ground");
+        TiledMapTileLayer.Cell ground = getCell(tileSet, GROUND, 0);
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++) {
+                layer.setCell(x, y, ground);
+            }
+        }
+        return layer;
+    }
+
+    /**
+     * Creates the wall_tiles layer, walls are drawn with the tile matching the walls around them
+     */
+    private TiledMapTileLayer createWallLayer() {
+        TiledMapTileLayer layer = createLayer("wall_tiles");
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++) {
+                if (walls[y * columns + x]) {
+                    layer.setCell(x, y, getWallCell(getNeighbours(x, y)));
+                }
+            }
+        }
+        return layer;
+    }
+
+    /**
+     * Creates the goal_ground and goal layers shown when all good objects have been collected:
+     * ground and the goal tiles in the opening and the walls next to it ending at the opening
+     */
+    private void addGoalLayers(TiledMap tiledMap, int goalColumn, int goalRow) {
+        TiledMapTileLayer goalGround = createLayer("goal_ground");
+        TiledMapTileLayer goal = createLayer("goal");
+        goalGround.setVisible(false);
+        goal.setVisible(false);
+        for (int y = goalRow; y < goalRow + CORRIDOR; y++) {
+            goalGround.setCell(goalColumn, y, getCell(tileSet, GROUND, 0));
+            goal.setCell(goalColumn, y, getCell(tileSet, GOAL, 0));
+            walls[y * columns + goalColumn] = false;
+        }
+        goal.setCell(goalColumn, goalRow - 1, getWallCell(getNeighbours(goalColumn, goalRow - 1)));
+        goal.setCell(goalColumn, goalRow + CORRIDOR, getWallCell(getNeighbours(goalColumn, goalRow + CORRIDOR)));
+        tiledMap.getLayers().add(goalGround);
+        tiledMap.getLayers().add(goal);
+    }
+
+    /**
+     * Creates the wall_objects layer. Rows of walls are added as long horizontal rectangles and
+     * the walls between them as vertical ones, the goal opening is left out
+     */
+    private MapLayer createWallObjects() {
+        MapLayer layer = new MapLayer();
+        layer.setName("wall_objects");
+        layer.setVisible(false);
+        for (int y = 0; y < rows; y += PITCH) {
+            int start = -1;
+            for (int x = 0; x <= columns; x++) {
+                boolean wall = x < columns && walls[y * columns + x];
+                if (wall && start == -1) {
+                    start = x;
+                } else if (!wall && start != -1) {
+                    layer.getObjects().add(new RectangleMapObject(start * TILE_SIZE, y * TILE_SIZE,
+                            (x - start) * TILE_SIZE, TILE_SIZE));
+                    start = -1;
+                }
+            }
+        }
+        for (int x = 0; x < columns; x += PITCH) {
+            for (int y = 1; y < rows; y += PITCH) {
+                int start = -1;
+                for (int i = 0; i <= CORRIDOR; i++) {
+                    boolean wall = i < CORRIDOR && walls[(y + i) * columns + x];
+                    if (wall && start == -1) {
+                        start = y + i;
+                    } else if (!wall && start != -1) {
+                        layer.getObjects().add(new RectangleMapObject(x * TILE_SIZE, start * TILE_SIZE,
+                                TILE_SIZE, (y + i - start) * TILE_SIZE));
+                        start = -1;
+                    }
+                }
+            }
+        }
+        return layer;
+    }
+
+    /**
+     * Places the good and bad objects to random corridors, at most one object in each
+     * corridor cell and none where the player starts
+     */
+    private void addObjects(TiledMap tiledMap, int goodObjects, int badObjects) {
+        boolean[] occupied = new boolean[mazeColumns * mazeRows];
+        occupied[0] = true;
+        TiledMapTileLayer badTiles = createLayer("bad_tiles");
+        MapLayer badLayer = new MapLayer();
+        badLayer.setName("bad_objects");
+        TiledMapTileLayer goodTiles = createLayer("good_tiles");
+        MapLayer goodLayer = new MapLayer();
+        goodLayer.setName("good_objects");
+        goodLayer.setVisible(false);
+
+        for (int i = 0; i < goodObjects + badObjects; i++) {
+            int cell;
+            do {
+                cell = random.nextInt(occupied.length);
+            } while (occupied[cell]);
+            occupied[cell] = true;
+
+            int x = cell % mazeColumns * PITCH + 1 + random.nextInt(CORRIDOR);
+            int y = cell / mazeColumns * PITCH + 1 + random.nextInt(CORRIDOR);
+            RectangleMapObject object = new RectangleMapObject(x * TILE_SIZE, y * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+            if (i < goodObjects) {
+                goodTiles.setCell(x, y, getCell(goodTileSet, FIRST_GOOD + random.nextInt(GOOD_COUNT), 0));
+                goodLayer.getObjects().add(object);
+            } else {
+                badTiles.setCell(x, y, getCell(badTileSet, FIRST_BAD + random.nextInt(BAD_COUNT), 0));
+                badLayer.getObjects().add(object);
+            }
+        }
+
+        tiledMap.getLayers().add(badTiles);
+        tiledMap.getLayers().add(badLayer);
+        tiledMap.getLayers().add(goodTiles);
+        tiledMap.getLayers().add(goodLayer);
+    }
+
+    /**
+     * Creates an empty tile layer of the maze's size
+     */
+    private TiledMapTileLayer createLayer(String name) {
+        TiledMapTileLayer layer = new TiledMapTileLayer(columns, rows, TILE_SIZE, TILE_SIZE);
+        layer.setName(name);
+        return layer;
+    }
+
+    /**
+     * Picks the wall tile and its rotation for a wall with the given walls next to it.
+     * The tiles are drawn connecting to: straight left and right, end to the right,
+     * corner up and right, T up, right and down
+     */
+    private TiledMapTileLayer.Cell getWallCell(int neighbours) {
+        switch (neighbours) {
+            case LEFT | RIGHT:
+                return getCell(tileSet, WALL_STRAIGHT, 0);
+            case UP | DOWN:
+                return getCell(tileSet, WALL_STRAIGHT, 1);
+            case RIGHT:
+                return getCell(tileSet, WALL_END, 0);
+            case DOWN:
+                return getCell(tileSet, WALL_END, 1);
+            case LEFT:
+                return getCell(tileSet, WALL_END, 2);
+            case UP:
+                return getCell(tileSet, WALL_END, 3);
+            case UP | RIGHT:
+                return getCell(tileSet, WALL_CORNER, 0);
+            case RIGHT | DOWN:
+                return getCell(tileSet, WALL_CORNER, 1);
+            case DOWN | LEFT:
+                return getCell(tileSet, WALL_CORNER, 2);
+            case LEFT | UP:
+                return getCell(tileSet, WALL_CORNER, 3);
+            case UP | RIGHT | DOWN:
+                return getCell(tileSet, WALL_T, 0);
+            case RIGHT | DOWN | LEFT:
+                return getCell(tileSet, WALL_T, 1);
+            case DOWN | LEFT | UP:
+                return getCell(tileSet, WALL_T, 2);
+            case LEFT | UP | RIGHT:
+                return getCell(tileSet, WALL_T, 3);
+            case UP | RIGHT | DOWN | LEFT:
+                return getCell(tileSet, WALL_CROSS, 0);
+            default:
+                return getCell(tileSet, WALL_SINGLE, 0);
+        }
+    }
+
+    /**
+     * Returns the shared cell of a tile turned clockwise the given amount of quarter turns
+     */
+    private TiledMapTileLayer.Cell getCell(TiledMapTileSet set, int id, int quarterTurns) {
+        int index = id * 4 + quarterTurns;
+        if (cells[index] == null) {
+            TiledMapTileLayer.Cell cell = new TiledMapTileLayer.Cell();
+            cell.setTile(set.getTile(id));
+            // Cell rotations turn counterclockwise
+            cell.setRotation((4 - quarterTurns) % 4);
+            cells[index] = cell;
+        }
+        return cells[index];
+    }
+}
@@ -1,5 +1,6 @@
 package fi.tuni.tiko2d;
 
+import com.badlogic.ashley.core.Entity;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.InputMultiplexer;
@@ -7,28 +8,16 @@ import com.badlogic.gdx.Screen;
 import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.maps.MapProperties;
 import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.maps.tiled.TiledMapRenderer;
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
-import com.badlogic.gdx.maps.tiled.TmxMapLoader;
-import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
-import com.badlogic.gdx.math.Circle;
-import com.badlogic.gdx.math.Intersector;
-import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.Box2DDebugRenderer;
-import com.badlogic.gdx.physics.box2d.Contact;
-import com.badlogic.gdx.physics.box2d.ContactImpulse;
-import com.badlogic.gdx.physics.box2d.ContactListener;
-import com.badlogic.gdx.physics.box2d.Manifold;
-import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.scenes.scene2d.InputEvent;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.Label;
@@ -36,32 +25,37 @@ import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.scenes.scene2d.ui.Table;
 import com.badlogic.gdx.scenes.scene2d.ui.TextButton;
 import com.badlogic.gdx.scenes.scene2d.utils.ClickListener;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.I18NBundle;
+import com.badlogic.gdx.utils.async.AsyncTask;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
 
-import java.util.ArrayList;
+import java.io.IOException;
+
+import fi.tuni.tiko2d.ecs.GhostComponent;
+import fi.tuni.tiko2d.ecs.RenderSystem;
 
 /**
  * Screen for displaying mazes
  *
  * @author Heikki Kangas
  */
-public class MazeScreen implements Screen {
+public class MazeScreen implements Screen, MazeSimulation.Listener {
     private RaccoonRoll game;
     private SpriteBatch batch;
     private OrthographicCamera worldCamera;
-    private World world;
+    private MazeSimulation simulation;
+    private RenderSystem renderSystem;
     private Box2DDebugRenderer debugRenderer;
     private TiledMap tiledMap;
-    private TiledMapRenderer tiledMapRenderer;
+    private LevelData levelData;
+    private ChunkedTiledMapRenderer tiledMapRenderer;
 
     private Skin skin;
     // Hud
     private Stage hud;
-    private Label timeSpentLabel;
-    private String timeSpentText;
-    private Label objectsLeftLabel;
-    private String objectsLeftText;
+    private HudLabel timeSpentLabel;
+    private HudLabel objectsLeftLabel;
     private TextButton pauseButton;
     // Pause menu
     private Stage pauseMenu;
@@ -75,10 +69,12 @@ public class MazeScreen implements Screen {
     private InputMultiplexer multiplexer;
 
     // Sounds
-    private ArrayList<Sound> wallHitSounds;
-    private Sound badSound;
-    private Sound goodSound;
-    private Sound victorySound;
+    private final int maxSoundVoices = 4;
+    private SoundEvents sounds;
+    private SoundEvents.Channel wallHitSound;
+    private SoundEvents.Channel badSound;
+    private SoundEvents.Channel goodSound;
+    private SoundEvents.Channel victorySound;
     private Music backgroundMusic;
 
     // TiledMap
@@ -86,24 +82,30 @@ public class MazeScreen implements Screen {
     private float tiledMapHeight;
     private float tiledMapWidth;
     private float tileSize = 64f;
-    private int goodObjectsRemaining;
-    private ArrayList<Rectangle> goodObjectRectangles;
-    private ArrayList<Rectangle> badObjectRectangles;
-    private Rectangle goalRectangle;
-    private Body goalBlock;
     private Player player;
-    private boolean goalReached;
-    private ArrayList<Rectangle> rectanglesToRemove;
 
     private I18NBundle mazeBundle;
     private Options options;
-
-    private float timeSpent;
+    private FrameProfiler profiler;
 
     private long levelFinishedTime;
     private final long levelCompletedScreenDelay = 1000;
 
     private boolean paused;
+    private boolean startedRendering;
+
+    // Replays
+    private Replay recording;
+    private Replay playback;
+    private int replayFrame;
+
+    private SoakTest soakTest;
+
+    // Ghost of the best run
+    private Ghost ghost;
+    private Ghost ghostRecording;
+    private FixedTimestep timestep;
+    private int stepsTaken;
 
     private String levelName;
 
@@ -112,22 +114,110 @@ public class MazeScreen implements Screen {
     private AssetManager assetManager;
 
     /**
-     * Sets up the selected maze
+     * Queues the level and the assets of the maze and returns a loading screen that shows the
+     * maze when they have been loaded, the cached menu screens are released
      *
      * @param game      main game class
      * @param levelName name of the level that will be loaded and shown
+     * @return the screen to show
+     */
+    public static Screen load(final RaccoonRoll game, final String levelName) {
+        AssetGroup.MAZE.load(game.getAssetManager());
+        game.getAssetManager().load(CompiledLevel.getFileName(levelName), CompiledLevel.class);
+        game.getScreens().releaseForGamePlay();
+        return LoadingScreen.create(game, new LoadingScreen.NextScreen() {
+            @Override
+            public Screen create() {
+                return new MazeScreen(game, levelName);
+            }
+        });
+    }
+
+    /**
+     * Reads a recorded run, queues its level and the assets of the maze and returns a loading
+     * screen that plays the run back when they have been loaded, the cached menu screens are released
+     *
+     * @param game       main game class
+     * @param replayFile file written by {@link Replay#write(FileHandle)}
+     * @return the screen to show
+     */
+    public static Screen loadReplay(final RaccoonRoll game, FileHandle replayFile) {
+        final Replay replay = Replay.read(replayFile);
+        AssetGroup.MAZE.load(game.getAssetManager());
+        game.getAssetManager().load(CompiledLevel.getFileName(replay.getLevelName()), CompiledLevel.class);
+        game.getScreens().releaseForGamePlay();
+        return LoadingScreen.create(game, new LoadingScreen.NextScreen() {
+            @Override
+            public Screen create() {
+                return new MazeScreen(game, replay);
+            }
+        });
+    }
+
+    /**
+     * Queues the level and the assets of the maze and returns a loading screen that shows the
+     * maze played by the soak test's bot when they have been loaded
+     *
+     * @param game      main game class
+     * @param soakTest  the running soak test
+     * @param levelName name of the level that will be loaded and played
+     * @return the screen to show
+     */
+    public static Screen loadSoakTest(final RaccoonRoll game, final SoakTest soakTest, final String levelName) {
+        AssetGroup.MAZE.load(game.getAssetManager());
+        game.getAssetManager().load(CompiledLevel.getFileName(levelName), CompiledLevel.class);
+        game.getScreens().releaseForGamePlay();
+        return LoadingScreen.create(game, new LoadingScreen.NextScreen() {
+            @Override
+            public Screen create() {
+                return new MazeScreen(game, levelName, null, soakTest);
+            }
+        });
+    }
+
+    /**
+     * Sets up the selected maze and records the run, the level must have been loaded with
+     * {@link #load(RaccoonRoll, String)}
+     *
+     * @param game      main game class
+     * @param levelName name of the level that will be shown
      */
     public MazeScreen(RaccoonRoll game, String levelName) {
+        this(game, levelName, null, null);
+    }
+
+    /**
+     * Sets up the maze of a recorded run and plays it back with profiling on, the level must have
+     * been loaded with {@link #loadReplay(RaccoonRoll, FileHandle)}
+     *
+     * @param game   main game class
+     * @param replay the recorded run
+     */
+    public MazeScreen(RaccoonRoll game, Replay replay) {
+        this(game, replay.getLevelName(), replay, null);
+    }
+
+    /**
+     * Sets up the maze
+     *
+     * @param game      main game class
+     * @param levelName name of the level that will be shown
+     * @param playback  run to play back, null for recording a new run
+     * @param soakTest  soak test whose bot plays the maze, null for recording or playing back a run
+     */
+    private MazeScreen(RaccoonRoll game, String levelName, Replay playback, SoakTest soakTest) {
         this.levelName = levelName;
+        this.playback = playback;
+        this.soakTest = soakTest;
         this.game = game;
         mazeScreen = this;
         assetManager = game.getAssetManager();
         options = game.getOptions();
+        profiler = game.getProfiler();
         batch = game.getBatch();
         worldCamera = game.getWorldCamera();
         tiledMapUtil = game.getTiledMapUtil();
 
-        world = new World(new Vector2(0, 0), true);
         player = new Player(game);
 
         skin = assetManager.get("uiskin/comic-ui.json");
@@ -140,64 +230,94 @@ public class MazeScreen implements Screen {
         loadSounds();
         loadBackgroundMusic();
 
-        player.createPlayerBody(world, tiledMapUtil.getPlayerStartPos(tiledMap));
-        goodObjectRectangles = tiledMapUtil.getGoodRectangles(tiledMap);
-        goodObjectsRemaining = goodObjectRectangles.size();
-        badObjectRectangles = tiledMapUtil.getBadRectangles(tiledMap);
-        goalRectangle = tiledMapUtil.getGoalRectangle(tiledMap);
+        simulation = new MazeSimulation(game, tiledMap, levelData, player, this);
+        renderSystem = new RenderSystem(batch, worldCamera);
+        simulation.getEngine().addSystem(renderSystem);
+        if (soakTest != null) {
+            timestep = options.createTimestep();
+            simulation.setTimestep(timestep);
+            player.setInput(soakTest.createBot(game, simulation, levelData));
+            soakTest.beginLevel();
+        } else if (playback == null) {
+            timestep = options.createTimestep();
+            simulation.setTimestep(timestep);
+            recording = new Replay(levelName, timestep);
+            ghostRecording = new Ghost(levelName, timestep.getStepsPerSecond());
+            player.setInput(ghostRecording.record(recording.record(new DeviceInput(game)), player));
+            loadGhost();
+        } else {
+            timestep = playback.createTimestep();
+            simulation.setTimestep(timestep);
+            player.setInput(playback.createInput());
+            // The screen is created during the loading screen's frame, so the first measured
+            // frame is the maze's first one
+            profiler.enableNextFrame();
+        }
 
         createHud();
         createPauseMenu();
-        tiledMapUtil.createWalls(tiledMapUtil.getWallRectangles(tiledMap), world);
-        goalBlock = tiledMapUtil.createGoalBlockBody(tiledMap, world);
-        addContactListener();
 
         multiplexer = new InputMultiplexer();
         multiplexer.addProcessor(hud);
         Gdx.input.setInputProcessor(multiplexer);
         Gdx.input.setCatchBackKey(true);
-
-        rectanglesToRemove = new ArrayList<Rectangle>();
     }
 
     /**
-     * Add contact listener for playing sounds when player hits a wall
+     * Queues a random wall hit sound with volume depending on how hard player hit the wall
+     *
+     * @param impulse normal impulse of the hardest hit
      */
-    private void addContactListener() {
-        world.setContactListener(new ContactListener() {
-            @Override
-            public void beginContact(Contact contact) {
-                wallHitSounds.get(MathUtils.random(wallHitSounds.size() - 1)).play(options.getEffectsVolume());
-            }
-
-            @Override
-            public void endContact(Contact contact) {
-
-            }
-
-            @Override
-            public void preSolve(Contact contact, Manifold oldManifold) {
+    @Override
+    public void wallHit(float impulse) {
+        sounds.post(wallHitSound, ImpactCollector.getVolume(impulse));
+    }
 
-            }
+    /**
+     * Redraws the collected object's tiles and queues good object sound
+     *
+     * @param rectangle the collected object
+     */
+    @Override
+    public void goodObjectCollected(Rectangle rectangle) {
+        tiledMapRenderer.invalidate(rectangle);
+        sounds.post(goodSound, 1);
+    }
 
-            @Override
-            public void postSolve(Contact contact, ContactImpulse impulse) {
+    /**
+     * Redraws the hit object's tiles and queues bad object sound
+     *
+     * @param rectangle the hit object
+     */
+    @Override
+    public void badObjectHit(Rectangle rectangle) {
+        tiledMapRenderer.invalidate(rectangle);
+        sounds.post(badSound, 1);
+    }
 
-            }
-        });
+    /**
+     * Queues victory sound and starts the delay before showing level completed screen
+     */
+    @Override
+    public void goalReached() {
+        sounds.post(victorySound, 1);
+        levelFinishedTime = System.currentTimeMillis();
     }
 
     /**
-     * Loads sound effects
+     * Loads sound effects and adds a channel for each of them, wall hits have the lowest priority
+     * and are limited to ten per second
      */
     private void loadSounds() {
-        wallHitSounds = new ArrayList<Sound>();
-        for (int i = 1; i < 6; i++) {
-            wallHitSounds.add(assetManager.get(String.format("sounds/wallHit/WALL_HIT_0%d.mp3", i), Sound.class));
+        sounds = new SoundEvents(options, maxSoundVoices);
+        Sound[] wallHitSounds = new Sound[5];
+        for (int i = 0; i < wallHitSounds.length; i++) {
+            wallHitSounds[i] = assetManager.get(String.format("sounds/wallHit/WALL_HIT_0%d.mp3", i + 1), Sound.class);
         }
-        badSound = assetManager.get("sounds/badObject/BAD_01.mp3");
-        goodSound = assetManager.get("sounds/goodObject/GOOD_01.mp3");
-        victorySound = assetManager.get("sounds/victory/VICTORY_01.mp3");
+        wallHitSound = sounds.addChannel(0.1f, 0.4f, 0, wallHitSounds);
+        goodSound = sounds.addChannel(0.05f, 1.8f, 1, assetManager.get("sounds/goodObject/GOOD_01.mp3", Sound.class));
+        badSound = sounds.addChannel(0.1f, 0.45f, 1, assetManager.get("sounds/badObject/BAD_01.mp3", Sound.class));
+        victorySound = sounds.addChannel(0, 2.1f, 2, assetManager.get("sounds/victory/VICTORY_01.mp3", Sound.class));
     }
 
     /**
@@ -213,24 +333,22 @@ public class MazeScreen implements Screen {
     }
 
     /**
-     * Loads tilemap, sets up TiledMapRenderer and TiledMap dimensions in meters
+     * Gets the loaded level from the AssetManager, sets up TiledMapRenderer and TiledMap
+     * dimensions in meters
      *
-     * @param levelName Name of the level to be loaded
+     * @param levelName Name of the loaded level
      */
     private void loadTileMap(String levelName) {
-        TmxMapLoader.Parameters parameters = new TmxMapLoader.Parameters();
-        parameters.textureMinFilter = Texture.TextureFilter.Nearest;
-        parameters.textureMagFilter = Texture.TextureFilter.Nearest;
-        tiledMap = new TmxMapLoader().load("tilemaps/" + levelName + "/maze.tmx", parameters);
-        tiledMapRenderer = new OrthogonalTiledMapRenderer(tiledMap, game.getScale());
+        CompiledLevel compiledLevel = assetManager.get(CompiledLevel.getFileName(levelName), CompiledLevel.class);
+        tiledMap = compiledLevel.getTiledMap();
+        levelData = compiledLevel.getLevelData();
+        tiledMapRenderer = new ChunkedTiledMapRenderer(tiledMap, game.getScale());
 
         MapProperties mapProps = tiledMap.getProperties();
 
         // TiledMap dimensions in meters
         tiledMapWidth = mapProps.get("width", Integer.class) * tileSize * game.getScale();
         tiledMapHeight = mapProps.get("height", Integer.class) * tileSize * game.getScale();
-
-        tiledMapUtil.hideGoal(tiledMap);
     }
 
 
@@ -276,7 +394,7 @@ public class MazeScreen implements Screen {
         mainMenuButton.addListener(new ClickListener() {
             @Override
             public void clicked(InputEvent event, float x, float y) {
-                game.setScreen(new MenuScreen(game));
+                game.setScreen(MenuScreen.load(game));
                 backgroundMusic.stop();
                 dispose();
             }
@@ -285,7 +403,7 @@ public class MazeScreen implements Screen {
         mapButton.addListener(new ClickListener() {
             @Override
             public void clicked(InputEvent event, float x, float y) {
-                game.setScreen(new MapScreen(game));
+                game.setScreen(MapScreen.load(game));
                 backgroundMusic.stop();
                 dispose();
             }
@@ -294,7 +412,7 @@ public class MazeScreen implements Screen {
         optionsButton.addListener(new ClickListener() {
             @Override
             public void clicked(InputEvent event, float x, float y) {
-                game.setScreen(new OptionsScreen(game, mazeScreen));
+                game.setScreen(OptionsScreen.load(game, mazeScreen));
                 backgroundMusic.pause();
             }
         });
@@ -317,11 +435,10 @@ public class MazeScreen implements Screen {
         float verticalPad = game.scaleVertical(10);
         float horizontalPad = game.scaleHorizontal(10);
 
-        objectsLeftText = mazeBundle.get("goodObjectsRemaining");
-        timeSpentText = mazeBundle.get("time");
-
-        objectsLeftLabel = new Label(objectsLeftText + goodObjectsRemaining, skin, "small-white");
-        timeSpentLabel = new Label(timeSpentText + game.formatTime(timeSpent), skin, "small-white");
+        Label.LabelStyle hudStyle = skin.get("small-white", Label.LabelStyle.class);
+        objectsLeftLabel = new HudLabel(game, mazeBundle.get("goodObjectsRemaining"), hudStyle);
+        timeSpentLabel = new HudLabel(game, mazeBundle.get("time"), hudStyle);
+        updateHudLabels();
         pauseButton = new TextButton(mazeBundle.get("pauseButton"), skin);
 
         Table table = new Table();
@@ -383,37 +500,47 @@ public class MazeScreen implements Screen {
      */
     @Override
     public void render(float delta) {
-        if (!paused) {
-            if (!goalReached) {
-                timeSpent += delta;
+        if (playback != null && replayFrame == playback.getFrameCount()) {
+            finishReplay();
+            return;
+        }
+        // Pausing during the frame takes effect on the next one so every frame is either fully
+        // simulated or not at all
+        boolean simulating = !paused;
+        if (simulating && playback != null) {
+            delta = playback.getFrameDelta(replayFrame);
+        }
+        if (simulating && soakTest != null && levelFinishedTime == 0) {
+            if (startedRendering) {
+                soakTest.frame(Gdx.graphics.getDeltaTime());
             }
-
-            player.movePlayer(delta);
+            startedRendering = true;
+        }
+        if (simulating) {
+            profiler.begin(FrameProfiler.Section.OVERLAPS);
+            simulation.update(delta);
+            profiler.end(FrameProfiler.Section.OVERLAPS);
             updateCameraPosition();
-            checkGoodObjectOverlaps();
-            checkBadObjectOverlaps();
-            updateObjectsLeftLabel();
-            updateTimeSpentLabel();
-
-            if (goodObjectsRemaining == 0) {
-                checkGoalOverlap();
-            }
+            updateHudLabels();
         }
         clearScreen();
+        profiler.begin(FrameProfiler.Section.TILEMAP);
         tiledMapRenderer.setView(worldCamera);
         tiledMapRenderer.render();
-        batch.setProjectionMatrix(worldCamera.combined);
-        batch.begin();
-        player.draw(batch, delta);
-        batch.end();
+        profiler.end(FrameProfiler.Section.TILEMAP);
+        profiler.begin(FrameProfiler.Section.PLAYER);
+        renderSystem.update(delta);
+        profiler.end(FrameProfiler.Section.PLAYER);
 
+        profiler.begin(FrameProfiler.Section.HUD);
         if (paused) {
             pauseMenu.draw();
         }
         hud.draw();
+        profiler.end(FrameProfiler.Section.HUD);
 
         if (game.DEBUGGING()) {
-            debugRenderer.render(world, worldCamera.combined);
+            debugRenderer.render(simulation.getWorld(), worldCamera.combined);
             MemoryDebug.memoryUsed(delta);
         }
 
@@ -428,24 +555,154 @@ public class MazeScreen implements Screen {
             player.setPaused(paused);
         }
 
-        if (!paused) {
-            tiledMapUtil.stepWorld(delta, world);
+        if (simulating) {
+            profiler.begin(FrameProfiler.Section.PHYSICS);
+            int steps = simulation.step(delta);
+            profiler.end(FrameProfiler.Section.PHYSICS);
+            recordFrame(delta, steps);
+            moveGhost(steps);
         }
+        sounds.dispatch(delta);
 
-        if (goalReached && System.currentTimeMillis() >= levelFinishedTime + levelCompletedScreenDelay) {
-            game.getCompletedLevels().putBoolean(levelName, true);
-            game.getCompletedLevels().flush();
-            game.setScreen(new LevelCompletedScreen(game, timeSpent, levelName));
+        if (soakTest != null) {
+            if (soakTest.isLevelOver(simulation) && System.currentTimeMillis() >= levelFinishedTime + levelCompletedScreenDelay) {
+                game.setScreen(soakTest.finishLevel(game, simulation));
+                backgroundMusic.stop();
+                dispose();
+            }
+        } else if (playback == null && simulation.isGoalReached() && System.currentTimeMillis() >= levelFinishedTime + levelCompletedScreenDelay) {
+            saveGhost();
+            game.getSaveGame().setLevelCompleted(levelName);
+            game.getSaveGame().flush();
+            game.setScreen(LevelCompletedScreen.load(game, simulation.getTimeSpent(), levelName));
             backgroundMusic.stop();
             dispose();
         }
     }
 
+    /**
+     * Records the simulated frame or checks that playback took the recorded steps, soak tests
+     * are neither recorded nor played back
+     *
+     * @param delta time given to the simulation
+     * @param steps how many steps were taken
+     */
+    private void recordFrame(float delta, int steps) {
+        if (recording != null) {
+            recording.addFrame(delta, steps);
+        } else if (playback != null) {
+            if (steps != playback.getFrameSteps(replayFrame)) {
+                Gdx.app.error("Replay", "Frame " + replayFrame + " took " + steps + " steps instead of "
+                        + playback.getFrameSteps(replayFrame));
+            }
+            replayFrame++;
+        }
+    }
+
+    /**
+     * Writes the profiled frames of the played back run and returns to the map
+     */
+    private void finishReplay() {
+        profiler.writeCsv(Gdx.files.local("profiles/replay_" + levelName + "_"
+                + System.currentTimeMillis() + ".csv"));
+        game.setScreen(MapScreen.load(game));
+        dispose();
+    }
+
+    /**
+     * Writes the recorded run to replays/levelName.replay in local storage on the game's file
+     * writer thread, replacing the previous run of the level. The recording is not touched
+     * after the screen has been disposed, so it is handed to the thread as is
+     */
+    private void saveRecording() {
+        if (recording == null || recording.getFrameCount() == 0) {
+            return;
+        }
+        final Replay finished = recording;
+        final FileHandle file = Gdx.files.local("replays/" + levelName + ".replay");
+        game.getFileWriter().submit(new AsyncTask<Void>() {
+            @Override
+            public Void call() {
+                try {
+                    finished.write(file);
+                } catch (IOException e) {
+                    Gdx.app.error("Replay", "Couldn't write " + file.path(), e);
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Reads the ghost of the level's best run from ghosts/levelName.ghost in local storage and
+     * adds it to the maze, the maze has no ghost if the level has not been completed yet
+     */
+    private void loadGhost() {
+        FileHandle file = getGhostFile();
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            ghost = Ghost.read(file);
+        } catch (GdxRuntimeException e) {
+            Gdx.app.error("Ghost", "Couldn't read " + file.path(), e);
+            return;
+        }
+        ghost.createAnimation(assetManager, player.getBodyRadius());
+        Entity entity = new Entity();
+        entity.add(new GhostComponent(ghost));
+        simulation.getEngine().addEntity(entity);
+    }
+
+    /**
+     * Moves the ghost to the same time as the drawn player, which is interpolated between the
+     * last two physics steps
+     *
+     * @param steps how many steps were taken this frame
+     */
+    private void moveGhost(int steps) {
+        stepsTaken += steps;
+        if (ghost != null) {
+            ghost.setTime(Math.max(0, stepsTaken - 1 + timestep.getAlpha()) * timestep.getStepTime());
+        }
+    }
+
+    /**
+     * Writes the recorded trajectory over the level's ghost on the file writer thread if the
+     * run beat the best time
+     */
+    private void saveGhost() {
+        float highScore = game.getSaveGame().getHighScore(levelName);
+        if (highScore != 0 && highScore <= simulation.getTimeSpent()) {
+            return;
+        }
+        final Ghost finished = ghostRecording;
+        final FileHandle file = getGhostFile();
+        game.getFileWriter().submit(new AsyncTask<Void>() {
+            @Override
+            public Void call() {
+                try {
+                    finished.write(file);
+                } catch (IOException e) {
+                    Gdx.app.error("Ghost", "Couldn't write " + file.path(), e);
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Getter for the file of the level's ghost in local storage
+     */
+    private FileHandle getGhostFile() {
+        return Gdx.files.local("ghosts/" + levelName + ".ghost");
+    }
+
     /**
      * Updates camera's position so there's no black background color shown outside tilemap
      */
     private void updateCameraPosition() {
-        Vector2 playerPos = player.getPosition();
+        Vector2 playerPos = player.getRenderPosition();
         float playerX = playerPos.x;
         float playerY = playerPos.y;
         float worldWidth = game.getWORLD_WIDTH();
@@ -473,74 +730,6 @@ public class MazeScreen implements Screen {
         worldCamera.update();
     }
 
-    /**
-     * Checks if player overlaps with any good objects
-     */
-    private void checkGoodObjectOverlaps() {
-        Vector2 playerPos = player.getPosition();
-        Circle playerCircle = new Circle(playerPos.x, playerPos.y, player.getBodyRadius());
-
-        for (Rectangle rectangle : goodObjectRectangles) {
-            if (Intersector.overlaps(playerCircle, rectangle)) {
-                rectanglesToRemove.add(rectangle);
-                tiledMapUtil.clearTile(
-                        (TiledMapTileLayer) tiledMap.getLayers().get("good_tiles"),
-                        tiledMapUtil.getRectangleTileIndex(rectangle, tileSize)
-                );
-                goodSound.play(options.getEffectsVolume());
-                if (goodObjectsRemaining == 1) {
-                    tiledMapUtil.showGoal(tiledMap, world, goalBlock);
-                }
-            }
-        }
-        goodObjectRectangles.removeAll(rectanglesToRemove);
-        goodObjectsRemaining = goodObjectRectangles.size();
-        rectanglesToRemove.clear();
-    }
-
-    /**
-     * Checks if player overlaps with goal
-     */
-    private void checkGoalOverlap() {
-        Vector2 playerPos = player.getPosition();
-        Circle playerCircle = new Circle(playerPos.x, playerPos.y, player.getBodyRadius());
-
-        if (Intersector.overlaps(playerCircle, goalRectangle) && !goalReached) {
-            player.setGoalReached();
-            goalReached = true;
-            victorySound.play(options.getEffectsVolume());
-            levelFinishedTime = System.currentTimeMillis();
-        }
-    }
-
-    /**
-     * Checks if player overlaps with any bad objects
-     */
-    private void checkBadObjectOverlaps() {
-        Vector2 playerPos = player.getPosition();
-        Circle playerCircle = new Circle(playerPos.x, playerPos.y, player.getBodyRadius());
-
-        for (Rectangle rectangle : badObjectRectangles) {
-            if (Intersector.overlaps(playerCircle, rectangle)) {
-                rectanglesToRemove.add(rectangle);
-                tiledMapUtil.clearTile(
-                        (TiledMapTileLayer) tiledMap.getLayers().get("bad_tiles"),
-                        tiledMapUtil.getRectangleTileIndex(rectangle, tileSize)
-                );
-                player.applyDebuff();
-                if (game.DEBUGGING()) {
-                    Gdx.app.log("Debuff", "applied");
-                }
-                timeSpent += 10;
-                badSound.play(options.getEffectsVolume());
-            }
-        }
-        badObjectRectangles.removeAll(rectanglesToRemove);
-        rectanglesToRemove.clear();
-    }
-
-
-
     @Override
     public void show() {
         if (paused) {
@@ -576,11 +765,14 @@ public class MazeScreen implements Screen {
             Gdx.app.log("Starting dispose", "MazeScreen");
         }
         backgroundMusic.stop();
+        saveRecording();
         hud.dispose();
         pauseMenu.dispose();
 
-        tiledMap.dispose();
-        world.dispose();
+        assetManager.unload(CompiledLevel.getFileName(levelName));
+        AssetGroup.MAZE.unload(assetManager);
+        simulation.dispose();
+        tiledMapRenderer.dispose();
         debugRenderer.dispose();
         if (game.DEBUGGING()) {
             Gdx.app.log("Finished dispose", "MazeScreen");
@@ -588,17 +780,12 @@ public class MazeScreen implements Screen {
     }
 
     /**
-     * Updates the hud label showing time spent
-     */
-    private void updateTimeSpentLabel() {
-        timeSpentLabel.setText(timeSpentText + game.formatTime(timeSpent));
-    }
-
-    /**
-     * Updates the hud label showing good objects left
+     * Updates the hud labels showing time spent and good objects left, the labels change only
+     * when the shown second or amount changes
      */
-    private void updateObjectsLeftLabel() {
-        objectsLeftLabel.setText(objectsLeftText + goodObjectsRemaining);
+    private void updateHudLabels() {
+        timeSpentLabel.showTime(simulation.getTimeSpent());
+        objectsLeftLabel.showAmount(simulation.getGoodObjectsRemaining());
     }
 
     /**
@@ -631,10 +818,9 @@ public class MazeScreen implements Screen {
      * Updates hud texts to use currently selected language
      */
     private void updateHudTexts() {
-        objectsLeftText = mazeBundle.get("goodObjectsRemaining");
-        timeSpentText = mazeBundle.get("time");
-        updateObjectsLeftLabel();
-        updateTimeSpentLabel();
+        objectsLeftLabel.setPrefix(mazeBundle.get("goodObjectsRemaining"));
+        timeSpentLabel.setPrefix(mazeBundle.get("time"));
+        updateHudLabels();
         pauseButton.setText(mazeBundle.get("pauseButton"));
     }
 }
@@ -0,0 +1,264 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.ashley.core.Engine;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.World;
+
+import fi.tuni.tiko2d.ecs.AreaComponent;
+import fi.tuni.tiko2d.ecs.BodyComponent;
+import fi.tuni.tiko2d.ecs.GoalBlockComponent;
+import fi.tuni.tiko2d.ecs.GoalComponent;
+import fi.tuni.tiko2d.ecs.HazardComponent;
+import fi.tuni.tiko2d.ecs.OverlapSystem;
+import fi.tuni.tiko2d.ecs.PhysicsSystem;
+import fi.tuni.tiko2d.ecs.PickupComponent;
+import fi.tuni.tiko2d.ecs.PlayerComponent;
+import fi.tuni.tiko2d.ecs.TileComponent;
+import fi.tuni.tiko2d.ecs.TileSystem;
+
+/**
+ * Game play logic of a maze without any rendering or audio.
+ * The player and the objects of the maze are entities in an Ashley {@link Engine}: good objects
+ * are pickups, bad objects hazards and the goal block a body removed when the goal opens.
+ * The systems are updated separately instead of with Engine.update, because the screen draws
+ * between checking the overlaps and stepping the world and records how many steps were taken
+ *
+ * @author Heikki Kangas
+ */
+public class MazeSimulation {
+    /**
+     * Receives events happening in the maze, for example to play sounds
+     */
+    public interface Listener {
+        /**
+         * Called when player collects a good object
+         *
+         * @param rectangle the collected object
+         */
+        void goodObjectCollected(Rectangle rectangle);
+
+        /**
+         * Called when player hits a bad object
+         *
+         * @param rectangle the hit object
+         */
+        void badObjectHit(Rectangle rectangle);
+
+        /**
+         * Called when player reaches the goal
+         */
+        void goalReached();
+
+        /**
+         * Called after stepping the world when player hit one or more walls during the steps
+         *
+         * @param impulse normal impulse of the hardest hit
+         */
+        void wallHit(float impulse);
+    }
+
+    /**
+     * Seconds added to the time spent for hitting a bad object
+     */
+    public static final float BAD_OBJECT_PENALTY = 10f;
+
+    private World world;
+    private Player player;
+    private Engine engine;
+    private OverlapSystem overlaps;
+    private PhysicsSystem physics;
+
+    /**
+     * Creates the world and the entities of the player, good and bad objects, goal and
+     * the goal block from the given level data
+     *
+     * @param game      main game class
+     * @param tiledMap  the loaded maze, used for hiding and clearing tiles, null if the maze is
+     *                  not drawn
+     * @param levelData game play data of the maze
+     * @param player    the player moving in the maze
+     * @param listener receives events happening in the maze
+     */
+    public MazeSimulation(RaccoonRoll game, TiledMap tiledMap, LevelData levelData, Player player, Listener listener) {
+        this.player = player;
+        TiledMapUtil tiledMapUtil = new TiledMapUtil(game);
+        float tileSize = levelData.getTileSize() * game.getScale();
+        if (tiledMap != null) {
+            tiledMapUtil.hideGoal(tiledMap);
+        }
+
+        world = new World(new Vector2(0, 0), true);
+        player.createPlayerBody(world, levelData.getStartPosition());
+
+        engine = new Engine();
+        overlaps = new OverlapSystem(game, tiledMap, tiledMapUtil, levelData.getColumns(), levelData.getRows(),
+                tileSize, listener);
+        physics = new PhysicsSystem(world, levelData, tileSize, tiledMapUtil, listener);
+        if (tiledMap != null) {
+            engine.addSystem(new TileSystem());
+        }
+        engine.addSystem(overlaps);
+        engine.addSystem(physics);
+        createEntities(levelData, tiledMap, tiledMapUtil);
+    }
+
+    /**
+     * Adds an entity for the player and every object of the level to the engine
+     */
+    private void createEntities(LevelData levelData, TiledMap tiledMap, TiledMapUtil tiledMapUtil) {
+        Entity playerEntity = new Entity();
+        playerEntity.add(new PlayerComponent(player));
+        playerEntity.add(new BodyComponent(player.getBody()));
+        engine.addEntity(playerEntity);
+
+        TiledMapTileLayer goodTiles = getTileLayer(tiledMap, "good_tiles");
+        for (Rectangle rectangle : levelData.getGoodRectangles()) {
+            Entity entity = createObject(rectangle, goodTiles, levelData.getTileSize(), tiledMapUtil);
+            entity.add(new PickupComponent());
+            engine.addEntity(entity);
+        }
+        TiledMapTileLayer badTiles = getTileLayer(tiledMap, "bad_tiles");
+        for (Rectangle rectangle : levelData.getBadRectangles()) {
+            Entity entity = createObject(rectangle, badTiles, levelData.getTileSize(), tiledMapUtil);
+            entity.add(new HazardComponent(BAD_OBJECT_PENALTY));
+            engine.addEntity(entity);
+        }
+
+        Entity goal = new Entity();
+        goal.add(new GoalComponent());
+        goal.add(new AreaComponent(levelData.getGoalRectangle()));
+        engine.addEntity(goal);
+
+        Entity goalBlock = new Entity();
+        goalBlock.add(new GoalBlockComponent());
+        goalBlock.add(new BodyComponent(tiledMapUtil.createGoalBlockBody(levelData.getGoalBlockRectangle(), world)));
+        engine.addEntity(goalBlock);
+    }
+
+    /**
+     * Finds a tile layer of the maze
+     *
+     * @return the layer, null if the maze is not drawn
+     */
+    private TiledMapTileLayer getTileLayer(TiledMap tiledMap, String name) {
+        return tiledMap == null ? null : (TiledMapTileLayer) tiledMap.getLayers().get(name);
+    }
+
+    /**
+     * Creates an entity for an object shown by a tile at the object's bottom left corner
+     */
+    private Entity createObject(Rectangle rectangle, TiledMapTileLayer layer, float tileSize, TiledMapUtil tiledMapUtil) {
+        Entity entity = new Entity();
+        entity.add(new AreaComponent(rectangle));
+        if (layer != null) {
+            Vector2 tileIndex = tiledMapUtil.getRectangleTileIndex(rectangle, tileSize, new Vector2());
+            entity.add(new TileComponent(layer, (int) tileIndex.x, (int) tileIndex.y));
+        }
+        return entity;
+    }
+
+    /**
+     * Checks if player overlaps with objects or the goal, player is moved in {@link #step(float)}
+     *
+     * @param delta time since last frame
+     */
+    public void update(float delta) {
+        overlaps.update(delta);
+    }
+
+    /**
+     * Moves the player and steps the world as many fixed steps as the frame time allows,
+     * walls hit during the steps are told to the listener once after stepping.
+     * On big levels the walls around the player are updated before stepping
+     *
+     * @param delta time since last frame
+     * @return how many steps were taken
+     */
+    public int step(float delta) {
+        physics.update(delta);
+        return physics.getSteps();
+    }
+
+    /**
+     * Setter for the timestep used for stepping the world
+     *
+     * @param timestep step rate and Box2D iterations to use
+     */
+    public void setTimestep(FixedTimestep timestep) {
+        physics.setTimestep(timestep);
+    }
+
+    /**
+     * Getter for the Box2D world
+     *
+     * @return the world
+     */
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * Getter for the wall chunks of a big level
+     *
+     * @return the chunks, null if all the walls are in the world
+     */
+    public WorldChunks getChunks() {
+        return physics.getChunks();
+    }
+
+    /**
+     * Getter for the entity engine holding the player and the objects of the maze
+     *
+     * @return the engine
+     */
+    public Engine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Getter for the player
+     *
+     * @return the player
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Getter for the time spent including penalties from bad objects
+     *
+     * @return time spent in seconds
+     */
+    public float getTimeSpent() {
+        return overlaps.getTimeSpent();
+    }
+
+    /**
+     * Getter for the amount of good objects left
+     *
+     * @return the amount of good objects left
+     */
+    public int getGoodObjectsRemaining() {
+        return overlaps.getPickupsRemaining();
+    }
+
+    /**
+     * Has the player reached the goal
+     *
+     * @return true if the goal has been reached
+     */
+    public boolean isGoalReached() {
+        return overlaps.isGoalReached();
+    }
+
+    /**
+     * Disposes the world
+     */
+    public void dispose() {
+        world.dispose();
+    }
+}
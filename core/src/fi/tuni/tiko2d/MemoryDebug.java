@@ -7,6 +7,8 @@ import com.badlogic.gdx.Gdx;
  */
 public class MemoryDebug {
     private static float timeDelta;
+    private static long peakJavaHeap;
+    private static long peakNativeHeap;
 
     /**
      * Empty private constructor to hide the public one
@@ -21,6 +23,19 @@ public class MemoryDebug {
         Gdx.app.log("MaxMemory", "" + Runtime.getRuntime().maxMemory() / 1000000f);
     }
 
+    /**
+     * Logs current and peak Java and native heap usage, native heap contains the textures and sounds
+     */
+    public static void peakMemory() {
+        int mb = 1024 * 1024;
+        long javaHeap = Gdx.app.getJavaHeap();
+        long nativeHeap = Gdx.app.getNativeHeap();
+        peakJavaHeap = Math.max(peakJavaHeap, javaHeap);
+        peakNativeHeap = Math.max(peakNativeHeap, nativeHeap);
+        Gdx.app.log("JavaHeap", javaHeap / mb + " peak " + peakJavaHeap / mb);
+        Gdx.app.log("NativeHeap", nativeHeap / mb + " peak " + peakNativeHeap / mb);
+    }
+
     /**
      * Logs memory usage
      *
@@ -7,8 +7,9 @@ import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.scenes.scene2d.InputEvent;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
@@ -41,14 +42,30 @@ public class MenuScreen extends ApplicationAdapter implements Screen {
     private float bgHeight;
     private float raunoWidth;
     private float raunoHeight;
-    private Texture title;
-    private Texture background;
-    private Texture rauno;
+    private TextureRegion title;
+    private TextureRegion background;
+    private TextureRegion rauno;
     private Music backgroundMusic;
     private Options options;
     private boolean tutorialCompleted;
     private AssetManager assetManager;
 
+    /**
+     * Returns the cached main menu, or queues its assets and returns a loading screen that shows
+     * it when the assets have been loaded
+     *
+     * @param game main game class
+     * @return the screen to show
+     */
+    public static Screen load(final RaccoonRoll game) {
+        return game.getScreens().get(MenuScreen.class, AssetGroup.MENU, new LoadingScreen.NextScreen() {
+            @Override
+            public Screen create() {
+                return new MenuScreen(game);
+            }
+        });
+    }
+
     /**
      * Sets up the main menu
      *
@@ -61,11 +78,9 @@ public class MenuScreen extends ApplicationAdapter implements Screen {
         options = game.getOptions();
         batch = game.getBatch();
         textCamera = game.getTextCamera();
-        tutorialCompleted = game.getCompletedLevels().getBoolean("tutorial", false);
         createTextures();
 
         stage = new Stage(new ScreenViewport(), batch);
-        Gdx.input.setInputProcessor(stage);
 
         menuBundle = I18NBundle.createBundle(Gdx.files.internal("localization/MenuBundle"), options.getLocale());
 
@@ -73,13 +88,19 @@ public class MenuScreen extends ApplicationAdapter implements Screen {
         setUpAudio();
 
         createTable();
-
-        Gdx.input.setCatchBackKey(false);
     }
 
+    /**
+     * Resets the cached menu and starts the music when the menu is shown
+     */
     @Override
     public void show() {
-
+        tutorialCompleted = game.getSaveGame().isLevelCompleted("tutorial");
+        ScreenCache.resetStage(stage);
+        Gdx.input.setInputProcessor(stage);
+        Gdx.input.setCatchBackKey(false);
+        backgroundMusic.setVolume(options.getMusicVolume());
+        backgroundMusic.play();
     }
 
     /**
@@ -119,20 +140,19 @@ public class MenuScreen extends ApplicationAdapter implements Screen {
      */
 
     private void createTextures() {
-        title = assetManager.get("graphics/mainmenu/Logoiso2.png");
-        background = assetManager.get("graphics/mainmenu/Valikontausta.png");
-        rauno = assetManager.get("graphics/mainmenu/Valikkorauno.png");
+        TextureAtlas atlas = assetManager.get("atlases/mainmenu.atlas");
+        title = atlas.findRegion("Logoiso2");
+        background = atlas.findRegion("Valikontausta");
+        rauno = atlas.findRegion("Valikkorauno");
     }
 
     /**
-     * Sets background music to main menu
+     * Gets the background music of main menu, it is started in show()
      */
 
     private void setUpAudio() {
         backgroundMusic = assetManager.get("sounds/backgroundMusic/main_menu_loop.mp3");
         backgroundMusic.setLooping(true);
-        backgroundMusic.setVolume(options.getMusicVolume());
-        backgroundMusic.play();
     }
 
     /**
@@ -140,14 +160,14 @@ public class MenuScreen extends ApplicationAdapter implements Screen {
      */
 
     private void scaleObjects() {
-        titleWidth = game.scaleFromFHD(title.getWidth());
-        titleHeight = game.scaleFromFHD(title.getHeight());
+        titleWidth = game.scaleFromFHD(title.getRegionWidth());
+        titleHeight = game.scaleFromFHD(title.getRegionHeight());
 
-        bgWidth = game.scaleFromFHD(background.getWidth());
-        bgHeight = game.scaleFromFHD(background.getHeight());
+        bgWidth = game.scaleFromFHD(background.getRegionWidth());
+        bgHeight = game.scaleFromFHD(background.getRegionHeight());
 
-        raunoWidth = game.scaleFromFHD(rauno.getWidth());
-        raunoHeight = game.scaleFromFHD(rauno.getHeight());
+        raunoWidth = game.scaleFromFHD(rauno.getRegionWidth());
+        raunoHeight = game.scaleFromFHD(rauno.getRegionHeight());
     }
 
     /**
@@ -171,12 +191,11 @@ public class MenuScreen extends ApplicationAdapter implements Screen {
             public void clicked(InputEvent event, float x, float y) {
                 Gdx.app.log("Play", "Button clicked");
                 if (tutorialCompleted) {
-                    game.setScreen(new MapScreen(game));
+                    game.setScreen(MapScreen.load(game));
                 } else {
-                    game.setScreen(new TutorialScreen(game));
+                    game.setScreen(TutorialScreen.load(game));
                     backgroundMusic.stop();
                 }
-                dispose();
             }
         });
 
@@ -184,8 +203,7 @@ public class MenuScreen extends ApplicationAdapter implements Screen {
             @Override
             public void clicked(InputEvent event, float x, float y) {
                 Gdx.app.log("optionsButton", "Button clicked");
-                game.setScreen(new OptionsScreen(game));
-                dispose();
+                game.setScreen(OptionsScreen.load(game));
             }
         });
 
@@ -193,8 +211,7 @@ public class MenuScreen extends ApplicationAdapter implements Screen {
             @Override
             public void clicked(InputEvent event, float x, float y) {
                 Gdx.app.log("About", "Button clicked");
-                game.setScreen(new AboutScreen(game));
-                dispose();
+                game.setScreen(AboutScreen.load(game));
             }
         });
     }
@@ -249,6 +266,7 @@ public class MenuScreen extends ApplicationAdapter implements Screen {
 
     @Override
     public void dispose() {
+        AssetGroup.MENU.unload(assetManager);
         stage.dispose();
         if (game.DEBUGGING()) {
             Gdx.app.log("Disposed", "MenuScreen");
@@ -0,0 +1,574 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.gdx.math.Circle;
+import com.badlogic.gdx.math.Intersector;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Grid of the positions the player's center can be in without overlapping walls.
+ * Every tile is split to {@link #CELLS_PER_TILE} cells per side and a cell is free if the player
+ * body placed on the cell's center does not overlap any wall. Moving between free cells is
+ * allowed to the eight neighbours, diagonally only when both cells next to the corner are free.
+ * The goal block is a wall until all good objects have been collected, so its cells are free
+ * only when searching with the goal open. Moving onto the cells where the player would hit
+ * a bad object costs extra so routes go around bad objects when there is room.
+ * Searches can stop once the cells they are looking for have been reached, and the arrays of a
+ * search are marked with the search's number instead of being cleared, so a short search on a
+ * big grid only touches the cells it reaches. A coarse grid with one cell per tile can be derived
+ * for estimating long distances quickly
+ *
+ * @author Heikki Kangas
+ */
+public class NavigationGrid {
+    /**
+     * How many cells one tile is split to per side
+     */
+    public static final int CELLS_PER_TILE = 4;
+
+    private static final byte FREE = 0;
+    private static final byte WALL = 1;
+    private static final byte GOAL_BLOCK = 2;
+    private static final float DIAGONAL = (float) Math.sqrt(2);
+
+    private int cellsPerTile;
+    private NavigationGrid coarseGrid;
+
+    private int columns;
+    private int rows;
+    private float cellSize;
+    private float badObjectCost;
+    private byte[] cells;
+    private boolean[] badCells;
+
+    private int searchId;
+    private float[] distances;
+    private int[] previous;
+    private int[] reachedIn;
+    private int[] openIn;
+    private int[] targetIn;
+    private int[] open;
+    private float[] openDistances;
+    private int openSize;
+    private int[] openPosition;
+    private IntArray sources;
+    private Circle circle;
+
+    /**
+     * Builds the grid of a level
+     *
+     * @param levelData     game play data of the level
+     * @param bodyRadius    radius of the player body colliding with the walls
+     * @param objectRadius  radius used for overlapping good and bad objects and the goal
+     * @param tileSize      size of one tile in meters
+     * @param badObjectCost extra distance in meters for moving onto a bad object
+     */
+    public NavigationGrid(LevelData levelData, float bodyRadius, float objectRadius, float tileSize,
+                          float badObjectCost) {
+        this(levelData.getColumns(), levelData.getRows(), tileSize, CELLS_PER_TILE, badObjectCost);
+        for (Rectangle wall : levelData.getWallRectangles()) {
+            mark(cells, wall, bodyRadius, WALL);
+        }
+        markGoalBlock(levelData.getGoalBlockRectangle(), bodyRadius);
+        for (Rectangle bad : levelData.getBadRectangles()) {
+            for (int index : getOverlappingCells(bad, objectRadius, false).toArray()) {
+                badCells[index] = true;
+            }
+        }
+    }
+
+    /**
+     * Creates a grid with every cell free
+     */
+    private NavigationGrid(int tileColumns, int tileRows, float tileSize, int cellsPerTile, float badObjectCost) {
+        this.cellsPerTile = cellsPerTile;
+        this.badObjectCost = badObjectCost;
+        columns = tileColumns * cellsPerTile;
+        rows = tileRows * cellsPerTile;
+        cellSize = tileSize / cellsPerTile;
+        cells = new byte[columns * rows];
+        badCells = new boolean[columns * rows];
+        distances = new float[columns * rows];
+        previous = new int[columns * rows];
+        reachedIn = new int[columns * rows];
+        openIn = new int[columns * rows];
+        targetIn = new int[columns * rows];
+        open = new int[columns * rows];
+        openDistances = new float[columns * rows];
+        openPosition = new int[columns * rows];
+        sources = new IntArray(1);
+        circle = new Circle();
+    }
+
+    /**
+     * Derives a grid with one cell per tile from a finer grid. A tile is free if any of its
+     * cells is free, and has a bad object if any of its free cells has. The player is wider
+     * than a tile and walls are at least a tile thick, so free cells on the two sides of a wall
+     * never end up in neighbouring tiles and the tiles connect like the cells
+     */
+    private NavigationGrid(NavigationGrid fine) {
+        this(fine.columns / fine.cellsPerTile, fine.rows / fine.cellsPerTile, fine.cellSize * fine.cellsPerTile,
+                1, fine.badObjectCost);
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++) {
+                byte cell = WALL;
+                boolean bad = false;
+                for (int fineY = y * fine.cellsPerTile; fineY < (y + 1) * fine.cellsPerTile; fineY++) {
+                    for (int fineX = x * fine.cellsPerTile; fineX < (x + 1) * fine.cellsPerTile; fineX++) {
+                        int index = fineY * fine.columns + fineX;
+                        if (fine.cells[index] == FREE || (fine.cells[index] == GOAL_BLOCK && cell == WALL)) {
+                            cell = fine.cells[index];
+                        }
+                        if (fine.cells[index] != WALL) {
+                            bad |= fine.badCells[index];
+                        }
+                    }
+                }
+                cells[y * columns + x] = cell;
+                badCells[y * columns + x] = bad;
+            }
+        }
+    }
+
+    /**
+     * Marks the cells where a circle of given radius overlaps the rectangle
+     */
+    private void mark(byte[] cells, Rectangle rectangle, float radius, byte value) {
+        int minX = getColumn(rectangle.x - radius);
+        int maxX = getColumn(rectangle.x + rectangle.width + radius);
+        int minY = getRow(rectangle.y - radius);
+        int maxY = getRow(rectangle.y + rectangle.height + radius);
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                circle.set(getCenterX(x), getCenterY(y), radius);
+                if (Intersector.overlaps(circle, rectangle)) {
+                    int index = y * columns + x;
+                    cells[index] = (byte) Math.max(cells[index], value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks the cells blocked only by the goal block
+     */
+    private void markGoalBlock(Rectangle goalBlock, float radius) {
+        byte[] blocked = new byte[cells.length];
+        mark(blocked, goalBlock, radius, GOAL_BLOCK);
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] == FREE) {
+                cells[i] = blocked[i];
+            }
+        }
+    }
+
+    /**
+     * Finds the cells from where a circle of given radius overlaps the rectangle
+     *
+     * @param rectangle rectangle to overlap, for example a good object or the goal
+     * @param radius    radius of the circle
+     * @param goalOpen  true if cells blocked by the goal block are included
+     * @return indices of the free overlapping cells
+     */
+    public IntArray getOverlappingCells(Rectangle rectangle, float radius, boolean goalOpen) {
+        IntArray overlapping = new IntArray();
+        int minX = getColumn(rectangle.x - radius);
+        int maxX = getColumn(rectangle.x + rectangle.width + radius);
+        int minY = getRow(rectangle.y - radius);
+        int maxY = getRow(rectangle.y + rectangle.height + radius);
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                circle.set(getCenterX(x), getCenterY(y), radius);
+                if (isFree(y * columns + x, goalOpen) && Intersector.overlaps(circle, rectangle)) {
+                    overlapping.add(y * columns + x);
+                }
+            }
+        }
+        return overlapping;
+    }
+
+    /**
+     * Finds the shortest distances from a cell to every cell with Dijkstra's algorithm,
+     * read the results with {@link #getDistance(int)} and {@link #getPath(int, IntArray)}
+     *
+     * @param from     index of the cell to search from
+     * @param goalOpen true if the goal block has been removed
+     */
+    public void search(int from, boolean goalOpen) {
+        sources.clear();
+        sources.add(from);
+        search(sources, goalOpen, null, 0);
+    }
+
+    /**
+     * Finds the shortest distances from the nearest of given cells until every target has been
+     * reached. Only the distances of the targets are final after the search
+     *
+     * @param from     indices of the cells to search from
+     * @param goalOpen true if the goal block has been removed
+     * @param targets  indices of the cells whose distances are needed
+     */
+    public void search(IntArray from, boolean goalOpen, IntArray targets) {
+        search(from, goalOpen, targets, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Finds the target nearest to a cell, read the path to it with {@link #getPath(int, IntArray)}
+     *
+     * @param from     index of the cell to search from
+     * @param goalOpen true if the goal block has been removed
+     * @param targets  indices of the cells to look for
+     * @return index of the nearest target, -1 if none of them can be reached
+     */
+    public int searchNearest(int from, boolean goalOpen, IntArray targets) {
+        sources.clear();
+        sources.add(from);
+        return search(sources, goalOpen, targets, 1);
+    }
+
+    /**
+     * Finds the distances from a cell until given amount of the nearest targets have been reached.
+     * The distances of the other targets reached are not always the shortest ones but there is
+     * a path that long
+     *
+     * @param from     index of the cell to search from
+     * @param goalOpen true if the goal block has been removed
+     * @param targets  indices of the cells to look for
+     * @param count    how many of the nearest targets are needed
+     */
+    public void searchNearest(int from, boolean goalOpen, IntArray targets, int count) {
+        sources.clear();
+        sources.add(from);
+        search(sources, goalOpen, targets, count);
+    }
+
+    /**
+     * Runs Dijkstra's algorithm until given amount of targets have been reached,
+     * or every reachable cell if there are no targets
+     *
+     * @param needed how many targets to reach before stopping, at most all of them
+     * @return index of the last target reached, -1 if none
+     */
+    private int search(IntArray from, boolean goalOpen, IntArray targets, int needed) {
+        searchId++;
+        openSize = 0;
+        int targetsLeft = 0;
+        if (targets != null) {
+            for (int i = 0; i < targets.size; i++) {
+                if (targetIn[targets.get(i)] != searchId) {
+                    targetIn[targets.get(i)] = searchId;
+                    targetsLeft++;
+                }
+            }
+        }
+        for (int i = 0; i < from.size; i++) {
+            int index = from.get(i);
+            if (isFree(index, goalOpen) && reachedIn[index] != searchId) {
+                reachedIn[index] = searchId;
+                distances[index] = 0;
+                previous[index] = -1;
+                addOpen(index);
+            }
+        }
+
+        while (openSize > 0) {
+            int index = popOpen();
+            if (targets != null && targetIn[index] == searchId) {
+                targetIn[index] = 0;
+                targetsLeft--;
+                needed--;
+                if (needed == 0 || targetsLeft == 0) {
+                    return index;
+                }
+            }
+            int x = index % columns;
+            int y = index / columns;
+            boolean left = x > 0 && isFree(index - 1, goalOpen);
+            boolean right = x < columns - 1 && isFree(index + 1, goalOpen);
+            boolean down = y > 0 && isFree(index - columns, goalOpen);
+            boolean up = y < rows - 1 && isFree(index + columns, goalOpen);
+            float straight = distances[index] + cellSize;
+            float diagonal = distances[index] + cellSize * DIAGONAL;
+            if (left) {
+                relax(index, index - 1, straight);
+            }
+            if (right) {
+                relax(index, index + 1, straight);
+            }
+            if (down) {
+                relax(index, index - columns, straight);
+            }
+            if (up) {
+                relax(index, index + columns, straight);
+            }
+            // Diagonally only when both cells next to the corner are free
+            if (left && down && isFree(index - columns - 1, goalOpen)) {
+                relax(index, index - columns - 1, diagonal);
+            }
+            if (right && down && isFree(index - columns + 1, goalOpen)) {
+                relax(index, index - columns + 1, diagonal);
+            }
+            if (left && up && isFree(index + columns - 1, goalOpen)) {
+                relax(index, index + columns - 1, diagonal);
+            }
+            if (right && up && isFree(index + columns + 1, goalOpen)) {
+                relax(index, index + columns + 1, diagonal);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds a cell to the open set or moves it up if its distance has been lowered. The open set
+     * is a binary heap of cell indices with their distances next to them, so it needs no objects
+     * per cell and comparing does not jump around the grid's arrays
+     */
+    private void addOpen(int index) {
+        if (openIn[index] != searchId) {
+            openIn[index] = searchId;
+            openPosition[index] = openSize;
+            openSize++;
+        }
+        int position = openPosition[index];
+        float distance = distances[index];
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (openDistances[parent] <= distance) {
+                break;
+            }
+            open[position] = open[parent];
+            openDistances[position] = openDistances[parent];
+            openPosition[open[position]] = position;
+            position = parent;
+        }
+        open[position] = index;
+        openDistances[position] = distance;
+        openPosition[index] = position;
+    }
+
+    /**
+     * Removes the cell with the shortest distance from the open set
+     *
+     * @return index of the removed cell
+     */
+    private int popOpen() {
+        int first = open[0];
+        openIn[first] = 0;
+        openSize--;
+        if (openSize > 0) {
+            int last = open[openSize];
+            float distance = openDistances[openSize];
+            int position = 0;
+            while (position * 2 + 1 < openSize) {
+                int child = position * 2 + 1;
+                if (child + 1 < openSize && openDistances[child + 1] < openDistances[child]) {
+                    child++;
+                }
+                if (openDistances[child] >= distance) {
+                    break;
+                }
+                open[position] = open[child];
+                openDistances[position] = openDistances[child];
+                openPosition[open[position]] = position;
+                position = child;
+            }
+            open[position] = last;
+            openDistances[position] = distance;
+            openPosition[last] = position;
+        }
+        return first;
+    }
+
+    /**
+     * Updates a free neighbour's distance if moving to it from a cell is shorter than the
+     * distance found so far
+     *
+     * @param distance distance to the neighbour without the bad object cost
+     */
+    private void relax(int index, int next, float distance) {
+        if (badCells[next] && !badCells[index]) {
+            distance += badObjectCost;
+        }
+        if (reachedIn[next] != searchId || distance < distances[next]) {
+            reachedIn[next] = searchId;
+            distances[next] = distance;
+            previous[next] = index;
+            addOpen(next);
+        }
+    }
+
+    /**
+     * Is the cell free for the player
+     *
+     * @param index    index of the cell
+     * @param goalOpen true if the goal block has been removed
+     * @return true if player fits to the cell
+     */
+    public boolean isFree(int index, boolean goalOpen) {
+        return cells[index] == FREE || (goalOpen && cells[index] == GOAL_BLOCK);
+    }
+
+    /**
+     * Getter for the distance found by the last {@link #search(int, boolean)}
+     *
+     * @param index index of the cell
+     * @return distance in meters including bad object costs, infinity if the cell can't be reached
+     */
+    public float getDistance(int index) {
+        return reachedIn[index] == searchId ? distances[index] : Float.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Gets the shortest path found by the last {@link #search(int, boolean)}
+     *
+     * @param to   index of the cell where the path ends
+     * @param path cell indices from the searched cell to the end are added here
+     */
+    public void getPath(int to, IntArray path) {
+        if (reachedIn[to] != searchId) {
+            return;
+        }
+        int start = path.size;
+        for (int index = to; index != -1; index = previous[index]) {
+            path.add(index);
+        }
+        for (int i = start, j = path.size - 1; i < j; i++, j--) {
+            path.swap(i, j);
+        }
+    }
+
+    /**
+     * Finds the cell containing a position
+     *
+     * @param x x coordinate in meters
+     * @param y y coordinate in meters
+     * @return index of the cell
+     */
+    public int getCell(float x, float y) {
+        return getRow(y) * columns + getColumn(x);
+    }
+
+    /**
+     * Finds the free cell nearest to a position, for example to start a search from where
+     * the player is pressed against a wall
+     *
+     * @param x        x coordinate in meters
+     * @param y        y coordinate in meters
+     * @param maxRing  how many cells away from the position's cell to look at most
+     * @param goalOpen true if the goal block has been removed
+     * @return index of the nearest free cell, -1 if there is none near
+     */
+    public int getNearestFreeCell(float x, float y, int maxRing, boolean goalOpen) {
+        int column = getColumn(x);
+        int row = getRow(y);
+        for (int ring = 0; ring <= maxRing; ring++) {
+            int nearest = -1;
+            float nearestDistance = Float.POSITIVE_INFINITY;
+            for (int cy = Math.max(0, row - ring); cy <= Math.min(rows - 1, row + ring); cy++) {
+                for (int cx = Math.max(0, column - ring); cx <= Math.min(columns - 1, column + ring); cx++) {
+                    int index = cy * columns + cx;
+                    float distance = Vector2.dst2(x, y, getCenterX(cx), getCenterY(cy));
+                    if (isFree(index, goalOpen) && distance < nearestDistance) {
+                        nearestDistance = distance;
+                        nearest = index;
+                    }
+                }
+            }
+            if (nearest != -1) {
+                return nearest;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Getter for the x coordinate of a cell's center
+     *
+     * @param index index of the cell
+     * @return x coordinate in meters
+     */
+    public float getCellX(int index) {
+        return getCenterX(index % columns);
+    }
+
+    /**
+     * Getter for the y coordinate of a cell's center
+     *
+     * @param index index of the cell
+     * @return y coordinate in meters
+     */
+    public float getCellY(int index) {
+        return getCenterY(index / columns);
+    }
+
+    /**
+     * Getter for the grid of the same level with one cell per tile, derived on the first call.
+     * Searching it is about {@link #CELLS_PER_TILE} squared times faster, for estimating
+     * distances when the exact ones are not needed
+     *
+     * @return the coarse grid, this grid if it already has one cell per tile
+     */
+    public NavigationGrid getCoarseGrid() {
+        if (cellsPerTile == 1) {
+            return this;
+        }
+        if (coarseGrid == null) {
+            coarseGrid = new NavigationGrid(this);
+        }
+        return coarseGrid;
+    }
+
+    /**
+     * Getter for the amount of cells
+     *
+     * @return columns times rows
+     */
+    public int getCellCount() {
+        return cells.length;
+    }
+
+    /**
+     * Getter for the amount of cells free for the player when the goal is blocked
+     *
+     * @return amount of free cells
+     */
+    public int getFreeCellCount() {
+        int free = 0;
+        for (byte cell : cells) {
+            if (cell == FREE) {
+                free++;
+            }
+        }
+        return free;
+    }
+
+    /**
+     * Converts column index to the x coordinate of the column's center
+     */
+    private float getCenterX(int column) {
+        return (column + 0.5f) * cellSize;
+    }
+
+    /**
+     * Converts row index to the y coordinate of the row's center
+     */
+    private float getCenterY(int row) {
+        return (row + 0.5f) * cellSize;
+    }
+
+    /**
+     * Converts x coordinate to column index clamped inside the grid
+     */
+    private int getColumn(float x) {
+        return MathUtils.clamp((int) Math.floor(x / cellSize), 0, columns - 1);
+    }
+
+    /**
+     * Converts y coordinate to row index clamped inside the grid
+     */
+    private int getRow(float y) {
+        return MathUtils.clamp((int) Math.floor(y / cellSize), 0, rows - 1);
+    }
+}
@@ -0,0 +1,168 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.gdx.math.Circle;
+import com.badlogic.gdx.math.Intersector;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+
+import java.util.ArrayList;
+
+/**
+ * Tile aligned uniform grid of object rectangles for fast overlap checks.
+ * Each rectangle is stored in every cell it covers so only the cells under the player need to
+ * be tested each frame
+ *
+ * @author Heikki Kangas
+ */
+public class ObjectGrid {
+    private float cellSize;
+    private int columns;
+    private int rows;
+    private ArrayList<ArrayList<Rectangle>> cells;
+    private int size;
+
+    /**
+     * Creates the grid and adds given rectangles to it
+     *
+     * @param rectangles rectangles scaled to meters
+     * @param columns    width of the tilemap in tiles
+     * @param rows       height of the tilemap in tiles
+     * @param cellSize   size of one tile in meters
+     */
+    public ObjectGrid(ArrayList<Rectangle> rectangles, int columns, int rows, float cellSize) {
+        this.columns = columns;
+        this.rows = rows;
+        this.cellSize = cellSize;
+        cells = new ArrayList<ArrayList<Rectangle>>(columns * rows);
+        for (int i = 0; i < columns * rows; i++) {
+            cells.add(null);
+        }
+        for (Rectangle rectangle : rectangles) {
+            add(rectangle);
+        }
+    }
+
+    /**
+     * Adds rectangle to every cell it covers
+     *
+     * @param rectangle rectangle to add
+     */
+    public void add(Rectangle rectangle) {
+        int minX = getColumn(rectangle.x);
+        int maxX = getColumn(rectangle.x + rectangle.width);
+        int minY = getRow(rectangle.y);
+        int maxY = getRow(rectangle.y + rectangle.height);
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                int index = y * columns + x;
+                ArrayList<Rectangle> cell = cells.get(index);
+                if (cell == null) {
+                    cell = new ArrayList<Rectangle>(1);
+                    cells.set(index, cell);
+                }
+                cell.add(rectangle);
+            }
+        }
+        size++;
+    }
+
+    /**
+     * Removes rectangle from every cell it covers
+     *
+     * @param rectangle rectangle to remove
+     */
+    public void remove(Rectangle rectangle) {
+        int minX = getColumn(rectangle.x);
+        int maxX = getColumn(rectangle.x + rectangle.width);
+        int minY = getRow(rectangle.y);
+        int maxY = getRow(rectangle.y + rectangle.height);
+        boolean removed = false;
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                ArrayList<Rectangle> cell = cells.get(y * columns + x);
+                if (cell != null && removeFromCell(cell, rectangle)) {
+                    removed = true;
+                }
+            }
+        }
+        if (removed) {
+            size--;
+        }
+    }
+
+    /**
+     * Finds the rectangles overlapping the given circle
+     *
+     * @param circle      circle to test against
+     * @param overlapping list where overlapping rectangles are added, cleared first
+     */
+    public void getOverlapping(Circle circle, ArrayList<Rectangle> overlapping) {
+        overlapping.clear();
+        int minX = getColumn(circle.x - circle.radius);
+        int maxX = getColumn(circle.x + circle.radius);
+        int minY = getRow(circle.y - circle.radius);
+        int maxY = getRow(circle.y + circle.radius);
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                ArrayList<Rectangle> cell = cells.get(y * columns + x);
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.size(); i++) {
+                    Rectangle rectangle = cell.get(i);
+                    if (Intersector.overlaps(circle, rectangle) && !overlapping.contains(rectangle)) {
+                        overlapping.add(rectangle);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Getter for the amount of rectangles in the grid
+     *
+     * @return the amount of rectangles
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes rectangle from cell by swapping it with the last one
+     *
+     * @param cell      cell to remove the rectangle from
+     * @param rectangle rectangle to remove
+     * @return true if the rectangle was in the cell
+     */
+    private boolean removeFromCell(ArrayList<Rectangle> cell, Rectangle rectangle) {
+        for (int i = 0; i < cell.size(); i++) {
+            if (cell.get(i) == rectangle) {
+                int last = cell.size() - 1;
+                cell.set(i, cell.get(last));
+                cell.remove(last);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Converts x coordinate to column index clamped inside the grid
+     *
+     * @param x x coordinate in meters
+     * @return column index
+     */
+    private int getColumn(float x) {
+        return MathUtils.clamp((int) Math.floor(x / cellSize), 0, columns - 1);
+    }
+
+    /**
+     * Converts y coordinate to row index clamped inside the grid
+     *
+     * @param y y coordinate in meters
+     * @return row index
+     */
+    private int getRow(float y) {
+        return MathUtils.clamp((int) Math.floor(y / cellSize), 0, rows - 1);
+    }
+}
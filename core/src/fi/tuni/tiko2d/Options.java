@@ -11,6 +11,9 @@ public class Options {
     private String language;
     private Preferences options;
     private Locale locale;
+    private int physicsStepsPerSecond;
+    private int velocityIterations;
+    private int positionIterations;
 
     /**
      * Initializes the options from saved Preferences and reads the options to variables
@@ -27,6 +30,9 @@ public class Options {
         musicVolume = options.getFloat("musicVolume", 1f);
         effectsVolume = options.getFloat("effectsVolume", 1f);
         language = options.getString("language", Locale.getDefault().getLanguage());
+        physicsStepsPerSecond = options.getInteger("physicsStepsPerSecond", FixedTimestep.DEFAULT_STEPS_PER_SECOND);
+        velocityIterations = options.getInteger("velocityIterations", 6);
+        positionIterations = options.getInteger("positionIterations", 2);
         setLocale();
     }
 
@@ -74,6 +80,15 @@ public class Options {
         return locale;
     }
 
+    /**
+     * Creates timestep with the physics step rate and Box2D iterations from the options.
+     * These are not shown in the options screen, lowering the step rate helps weak devices
+     * @return timestep for stepping the world
+     */
+    public FixedTimestep createTimestep() {
+        return new FixedTimestep(physicsStepsPerSecond, velocityIterations, positionIterations);
+    }
+
     /**
      * Saves the options to the options Preferences file
      * @param effectsVolume volume of sound effects
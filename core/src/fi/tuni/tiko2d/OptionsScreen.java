@@ -7,8 +7,9 @@ import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.scenes.scene2d.Event;
 import com.badlogic.gdx.scenes.scene2d.EventListener;
 import com.badlogic.gdx.scenes.scene2d.InputEvent;
@@ -46,7 +47,7 @@ public class OptionsScreen extends ApplicationAdapter implements Screen {
     private float bgHeight;
     private float musicVolume;
     private float effectsVolume;
-    private Texture background;
+    private TextureRegion background;
     private Label titleLabel;
     private Label volumeMusicLabel;
     private Label volumeEffectsLabel;
@@ -56,12 +57,47 @@ public class OptionsScreen extends ApplicationAdapter implements Screen {
     private String language;
     private Container musicContainer;
     private Container effectsContainer;
-    private boolean screenActive = true;
+    private Slider volumeMusicSlider;
+    private Slider volumeEffectsSlider;
     private MazeScreen mazeScreen;
     private AssetManager assetManager;
     private Music backgroundMusic;
 
 
+    /**
+     * Returns the cached options screen, or queues its assets and returns a loading screen that
+     * shows it when the assets have been loaded
+     *
+     * @param game main game class
+     * @return the screen to show
+     */
+    public static Screen load(final RaccoonRoll game) {
+        return load(game, null);
+    }
+
+    /**
+     * Returns the cached options screen, or queues its assets and returns a loading screen that
+     * shows it when the assets have been loaded
+     *
+     * @param game       main game class
+     * @param mazeScreen the MazeScreen to go back to, null to go back to main menu
+     * @return the screen to show
+     */
+    public static Screen load(final RaccoonRoll game, final MazeScreen mazeScreen) {
+        Screen screen = game.getScreens().get(OptionsScreen.class, AssetGroup.OPTIONS, new LoadingScreen.NextScreen() {
+            @Override
+            public Screen create() {
+                OptionsScreen optionsScreen = new OptionsScreen(game);
+                optionsScreen.setMazeScreen(mazeScreen);
+                return optionsScreen;
+            }
+        });
+        if (screen instanceof OptionsScreen) {
+            ((OptionsScreen) screen).setMazeScreen(mazeScreen);
+        }
+        return screen;
+    }
+
     /**
      * Sets up the options screen
      *
@@ -74,39 +110,49 @@ public class OptionsScreen extends ApplicationAdapter implements Screen {
         options = game.getOptions();
         batch = game.getBatch();
         textCamera = game.getTextCamera();
-        musicVolume = options.getMusicVolume();
-        effectsVolume = options.getEffectsVolume();
         language = options.getLanguage();
-        background = assetManager.get("graphics/othermenus/Tausta75.png");
+        TextureAtlas atlas = assetManager.get("atlases/othermenus.atlas");
+        background = atlas.findRegion("Tausta75");
         backgroundMusic = assetManager.get("sounds/backgroundMusic/main_menu_loop.mp3");
 
         stage = new Stage(new ScreenViewport(), batch);
-        Gdx.input.setInputProcessor(stage);
 
         optionsBundle = I18NBundle.createBundle(Gdx.files.internal("localization/OptionsBundle"), options.getLocale());
 
-        bgWidth = game.scaleFromFHD(background.getWidth());
-        bgHeight = game.scaleFromFHD(background.getHeight());
+        bgWidth = game.scaleFromFHD(background.getRegionWidth());
+        bgHeight = game.scaleFromFHD(background.getRegionHeight());
 
         createTables();
     }
 
     /**
-     * Sets up the options screen with MazeScreen to go back to
+     * Setter for the MazeScreen to go back to
      *
-     * @param game       main game class
-     * @param mazeScreen the MazeScreen to go back to
+     * @param mazeScreen the MazeScreen to go back to, null to go back to main menu
      */
-    public OptionsScreen(RaccoonRoll game, MazeScreen mazeScreen) {
-        this(game);
+    public void setMazeScreen(MazeScreen mazeScreen) {
         this.mazeScreen = mazeScreen;
-        backgroundMusic.setVolume(options.getMusicVolume());
-        backgroundMusic.play();
     }
 
+    /**
+     * Shows the saved options again when the cached screen is shown, starts the menu music
+     * when coming from a maze
+     */
     @Override
     public void show() {
+        musicVolume = options.getMusicVolume();
+        effectsVolume = options.getEffectsVolume();
+        language = options.getLanguage();
+        volumeMusicSlider.setValue(musicVolume);
+        volumeEffectsSlider.setValue(effectsVolume);
+        selectLanguage();
+        ScreenCache.resetStage(stage);
+        Gdx.input.setInputProcessor(stage);
 
+        if (mazeScreen != null) {
+            backgroundMusic.setVolume(musicVolume);
+            backgroundMusic.play();
+        }
     }
 
     /**
@@ -173,6 +219,14 @@ public class OptionsScreen extends ApplicationAdapter implements Screen {
         english = new TextButton(optionsBundle.get("englishButton"), skin);
         finnish = new TextButton(optionsBundle.get("finnishButton"), skin);
         save = new TextButton(optionsBundle.get("saveButton"), skin);
+        selectLanguage();
+    }
+
+    /**
+     * Shows the button of the chosen language selected
+     */
+
+    private void selectLanguage() {
         if (language.equals("fi")) {
             finnish.setStyle(selected);
             english.setStyle(notSelected);
@@ -198,8 +252,7 @@ public class OptionsScreen extends ApplicationAdapter implements Screen {
      */
 
     private void createSliders() {
-        final Slider volumeMusicSlider = new Slider(0f, 1f, 0.1f, false, skin);
-        volumeMusicSlider.setValue(musicVolume);
+        volumeMusicSlider = new Slider(0f, 1f, 0.1f, false, skin);
         volumeMusicSlider.addListener(new EventListener() {
             @Override
             public boolean handle(Event event) {
@@ -209,8 +262,7 @@ public class OptionsScreen extends ApplicationAdapter implements Screen {
             }
         });
 
-        final Slider volumeEffectsSlider = new Slider(0f, 1f, 0.1f, false, skin);
-        volumeEffectsSlider.setValue(effectsVolume);
+        volumeEffectsSlider = new Slider(0f, 1f, 0.1f, false, skin);
         volumeEffectsSlider.addListener(new EventListener() {
             @Override
             public boolean handle(Event event) {
@@ -248,13 +300,7 @@ public class OptionsScreen extends ApplicationAdapter implements Screen {
             @Override
             public void clicked(InputEvent event, float x, float y) {
                 Gdx.app.log("Back", "Button clicked");
-                if (mazeScreen != null) {
-                    game.setScreen(mazeScreen);
-                    backgroundMusic.stop();
-                } else {
-                    game.setScreen(new MenuScreen(game));
-                }
-                screenActive = false;
+                leave();
             }
         });
 
@@ -282,21 +328,33 @@ public class OptionsScreen extends ApplicationAdapter implements Screen {
             @Override
             public void clicked(InputEvent event, float x, float y) {
                 Gdx.app.log("Save", "Button clicked");
-                saveOptions();
-                if (mazeScreen != null) {
-                    game.setScreen(mazeScreen);
-                    backgroundMusic.stop();
-                } else {
-                    game.setScreen(new MenuScreen(game));
+                if (!language.equals(options.getLanguage())) {
+                    // Cached screens have their texts in the old language
+                    game.getScreens().releaseAll();
                 }
-                screenActive = false;
+                saveOptions();
+                leave();
             }
         });
     }
 
+    /**
+     * Goes back to the maze or to main menu. Going back to a maze releases the screens cached
+     * during the pause so they are not kept in memory during game play
+     */
+
+    private void leave() {
+        if (mazeScreen != null) {
+            game.setScreen(mazeScreen);
+            backgroundMusic.stop();
+            game.getScreens().releaseForGamePlay();
+        } else {
+            game.setScreen(MenuScreen.load(game));
+        }
+    }
+
     /**
      * Renders background, buttons and sliders
-     * Calls dispose() when screen is not active
      *
      * @param delta time since last frame was drawn
      */
@@ -314,9 +372,6 @@ public class OptionsScreen extends ApplicationAdapter implements Screen {
         stage.act(Gdx.graphics.getDeltaTime());
         stage.draw();
 
-        if(!screenActive) {
-            dispose();
-        }
         if (game.DEBUGGING()) {
             MemoryDebug.memoryUsed(delta);
         }
@@ -324,7 +379,7 @@ public class OptionsScreen extends ApplicationAdapter implements Screen {
 
     @Override
     public void hide() {
-        dispose();
+
     }
 
     /**
@@ -346,6 +401,7 @@ public class OptionsScreen extends ApplicationAdapter implements Screen {
 
     @Override
     public void dispose() {
+        AssetGroup.OPTIONS.unload(assetManager);
         stage.dispose();
         if (game.DEBUGGING()) {
             Gdx.app.log("Disposed", "OptionsScreen");
@@ -1,8 +1,6 @@
 package fi.tuni.tiko2d;
 
-import com.badlogic.gdx.Application;
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.Input;
 import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
@@ -23,7 +21,6 @@ import com.badlogic.gdx.physics.box2d.World;
  * @author Heikki Kangas
  */
 public class Player {
-    private final boolean debugAccelerometer = false;
     private final boolean debugVelocity = false;
     private Body playerBody;
     private float playerRotation;
@@ -35,31 +32,50 @@ public class Player {
     private float debuffTimeLeft;
     private boolean paused;
     private AssetManager assetManager;
-
+    private PlayerInput input;
+    private Vector2 force;
+    private Vector2 previousPosition;
+    private Vector2 renderPosition;
 
     /**
-     * Creates TextureAtlas of the player animation and sets the size of the player
+     * Sets the size of the player and uses the device's keyboard or accelerometer for input.
+     * The animation is created when the player is drawn the first time so the player can be
+     * simulated without any graphics
      * @param game Main game class for scaling the player texture
      */
     public Player(RaccoonRoll game) {
         assetManager = game.getAssetManager();
 
         this.game = game;
+        input = new DeviceInput(game);
+        force = new Vector2();
+        previousPosition = new Vector2();
+        renderPosition = new Vector2();
+        playerRotation = 0;
+        playerRadius = 48 * game.getScale();
+    }
+
+    /**
+     * Creates TextureAtlas of the player animation
+     */
+    private void createAnimation() {
         atlas = assetManager.get("graphics/player/roll_animation/racc_roll.txt");
         playerAnimation = new Animation<TextureRegion>(
                 1 / 30f,
                 atlas.findRegions("racc_roll")
         );
-        playerRotation = 0;
-        playerRadius = 48 * game.getScale();
     }
 
     /**
-     * Draws the player texture facing to movement direction
+     * Draws the player texture facing to movement direction at the position interpolated
+     * between the last two physics steps
      * @param batch SpriteBatch to draw the texture
      * @param delta How much time has passed since last frame
      */
     public void draw(SpriteBatch batch, float delta) {
+        if (playerAnimation == null) {
+            createAnimation();
+        }
         Vector2 playerVelocity = playerBody.getLinearVelocity();
         if ((playerVelocity.x != 0 || playerVelocity.y != 0) && !paused) {
             playerRotation = playerBody.getLinearVelocity().angle();
@@ -68,8 +84,8 @@ public class Player {
 
         batch.draw(
                 playerAnimation.getKeyFrame(statetime, true),
-                playerBody.getPosition().x - playerRadius,
-                playerBody.getPosition().y - playerRadius,
+                renderPosition.x - playerRadius,
+                renderPosition.y - playerRadius,
                 playerRadius,
                 playerRadius,
                 playerRadius * 2,
@@ -87,6 +103,39 @@ public class Player {
     public void createPlayerBody(World world, Vector2 startPos) {
         playerBody = world.createBody(getPlayerBodyDef(startPos.x, startPos.y));
         playerBody.createFixture(getPlayerFixtureDef());
+        previousPosition.set(startPos);
+        renderPosition.set(startPos);
+    }
+
+    /**
+     * Stores the position before a physics step for interpolating the drawn position
+     */
+    public void savePreviousPosition() {
+        previousPosition.set(playerBody.getPosition());
+    }
+
+    /**
+     * Sets the drawn position between the positions before and after the last physics step
+     * @param alpha 0 for the position before the step, 1 for the position after it
+     */
+    public void interpolate(float alpha) {
+        renderPosition.set(previousPosition).lerp(playerBody.getPosition(), alpha);
+    }
+
+    /**
+     * Getter for the position the player is drawn at
+     * @return interpolated position of the player
+     */
+    public Vector2 getRenderPosition() {
+        return renderPosition;
+    }
+
+    /**
+     * Getter for player's Box2D body
+     * @return the body created with {@link #createPlayerBody(World, Vector2)}
+     */
+    public Body getBody() {
+        return playerBody;
     }
 
     /**
@@ -118,47 +167,16 @@ public class Player {
     }
 
     /**
-     * Moves player according to keys pressed (desktop) or accelerometer values (android).
-     * Applies friction so player will not roll indefinitely
-     * @param deltatime how long since last frame
+     * Moves player according to the force read from player's input.
+     * Applies friction so player will not roll indefinitely.
+     * Called before every physics step, forces are scaled so the player accelerates the same
+     * with any step rate as with the default one it was tuned with
+     * @param deltatime length of the physics step
      */
     public void movePlayer(float deltatime) {
-        float x = 0;
-        float y = 0;
-
-        if (Gdx.app.getType() == Application.ApplicationType.Desktop) {
-            if (Gdx.input.isKeyPressed(Input.Keys.RIGHT)) {
-                x = 30f * deltatime;
-            } else if (Gdx.input.isKeyPressed(Input.Keys.LEFT)) {
-                x = -30f * deltatime;
-            }
-            if (Gdx.input.isKeyPressed(Input.Keys.UP)) {
-                y = 30f * deltatime;
-            } else if (Gdx.input.isKeyPressed(Input.Keys.DOWN)) {
-                y = -30f * deltatime;
-            }
-        } else if (Gdx.app.getType() == Application.ApplicationType.Android) {
-            x = MathUtils.clamp(Gdx.input.getAccelerometerY() * 15, -100f, 100f) * deltatime;
-            y = MathUtils.clamp(Gdx.input.getAccelerometerX() * 15, -100f, 100f) * deltatime;
-            if (game.DEBUGGING() && debugAccelerometer) {
-                Gdx.app.log("Accelerometer", "X: " + x / deltatime + " Y: " + y / deltatime);
-            }
-            if (x < 0.2 && x > -0.2) {
-                x = 0;
-            }
-            if (y < 0.2 && y > -0.2) {
-                y = 0;
-            }
-            if (y > 0) {
-                y = -y;
-            } else {
-                y = Math.abs(y);
-            }
-        }
-
-        playerBody.applyForceToCenter(
-                new Vector2(x, y),
-                true);
+        float tuning = 1f / (FixedTimestep.DEFAULT_STEPS_PER_SECOND * deltatime);
+        input.getForce(deltatime, force);
+        playerBody.applyForceToCenter(force.x * tuning, force.y * tuning, true);
 
         debuffTimeLeft -= deltatime;
 
@@ -177,9 +195,10 @@ public class Player {
         if (game.DEBUGGING() && debugVelocity) {
             Gdx.app.log("Current velocity", "" + playerVelocity);
         }
-        playerVelocity.x = -(playerVelocity.x * 2 * deltatime);
-        playerVelocity.y = -(playerVelocity.y * 2 * deltatime);
-        playerBody.applyForceToCenter(playerVelocity, true);
+        playerBody.applyForceToCenter(
+                -(playerVelocity.x * 2 * deltatime * tuning),
+                -(playerVelocity.y * 2 * deltatime * tuning),
+                true);
     }
 
     /**
@@ -226,6 +245,15 @@ public class Player {
         playerBody.setType(BodyDef.BodyType.StaticBody);
     }
 
+    /**
+     * Setter for the input moving the player
+     *
+     * @param input where the force moving the player is read from
+     */
+    public void setInput(PlayerInput input) {
+        this.input = input;
+    }
+
     /**
      * Setter for the player's animation pause variable
      * @param paused should the player's animation be paused or not
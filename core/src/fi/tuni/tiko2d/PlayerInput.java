@@ -0,0 +1,18 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * Source of the force that moves the player
+ *
+ * @author Heikki Kangas
+ */
+public interface PlayerInput {
+    /**
+     * Reads the force to apply to the player during this frame
+     *
+     * @param deltatime how long since last frame
+     * @param force     vector where the force is stored
+     */
+    void getForce(float deltatime, Vector2 force);
+}
@@ -2,21 +2,21 @@ package fi.tuni.tiko2d;
 
 import com.badlogic.gdx.Game;
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.Preferences;
 import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.assets.loaders.SkinLoader;
-import com.badlogic.gdx.audio.Music;
-import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.StringBuilder;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
 
 /**
  * Main game class.
@@ -26,6 +26,7 @@ import com.badlogic.gdx.utils.ObjectMap;
  */
 public class RaccoonRoll extends Game {
     private final boolean DEBUGGING = false;
+    private final boolean EAGER_LOADING = false;
 
     private SpriteBatch batch;
     private final float WORLD_WIDTH = 10f;
@@ -34,8 +35,11 @@ public class RaccoonRoll extends Game {
     private OrthographicCamera textCamera;
     private final float scale = 1f / 128f;
 
-    private Preferences completedLevels;
-    private Preferences highScores;
+    private SaveGame saveGame;
+    private AsyncExecutor fileWriter;
+    private String leaderboardUrl;
+    private Leaderboard leaderboard;
+    private ScreenCache screens;
 
     private BitmapFont creditFont;
     private BitmapFont textFont;
@@ -52,19 +56,64 @@ public class RaccoonRoll extends Game {
 
     private AssetManager assetManager;
 
+    private FrameProfiler profiler;
+
+    private String replayFile;
+
+    private SoakTest soakTest;
+
+    /**
+     * Creates game starting from the main menu
+     */
+    public RaccoonRoll() {
+    }
+
+    /**
+     * Creates game that starts by playing back a recorded run
+     *
+     * @param replayFile absolute path of the replay file, null for starting from the main menu
+     */
+    public RaccoonRoll(String replayFile) {
+        this.replayFile = replayFile;
+    }
+
+    /**
+     * Creates game that starts a soak test where a bot plays the levels
+     *
+     * @param soakTest the test to run, null for starting from the main menu
+     */
+    public RaccoonRoll(SoakTest soakTest) {
+        this.soakTest = soakTest;
+    }
+
+    /**
+     * Sets the leaderboard server, called by the launcher before the game is created.
+     * Without a server the game is played without the leaderboard and makes no network requests
+     *
+     * @param leaderboardUrl base address of the server, null for no leaderboard
+     */
+    public void setLeaderboardUrl(String leaderboardUrl) {
+        this.leaderboardUrl = leaderboardUrl;
+    }
+
     /**
      * Creates variables used in most of the classes.
      * Updates world height according to screen's aspect ratio
      */
     @Override
     public void create () {
+        tiledMapUtil = new TiledMapUtil(this);
         assetManager = new AssetManager();
+        assetManager.setLoader(TiledMap.class, new TmxMapLoader(assetManager.getFileHandleResolver()));
+        assetManager.setLoader(CompiledLevel.class, new LevelLoader(assetManager.getFileHandleResolver(), tiledMapUtil));
         generateFonts();
         loadAssets();
         options = new Options();
-        completedLevels = Gdx.app.getPreferences("completedLevels");
-        highScores = Gdx.app.getPreferences("highScores");
-        tiledMapUtil = new TiledMapUtil(this);
+        saveGame = new SaveGame(Gdx.files.local("savegame.bin"));
+        fileWriter = new AsyncExecutor(1);
+        if (leaderboardUrl != null) {
+            leaderboard = new Leaderboard(leaderboardUrl, Gdx.files.local("leaderboard/"));
+        }
 
         if ((float) Gdx.graphics.getHeight() / Gdx.graphics.getWidth() <= 0.5625f) {
             scaleHorizontal = true;
@@ -75,9 +124,11 @@ public class RaccoonRoll extends Game {
             Gdx.app.log("Window height", "" + Gdx.graphics.getHeight());
             Gdx.app.log("Horizontal scaling", "" + scaleHorizontal);
             Gdx.app.log("Aspect ratio", "" + ((float) Gdx.graphics.getHeight() / Gdx.graphics.getWidth()));
+            RenderDebug.enable();
         }
 
         batch = new SpriteBatch();
+        profiler = new FrameProfiler(this);
 
         worldCamera = new OrthographicCamera();
         textCamera = new OrthographicCamera();
@@ -90,19 +141,41 @@ public class RaccoonRoll extends Game {
         //3379
         Gdx.app.log("MaxTextureUnits", "" + GL20.GL_MAX_TEXTURE_IMAGE_UNITS);
         //34930
-        setScreen(new MenuScreen(this));
+        screens = new ScreenCache(this, EAGER_LOADING);
+        if (soakTest != null) {
+            setScreen(soakTest.start(this));
+        } else if (replayFile != null) {
+            setScreen(MazeScreen.loadReplay(this, Gdx.files.absolute(replayFile)));
+        } else {
+            setScreen(MenuScreen.load(this));
+        }
     }
 
     /**
-     * Renders the active screen.
+     * Renders the active screen and measures the frame when profiling is on
      */
     @Override
     public void render () {
+        profiler.beginFrame();
         super.render();
+        screens.disposeReleased();
+        profiler.endFrame(Gdx.graphics.getDeltaTime());
+        if (DEBUGGING) {
+            RenderDebug.renderCalls(batch, Gdx.graphics.getDeltaTime());
+        }
+    }
+
+    /**
+     * Pauses the active screen and saves the unsaved progress in the background
+     */
+    @Override
+    public void pause () {
+        super.pause();
+        saveGame.flush();
     }
 
     /**
-     * Disposes used assets
+     * Disposes used assets and waits until the progress has been saved
      */
     @Override
     public void dispose () {
@@ -110,16 +183,24 @@ public class RaccoonRoll extends Game {
             Gdx.app.log("Disposed", "RaccoonRoll");
         }
         batch.dispose();
+        profiler.dispose();
+        screens.dispose();
         assetManager.dispose();
+        saveGame.dispose();
+        fileWriter.dispose();
+        if (leaderboard != null) {
+            leaderboard.dispose();
+        }
     }
 
     /**
-     * Generates the fonts used in the game
+     * Generates the fonts used in the game or loads them from {@link FontCache}
      */
     private void generateFonts() {
+        long start = System.currentTimeMillis();
         String fontFilename = "fonts/boorsok.ttf";
 
-        FreeTypeFontGenerator fontGenerator = new FreeTypeFontGenerator(Gdx.files.internal(fontFilename));
+        FontCache fontCache = new FontCache(Gdx.files.internal(fontFilename));
 
         FreeTypeFontGenerator.FreeTypeFontParameter tutorialFontParameter = new FreeTypeFontGenerator.FreeTypeFontParameter();
 
@@ -127,28 +208,30 @@ public class RaccoonRoll extends Game {
         tutorialFontParameter.borderWidth = 2f;
         tutorialFontParameter.borderColor = Color.BLACK;
         tutorialFontParameter.color = Color.WHITE;
-        outlinedFont = fontGenerator.generateFont(tutorialFontParameter);
+        outlinedFont = fontCache.getFont(tutorialFontParameter);
 
         tutorialFontParameter.size = scaleTextFromFHD(60);
-        outlinedSmallFont = fontGenerator.generateFont(tutorialFontParameter);
+        outlinedSmallFont = fontCache.getFont(tutorialFontParameter);
 
         FreeTypeFontGenerator.FreeTypeFontParameter fontParameter = new FreeTypeFontGenerator.FreeTypeFontParameter();
 
         fontParameter.color = Color.BLACK;
 
         fontParameter.size = scaleTextFromFHD(35);
-        creditFont = fontGenerator.generateFont(fontParameter);
+        creditFont = fontCache.getFont(fontParameter);
 
         fontParameter.size = scaleTextFromFHD(55);
-        textFont = fontGenerator.generateFont(fontParameter);
+        textFont = fontCache.getFont(fontParameter);
 
         fontParameter.size = scaleTextFromFHD(85);
-        titleFont = fontGenerator.generateFont(fontParameter);
+        titleFont = fontCache.getFont(fontParameter);
 
         fontParameter.size = scaleTextFromFHD(55);
-        buttonFont = fontGenerator.generateFont(fontParameter);
+        buttonFont = fontCache.getFont(fontParameter);
+
+        fontCache.dispose();
 
-        fontGenerator.dispose();
+        Gdx.app.log("Fonts loaded", "in " + (System.currentTimeMillis() - start) + "ms");
     }
 
     /**
@@ -242,6 +325,14 @@ public class RaccoonRoll extends Game {
         return textCamera;
     }
 
+    /**
+     * Getter for the profiler measuring frames
+     * @return the profiler
+     */
+    public FrameProfiler getProfiler() {
+        return profiler;
+    }
+
     /**
      * Getter for SpriteBatch used in all classes
      * @return the SpriteBatch
@@ -300,30 +391,43 @@ public class RaccoonRoll extends Game {
     }
 
     /**
-     * Getter for completed levels
-     * @return the completed levels
+     * Getter for the cache of menu screens
+     * @return the screen cache
      */
-    public Preferences getCompletedLevels() {
-        return completedLevels;
+    public ScreenCache getScreens() {
+        return screens;
     }
 
     /**
-     * Loads all the assets the game needs except TiledMaps
+     * Getter for the completed levels and high scores
+     * @return the save game
      */
-    private void loadAssets() {
-        long start = System.currentTimeMillis();
-        // All menus
-        assetManager.load("sounds/backgroundMusic/main_menu_loop.mp3", Music.class);
+    public SaveGame getSaveGame() {
+        return saveGame;
+    }
 
-        // MenuScreen
-        assetManager.load("graphics/mainmenu/Logoiso2.png", Texture.class);
-        assetManager.load("graphics/mainmenu/Valikontausta.png", Texture.class);
-        assetManager.load("graphics/mainmenu/Valikkorauno.png", Texture.class);
+    /**
+     * Getter for the background thread that writes recordings to local storage
+     * @return executor running one write at a time
+     */
+    public AsyncExecutor getFileWriter() {
+        return fileWriter;
+    }
 
-        // OptionsScreen, AboutScreen, LevelCompletedScreen
-        assetManager.load("graphics/othermenus/Tausta75.png", Texture.class);
-        assetManager.load("graphics/othermenus/pieniRauno.png", Texture.class);
+    /**
+     * Getter for the online leaderboard
+     * @return the leaderboard, null if the launcher did not set a server
+     */
+    public Leaderboard getLeaderboard() {
+        return leaderboard;
+    }
 
+    /**
+     * Queues the assets used by every screen, the rest are loaded by the screens themselves
+     * with {@link AssetGroup}. If eager loading is enabled queues all the groups too so they
+     * are never unloaded
+     */
+    private void loadAssets() {
         // Skin
         ObjectMap<String, Object> resources = new ObjectMap<String, Object>();
         resources.put("button", buttonFont);
@@ -335,35 +439,11 @@ public class RaccoonRoll extends Game {
         assetManager.load("uiskin/comic-ui.atlas", TextureAtlas.class);
         assetManager.load("uiskin/comic-ui.json", Skin.class, new SkinLoader.SkinParameter("uiskin/comic-ui.atlas", resources));
 
-        // MazeScreen
-        for (int i = 1; i < 6; i++) {
-            assetManager.load(String.format("sounds/wallHit/WALL_HIT_0%d.mp3", i), Sound.class);
+        if (EAGER_LOADING) {
+            for (AssetGroup group : AssetGroup.values()) {
+                group.load(assetManager);
+            }
         }
-        assetManager.load("sounds/badObject/BAD_01.mp3", Sound.class);
-        assetManager.load("sounds/goodObject/GOOD_01.mp3", Sound.class);
-        assetManager.load("sounds/victory/VICTORY_01.mp3", Sound.class);
-        assetManager.load("sounds/backgroundMusic/maze.mp3", Music.class);
-
-        // Player
-        assetManager.load("graphics/player/roll_animation/racc_roll.txt", TextureAtlas.class);
-
-        // MapScreen
-        assetManager.load("graphics/worldmap/map1.png", Texture.class);
-        assetManager.load("graphics/worldmap/map2.png", Texture.class);
-        assetManager.load("graphics/worldmap/buttons/uk.png", Texture.class);
-        assetManager.load("graphics/worldmap/buttons/us.png", Texture.class);
-        assetManager.load("graphics/worldmap/buttons/eg.png", Texture.class);
-        assetManager.load("graphics/worldmap/buttons/ch.png", Texture.class);
-        assetManager.load("graphics/worldmap/buttons/fr.png", Texture.class);
-        assetManager.load("graphics/worldmap/buttons/ru.png", Texture.class);
-
-        // TutorialScreen
-        assetManager.load("tilemaps/good_objects.png", Texture.class);
-        assetManager.load("tilemaps/bad_objects.png", Texture.class);
-
-        assetManager.finishLoading();
-
-        Gdx.app.log("Assets loaded", "in " + (System.currentTimeMillis() - start) + "ms");
     }
 
     /**
@@ -374,14 +454,6 @@ public class RaccoonRoll extends Game {
         return assetManager;
     }
 
-    /**
-     * Getter for highscores
-     * @return the highscores
-     */
-    public Preferences getHighScores() {
-        return highScores;
-    }
-
     /**
      * Getter for TiledMapUtil
      *
@@ -402,4 +474,21 @@ public class RaccoonRoll extends Game {
         int seconds = time % 60;
         return String.format("%d:%02d", minutes, seconds);
     }
+
+    /**
+     * Appends time from float seconds to given StringBuilder without allocating new Strings
+     *
+     * @param builder   where the time is appended
+     * @param timeSpent time in seconds
+     * @return the given builder
+     */
+    public StringBuilder appendTime(StringBuilder builder, float timeSpent) {
+        int time = (int) timeSpent;
+        int seconds = time % 60;
+        builder.append(time / 60).append(':');
+        if (seconds < 10) {
+            builder.append('0');
+        }
+        return builder.append(seconds);
+    }
 }
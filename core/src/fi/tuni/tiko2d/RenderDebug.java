@@ -0,0 +1,80 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.profiling.GLProfiler;
+
+/**
+ * Debugger class for observing how many render calls and texture binds a frame takes.
+ * Every switch to another texture flushes the SpriteBatch, so images drawn from the same atlas
+ * page keep both numbers low
+ */
+public class RenderDebug {
+    private static GLProfiler profiler;
+    private static boolean enabled;
+    private static float timeDelta;
+    private static int frames;
+    private static int drawCalls;
+    private static int textureBindings;
+
+    /**
+     * Empty private constructor to hide the public one
+     */
+    private RenderDebug() {
+    }
+
+    /**
+     * Starts counting OpenGL calls for the rest of the session
+     */
+    public static void enable() {
+        enabled = true;
+        getProfiler().enable();
+    }
+
+    /**
+     * Is the debugger counting OpenGL calls, then the profiler must be left enabled
+     *
+     * @return true if {@link #enable()} has been called
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Getter for the profiler counting OpenGL calls, created disabled on the first call.
+     * The profiler is shared with {@link FrameProfiler} so it is never reset, only
+     * the differences of its counts are used
+     *
+     * @return the profiler
+     */
+    public static GLProfiler getProfiler() {
+        if (profiler == null) {
+            profiler = new GLProfiler(Gdx.graphics);
+        }
+        return profiler;
+    }
+
+    /**
+     * Counts the frame and logs average render calls of the batch, draw calls and texture
+     * bindings per frame every three seconds
+     *
+     * @param batch batch shared by the screens
+     * @param delta time since last frame
+     */
+    public static void renderCalls(SpriteBatch batch, float delta) {
+        timeDelta += delta;
+        frames++;
+        if (timeDelta >= 3) {
+            Gdx.app.log("RenderCalls", "" + (float) batch.totalRenderCalls / frames);
+            if (profiler != null) {
+                Gdx.app.log("DrawCalls", "" + (float) (profiler.getDrawCalls() - drawCalls) / frames);
+                Gdx.app.log("TextureBindings", "" + (float) (profiler.getTextureBindings() - textureBindings) / frames);
+                drawCalls = profiler.getDrawCalls();
+                textureBindings = profiler.getTextureBindings();
+            }
+            batch.totalRenderCalls = 0;
+            timeDelta = 0;
+            frames = 0;
+        }
+    }
+}
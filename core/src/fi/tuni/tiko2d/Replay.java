@@ -0,0 +1,257 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Recording of a maze run that can be played back exactly the same way.
+ * Every simulated frame is recorded with its time and the amount of physics steps taken, and
+ * every step with the force read from the player's input. Feeding the same frame times to the
+ * same timestep takes the same steps, so playing back the forces repeats the run step by step.
+ * In the file a step whose force did not change from the previous step takes one byte, the file
+ * is compressed with deflate. The file is written next to the old one and renamed over it, so a
+ * crash while writing leaves the previous recording
+ *
+ * @author Heikki Kangas
+ */
+public class Replay {
+    private static final int MAGIC = 0x52525250;
+    private static final int VERSION = 1;
+
+    private String levelName;
+    private int stepsPerSecond;
+    private int velocityIterations;
+    private int positionIterations;
+    private FloatArray frameDeltas;
+    private IntArray frameSteps;
+    private FloatArray forces;
+
+    /**
+     * Creates empty replay for recording a run
+     *
+     * @param levelName name of the level under tilemaps/
+     * @param timestep  timestep the run is simulated with
+     */
+    public Replay(String levelName, FixedTimestep timestep) {
+        this(levelName, timestep.getStepsPerSecond(), timestep.getVelocityIterations(),
+                timestep.getPositionIterations());
+    }
+
+    /**
+     * Creates empty replay with given step rate and Box2D iterations
+     */
+    private Replay(String levelName, int stepsPerSecond, int velocityIterations, int positionIterations) {
+        this.levelName = levelName;
+        this.stepsPerSecond = stepsPerSecond;
+        this.velocityIterations = velocityIterations;
+        this.positionIterations = positionIterations;
+        frameDeltas = new FloatArray();
+        frameSteps = new IntArray();
+        forces = new FloatArray();
+    }
+
+    /**
+     * Wraps input so every force read from it is recorded, set the returned input to the player
+     *
+     * @param input input moving the player during the run
+     * @return input recording the forces
+     */
+    public PlayerInput record(final PlayerInput input) {
+        return new PlayerInput() {
+            @Override
+            public void getForce(float deltatime, Vector2 force) {
+                input.getForce(deltatime, force);
+                forces.add(force.x);
+                forces.add(force.y);
+            }
+        };
+    }
+
+    /**
+     * Records a simulated frame, call after the steps of the frame have been taken
+     *
+     * @param delta time of the frame given to the simulation
+     * @param steps how many steps were taken
+     */
+    public void addFrame(float delta, int steps) {
+        frameDeltas.add(delta);
+        frameSteps.add(steps);
+    }
+
+    /**
+     * Creates input that gives the recorded forces in the recorded order, after the last
+     * recorded step the player is not pushed anymore
+     *
+     * @return input playing back the run
+     */
+    public PlayerInput createInput() {
+        return new PlayerInput() {
+            private int step;
+
+            @Override
+            public void getForce(float deltatime, Vector2 force) {
+                if (step * 2 < forces.size) {
+                    force.set(forces.get(step * 2), forces.get(step * 2 + 1));
+                    step++;
+                } else {
+                    force.setZero();
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates timestep with the step rate and Box2D iterations the run was recorded with
+     *
+     * @return new timestep
+     */
+    public FixedTimestep createTimestep() {
+        return new FixedTimestep(stepsPerSecond, velocityIterations, positionIterations);
+    }
+
+    /**
+     * Getter for the name of the recorded level
+     *
+     * @return name of the level under tilemaps/
+     */
+    public String getLevelName() {
+        return levelName;
+    }
+
+    /**
+     * Getter for the amount of recorded frames
+     *
+     * @return amount of frames
+     */
+    public int getFrameCount() {
+        return frameDeltas.size;
+    }
+
+    /**
+     * Getter for the time of a recorded frame
+     *
+     * @param frame index of the frame
+     * @return delta given to the simulation on that frame
+     */
+    public float getFrameDelta(int frame) {
+        return frameDeltas.get(frame);
+    }
+
+    /**
+     * Getter for how many steps were taken on a recorded frame
+     *
+     * @param frame index of the frame
+     * @return amount of steps
+     */
+    public int getFrameSteps(int frame) {
+        return frameSteps.get(frame);
+    }
+
+    /**
+     * Writes the replay to a temporary file and renames it over the given one, can be called
+     * on a background thread once the recording has ended
+     *
+     * @param file where to write
+     * @throws IOException if writing fails
+     */
+    public void write(FileHandle file) throws IOException {
+        File temp = file.sibling(file.name() + ".tmp").file();
+        File target = file.file();
+        temp.getParentFile().mkdirs();
+        FileOutputStream fileOut = new FileOutputStream(temp);
+        DeflaterOutputStream deflater = new DeflaterOutputStream(fileOut);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(deflater));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(levelName);
+            out.writeInt(stepsPerSecond);
+            out.writeInt(velocityIterations);
+            out.writeInt(positionIterations);
+            out.writeInt(frameDeltas.size);
+
+            int step = 0;
+            float x = 0;
+            float y = 0;
+            for (int frame = 0; frame < frameDeltas.size; frame++) {
+                out.writeFloat(frameDeltas.get(frame));
+                out.writeShort(frameSteps.get(frame));
+                for (int i = 0; i < frameSteps.get(frame); i++, step++) {
+                    float forceX = forces.get(step * 2);
+                    float forceY = forces.get(step * 2 + 1);
+                    if (forceX == x && forceY == y) {
+                        out.writeBoolean(false);
+                    } else {
+                        out.writeBoolean(true);
+                        out.writeFloat(forceX);
+                        out.writeFloat(forceY);
+                        x = forceX;
+                        y = forceY;
+                    }
+                }
+            }
+            out.flush();
+            deflater.finish();
+            fileOut.getFD().sync();
+        } finally {
+            out.close();
+        }
+        // Renaming over an existing file fails on Windows, there the old file is deleted first
+        if (!temp.renameTo(target) && !(target.delete() && temp.renameTo(target))) {
+            throw new IOException("Couldn't rename " + temp.getPath() + " to " + target.getPath());
+        }
+    }
+
+    /**
+     * Reads a replay written with {@link #write(FileHandle)}
+     *
+     * @param file replay file
+     * @return the read replay
+     */
+    public static Replay read(FileHandle file) {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(file.read())));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new GdxRuntimeException("Not a replay or wrong version: " + file.path());
+            }
+            Replay replay = new Replay(in.readUTF(), in.readInt(), in.readInt(), in.readInt());
+            int frameCount = in.readInt();
+            float x = 0;
+            float y = 0;
+            for (int frame = 0; frame < frameCount; frame++) {
+                float delta = in.readFloat();
+                int steps = in.readShort();
+                for (int i = 0; i < steps; i++) {
+                    if (in.readBoolean()) {
+                        x = in.readFloat();
+                        y = in.readFloat();
+                    }
+                    replay.forces.add(x);
+                    replay.forces.add(y);
+                }
+                replay.addFrame(delta, steps);
+            }
+            return replay;
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Couldn't load replay '" + file.path() + "'", e);
+        } finally {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
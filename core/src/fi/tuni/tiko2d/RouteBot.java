@@ -0,0 +1,215 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.Family;
+import com.badlogic.ashley.utils.ImmutableArray;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import fi.tuni.tiko2d.ecs.AreaComponent;
+import fi.tuni.tiko2d.ecs.PickupComponent;
+
+/**
+ * Player input that steers the player along a route solved with {@link LevelRoute}.
+ * The bot follows a point a little ahead on the route at a limited speed with the force limited
+ * like the keyboard's, and adds random noise to the force so runs with different seeds differ.
+ * Routes are planned to overlap the objects by a margin so small steering errors do not miss them.
+ * If the bot stops making progress with good objects left, for example when it has missed one
+ * and is waiting at the closed goal, it plans a new route from where it is through the
+ * remaining objects
+ *
+ * @author Heikki Kangas
+ */
+public class RouteBot implements PlayerInput {
+    /**
+     * Force the bot uses at most, the same as holding down arrow keys
+     */
+    public static final float KEYBOARD_FORCE = 30f;
+
+    private static final Family PICKUPS = Family.all(PickupComponent.class, AreaComponent.class).get();
+    private static final int LOOKAHEAD = 4;
+    private static final int PROGRESS_WINDOW = 3;
+    private static final float REPLAN_INTERVAL = 1f;
+    private static final float OVERLAP_MARGIN = 0.15f;
+
+    private ComponentMapper<AreaComponent> areas = ComponentMapper.getFor(AreaComponent.class);
+    private ImmutableArray<Entity> pickups;
+
+    private MazeSimulation simulation;
+    private LevelData levelData;
+    private NavigationGrid grid;
+    private float objectRadius;
+    private FloatArray path;
+    private int progress;
+    private float timeWithoutProgress;
+    private int replans;
+
+    private float maxForce;
+    private float speedLimit;
+    private float noise;
+    private Random random;
+    private Vector2 target;
+    private Vector2 steer;
+
+    /**
+     * Creates the bot, set it as the input of the simulation's player
+     *
+     * @param simulation   the maze the bot plays
+     * @param levelData    game play data of the level, used when planning a new route
+     * @param grid         navigation grid of the level, used only by this bot
+     * @param objectRadius radius used for overlapping good objects and the goal
+     * @param path         waypoints of the route as x and y pairs, from {@link #planPath}
+     * @param maxForce     force the bot uses at most, {@link #KEYBOARD_FORCE} for a keyboard player
+     * @param speedLimit   speed in meters per second the bot tries not to exceed
+     * @param noise        standard deviation of the random force as a fraction of the max force
+     * @param random       source of the noise
+     */
+    public RouteBot(MazeSimulation simulation, LevelData levelData, NavigationGrid grid, float objectRadius,
+                    FloatArray path, float maxForce, float speedLimit, float noise, Random random) {
+        this.simulation = simulation;
+        this.levelData = levelData;
+        this.grid = grid;
+        this.objectRadius = objectRadius;
+        this.path = path;
+        this.maxForce = maxForce;
+        this.speedLimit = speedLimit;
+        this.noise = noise;
+        this.random = random;
+        pickups = simulation.getEngine().getEntitiesFor(PICKUPS);
+        target = new Vector2();
+        steer = new Vector2();
+    }
+
+    /**
+     * Solves the route from the level's start position and converts it to waypoints
+     *
+     * @param grid         navigation grid of the level
+     * @param levelData    game play data of the level
+     * @param objectRadius radius used for overlapping good objects and the goal, the route
+     *                     overlaps them by a margin more
+     * @return x and y pairs of the route's cell centers, empty if the goal can't be reached
+     */
+    public static FloatArray planPath(NavigationGrid grid, LevelData levelData, float objectRadius) {
+        LevelRoute route = new LevelRoute(grid, levelData, objectRadius - OVERLAP_MARGIN);
+        IntArray cells = new IntArray();
+        route.getPath(cells);
+        FloatArray path = new FloatArray(cells.size * 2);
+        for (int i = 0; i < cells.size; i++) {
+            path.add(grid.getCellX(cells.get(i)));
+            path.add(grid.getCellY(cells.get(i)));
+        }
+        return path;
+    }
+
+    /**
+     * Steers toward the route, called before every physics step
+     *
+     * @param deltatime length of the physics step
+     * @param force     vector where the force is stored
+     */
+    @Override
+    public void getForce(float deltatime, Vector2 force) {
+        int waypoints = path.size / 2;
+        if (waypoints == 0) {
+            force.set(0, 0);
+            return;
+        }
+        Vector2 position = simulation.getPlayer().getPosition();
+        if (updateProgress(position)) {
+            timeWithoutProgress = 0;
+        } else {
+            timeWithoutProgress += deltatime;
+        }
+        if (timeWithoutProgress >= REPLAN_INTERVAL && pickups.size() > 0) {
+            replan(position);
+            waypoints = path.size / 2;
+        }
+
+        int targetIndex = getTargetIndex();
+        target.set(path.get(targetIndex * 2), path.get(targetIndex * 2 + 1)).sub(position).nor().scl(speedLimit);
+
+        // Accelerate toward the velocity that moves to the target point
+        steer.set(target).sub(simulation.getPlayer().getBody().getLinearVelocity()).scl(maxForce);
+        steer.add((float) random.nextGaussian() * noise * maxForce, (float) random.nextGaussian() * noise * maxForce);
+        steer.x = Math.max(-maxForce, Math.min(maxForce, steer.x));
+        steer.y = Math.max(-maxForce, Math.min(maxForce, steer.y));
+        force.set(steer).scl(deltatime);
+    }
+
+    /**
+     * Finds the waypoint to steer toward, a few waypoints ahead but never past a point where
+     * the route turns back, so the bot does not cut the corner at the end of a dead end
+     */
+    private int getTargetIndex() {
+        int last = Math.min(progress + LOOKAHEAD, path.size / 2 - 1);
+        for (int i = progress + 1; i < last; i++) {
+            float inX = path.get(i * 2) - path.get(i * 2 - 2);
+            float inY = path.get(i * 2 + 1) - path.get(i * 2 - 1);
+            float outX = path.get(i * 2 + 2) - path.get(i * 2);
+            float outY = path.get(i * 2 + 3) - path.get(i * 2 + 1);
+            if (inX * outX + inY * outY < 0) {
+                return i;
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Moves the progress to the waypoint nearest to the player within a short distance ahead,
+     * the bot never goes back on its route
+     *
+     * @return true if the progress moved forward
+     */
+    private boolean updateProgress(Vector2 position) {
+        int previous = progress;
+        int last = Math.min(progress + PROGRESS_WINDOW, path.size / 2 - 1);
+        float nearest = Float.POSITIVE_INFINITY;
+        for (int i = progress; i <= last; i++) {
+            float distance = position.dst2(path.get(i * 2), path.get(i * 2 + 1));
+            if (distance < nearest) {
+                nearest = distance;
+                progress = i;
+            }
+        }
+        return progress > previous;
+    }
+
+    /**
+     * Plans a new route from the free cell nearest to the player through the good objects left
+     */
+    private void replan(Vector2 position) {
+        timeWithoutProgress = 0;
+        replans++;
+        int startCell = grid.getNearestFreeCell(position.x, position.y, NavigationGrid.CELLS_PER_TILE, false);
+        if (startCell == -1) {
+            return;
+        }
+        ArrayList<Rectangle> remaining = new ArrayList<Rectangle>(pickups.size());
+        for (int i = 0; i < pickups.size(); i++) {
+            remaining.add(areas.get(pickups.get(i)).rectangle);
+        }
+        LevelData fromHere = new LevelData(levelData.getColumns(), levelData.getRows(), levelData.getTileSize(),
+                new Vector2(grid.getCellX(startCell), grid.getCellY(startCell)), levelData.getGoalRectangle(), levelData.getGoalBlockRectangle(),
+                levelData.getWallRectangles(), remaining, levelData.getBadRectangles());
+        FloatArray newPath = planPath(grid, fromHere, objectRadius);
+        if (newPath.size > 0) {
+            path = newPath;
+            progress = 0;
+        }
+    }
+
+    /**
+     * Getter for how many times the bot has planned a new route
+     *
+     * @return amount of new routes planned
+     */
+    public int getReplans() {
+        return replans;
+    }
+}
@@ -0,0 +1,263 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Preferences;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ObjectSet;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncTask;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+
+/**
+ * Completed levels and high scores of the player.
+ * Changes are kept in memory and {@link #flush()} only hands a snapshot of them to a background
+ * thread, so saving never blocks rendering. Snapshots flushed while an earlier one is being
+ * written are coalesced to the latest one.
+ * The file is first written next to the save file, synced to the disk and then renamed over it,
+ * so a crash during saving leaves either the old or the new save. A checksum at the end of the
+ * file tells if it is complete
+ *
+ * @author Heikki Kangas
+ */
+public class SaveGame implements Disposable {
+    private static final int MAGIC = 0x52525347;
+    private static final int VERSION = 1;
+
+    private FileHandle file;
+    private FileHandle tempFile;
+    private ObjectSet<String> completedLevels;
+    private ObjectMap<String, Float> highScores;
+    private boolean changed;
+
+    private AsyncExecutor executor;
+    private AtomicReference<byte[]> pendingSnapshot;
+    private AtomicBoolean writeScheduled;
+    private AsyncTask<Void> writeTask;
+
+    /**
+     * Loads the save from given file. If there is no save yet the progress saved to Preferences
+     * by earlier versions of the game is used
+     *
+     * @param file local file the game is saved to
+     */
+    public SaveGame(FileHandle file) {
+        this.file = file;
+        tempFile = file.sibling(file.name() + ".tmp");
+        completedLevels = new ObjectSet<String>();
+        highScores = new ObjectMap<String, Float>();
+        executor = new AsyncExecutor(1);
+        pendingSnapshot = new AtomicReference<byte[]>();
+        writeScheduled = new AtomicBoolean();
+        writeTask = new AsyncTask<Void>() {
+            @Override
+            public Void call() {
+                writeScheduled.set(false);
+                byte[] snapshot = pendingSnapshot.getAndSet(null);
+                if (snapshot != null) {
+                    write(snapshot);
+                }
+                return null;
+            }
+        };
+
+        if (!read(file) && !read(tempFile)) {
+            readPreferences();
+        }
+    }
+
+    /**
+     * Has the level been completed
+     *
+     * @param levelName name of the level
+     * @return true if the level has been completed at least once
+     */
+    public boolean isLevelCompleted(String levelName) {
+        return completedLevels.contains(levelName);
+    }
+
+    /**
+     * Marks the level completed, saved on the next {@link #flush()}
+     *
+     * @param levelName name of the completed level
+     */
+    public void setLevelCompleted(String levelName) {
+        changed |= completedLevels.add(levelName);
+    }
+
+    /**
+     * Getter for the best time of a level
+     *
+     * @param levelName name of the level
+     * @return best time in seconds, 0 if the level has no high score
+     */
+    public float getHighScore(String levelName) {
+        return highScores.get(levelName, 0f);
+    }
+
+    /**
+     * Setter for the best time of a level, saved on the next {@link #flush()}
+     *
+     * @param levelName name of the level
+     * @param timeSpent new best time in seconds
+     */
+    public void setHighScore(String levelName, float timeSpent) {
+        highScores.put(levelName, timeSpent);
+        changed = true;
+    }
+
+    /**
+     * Writes the changes since the last flush in the background, does nothing if nothing has changed
+     */
+    public void flush() {
+        if (!changed) {
+            return;
+        }
+        changed = false;
+        pendingSnapshot.set(createSnapshot());
+        if (writeScheduled.compareAndSet(false, true)) {
+            executor.submit(writeTask);
+        }
+    }
+
+    /**
+     * Serializes the save with a checksum at the end
+     */
+    private byte[] createSnapshot() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(completedLevels.size);
+            for (String levelName : completedLevels) {
+                out.writeUTF(levelName);
+            }
+            out.writeInt(highScores.size);
+            for (ObjectMap.Entry<String, Float> highScore : highScores) {
+                out.writeUTF(highScore.key);
+                out.writeFloat(highScore.value);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            out.writeInt((int) crc.getValue());
+        } catch (IOException e) {
+            // Writing to memory does not fail
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes the snapshot to the temporary file and renames it over the save file,
+     * called on the background thread
+     */
+    private void write(byte[] snapshot) {
+        File temp = tempFile.file();
+        File target = file.file();
+        FileOutputStream out = null;
+        try {
+            temp.getParentFile().mkdirs();
+            out = new FileOutputStream(temp);
+            out.write(snapshot);
+            out.getFD().sync();
+            out.close();
+            out = null;
+            // Renaming over an existing file fails on Windows, there the temporary file is kept
+            // until the old save is deleted and is read if the game stops between the two
+            if (!temp.renameTo(target) && !(target.delete() && temp.renameTo(target))) {
+                throw new IOException("Couldn't rename " + temp.getPath() + " to " + target.getPath());
+            }
+        } catch (IOException e) {
+            Gdx.app.error("SaveGame", "Couldn't save " + target.getPath(), e);
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a save file if it exists and its checksum matches
+     *
+     * @return true if the save was read
+     */
+    private boolean read(FileHandle saveFile) {
+        if (!saveFile.exists()) {
+            return false;
+        }
+        byte[] bytes = saveFile.readBytes();
+        if (bytes.length < 12) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        int length = bytes.length - 4;
+        crc.update(bytes, 0, length);
+        int checksum = (bytes[length] & 0xff) << 24 | (bytes[length + 1] & 0xff) << 16
+                | (bytes[length + 2] & 0xff) << 8 | (bytes[length + 3] & 0xff);
+        if (checksum != (int) crc.getValue()) {
+            Gdx.app.error("SaveGame", "Incomplete save " + saveFile.path());
+            return false;
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, length));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return false;
+            }
+            int completedCount = in.readInt();
+            for (int i = 0; i < completedCount; i++) {
+                completedLevels.add(in.readUTF());
+            }
+            int highScoreCount = in.readInt();
+            for (int i = 0; i < highScoreCount; i++) {
+                highScores.put(in.readUTF(), in.readFloat());
+            }
+            return true;
+        } catch (IOException e) {
+            completedLevels.clear();
+            highScores.clear();
+            return false;
+        }
+    }
+
+    /**
+     * Reads the progress saved to Preferences by earlier versions and saves it to the file
+     */
+    private void readPreferences() {
+        Preferences completed = Gdx.app.getPreferences("completedLevels");
+        for (String levelName : completed.get().keySet()) {
+            if (completed.getBoolean(levelName, false)) {
+                completedLevels.add(levelName);
+            }
+        }
+        Preferences scores = Gdx.app.getPreferences("highScores");
+        for (String levelName : scores.get().keySet()) {
+            highScores.put(levelName, scores.getFloat(levelName, 0));
+        }
+        changed = completedLevels.size > 0 || highScores.size > 0;
+        flush();
+    }
+
+    /**
+     * Writes the unsaved changes and waits until everything has been written
+     */
+    @Override
+    public void dispose() {
+        flush();
+        executor.dispose();
+    }
+}
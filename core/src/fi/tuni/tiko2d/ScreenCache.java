@@ -0,0 +1,144 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Group;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.scenes.scene2d.ui.Button;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.SnapshotArray;
+
+import java.util.ArrayList;
+
+/**
+ * Keeps the menu screens and their stages alive between visits so moving between menus does not
+ * build them again. A cached screen keeps its asset group loaded and resets its state in show().
+ * Starting a maze or the tutorial releases the cached screens so their textures are not kept in
+ * memory during game play, unless eager loading keeps all the assets loaded anyway.
+ * Released screens are disposed at the end of the frame, so a screen can release itself from
+ * its own button listener
+ *
+ * @author Heikki Kangas
+ */
+public class ScreenCache implements Disposable {
+    private RaccoonRoll game;
+    private boolean keepDuringGamePlay;
+    private ObjectMap<Class<? extends Screen>, Screen> screens;
+    private ArrayList<Screen> released;
+
+    /**
+     * Creates empty cache
+     *
+     * @param game               main game class
+     * @param keepDuringGamePlay true if the screens are kept when a maze is started
+     */
+    public ScreenCache(RaccoonRoll game, boolean keepDuringGamePlay) {
+        this.game = game;
+        this.keepDuringGamePlay = keepDuringGamePlay;
+        screens = new ObjectMap<Class<? extends Screen>, Screen>();
+        released = new ArrayList<Screen>();
+    }
+
+    /**
+     * Returns the cached screen of given type. If it is not cached queues its assets and returns
+     * the screen, or a loading screen that shows it when the assets have been loaded
+     *
+     * @param type    class of the screen
+     * @param assets  assets the screen uses, kept loaded while the screen is cached
+     * @param factory creates the screen after its assets have been loaded
+     * @return the screen to show
+     */
+    public Screen get(final Class<? extends Screen> type, AssetGroup assets, final LoadingScreen.NextScreen factory) {
+        Screen screen = screens.get(type);
+        if (screen != null) {
+            return screen;
+        }
+        assets.load(game.getAssetManager());
+        return LoadingScreen.create(game, new LoadingScreen.NextScreen() {
+            @Override
+            public Screen create() {
+                Screen screen = factory.create();
+                screens.put(type, screen);
+                return screen;
+            }
+        });
+    }
+
+    /**
+     * Releases the cached screens before starting a maze or the tutorial
+     */
+    public void releaseForGamePlay() {
+        if (!keepDuringGamePlay) {
+            releaseAll();
+        }
+    }
+
+    /**
+     * Releases every cached screen, for example when the language changes and
+     * all the texts have to be created again
+     */
+    public void releaseAll() {
+        for (Screen screen : screens.values()) {
+            released.add(screen);
+        }
+        screens.clear();
+    }
+
+    /**
+     * Disposes the released screens that are not showing anymore, called at the end of every frame
+     */
+    public void disposeReleased() {
+        for (int i = released.size() - 1; i >= 0; i--) {
+            Screen screen = released.get(i);
+            if (screen != game.getScreen()) {
+                released.remove(i);
+                screen.dispose();
+            }
+        }
+    }
+
+    /**
+     * Clears the input state of a stage that is shown again: focus, touches and the checked
+     * state buttons get when clicked
+     *
+     * @param stage stage of a cached screen
+     */
+    public static void resetStage(Stage stage) {
+        stage.unfocusAll();
+        stage.cancelTouchFocus();
+        uncheckButtons(stage.getRoot());
+    }
+
+    /**
+     * Unchecks every button in the group and its children
+     */
+    private static void uncheckButtons(Group group) {
+        SnapshotArray<Actor> children = group.getChildren();
+        for (int i = 0; i < children.size; i++) {
+            Actor child = children.get(i);
+            if (child instanceof Button) {
+                ((Button) child).setChecked(false);
+            }
+            if (child instanceof Group) {
+                uncheckButtons((Group) child);
+            }
+        }
+    }
+
+    /**
+     * Disposes every cached and released screen, called before the AssetManager is disposed
+     */
+    @Override
+    public void dispose() {
+        releaseAll();
+        for (Screen screen : released) {
+            screen.dispose();
+        }
+        released.clear();
+        if (game.DEBUGGING()) {
+            Gdx.app.log("ScreenCache", "Disposed");
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.utils.FloatArray;
+
+import java.lang.ref.WeakReference;
+import java.util.Locale;
+
+/**
+ * Plays the levels one after another with a {@link RouteBot} for a given time so devices can be
+ * left running for hours.
+ * Every level is loaded and unloaded like when played normally and the frame times, garbage
+ * collections and heap sizes of each level are logged and appended to a CSV file in
+ * profiles/. The heaps are measured after a garbage collection when a level starts and compared
+ * to the first time the same level was started, so memory left behind by unloaded levels shows
+ * as steadily growing heaps. Progress and high scores are not saved during a soak test
+ *
+ * @author Heikki Kangas
+ */
+public class SoakTest {
+    /**
+     * Levels played when none are given
+     */
+    public static final String[] LEVELS = {
+            "tutorial",
+            "london", "manchester",
+            "paris", "marseille",
+            "kairo", "alexandria",
+            "newyork", "philadelphia",
+            "anadyr", "egvekinot",
+            "peking", "shanghai"
+    };
+
+    /**
+     * Seconds of game time after which a level is given up and the next one started
+     */
+    public static final float MAX_LEVEL_TIME = 900f;
+
+    private static final float BOT_SPEED = 4f;
+    private static final float BOT_NOISE = 0.2f;
+    private static final float BUCKET_SIZE = 0.25f;
+    private static final int BUCKETS = 400;
+    private static final int MB = 1024 * 1024;
+
+    private String[] levels;
+    private long duration;
+    private long startTime;
+    private int cycle;
+    private int levelIndex;
+    private FileHandle csvFile;
+
+    private int[] frameTimes;
+    private int frames;
+    private float longestFrame;
+    private int gcs;
+    private WeakReference<Object> gcSentinel;
+    private long[] firstJavaHeaps;
+    private long javaHeap;
+    private long nativeHeap;
+
+    /**
+     * Creates the test, nothing is started before the game has been created
+     *
+     * @param hours  how long to keep starting new levels
+     * @param levels names of the levels played in order, {@link #LEVELS} if empty
+     */
+    public SoakTest(float hours, String[] levels) {
+        this.levels = levels.length > 0 ? levels : LEVELS;
+        duration = (long) (hours * 3600000);
+        frameTimes = new int[BUCKETS + 1];
+        firstJavaHeaps = new long[this.levels.length];
+    }
+
+    /**
+     * Starts the test, called when the game has been created
+     *
+     * @param game main game class
+     * @return loading screen of the first level
+     */
+    public Screen start(RaccoonRoll game) {
+        startTime = System.currentTimeMillis();
+        csvFile = Gdx.files.local("profiles/soak_" + startTime + ".csv");
+        csvFile.writeString("cycle,level,completed,time,frames,p50,p95,p99,max,gcs,javaHeap,nativeHeap\n", false);
+        Gdx.app.log("SoakTest", String.format("Playing %d levels for %.1f hours", levels.length, duration / 3600000f));
+        return MazeScreen.loadSoakTest(game, this, levels[0]);
+    }
+
+    /**
+     * Measures the heaps after a garbage collection and resets the statistics of the level,
+     * called when the level has been loaded
+     */
+    public void beginLevel() {
+        System.gc();
+        javaHeap = Gdx.app.getJavaHeap();
+        nativeHeap = Gdx.app.getNativeHeap();
+        if (cycle == 0) {
+            firstJavaHeaps[levelIndex] = javaHeap;
+        }
+        for (int i = 0; i < frameTimes.length; i++) {
+            frameTimes[i] = 0;
+        }
+        frames = 0;
+        longestFrame = 0;
+        gcs = 0;
+        gcSentinel = new WeakReference<Object>(new Object());
+    }
+
+    /**
+     * Records the time of a frame and counts garbage collections, does not allocate unless
+     * garbage was collected
+     *
+     * @param delta time since last frame in seconds
+     */
+    public void frame(float delta) {
+        float milliseconds = delta * 1000;
+        frameTimes[Math.min(BUCKETS, (int) (milliseconds / BUCKET_SIZE))]++;
+        frames++;
+        longestFrame = Math.max(longestFrame, milliseconds);
+        if (gcSentinel.get() == null) {
+            gcs++;
+            gcSentinel = new WeakReference<Object>(new Object());
+        }
+    }
+
+    /**
+     * Creates the bot playing a level, the route is planned from the start position
+     *
+     * @param game       main game class
+     * @param simulation the maze the bot plays
+     * @param levelData  game play data of the level
+     * @return bot to set as the player's input
+     */
+    public RouteBot createBot(RaccoonRoll game, MazeSimulation simulation, LevelData levelData) {
+        float objectRadius = simulation.getPlayer().getBodyRadius();
+        NavigationGrid grid = new NavigationGrid(levelData, objectRadius * 0.9f, objectRadius,
+                levelData.getTileSize() * game.getScale(), MazeSimulation.BAD_OBJECT_PENALTY * BOT_SPEED);
+        FloatArray path = RouteBot.planPath(grid, levelData, objectRadius);
+        if (path.size == 0) {
+            Gdx.app.error("SoakTest", levels[levelIndex] + " goal can't be reached");
+        }
+        return new RouteBot(simulation, levelData, grid, objectRadius, path, RouteBot.KEYBOARD_FORCE,
+                BOT_SPEED, BOT_NOISE, new RandomXS128(cycle * levels.length + levelIndex));
+    }
+
+    /**
+     * Is the level over, either completed or given up
+     *
+     * @param simulation the maze being played
+     * @return true if the next level should be started
+     */
+    public boolean isLevelOver(MazeSimulation simulation) {
+        return simulation.isGoalReached() || simulation.getTimeSpent() >= MAX_LEVEL_TIME;
+    }
+
+    /**
+     * Logs the statistics of the finished level and returns the loading screen of the next one,
+     * exits the game when the test has run its time
+     *
+     * @param game       main game class
+     * @param simulation the finished maze
+     * @return the screen to show next
+     */
+    public Screen finishLevel(RaccoonRoll game, MazeSimulation simulation) {
+        String levelName = levels[levelIndex];
+        String line = String.format(Locale.ROOT, "%d,%s,%b,%.2f,%d,%.2f,%.2f,%.2f,%.2f,%d,%d,%d%n", cycle, levelName,
+                simulation.isGoalReached(), simulation.getTimeSpent(), frames, percentile(0.5f),
+                percentile(0.95f), percentile(0.99f), longestFrame, gcs, javaHeap / MB, nativeHeap / MB);
+        csvFile.writeString(line, true);
+        Gdx.app.log("SoakTest", String.format("Cycle %d %s %s, frames p50 %.2f p99 %.2f max %.2f ms, %d gcs, "
+                        + "java heap %d MB (%+d MB since first cycle), native heap %d MB", cycle, levelName,
+                simulation.isGoalReached() ? "completed in " + game.formatTime(simulation.getTimeSpent()) : "given up",
+                percentile(0.5f), percentile(0.99f), longestFrame, gcs, javaHeap / MB,
+                (javaHeap - firstJavaHeaps[levelIndex]) / MB, nativeHeap / MB));
+
+        levelIndex++;
+        if (levelIndex == levels.length) {
+            levelIndex = 0;
+            cycle++;
+        }
+        if (System.currentTimeMillis() - startTime >= duration) {
+            Gdx.app.log("SoakTest", "Finished after " + cycle + " cycles, results in " + csvFile.path());
+            Gdx.app.exit();
+            return MenuScreen.load(game);
+        }
+        return MazeScreen.loadSoakTest(game, this, levels[levelIndex]);
+    }
+
+    /**
+     * Returns the upper limit of the bucket below which the given fraction of the frames are
+     */
+    private float percentile(float fraction) {
+        int count = 0;
+        for (int i = 0; i < frameTimes.length; i++) {
+            count += frameTimes[i];
+            if (count > fraction * frames) {
+                return i == BUCKETS ? longestFrame : (i + 1) * BUCKET_SIZE;
+            }
+        }
+        return longestFrame;
+    }
+}
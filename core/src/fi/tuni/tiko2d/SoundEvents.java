@@ -0,0 +1,168 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.math.MathUtils;
+
+import java.util.ArrayList;
+
+/**
+ * Queue for sound effects that are played once per frame.
+ * Events posted during a frame are combined per channel so only the loudest one is played,
+ * a channel is not played again before its minimum interval has passed and only a limited
+ * amount of sounds are played at the same time. When all voices are in use a sound with higher
+ * priority stops the oldest sound with lower priority, other sounds are dropped.
+ * The voices are created up front and reused, so playing sounds does not allocate
+ *
+ * @author Heikki Kangas
+ */
+public class SoundEvents {
+    /**
+     * Sound effect with one or more variations of which a random one is played
+     */
+    public static class Channel {
+        private Sound[] sounds;
+        private float minInterval;
+        private float duration;
+        private int priority;
+        private float pendingVolume;
+        private float lastPlayed = -Float.MAX_VALUE;
+
+        /**
+         * Creates channel with given sounds
+         *
+         * @param minInterval shortest time in seconds between two plays of the channel
+         * @param duration    how long in seconds a played sound keeps its voice
+         * @param priority    sounds with higher priority may stop sounds with lower priority
+         * @param sounds      variations of the sound
+         */
+        private Channel(float minInterval, float duration, int priority, Sound[] sounds) {
+            this.minInterval = minInterval;
+            this.duration = duration;
+            this.priority = priority;
+            this.sounds = sounds;
+        }
+    }
+
+    /**
+     * Sound that is playing
+     */
+    private static class Voice {
+        private Sound sound;
+        private long id;
+        private float endTime;
+        private int priority;
+    }
+
+    private Options options;
+    private ArrayList<Channel> channels;
+    private ArrayList<Voice> voices;
+    private ArrayList<Voice> freeVoices;
+    private float time;
+
+    /**
+     * Creates queue without any channels
+     *
+     * @param options   options for the effects volume
+     * @param maxVoices how many sounds may play at the same time
+     */
+    public SoundEvents(Options options, int maxVoices) {
+        this.options = options;
+        channels = new ArrayList<Channel>();
+        voices = new ArrayList<Voice>(maxVoices);
+        freeVoices = new ArrayList<Voice>(maxVoices);
+        for (int i = 0; i < maxVoices; i++) {
+            freeVoices.add(new Voice());
+        }
+    }
+
+    /**
+     * Adds channel for given sounds
+     *
+     * @param minInterval shortest time in seconds between two plays of the channel
+     * @param duration    how long in seconds a played sound keeps its voice
+     * @param priority    sounds with higher priority may stop sounds with lower priority
+     * @param sounds      variations of the sound, a random one is played
+     * @return channel for posting events
+     */
+    public Channel addChannel(float minInterval, float duration, int priority, Sound... sounds) {
+        Channel channel = new Channel(minInterval, duration, priority, sounds);
+        channels.add(channel);
+        return channel;
+    }
+
+    /**
+     * Queues the channel to be played on the next dispatch, of several events during the same
+     * frame the loudest is kept
+     *
+     * @param channel channel to play
+     * @param volume  volume between 0 and 1, multiplied with the effects volume
+     */
+    public void post(Channel channel, float volume) {
+        channel.pendingVolume = Math.max(channel.pendingVolume, volume);
+    }
+
+    /**
+     * Plays the queued channels whose minimum interval has passed and that get a voice,
+     * events that aren't played are dropped
+     *
+     * @param delta time since last frame
+     */
+    public void dispatch(float delta) {
+        time += delta;
+        for (int i = voices.size() - 1; i >= 0; i--) {
+            if (voices.get(i).endTime <= time) {
+                freeVoices.add(voices.remove(i));
+            }
+        }
+
+        for (int i = 0; i < channels.size(); i++) {
+            Channel channel = channels.get(i);
+            if (channel.pendingVolume > 0 && time - channel.lastPlayed >= channel.minInterval) {
+                play(channel, channel.pendingVolume * options.getEffectsVolume());
+            }
+            channel.pendingVolume = 0;
+        }
+    }
+
+    /**
+     * Plays a random sound of the channel if there is a free voice or one can be stolen
+     */
+    private void play(Channel channel, float volume) {
+        if (volume <= 0) {
+            return;
+        }
+        Voice voice;
+        if (!freeVoices.isEmpty()) {
+            voice = freeVoices.remove(freeVoices.size() - 1);
+        } else {
+            voice = findStealable(channel.priority);
+            if (voice == null) {
+                return;
+            }
+            voice.sound.stop(voice.id);
+            voices.remove(voice);
+        }
+
+        Sound sound = channel.sounds[MathUtils.random(channel.sounds.length - 1)];
+        voice.sound = sound;
+        voice.id = sound.play(volume);
+        voice.endTime = time + channel.duration;
+        voice.priority = channel.priority;
+        voices.add(voice);
+        channel.lastPlayed = time;
+    }
+
+    /**
+     * Finds the oldest voice with lower priority than given
+     *
+     * @return the voice or null if all voices have the same or higher priority
+     */
+    private Voice findStealable(int priority) {
+        for (int i = 0; i < voices.size(); i++) {
+            if (voices.get(i).priority < priority) {
+                return voices.get(i);
+            }
+        }
+        return null;
+    }
+}
@@ -3,9 +3,11 @@ package fi.tuni.tiko2d;
 import com.badlogic.gdx.maps.MapLayer;
 import com.badlogic.gdx.maps.MapObject;
 import com.badlogic.gdx.maps.MapObjects;
+import com.badlogic.gdx.maps.MapProperties;
 import com.badlogic.gdx.maps.objects.RectangleMapObject;
 import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
@@ -15,6 +17,8 @@ import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.utils.Array;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 
 public class TiledMapUtil {
     private RaccoonRoll game;
@@ -23,28 +27,6 @@ public class TiledMapUtil {
         this.game = game;
     }
 
-    /**
-     * Steps the world with 1/61s steps while delta is bigger than 1/61
-     *
-     * @param delta time since last frame
-     */
-    public void stepWorld(float delta, World world) {
-        float time_step = 1f / 61;
-        double accumulator;
-        if (delta > 1 / 4f) {
-            accumulator = 1 / 4f;
-        } else if (delta < time_step) {
-            accumulator = time_step;
-        } else {
-            accumulator = delta;
-        }
-
-        while (accumulator >= time_step) {
-            world.step(time_step, 6, 2);
-            accumulator -= time_step;
-        }
-    }
-
     /**
      * Hides the goal on tilemap
      */
@@ -59,13 +41,12 @@ public class TiledMapUtil {
     /**
      * Reveals the goal on tilemap
      */
-    public void showGoal(TiledMap tiledMap, World world, Body goalBlock) {
+    public void showGoal(TiledMap tiledMap) {
         tiledMap.getLayers().get("goal").setVisible(true);
         tiledMap.getLayers().get("goal_ground").setVisible(true);
         if (tiledMap.getLayers().getIndex("goal_ground2") != -1) {
             tiledMap.getLayers().get("goal_ground2").setVisible(true);
         }
-        world.destroyBody(goalBlock);
     }
 
     /**
@@ -85,11 +66,12 @@ public class TiledMapUtil {
      * Checks given rectangles x and y index in tilemap
      *
      * @param rectangle which tile index should be returned
+     * @param tileIndex vector where the index is stored, reused to avoid allocating every frame
      * @return vector of given rectangle's x and y indexes
      */
-    public Vector2 getRectangleTileIndex(Rectangle rectangle, float tileSize) {
+    public Vector2 getRectangleTileIndex(Rectangle rectangle, float tileSize, Vector2 tileIndex) {
         float scale = game.getScale();
-        return new Vector2(rectangle.x / scale / tileSize, rectangle.y / scale / tileSize);
+        return tileIndex.set(rectangle.x / scale / tileSize, rectangle.y / scale / tileSize);
     }
 
     /**
@@ -105,17 +87,44 @@ public class TiledMapUtil {
     }
 
     /**
-     * Creates body for blocking the goal while there's good objects remaining in tilemap
+     * Creates Rectangle scaled to world units from RectangleMapObject on goal blocking object layer of the tilemap
      */
-    public Body createGoalBlockBody(TiledMap tiledMap, World world) {
+    public Rectangle getGoalBlockRectangle(TiledMap tiledMap) {
         MapLayer goalBlockLayer = tiledMap.getLayers().get("goal_blocking_object");
         RectangleMapObject goalBlockObject = goalBlockLayer.getObjects().getByType(RectangleMapObject.class).get(0);
-        Rectangle goalBlockRectangle = scaleRectangle(goalBlockObject.getRectangle(), game.getScale());
+        return scaleRectangle(goalBlockObject.getRectangle(), game.getScale());
+    }
+
+    /**
+     * Creates body for blocking the goal while there's good objects remaining in tilemap
+     */
+    public Body createGoalBlockBody(Rectangle goalBlockRectangle, World world) {
         Body goalBlock = world.createBody(getWallBodyDef(goalBlockRectangle));
-        goalBlock.createFixture(getWallShape(goalBlockRectangle), 0.0f);
+        PolygonShape goalBlockShape = getWallShape(goalBlockRectangle);
+        goalBlock.createFixture(goalBlockShape, 0.0f);
+        goalBlockShape.dispose();
         return goalBlock;
     }
 
+    /**
+     * Reads all the game play data of the level from the tilemap's object layers
+     *
+     * @return the level data scaled to meters
+     */
+    public LevelData getLevelData(TiledMap tiledMap) {
+        MapProperties mapProps = tiledMap.getProperties();
+        return new LevelData(
+                mapProps.get("width", Integer.class),
+                mapProps.get("height", Integer.class),
+                mapProps.get("tilewidth", Integer.class),
+                getPlayerStartPos(tiledMap),
+                getGoalRectangle(tiledMap),
+                getGoalBlockRectangle(tiledMap),
+                mergeWallRectangles(getWallRectangles(tiledMap)),
+                getGoodRectangles(tiledMap),
+                getBadRectangles(tiledMap));
+    }
+
     /**
      * Creates BodyDef for wall bodies
      *
@@ -184,13 +193,115 @@ public class TiledMapUtil {
     }
 
     /**
-     * Creates world bodies from wall rectangles
+     * Creates one static world body with a fixture for each merged wall rectangle
+     *
+     * @return the created wall body
+     */
+    public Body createWalls(ArrayList<Rectangle> wallRectangles, World world) {
+        return createWallBody(mergeWallRectangles(wallRectangles), world);
+    }
+
+    /**
+     * Creates one static world body with a fixture for each wall rectangle as they are
+     *
+     * @param wallRectangles rectangles of the walls in meters
+     * @param world          world to create the body in
+     * @return the created wall body
+     */
+    public Body createWallBody(ArrayList<Rectangle> wallRectangles, World world) {
+        BodyDef wallBodyDef = new BodyDef();
+        wallBodyDef.type = BodyDef.BodyType.StaticBody;
+        Body wallBody = world.createBody(wallBodyDef);
+
+        Vector2 center = new Vector2();
+        PolygonShape wallShape = new PolygonShape();
+        for (Rectangle wallRectangle : wallRectangles) {
+            wallRectangle.getCenter(center);
+            wallShape.setAsBox(wallRectangle.width / 2, wallRectangle.height / 2, center, 0);
+            wallBody.createFixture(wallShape, 0.0f);
+        }
+        wallShape.dispose();
+        return wallBody;
+    }
+
+    /**
+     * Merges wall rectangles sharing a whole edge into bigger rectangles until nothing can be
+     * merged anymore. The covered area stays exactly the same
+     *
+     * @param wallRectangles rectangles to merge, not modified
+     * @return new list of merged rectangles
      */
-    public void createWalls(ArrayList<Rectangle> wallRectangles, World world) {
+    public ArrayList<Rectangle> mergeWallRectangles(ArrayList<Rectangle> wallRectangles) {
+        ArrayList<Rectangle> merged = new ArrayList<Rectangle>(wallRectangles.size());
         for (Rectangle wallRectangle : wallRectangles) {
-            Body wallBody = world.createBody(getWallBodyDef(wallRectangle));
-            wallBody.createFixture(getWallShape(wallRectangle), 0.0f);
+            merged.add(new Rectangle(wallRectangle));
+        }
+
+        boolean changed = true;
+        while (changed) {
+            boolean verticalChanged = mergeRuns(merged, true);
+            boolean horizontalChanged = mergeRuns(merged, false);
+            changed = verticalChanged || horizontalChanged;
+        }
+        return merged;
+    }
+
+    /**
+     * Merges rectangles in the same column (or row) that touch or overlap each other
+     *
+     * @param rectangles rectangles to merge, merged rectangles are removed from the list
+     * @param vertical   true to merge rectangles on top of each other, false to merge side by side
+     * @return true if any rectangles were merged
+     */
+    private boolean mergeRuns(ArrayList<Rectangle> rectangles, final boolean vertical) {
+        Collections.sort(rectangles, new Comparator<Rectangle>() {
+            @Override
+            public int compare(Rectangle a, Rectangle b) {
+                if (vertical) {
+                    return compareEach(a.x, b.x, a.width, b.width, a.y, b.y);
+                }
+                return compareEach(a.y, b.y, a.height, b.height, a.x, b.x);
+            }
+        });
+
+        ArrayList<Rectangle> runs = new ArrayList<Rectangle>(rectangles.size());
+        Rectangle current = null;
+        for (Rectangle next : rectangles) {
+            if (current != null && vertical
+                    && MathUtils.isEqual(current.x, next.x)
+                    && MathUtils.isEqual(current.width, next.width)
+                    && next.y <= current.y + current.height + MathUtils.FLOAT_ROUNDING_ERROR) {
+                current.height = Math.max(current.y + current.height, next.y + next.height) - current.y;
+            } else if (current != null && !vertical
+                    && MathUtils.isEqual(current.y, next.y)
+                    && MathUtils.isEqual(current.height, next.height)
+                    && next.x <= current.x + current.width + MathUtils.FLOAT_ROUNDING_ERROR) {
+                current.width = Math.max(current.x + current.width, next.x + next.width) - current.x;
+            } else {
+                current = next;
+                runs.add(current);
+            }
+        }
+
+        boolean changed = runs.size() != rectangles.size();
+        rectangles.clear();
+        rectangles.addAll(runs);
+        return changed;
+    }
+
+    /**
+     * Compares float pairs in order until one of them differs
+     *
+     * @return negative, zero or positive like Comparator.compare
+     */
+    private int compareEach(float a1, float b1, float a2, float b2, float a3, float b3) {
+        if (!MathUtils.isEqual(a1, b1)) {
+            return Float.compare(a1, b1);
+        }
+        if (!MathUtils.isEqual(a2, b2)) {
+            return Float.compare(a2, b2);
         }
+        return Float.compare(a3, b3);
     }
 
     /**
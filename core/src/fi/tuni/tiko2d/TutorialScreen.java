@@ -12,15 +12,9 @@ import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.maps.tiled.TiledMapRenderer;
-import com.badlogic.gdx.maps.tiled.TmxMapLoader;
 import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
-import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Box2DDebugRenderer;
-import com.badlogic.gdx.physics.box2d.Contact;
-import com.badlogic.gdx.physics.box2d.ContactImpulse;
-import com.badlogic.gdx.physics.box2d.ContactListener;
-import com.badlogic.gdx.physics.box2d.Manifold;
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.scenes.scene2d.InputEvent;
 import com.badlogic.gdx.scenes.scene2d.Stage;
@@ -34,8 +28,6 @@ import com.badlogic.gdx.utils.Align;
 import com.badlogic.gdx.utils.I18NBundle;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
 
-import java.util.ArrayList;
-
 /**
  * Tutorial explaining how to play the game
  *
@@ -57,7 +49,9 @@ public class TutorialScreen implements Screen {
     private Texture goodObjects;
     private Texture badObjects;
 
-    private ArrayList<Sound> wallHitSounds;
+    private SoundEvents sounds;
+    private SoundEvents.Channel wallHitSound;
+    private ImpactCollector impacts;
     private Music backgroundMusic;
 
     private I18NBundle tutorialBundle;
@@ -65,14 +59,35 @@ public class TutorialScreen implements Screen {
     private AssetManager assetManager;
 
     private TiledMapUtil tiledMapUtil;
+    private FixedTimestep timestep;
 
     private float WORLD_WIDTH;
     private float WORLD_HEIGHT;
 
     private final float tileSize = 64f;
+    private static final String tutorialMap = "tilemaps/tutorial/tutorial.tmx";
+
+    /**
+     * Queues the tutorial map and the assets of the tutorial and returns a loading screen that
+     * shows the tutorial when they have been loaded, the cached menu screens are released
+     *
+     * @param game main game class
+     * @return the screen to show
+     */
+    public static Screen load(final RaccoonRoll game) {
+        AssetGroup.TUTORIAL.load(game.getAssetManager());
+        game.getAssetManager().load(tutorialMap, TiledMap.class);
+        game.getScreens().releaseForGamePlay();
+        return LoadingScreen.create(game, new LoadingScreen.NextScreen() {
+            @Override
+            public Screen create() {
+                return new TutorialScreen(game);
+            }
+        });
+    }
 
     /**
-     * Sets up the tutorial
+     * Sets up the tutorial, the map must have been loaded with {@link #load(RaccoonRoll)}
      *
      * @param game main game class
      */
@@ -85,8 +100,8 @@ public class TutorialScreen implements Screen {
         textCamera = game.getTextCamera();
         tiledMapUtil = game.getTiledMapUtil();
 
-        game.getCompletedLevels().putBoolean("tutorial", true);
-        game.getCompletedLevels().flush();
+        game.getSaveGame().setLevelCompleted("tutorial");
+        game.getSaveGame().flush();
 
         stage = new Stage(new ScreenViewport(), batch);
         skin = assetManager.get("uiskin/comic-ui.json");
@@ -97,8 +112,8 @@ public class TutorialScreen implements Screen {
         goodObjects = assetManager.get("tilemaps/good_objects.png");
         badObjects = assetManager.get("tilemaps/bad_objects.png");
 
-        tiledMap = new TmxMapLoader().load("tilemaps/tutorial/tutorial.tmx");
-        tiledMapRenderer = new OrthogonalTiledMapRenderer(tiledMap, game.getScale());
+        tiledMap = assetManager.get(tutorialMap, TiledMap.class);
+        tiledMapRenderer = new OrthogonalTiledMapRenderer(tiledMap, game.getScale(), batch);
         float mapWidth = tiledMap.getProperties().get("width", Integer.class) * tileSize * game.getScale();
         float mapHeight = tiledMap.getProperties().get("height", Integer.class) * tileSize * game.getScale();
 
@@ -112,6 +127,7 @@ public class TutorialScreen implements Screen {
         debugRenderer = new Box2DDebugRenderer();
         player = new Player(game);
         player.createPlayerBody(world, tiledMapUtil.getPlayerStartPos(tiledMap));
+        timestep = options.createTimestep();
 
         tutorialBundle = I18NBundle.createBundle(Gdx.files.internal("localization/TutorialBundle"), options.getLocale());
         loadSounds();
@@ -119,7 +135,8 @@ public class TutorialScreen implements Screen {
 
         tiledMapUtil.createWalls(tiledMapUtil.getWallRectangles(tiledMap), world);
 
-        addContactListener();
+        impacts = new ImpactCollector();
+        world.setContactListener(impacts);
 
         createTable();
     }
@@ -186,7 +203,7 @@ public class TutorialScreen implements Screen {
                 if (game.DEBUGGING()) {
                     Gdx.app.log("MapButton", "Clicked");
                 }
-                game.setScreen(new MapScreen(game));
+                game.setScreen(MapScreen.load(game));
                 backgroundMusic.stop();
                 dispose();
             }
@@ -198,7 +215,7 @@ public class TutorialScreen implements Screen {
                 if (game.DEBUGGING()) {
                     Gdx.app.log("MazeButton", "Clicked");
                 }
-                game.setScreen(new MazeScreen(game, "tutorial"));
+                game.setScreen(MazeScreen.load(game, "tutorial"));
                 dispose();
             }
         });
@@ -215,40 +232,15 @@ public class TutorialScreen implements Screen {
     }
 
     /**
-     * Loads sound effects
+     * Loads wall hit sounds, they are limited to ten per second and two at the same time
      */
     private void loadSounds() {
-        wallHitSounds = new ArrayList<Sound>();
-        for (int i = 1; i < 6; i++) {
-            wallHitSounds.add(assetManager.get(String.format("sounds/wallHit/WALL_HIT_0%d.mp3", i), Sound.class));
+        sounds = new SoundEvents(options, 2);
+        Sound[] wallHitSounds = new Sound[5];
+        for (int i = 0; i < wallHitSounds.length; i++) {
+            wallHitSounds[i] = assetManager.get(String.format("sounds/wallHit/WALL_HIT_0%d.mp3", i + 1), Sound.class);
         }
-    }
-
-    /**
-     * Add contact listener for playing sounds when player hits a wall
-     */
-    private void addContactListener() {
-        world.setContactListener(new ContactListener() {
-            @Override
-            public void beginContact(Contact contact) {
-                wallHitSounds.get(MathUtils.random(wallHitSounds.size() - 1)).play(options.getEffectsVolume());
-            }
-
-            @Override
-            public void endContact(Contact contact) {
-
-            }
-
-            @Override
-            public void preSolve(Contact contact, Manifold oldManifold) {
-
-            }
-
-            @Override
-            public void postSolve(Contact contact, ContactImpulse impulse) {
-
-            }
-        });
+        wallHitSound = sounds.addChannel(0.1f, 0.4f, 0, wallHitSounds);
     }
 
     @Override
@@ -267,7 +259,6 @@ public class TutorialScreen implements Screen {
         tiledMapRenderer.setView(worldCamera);
         tiledMapRenderer.render();
 
-        player.movePlayer(delta);
         batch.setProjectionMatrix(worldCamera.combined);
         batch.begin();
         player.draw(batch, delta);
@@ -281,13 +272,27 @@ public class TutorialScreen implements Screen {
         stage.act(Gdx.graphics.getDeltaTime());
         stage.draw();
 
-        tiledMapUtil.stepWorld(delta, world);
+        timestep.update(delta, world, player);
+        playWallHits(delta);
         if (Gdx.input.isKeyJustPressed(Input.Keys.BACK) || Gdx.input.isKeyJustPressed(Input.Keys.BACKSPACE)) {
-            game.setScreen(new MenuScreen(game));
+            game.setScreen(MenuScreen.load(game));
             dispose();
         }
     }
 
+    /**
+     * Plays a wall hit sound if player hit walls during the steps of this frame
+     *
+     * @param delta how long since last frame
+     */
+    private void playWallHits(float delta) {
+        if (impacts.getHits() > 0) {
+            sounds.post(wallHitSound, ImpactCollector.getVolume(impacts.getMaxImpulse()));
+            impacts.clear();
+        }
+        sounds.dispatch(delta);
+    }
+
     /**
      * Clears the screen with black color
      */
@@ -322,7 +327,8 @@ public class TutorialScreen implements Screen {
     @Override
     public void dispose() {
         stage.dispose();
-        tiledMap.dispose();
+        assetManager.unload(tutorialMap);
+        AssetGroup.TUTORIAL.unload(assetManager);
         world.dispose();
         debugRenderer.dispose();
         if (game.DEBUGGING()) {
@@ -0,0 +1,166 @@
+package fi.tuni.tiko2d;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.World;
+
+import java.util.ArrayList;
+
+/**
+ * Keeps only the walls near the player in the Box2D world on big levels.
+ * The level is split to square chunks of {@link #CHUNK_SIZE} tiles and every wall rectangle is
+ * cut to the chunks it covers. Each chunk has its own static wall body, which is created when
+ * the player comes to the chunk or next to it and destroyed when the player is more than two
+ * chunks away, so moving back and forth over a chunk border does not rebuild the bodies
+ *
+ * @author Heikki Kangas
+ */
+public class WorldChunks {
+    /**
+     * Width and height of one chunk in tiles
+     */
+    public static final int CHUNK_SIZE = 16;
+
+    /**
+     * Levels with more tiles than this use chunks instead of creating all the walls at once
+     */
+    public static final int CHUNKED_LEVEL_TILES = 128 * 128;
+
+    private World world;
+    private TiledMapUtil tiledMapUtil;
+    private float chunkSize;
+    private int chunkColumns;
+    private int chunkRows;
+    private ArrayList<ArrayList<Rectangle>> chunkWalls;
+    private Body[] bodies;
+    private int activeChunks;
+    private int playerChunkX;
+    private int playerChunkY;
+
+    /**
+     * Is the level big enough to be split to chunks
+     *
+     * @param levelData game play data of the level
+     * @return true if the level has more than {@link #CHUNKED_LEVEL_TILES} tiles
+     */
+    public static boolean isNeeded(LevelData levelData) {
+        return levelData.getColumns() * levelData.getRows() > CHUNKED_LEVEL_TILES;
+    }
+
+    /**
+     * Splits the walls of the level to chunks, no bodies are created before
+     * {@link #update(Vector2)}
+     *
+     * @param levelData    game play data of the level
+     * @param tileSize     size of one tile in meters
+     * @param tiledMapUtil used for creating the wall bodies
+     * @param world        world the bodies are created in
+     */
+    public WorldChunks(LevelData levelData, float tileSize, TiledMapUtil tiledMapUtil, World world) {
+        this.world = world;
+        this.tiledMapUtil = tiledMapUtil;
+        chunkSize = CHUNK_SIZE * tileSize;
+        chunkColumns = (levelData.getColumns() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        chunkRows = (levelData.getRows() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        bodies = new Body[chunkColumns * chunkRows];
+        playerChunkX = -1;
+        playerChunkY = -1;
+
+        chunkWalls = new ArrayList<ArrayList<Rectangle>>(bodies.length);
+        for (int i = 0; i < bodies.length; i++) {
+            chunkWalls.add(new ArrayList<Rectangle>());
+        }
+        for (Rectangle wall : levelData.getWallRectangles()) {
+            splitWall(wall);
+        }
+    }
+
+    /**
+     * Adds the parts of a wall inside each chunk it covers to the walls of those chunks
+     */
+    private void splitWall(Rectangle wall) {
+        int minX = getChunkColumn(wall.x);
+        int maxX = getChunkColumn(wall.x + wall.width);
+        int minY = getChunkRow(wall.y);
+        int maxY = getChunkRow(wall.y + wall.height);
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                float left = Math.max(wall.x, x * chunkSize);
+                float right = Math.min(wall.x + wall.width, (x + 1) * chunkSize);
+                float bottom = Math.max(wall.y, y * chunkSize);
+                float top = Math.min(wall.y + wall.height, (y + 1) * chunkSize);
+                if (right - left > MathUtils.FLOAT_ROUNDING_ERROR && top - bottom > MathUtils.FLOAT_ROUNDING_ERROR) {
+                    chunkWalls.get(y * chunkColumns + x).add(new Rectangle(left, bottom, right - left, top - bottom));
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the bodies of the chunks around the player and destroys the ones far away,
+     * does nothing while the player stays in the same chunk
+     *
+     * @param position player position in meters
+     */
+    public void update(Vector2 position) {
+        int chunkX = getChunkColumn(position.x);
+        int chunkY = getChunkRow(position.y);
+        if (chunkX == playerChunkX && chunkY == playerChunkY) {
+            return;
+        }
+        playerChunkX = chunkX;
+        playerChunkY = chunkY;
+
+        for (int i = 0; i < bodies.length; i++) {
+            if (bodies[i] != null && (Math.abs(i % chunkColumns - chunkX) > 2
+                    || Math.abs(i / chunkColumns - chunkY) > 2)) {
+                world.destroyBody(bodies[i]);
+                bodies[i] = null;
+                activeChunks--;
+            }
+        }
+        for (int y = Math.max(0, chunkY - 1); y <= Math.min(chunkRows - 1, chunkY + 1); y++) {
+            for (int x = Math.max(0, chunkX - 1); x <= Math.min(chunkColumns - 1, chunkX + 1); x++) {
+                int index = y * chunkColumns + x;
+                if (bodies[index] == null && !chunkWalls.get(index).isEmpty()) {
+                    bodies[index] = tiledMapUtil.createWallBody(chunkWalls.get(index), world);
+                    activeChunks++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Getter for the amount of chunks that have their wall body in the world
+     *
+     * @return amount of active chunks
+     */
+    public int getActiveChunkCount() {
+        return activeChunks;
+    }
+
+    /**
+     * Getter for the amount of chunks in the level
+     *
+     * @return chunk columns times chunk rows
+     */
+    public int getChunkCount() {
+        return bodies.length;
+    }
+
+    /**
+     * Converts x coordinate to chunk column clamped inside the level
+     */
+    private int getChunkColumn(float x) {
+        return MathUtils.clamp((int) Math.floor(x / chunkSize), 0, chunkColumns - 1);
+    }
+
+    /**
+     * Converts y coordinate to chunk row clamped inside the level
+     */
+    private int getChunkRow(float y) {
+        return MathUtils.clamp((int) Math.floor(y / chunkSize), 0, chunkRows - 1);
+    }
+}
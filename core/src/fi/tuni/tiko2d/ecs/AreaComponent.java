@@ -0,0 +1,22 @@
+package fi.tuni.tiko2d.ecs;
+
+import com.badlogic.ashley.core.Component;
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * Area in meters the player overlaps to interact with the entity
+ *
+ * @author Heikki Kangas
+ */
+public class AreaComponent implements Component {
+    public Rectangle rectangle;
+
+    /**
+     * Creates the area
+     *
+     * @param rectangle area in meters
+     */
+    public AreaComponent(Rectangle rectangle) {
+        this.rectangle = rectangle;
+    }
+}
@@ -0,0 +1,22 @@
+package fi.tuni.tiko2d.ecs;
+
+import com.badlogic.ashley.core.Component;
+import com.badlogic.gdx.physics.box2d.Body;
+
+/**
+ * Box2D body of the entity, destroyed when the entity is removed from the engine
+ *
+ * @author Heikki Kangas
+ */
+public class BodyComponent implements Component {
+    public Body body;
+
+    /**
+     * Creates the component
+     *
+     * @param body body created in the world of the maze
+     */
+    public BodyComponent(Body body) {
+        this.body = body;
+    }
+}
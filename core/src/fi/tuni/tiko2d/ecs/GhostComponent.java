@@ -0,0 +1,23 @@
+package fi.tuni.tiko2d.ecs;
+
+import com.badlogic.ashley.core.Component;
+
+import fi.tuni.tiko2d.Ghost;
+
+/**
+ * Recorded best run of the level drawn racing along the player, it does not collide with anything
+ *
+ * @author Heikki Kangas
+ */
+public class GhostComponent implements Component {
+    public Ghost ghost;
+
+    /**
+     * Creates the component
+     *
+     * @param ghost the recorded run, moved by the screen as time passes
+     */
+    public GhostComponent(Ghost ghost) {
+        this.ghost = ghost;
+    }
+}
@@ -0,0 +1,11 @@
+package fi.tuni.tiko2d.ecs;
+
+import com.badlogic.ashley.core.Component;
+
+/**
+ * Marks the body blocking the goal, the entity is removed when the goal opens
+ *
+ * @author Heikki Kangas
+ */
+public class GoalBlockComponent implements Component {
+}
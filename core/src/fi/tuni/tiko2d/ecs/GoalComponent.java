@@ -0,0 +1,11 @@
+package fi.tuni.tiko2d.ecs;
+
+import com.badlogic.ashley.core.Component;
+
+/**
+ * Marks the goal the player reaches after collecting every pickup
+ *
+ * @author Heikki Kangas
+ */
+public class GoalComponent implements Component {
+}
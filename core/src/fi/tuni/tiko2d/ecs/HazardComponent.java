@@ -0,0 +1,21 @@
+package fi.tuni.tiko2d.ecs;
+
+import com.badlogic.ashley.core.Component;
+
+/**
+ * Bad object that slows the player down and adds a time penalty when hit
+ *
+ * @author Heikki Kangas
+ */
+public class HazardComponent implements Component {
+    public float penalty;
+
+    /**
+     * Creates a hazard
+     *
+     * @param penalty seconds added to the time spent when the player hits the hazard
+     */
+    public HazardComponent(float penalty) {
+        this.penalty = penalty;
+    }
+}
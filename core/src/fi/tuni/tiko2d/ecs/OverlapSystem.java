@@ -0,0 +1,256 @@
+package fi.tuni.tiko2d.ecs;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Engine;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.EntityListener;
+import com.badlogic.ashley.core.EntitySystem;
+import com.badlogic.ashley.core.Family;
+import com.badlogic.ashley.utils.ImmutableArray;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.math.Circle;
+import com.badlogic.gdx.math.Intersector;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.IdentityMap;
+
+import java.util.ArrayList;
+
+import fi.tuni.tiko2d.MazeSimulation;
+import fi.tuni.tiko2d.ObjectGrid;
+import fi.tuni.tiko2d.Player;
+import fi.tuni.tiko2d.RaccoonRoll;
+import fi.tuni.tiko2d.TiledMapUtil;
+
+/**
+ * Game rules of the maze: collects the pickups and hits the hazards the player overlaps,
+ * opens the goal when every pickup has been collected and counts the time spent.
+ * Pickups and hazards are kept in {@link ObjectGrid}s updated by entity listeners, so only the
+ * entities in the grid cells under the player are tested each frame however many there are
+ *
+ * @author Heikki Kangas
+ */
+public class OverlapSystem extends EntitySystem {
+    private static final Family PICKUPS = Family.all(PickupComponent.class, AreaComponent.class).get();
+    private static final Family HAZARDS = Family.all(HazardComponent.class, AreaComponent.class).get();
+    private static final Family GOALS = Family.all(GoalComponent.class, AreaComponent.class).get();
+    private static final Family GOAL_BLOCKS = Family.all(GoalBlockComponent.class).get();
+    private static final Family PLAYERS = Family.all(PlayerComponent.class).get();
+
+    private ComponentMapper<AreaComponent> areas = ComponentMapper.getFor(AreaComponent.class);
+    private ComponentMapper<HazardComponent> hazards = ComponentMapper.getFor(HazardComponent.class);
+    private ComponentMapper<PlayerComponent> players = ComponentMapper.getFor(PlayerComponent.class);
+    private ImmutableArray<Entity> pickupEntities;
+    private ImmutableArray<Entity> goalEntities;
+    private ImmutableArray<Entity> goalBlockEntities;
+    private ImmutableArray<Entity> playerEntities;
+
+    private RaccoonRoll game;
+    private TiledMap tiledMap;
+    private TiledMapUtil tiledMapUtil;
+    private MazeSimulation.Listener listener;
+    private ObjectGrid pickupGrid;
+    private ObjectGrid hazardGrid;
+    private IdentityMap<Rectangle, Entity> areaEntities;
+    private EntityListener pickupListener;
+    private EntityListener hazardListener;
+
+    private ArrayList<Rectangle> overlappingRectangles;
+    private Circle playerCircle;
+    private boolean goalReached;
+    private float timeSpent;
+
+    /**
+     * Creates empty grids covering the level
+     *
+     * @param game         main game class
+     * @param tiledMap     the maze, its goal is shown when it opens, null if the maze is not drawn
+     * @param tiledMapUtil used for showing the goal
+     * @param columns      width of the level in tiles
+     * @param rows         height of the level in tiles
+     * @param tileSize     size of one tile in meters
+     * @param listener     receives the events happening in the maze
+     */
+    public OverlapSystem(RaccoonRoll game, TiledMap tiledMap, TiledMapUtil tiledMapUtil, int columns, int rows,
+                         float tileSize, MazeSimulation.Listener listener) {
+        super(0);
+        this.game = game;
+        this.tiledMap = tiledMap;
+        this.tiledMapUtil = tiledMapUtil;
+        this.listener = listener;
+        ArrayList<Rectangle> empty = new ArrayList<Rectangle>();
+        pickupGrid = new ObjectGrid(empty, columns, rows, tileSize);
+        hazardGrid = new ObjectGrid(empty, columns, rows, tileSize);
+        areaEntities = new IdentityMap<Rectangle, Entity>();
+        overlappingRectangles = new ArrayList<Rectangle>();
+        playerCircle = new Circle();
+        pickupListener = createGridListener(pickupGrid);
+        hazardListener = createGridListener(hazardGrid);
+    }
+
+    /**
+     * Creates a listener keeping the areas of added and removed entities in a grid
+     */
+    private EntityListener createGridListener(final ObjectGrid grid) {
+        return new EntityListener() {
+            @Override
+            public void entityAdded(Entity entity) {
+                Rectangle rectangle = areas.get(entity).rectangle;
+                grid.add(rectangle);
+                areaEntities.put(rectangle, entity);
+            }
+
+            @Override
+            public void entityRemoved(Entity entity) {
+                Rectangle rectangle = areas.get(entity).rectangle;
+                grid.remove(rectangle);
+                areaEntities.remove(rectangle);
+            }
+        };
+    }
+
+    /**
+     * Adds the pickups and hazards already in the engine to the grids and starts listening to
+     * added and removed ones
+     *
+     * @param engine engine the system was added to
+     */
+    @Override
+    public void addedToEngine(Engine engine) {
+        pickupEntities = engine.getEntitiesFor(PICKUPS);
+        goalEntities = engine.getEntitiesFor(GOALS);
+        goalBlockEntities = engine.getEntitiesFor(GOAL_BLOCKS);
+        playerEntities = engine.getEntitiesFor(PLAYERS);
+        for (Entity entity : pickupEntities) {
+            pickupListener.entityAdded(entity);
+        }
+        for (Entity entity : engine.getEntitiesFor(HAZARDS)) {
+            hazardListener.entityAdded(entity);
+        }
+        engine.addEntityListener(PICKUPS, pickupListener);
+        engine.addEntityListener(HAZARDS, hazardListener);
+    }
+
+    /**
+     * Stops listening to the pickups and hazards
+     *
+     * @param engine engine the system was removed from
+     */
+    @Override
+    public void removedFromEngine(Engine engine) {
+        engine.removeEntityListener(pickupListener);
+        engine.removeEntityListener(hazardListener);
+    }
+
+    /**
+     * Counts the time and checks what the player overlaps, the player is moved by
+     * {@link PhysicsSystem}
+     *
+     * @param delta time since last frame
+     */
+    @Override
+    public void update(float delta) {
+        if (!goalReached) {
+            timeSpent += delta;
+        }
+
+        Player player = players.get(playerEntities.first()).player;
+        Vector2 playerPos = player.getPosition();
+        playerCircle.set(playerPos.x, playerPos.y, player.getBodyRadius());
+
+        checkPickupOverlaps();
+        checkHazardOverlaps(player);
+
+        if (pickupEntities.size() == 0) {
+            checkGoalOverlaps(player);
+        }
+    }
+
+    /**
+     * Collects the pickups the player overlaps and opens the goal after the last one
+     */
+    private void checkPickupOverlaps() {
+        pickupGrid.getOverlapping(playerCircle, overlappingRectangles);
+        for (int i = 0; i < overlappingRectangles.size(); i++) {
+            Rectangle rectangle = overlappingRectangles.get(i);
+            getEngine().removeEntity(areaEntities.get(rectangle));
+            listener.goodObjectCollected(rectangle);
+            if (pickupEntities.size() == 0) {
+                openGoal();
+            }
+        }
+        overlappingRectangles.clear();
+    }
+
+    /**
+     * Removes the goal blocks and shows the goal
+     */
+    private void openGoal() {
+        while (goalBlockEntities.size() > 0) {
+            getEngine().removeEntity(goalBlockEntities.first());
+        }
+        if (tiledMap != null) {
+            tiledMapUtil.showGoal(tiledMap);
+        }
+    }
+
+    /**
+     * Hits the hazards the player overlaps, each hazard is hit only once
+     */
+    private void checkHazardOverlaps(Player player) {
+        hazardGrid.getOverlapping(playerCircle, overlappingRectangles);
+        for (int i = 0; i < overlappingRectangles.size(); i++) {
+            Rectangle rectangle = overlappingRectangles.get(i);
+            Entity entity = areaEntities.get(rectangle);
+            getEngine().removeEntity(entity);
+            player.applyDebuff();
+            if (game.DEBUGGING()) {
+                Gdx.app.log("Debuff", "applied");
+            }
+            timeSpent += hazards.get(entity).penalty;
+            listener.badObjectHit(rectangle);
+        }
+        overlappingRectangles.clear();
+    }
+
+    /**
+     * Checks if the player overlaps an open goal
+     */
+    private void checkGoalOverlaps(Player player) {
+        for (int i = 0; i < goalEntities.size() && !goalReached; i++) {
+            if (Intersector.overlaps(playerCircle, areas.get(goalEntities.get(i)).rectangle)) {
+                player.setGoalReached();
+                goalReached = true;
+                listener.goalReached();
+            }
+        }
+    }
+
+    /**
+     * Getter for the time spent including penalties from hazards
+     *
+     * @return time spent in seconds
+     */
+    public float getTimeSpent() {
+        return timeSpent;
+    }
+
+    /**
+     * Getter for the amount of pickups left
+     *
+     * @return the amount of pickups in the engine
+     */
+    public int getPickupsRemaining() {
+        return pickupEntities.size();
+    }
+
+    /**
+     * Has the player reached the goal
+     *
+     * @return true if the goal has been reached
+     */
+    public boolean isGoalReached() {
+        return goalReached;
+    }
+}
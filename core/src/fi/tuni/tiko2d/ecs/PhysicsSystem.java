@@ -0,0 +1,150 @@
+package fi.tuni.tiko2d.ecs;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Engine;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.EntityListener;
+import com.badlogic.ashley.core.EntitySystem;
+import com.badlogic.ashley.core.Family;
+import com.badlogic.ashley.utils.ImmutableArray;
+import com.badlogic.gdx.physics.box2d.World;
+
+import fi.tuni.tiko2d.FixedTimestep;
+import fi.tuni.tiko2d.ImpactCollector;
+import fi.tuni.tiko2d.LevelData;
+import fi.tuni.tiko2d.MazeSimulation;
+import fi.tuni.tiko2d.Player;
+import fi.tuni.tiko2d.TiledMapUtil;
+import fi.tuni.tiko2d.WorldChunks;
+
+/**
+ * Steps the Box2D world of the maze with a {@link FixedTimestep}, moving the player by its input
+ * before every step. Owns the walls, which are not entities: big levels keep only the walls near
+ * the player in the world with {@link WorldChunks}. The body of an entity is destroyed when the
+ * entity is removed from the engine
+ *
+ * @author Heikki Kangas
+ */
+public class PhysicsSystem extends EntitySystem implements EntityListener {
+    private static final Family BODIES = Family.all(BodyComponent.class).get();
+    private static final Family PLAYERS = Family.all(PlayerComponent.class).get();
+
+    private ComponentMapper<BodyComponent> bodies = ComponentMapper.getFor(BodyComponent.class);
+    private ComponentMapper<PlayerComponent> players = ComponentMapper.getFor(PlayerComponent.class);
+    private ImmutableArray<Entity> playerEntities;
+
+    private World world;
+    private MazeSimulation.Listener listener;
+    private FixedTimestep timestep;
+    private ImpactCollector impacts;
+    private WorldChunks chunks;
+    private int steps;
+
+    /**
+     * Creates the walls of the level
+     *
+     * @param world        world of the maze
+     * @param levelData    game play data of the level
+     * @param tileSize     size of one tile in meters
+     * @param tiledMapUtil used for creating the wall bodies
+     * @param listener     told about wall hits after stepping
+     */
+    public PhysicsSystem(World world, LevelData levelData, float tileSize, TiledMapUtil tiledMapUtil,
+                         MazeSimulation.Listener listener) {
+        super(1);
+        this.world = world;
+        this.listener = listener;
+        timestep = new FixedTimestep();
+        impacts = new ImpactCollector();
+        world.setContactListener(impacts);
+
+        if (WorldChunks.isNeeded(levelData)) {
+            chunks = new WorldChunks(levelData, tileSize, tiledMapUtil, world);
+            chunks.update(levelData.getStartPosition());
+        } else {
+            tiledMapUtil.createWalls(levelData.getWallRectangles(), world);
+        }
+    }
+
+    /**
+     * Starts listening to removed bodies
+     *
+     * @param engine engine the system was added to
+     */
+    @Override
+    public void addedToEngine(Engine engine) {
+        playerEntities = engine.getEntitiesFor(PLAYERS);
+        engine.addEntityListener(BODIES, this);
+    }
+
+    /**
+     * Stops listening to removed bodies
+     *
+     * @param engine engine the system was removed from
+     */
+    @Override
+    public void removedFromEngine(Engine engine) {
+        engine.removeEntityListener(this);
+    }
+
+    /**
+     * Updates the walls around the player, then moves the player and steps the world as many
+     * fixed steps as the frame time allows. Walls hit during the steps are told to the listener
+     * once after stepping
+     *
+     * @param delta time since last frame
+     */
+    @Override
+    public void update(float delta) {
+        Player player = players.get(playerEntities.first()).player;
+        if (chunks != null) {
+            chunks.update(player.getPosition());
+        }
+        steps = timestep.update(delta, world, player);
+        if (impacts.getHits() > 0) {
+            listener.wallHit(impacts.getMaxImpulse());
+            impacts.clear();
+        }
+    }
+
+    @Override
+    public void entityAdded(Entity entity) {
+    }
+
+    /**
+     * Destroys the body of a removed entity
+     *
+     * @param entity the removed entity
+     */
+    @Override
+    public void entityRemoved(Entity entity) {
+        world.destroyBody(bodies.get(entity).body);
+    }
+
+    /**
+     * Getter for how many steps the last update took
+     *
+     * @return amount of steps
+     */
+    public int getSteps() {
+        return steps;
+    }
+
+    /**
+     * Setter for the timestep used for stepping the world
+     *
+     * @param timestep step rate and Box2D iterations to use
+     */
+    public void setTimestep(FixedTimestep timestep) {
+        this.timestep = timestep;
+    }
+
+    /**
+     * Getter for the wall chunks of a big level
+     *
+     * @return the chunks, null if all the walls are in the world
+     */
+    public WorldChunks getChunks() {
+        return chunks;
+    }
+}
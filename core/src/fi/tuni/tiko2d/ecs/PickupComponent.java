@@ -0,0 +1,11 @@
+package fi.tuni.tiko2d.ecs;
+
+import com.badlogic.ashley.core.Component;
+
+/**
+ * Marks a good object the player collects. Every pickup has to be collected before the goal opens
+ *
+ * @author Heikki Kangas
+ */
+public class PickupComponent implements Component {
+}
@@ -0,0 +1,23 @@
+package fi.tuni.tiko2d.ecs;
+
+import com.badlogic.ashley.core.Component;
+
+import fi.tuni.tiko2d.Player;
+
+/**
+ * The player rolling in the maze, moved by its input on every physics step
+ *
+ * @author Heikki Kangas
+ */
+public class PlayerComponent implements Component {
+    public Player player;
+
+    /**
+     * Creates the component
+     *
+     * @param player the player
+     */
+    public PlayerComponent(Player player) {
+        this.player = player;
+    }
+}
@@ -0,0 +1,69 @@
+package fi.tuni.tiko2d.ecs;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Engine;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.EntitySystem;
+import com.badlogic.ashley.core.Family;
+import com.badlogic.ashley.utils.ImmutableArray;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+
+/**
+ * Draws the ghosts and the players of the maze on top of the tilemap, ghosts below the players.
+ * Pickups, hazards and the goal are tiles of the tilemap, which is drawn before this system
+ *
+ * @author Heikki Kangas
+ */
+public class RenderSystem extends EntitySystem {
+    private static final Family PLAYERS = Family.all(PlayerComponent.class).get();
+    private static final Family GHOSTS = Family.all(GhostComponent.class).get();
+
+    private ComponentMapper<PlayerComponent> players = ComponentMapper.getFor(PlayerComponent.class);
+    private ComponentMapper<GhostComponent> ghosts = ComponentMapper.getFor(GhostComponent.class);
+    private ImmutableArray<Entity> playerEntities;
+    private ImmutableArray<Entity> ghostEntities;
+    private SpriteBatch batch;
+    private OrthographicCamera camera;
+
+    /**
+     * Creates the system
+     *
+     * @param batch  batch to draw with
+     * @param camera camera following the player
+     */
+    public RenderSystem(SpriteBatch batch, OrthographicCamera camera) {
+        super(2);
+        this.batch = batch;
+        this.camera = camera;
+    }
+
+    /**
+     * Finds the players and ghosts to draw
+     *
+     * @param engine engine the system was added to
+     */
+    @Override
+    public void addedToEngine(Engine engine) {
+        playerEntities = engine.getEntitiesFor(PLAYERS);
+        ghostEntities = engine.getEntitiesFor(GHOSTS);
+    }
+
+    /**
+     * Draws every ghost and player with the camera's projection
+     *
+     * @param delta time since last frame
+     */
+    @Override
+    public void update(float delta) {
+        batch.setProjectionMatrix(camera.combined);
+        batch.begin();
+        for (int i = 0; i < ghostEntities.size(); i++) {
+            ghosts.get(ghostEntities.get(i)).ghost.draw(batch);
+        }
+        for (int i = 0; i < playerEntities.size(); i++) {
+            players.get(playerEntities.get(i)).player.draw(batch, delta);
+        }
+        batch.end();
+    }
+}
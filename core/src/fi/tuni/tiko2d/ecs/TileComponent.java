@@ -0,0 +1,28 @@
+package fi.tuni.tiko2d.ecs;
+
+import com.badlogic.ashley.core.Component;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+
+/**
+ * Tile showing the entity on the tilemap, cleared when the entity is removed from the engine
+ *
+ * @author Heikki Kangas
+ */
+public class TileComponent implements Component {
+    public TiledMapTileLayer layer;
+    public int x;
+    public int y;
+
+    /**
+     * Creates the component
+     *
+     * @param layer layer of the tile
+     * @param x     column of the tile
+     * @param y     row of the tile
+     */
+    public TileComponent(TiledMapTileLayer layer, int x, int y) {
+        this.layer = layer;
+        this.x = x;
+        this.y = y;
+    }
+}
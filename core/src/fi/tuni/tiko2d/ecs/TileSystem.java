@@ -0,0 +1,55 @@
+package fi.tuni.tiko2d.ecs;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Engine;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.EntityListener;
+import com.badlogic.ashley.core.EntitySystem;
+import com.badlogic.ashley.core.Family;
+
+/**
+ * Clears the tile of an entity from the tilemap when the entity is removed from the engine,
+ * for example when a pickup is collected. Does nothing on update
+ *
+ * @author Heikki Kangas
+ */
+public class TileSystem extends EntitySystem implements EntityListener {
+    private static final Family TILES = Family.all(TileComponent.class).get();
+
+    private ComponentMapper<TileComponent> tiles = ComponentMapper.getFor(TileComponent.class);
+
+    /**
+     * Starts listening to removed tiles
+     *
+     * @param engine engine the system was added to
+     */
+    @Override
+    public void addedToEngine(Engine engine) {
+        engine.addEntityListener(TILES, this);
+    }
+
+    /**
+     * Stops listening to removed tiles
+     *
+     * @param engine engine the system was removed from
+     */
+    @Override
+    public void removedFromEngine(Engine engine) {
+        engine.removeEntityListener(this);
+    }
+
+    @Override
+    public void entityAdded(Entity entity) {
+    }
+
+    /**
+     * Clears the tile of a removed entity
+     *
+     * @param entity the removed entity
+     */
+    @Override
+    public void entityRemoved(Entity entity) {
+        TileComponent tile = tiles.get(entity);
+        tile.layer.setCell(tile.x, tile.y, null);
+    }
+}
@@ -4,7 +4,11 @@ import com.badlogic.gdx.Graphics;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
 
+import java.io.File;
+import java.util.Arrays;
+
 import fi.tuni.tiko2d.RaccoonRoll;
+import fi.tuni.tiko2d.SoakTest;
 
 
 
@@ -33,7 +37,22 @@ public class DesktopLauncher {
             config.height = getHeight(aspectRatio, width);
         }
 
-		new LwjglApplication(new RaccoonRoll(), config);
+		// "-soak hours [level...]" starts a soak test, a replay file given as the first argument
+		// is played back instead of showing the main menu
+		RaccoonRoll game;
+		if (arg.length > 1 && arg[0].equals("-soak")) {
+			String[] levels = Arrays.copyOfRange(arg, 2, arg.length);
+			game = new RaccoonRoll(new SoakTest(Float.parseFloat(arg[1]), levels));
+		} else {
+			String replayFile = null;
+			if (arg.length > 0) {
+				replayFile = new File(arg[0]).getAbsolutePath();
+			}
+			game = new RaccoonRoll(replayFile);
+		}
+		// Set with -Dleaderboard.url, gradlew desktop:run points it at the headless stand-in server
+		game.setLeaderboardUrl(System.getProperty("leaderboard.url"));
+		new LwjglApplication(game, config);
 	}
 
     /**
@@ -0,0 +1,262 @@
+package fi.tuni.tiko2d.headless;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.scenes.scene2d.ui.Table;
+import com.badlogic.gdx.utils.I18NBundle;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+import fi.tuni.tiko2d.CompiledLevel;
+import fi.tuni.tiko2d.HudLabel;
+import fi.tuni.tiko2d.ImpactCollector;
+import fi.tuni.tiko2d.MazeSimulation;
+import fi.tuni.tiko2d.Options;
+import fi.tuni.tiko2d.Player;
+import fi.tuni.tiko2d.RaccoonRoll;
+import fi.tuni.tiko2d.SoundEvents;
+
+/**
+ * Checks that the maze loop does not allocate once it is running. Every level is played with
+ * scripted input that rolls the player around hitting walls and objects, and after warming up
+ * the bytes allocated by the thread during the measured frames are counted with the HotSpot
+ * ThreadMXBean. The events of the maze are posted to {@link SoundEvents} with the headless
+ * backend's silent sounds and dispatched every frame like the maze screen does. The HUD's
+ * {@link HudLabel}s are updated and laid out in a table every frame with the default font.
+ * Run it with -Xint: the JIT removes some allocations Android's runtime would make and its
+ * deoptimizations add a few bytes of its own now and then, the interpreter counts exactly what
+ * the code allocates. Exits with 1 if a steady state frame allocates, so it can be run on CI.
+ * Usage: AllocationCheck [-frames n] [level...]
+ *
+ * @author Heikki Kangas
+ */
+public class AllocationCheck implements MazeSimulation.Listener {
+    /**
+     * Levels checked when none are given, the generated one streams its walls by chunk
+     */
+    public static final String[] LEVELS = {"tutorial", "london", "alexandria", "generated-300-1"};
+
+    private static final float DELTA = 1 / 60f;
+    private static final int WARMUP_FRAMES = 600;
+    private static final float PUSH_TIME = 1.3f;
+    private static final float PUSH_FORCE = 30f;
+
+    private com.sun.management.ThreadMXBean threads;
+    private long threadId;
+    private long overhead;
+    private SoundEvents sounds;
+    private SoundEvents.Channel wallHitSound;
+    private SoundEvents.Channel goodSound;
+    private SoundEvents.Channel badSound;
+    private SoundEvents.Channel victorySound;
+
+    /**
+     * Creates the check for the calling thread
+     */
+    private AllocationCheck() {
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threads.setThreadAllocatedMemoryEnabled(true);
+        threadId = Thread.currentThread().getId();
+        // Bytes counted by reading the counter twice in a row, subtracted from every measurement
+        overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 100; i++) {
+            overhead = Math.min(overhead, -allocatedBytes() + allocatedBytes());
+        }
+        createSounds();
+    }
+
+    /**
+     * Creates the sound channels with the same settings as the maze screen
+     */
+    private void createSounds() {
+        sounds = new SoundEvents(new Options(), 4);
+        Sound[] wallHitSounds = new Sound[5];
+        for (int i = 0; i < wallHitSounds.length; i++) {
+            wallHitSounds[i] = Gdx.audio.newSound(Gdx.files.internal("sounds/wallHit/WALL_HIT_0" + (i + 1) + ".mp3"));
+        }
+        wallHitSound = sounds.addChannel(0.1f, 0.4f, 0, wallHitSounds);
+        goodSound = sounds.addChannel(0.05f, 1.8f, 1, Gdx.audio.newSound(Gdx.files.internal("sounds/goodObject/GOOD_01.mp3")));
+        badSound = sounds.addChannel(0.1f, 0.45f, 1, Gdx.audio.newSound(Gdx.files.internal("sounds/badObject/BAD_01.mp3")));
+        victorySound = sounds.addChannel(0, 2.1f, 2, Gdx.audio.newSound(Gdx.files.internal("sounds/victory/VICTORY_01.mp3")));
+    }
+
+    public static void main(String[] arg) {
+        HeadlessEnvironment.init();
+        int frames = 3000;
+        ArrayList<String> levels = new ArrayList<String>();
+        for (int i = 0; i < arg.length; i++) {
+            if (arg[i].equals("-frames")) {
+                frames = Integer.parseInt(arg[++i]);
+            } else {
+                levels.add(arg[i]);
+            }
+        }
+        if (levels.isEmpty()) {
+            for (String levelName : LEVELS) {
+                levels.add(levelName);
+            }
+        }
+
+        AllocationCheck check = new AllocationCheck();
+        RaccoonRoll game = new RaccoonRoll();
+        int failures = 0;
+        for (String levelName : levels) {
+            if (!check.checkLevel(game, levelName, frames)) {
+                failures++;
+            }
+        }
+        if (!check.checkHud(game, frames)) {
+            failures++;
+        }
+
+        if (failures > 0) {
+            Gdx.app.error("AllocationCheck", failures + " check(s) allocated in steady state");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Bytes allocated by the thread so far
+     */
+    private long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(threadId);
+    }
+
+    /**
+     * Plays a level twice with the same scripted input and measures the second run, the first
+     * one loads the classes and fills the caches used when objects are collected and hit
+     *
+     * @return true if the measured frames did not allocate
+     */
+    private boolean checkLevel(RaccoonRoll game, String levelName, int frames) {
+        play(game, levelName, frames, false);
+        long allocated = play(game, levelName, frames, true);
+        return report(levelName, allocated, frames);
+    }
+
+    /**
+     * Plays a level with the scripted input
+     *
+     * @param measure true to count the bytes allocated after the first frames
+     * @return bytes allocated during the measured frames
+     */
+    private long play(RaccoonRoll game, String levelName, int frames, boolean measure) {
+        CompiledLevel level = HeadlessEnvironment.loadCompiledLevel(levelName);
+        TiledMap tiledMap = level.getTiledMap();
+        Player player = new Player(game);
+        player.setInput(createInput(WARMUP_FRAMES + frames));
+        MazeSimulation simulation = new MazeSimulation(game, tiledMap, level.getLevelData(), player, this);
+
+        // The first frames create the contacts and chunks around the start position
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            simulation.update(DELTA);
+            simulation.step(DELTA);
+            sounds.dispatch(DELTA);
+        }
+        long start = allocatedBytes();
+        for (int i = 0; i < frames; i++) {
+            simulation.update(DELTA);
+            simulation.step(DELTA);
+            sounds.dispatch(DELTA);
+        }
+        long allocated = allocatedBytes() - start - overhead;
+
+        simulation.dispose();
+        tiledMap.dispose();
+        return measure ? allocated : 0;
+    }
+
+    /**
+     * Updates and lays out the HUD labels like the maze screen does every frame
+     *
+     * @return true if updating the labels did not allocate
+     */
+    private boolean checkHud(RaccoonRoll game, int frames) {
+        BitmapFont font = new BitmapFont();
+        Label.LabelStyle style = new Label.LabelStyle(font, Color.WHITE);
+        I18NBundle mazeBundle = I18NBundle.createBundle(Gdx.files.internal("localization/MazeBundle"));
+        HudLabel timeSpent = new HudLabel(game, mazeBundle.get("time"), style);
+        HudLabel objectsLeft = new HudLabel(game, mazeBundle.get("goodObjectsRemaining"), style);
+        Table table = new Table();
+        table.setSize(1000, 560);
+        table.top();
+        table.add(timeSpent).left().top().width(160);
+        table.add(objectsLeft).top().expandX();
+
+        updateHud(timeSpent, objectsLeft, table, 0, WARMUP_FRAMES);
+        long allocated = updateHud(timeSpent, objectsLeft, table, WARMUP_FRAMES, frames);
+        font.dispose();
+        return report("HUD", allocated, frames);
+    }
+
+    /**
+     * Shows the time and a counter of the given frames on the labels and lays out the table
+     * like the stage does before drawing
+     *
+     * @return bytes allocated while updating the labels
+     */
+    private long updateHud(HudLabel timeSpent, HudLabel objectsLeft, Table table, int firstFrame, int frames) {
+        long start = allocatedBytes();
+        for (int frame = firstFrame; frame < firstFrame + frames; frame++) {
+            timeSpent.showTime(frame * DELTA);
+            // One object collected every two seconds
+            objectsLeft.showAmount(100 - frame / 120 % 100);
+            table.validate();
+        }
+        return allocatedBytes() - start - overhead;
+    }
+
+    /**
+     * Logs the allocated bytes per frame
+     *
+     * @return true if nothing was allocated
+     */
+    private boolean report(String name, long allocated, int frames) {
+        if (allocated > 0) {
+            Gdx.app.error(name, String.format("%d bytes in %d frames, %.1f bytes per frame", allocated,
+                    frames, (float) allocated / frames));
+            return false;
+        }
+        Gdx.app.log(name, "No allocations in " + frames + " frames");
+        return true;
+    }
+
+    /**
+     * Creates input that pushes the player around in a square so it keeps hitting walls
+     */
+    private static ScriptedInput createInput(int frames) {
+        ScriptedInput input = new ScriptedInput();
+        float[][] directions = {{1, 0}, {0, 1}, {-1, 0}, {0, -1}, {1, 1}, {-1, -1}};
+        for (int i = 0; i * PUSH_TIME < frames * DELTA + PUSH_TIME; i++) {
+            float[] direction = directions[i % directions.length];
+            input.addStep(PUSH_TIME, direction[0] * PUSH_FORCE, direction[1] * PUSH_FORCE);
+        }
+        return input;
+    }
+
+    @Override
+    public void goodObjectCollected(Rectangle rectangle) {
+        sounds.post(goodSound, 1);
+    }
+
+    @Override
+    public void badObjectHit(Rectangle rectangle) {
+        sounds.post(badSound, 1);
+    }
+
+    @Override
+    public void goalReached() {
+        sounds.post(victorySound, 1);
+    }
+
+    @Override
+    public void wallHit(float impulse) {
+        sounds.post(wallHitSound, ImpactCollector.getVolume(impulse));
+    }
+}
@@ -0,0 +1,66 @@
+package fi.tuni.tiko2d.headless;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.tools.texturepacker.TexturePacker;
+
+import java.io.File;
+
+/**
+ * Packs every folder of images/ to a texture atlas under assets/atlases so each screen draws
+ * its images from as few textures as possible.
+ * Usage: AtlasPacker [imagesFolder] [atlasFolder]
+ *
+ * @author Heikki Kangas
+ */
+public class AtlasPacker {
+    /**
+     * Biggest texture size supported by all the devices the game runs on
+     */
+    public static final int MAX_TEXTURE_SIZE = 2048;
+
+    /**
+     * Empty private constructor to hide the public one
+     */
+    private AtlasPacker() {
+    }
+
+    /**
+     * Creates packer settings used for the menu atlases and the level tilesets.
+     * Images are not rotated or trimmed so regions have the same size as the original images
+     *
+     * @return the settings
+     */
+    public static TexturePacker.Settings getSettings() {
+        TexturePacker.Settings settings = new TexturePacker.Settings();
+        settings.maxWidth = MAX_TEXTURE_SIZE;
+        settings.maxHeight = MAX_TEXTURE_SIZE;
+        settings.pot = false;
+        settings.rotation = false;
+        settings.stripWhitespaceX = false;
+        settings.stripWhitespaceY = false;
+        settings.paddingX = 2;
+        settings.paddingY = 2;
+        settings.duplicatePadding = true;
+        settings.filterMin = Texture.TextureFilter.Nearest;
+        settings.filterMag = Texture.TextureFilter.Nearest;
+        settings.useIndexes = false;
+        return settings;
+    }
+
+    public static void main(String[] arg) {
+        File imagesFolder = new File(arg.length > 0 ? arg[0] : "../../images");
+        File atlasFolder = new File(arg.length > 1 ? arg[1] : "atlases");
+        File[] folders = imagesFolder.listFiles();
+        if (folders == null) {
+            throw new IllegalArgumentException("No images in " + imagesFolder.getAbsolutePath());
+        }
+
+        for (File folder : folders) {
+            if (folder.isDirectory()) {
+                TexturePacker.process(getSettings(), folder.getPath(), atlasFolder.getPath(), folder.getName());
+                System.out.println(folder.getName() + ": packed to " + atlasFolder.getPath() + "/"
+                        + folder.getName() + ".atlas");
+            }
+        }
+    }
+}
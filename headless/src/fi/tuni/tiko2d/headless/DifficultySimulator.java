@@ -0,0 +1,295 @@
+package fi.tuni.tiko2d.headless;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+import com.badlogic.gdx.utils.async.AsyncTask;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Locale;
+
+import fi.tuni.tiko2d.LevelData;
+import fi.tuni.tiko2d.MazeSimulation;
+import fi.tuni.tiko2d.NavigationGrid;
+import fi.tuni.tiko2d.Player;
+import fi.tuni.tiko2d.RaccoonRoll;
+import fi.tuni.tiko2d.RouteBot;
+
+/**
+ * Plays every level many times with {@link RouteBot}s of random skill on all the CPU cores and
+ * prints the distribution of the completion times and how often the bots hit walls and bad
+ * objects. Each bot gets a random force, speed limit and steering noise, so the spread of the
+ * times tells how forgiving a level is and the bad object hits where its hazards are placed.
+ * Runs are split to one batch per core for every level and each batch has its own navigation
+ * grid for planning new routes. Runs that have not reached the goal in {@link #MAX_TIME} are
+ * counted as failed.
+ * Usage: DifficultySimulator [-runs n] [-csv file] [level...]
+ *
+ * @author Heikki Kangas
+ */
+public class DifficultySimulator {
+    /**
+     * Simulated seconds after which a run is given up
+     */
+    public static final float MAX_TIME = 1200f;
+
+    private static final float DELTA = 1 / 60f;
+
+    /**
+     * Empty private constructor to hide the public one
+     */
+    private DifficultySimulator() {
+    }
+
+    public static void main(String[] arg) {
+        HeadlessEnvironment.init();
+        int runs = 200;
+        String csvFile = null;
+        ArrayList<String> levels = new ArrayList<String>();
+        for (int i = 0; i < arg.length; i++) {
+            if (arg[i].equals("-runs")) {
+                runs = Integer.parseInt(arg[++i]);
+            } else if (arg[i].equals("-csv")) {
+                csvFile = arg[++i];
+            } else {
+                levels.add(arg[i]);
+            }
+        }
+        if (levels.isEmpty()) {
+            for (String levelName : HeadlessEnvironment.LEVELS) {
+                levels.add(levelName);
+            }
+        }
+
+        RaccoonRoll game = new RaccoonRoll();
+        int threads = Runtime.getRuntime().availableProcessors();
+        AsyncExecutor executor = new AsyncExecutor(threads);
+        Array<Run> allRuns = new Array<Run>();
+        long start = System.nanoTime();
+
+        for (String levelName : levels) {
+            LevelData levelData = HeadlessEnvironment.loadCompiledLevel(levelName).getLevelData();
+            NavigationGrid grid = createGrid(game, levelData);
+            FloatArray path = RouteBot.planPath(grid, levelData, getObjectRadius(game));
+            if (path.size == 0) {
+                Gdx.app.error(levelName, "Goal can't be reached, run LevelValidator");
+                continue;
+            }
+
+            // Ashley registers component types and families in static maps that are not thread
+            // safe, one simulation built here registers them all so the batches only read the maps
+            new Batch(game, levelName, levelData, path, 0, 0).simulate(grid, 0, DELTA);
+
+            Array<AsyncResult<Array<Run>>> batches = new Array<AsyncResult<Array<Run>>>();
+            for (int i = 0; i < threads; i++) {
+                int first = runs * i / threads;
+                int last = runs * (i + 1) / threads;
+                batches.add(executor.submit(new Batch(game, levelName, levelData, path, first, last)));
+            }
+            Array<Run> levelRuns = new Array<Run>(runs);
+            for (AsyncResult<Array<Run>> batch : batches) {
+                levelRuns.addAll(batch.get());
+            }
+            printSummary(game, levelName, levelRuns);
+            allRuns.addAll(levelRuns);
+        }
+        executor.dispose();
+
+        float seconds = (System.nanoTime() - start) / 1000000000f;
+        Gdx.app.log("DifficultySimulator", String.format("%d runs on %d threads in %.1f s, %d runs per minute",
+                allRuns.size, threads, seconds, (int) (allRuns.size / seconds * 60)));
+        if (csvFile != null) {
+            writeCsv(Gdx.files.absolute(csvFile), allRuns);
+        }
+    }
+
+    /**
+     * Creates the navigation grid used for planning the routes of a level
+     */
+    private static NavigationGrid createGrid(RaccoonRoll game, LevelData levelData) {
+        float objectRadius = getObjectRadius(game);
+        return new NavigationGrid(levelData, objectRadius * 0.9f, objectRadius,
+                levelData.getTileSize() * game.getScale(),
+                LevelValidator.BAD_OBJECT_PENALTY * LevelValidator.PAR_SPEED);
+    }
+
+    /**
+     * Radius of the player used for overlapping objects
+     */
+    private static float getObjectRadius(RaccoonRoll game) {
+        return 48 * game.getScale();
+    }
+
+    /**
+     * Logs the completion rate, time percentiles and average hits of a level's runs
+     */
+    private static void printSummary(RaccoonRoll game, String levelName, Array<Run> runs) {
+        FloatArray times = new FloatArray(runs.size);
+        float wallHits = 0;
+        float badHits = 0;
+        float replans = 0;
+        for (Run run : runs) {
+            if (run.completed) {
+                times.add(run.time);
+            }
+            wallHits += run.wallHits;
+            badHits += run.badObjectHits;
+            replans += run.replans;
+        }
+        times.sort();
+
+        String timeText = times.size == 0 ? "no completed runs" : String.format("time min %s p10 %s median %s p90 %s max %s",
+                game.formatTime(times.first()), game.formatTime(percentile(times, 0.1f)),
+                game.formatTime(percentile(times, 0.5f)), game.formatTime(percentile(times, 0.9f)),
+                game.formatTime(times.peek()));
+        Gdx.app.log(levelName, String.format("%d/%d completed, %s, per run %.1f wall hits, %.2f bad objects, %.2f replans",
+                times.size, runs.size, timeText, wallHits / runs.size, badHits / runs.size, replans / runs.size));
+    }
+
+    /**
+     * Picks a value from sorted values
+     *
+     * @return the value at the given fraction of the values
+     */
+    private static float percentile(FloatArray sorted, float fraction) {
+        return sorted.get(MathUtils.clamp((int) (fraction * sorted.size), 0, sorted.size - 1));
+    }
+
+    /**
+     * Writes one line per run with the bot's skill and the results
+     */
+    private static void writeCsv(FileHandle file, Array<Run> runs) {
+        Writer writer = file.writer(false, "UTF-8");
+        try {
+            writer.write("level,seed,maxForce,speedLimit,noise,completed,time,wallHits,badObjects,replans\n");
+            for (Run run : runs) {
+                writer.write(String.format(Locale.ROOT, "%s,%d,%.2f,%.2f,%.3f,%b,%.2f,%d,%d,%d%n", run.levelName, run.seed,
+                        run.maxForce, run.speedLimit, run.noise, run.completed, run.time, run.wallHits,
+                        run.badObjectHits, run.replans));
+            }
+            writer.close();
+        } catch (IOException e) {
+            Gdx.app.error("DifficultySimulator", "Couldn't write " + file.path(), e);
+        }
+    }
+
+    /**
+     * Result of one simulated run
+     */
+    private static class Run {
+        private String levelName;
+        private long seed;
+        private float maxForce;
+        private float speedLimit;
+        private float noise;
+        private boolean completed;
+        private float time;
+        private int wallHits;
+        private int badObjectHits;
+        private int replans;
+    }
+
+    /**
+     * Simulates a range of runs of one level on one thread
+     */
+    private static class Batch implements AsyncTask<Array<Run>>, MazeSimulation.Listener {
+        private RaccoonRoll game;
+        private String levelName;
+        private LevelData levelData;
+        private FloatArray path;
+        private int first;
+        private int last;
+        private Run run;
+
+        /**
+         * Creates the batch
+         *
+         * @param game      main game class for scaling
+         * @param levelName name of the level
+         * @param levelData game play data of the level, shared by the batches and only read
+         * @param path      route from the start, shared by the batches and only read
+         * @param first     index of the first run, also the seed of its bot
+         * @param last      index after the last run
+         */
+        Batch(RaccoonRoll game, String levelName, LevelData levelData, FloatArray path, int first, int last) {
+            this.game = game;
+            this.levelName = levelName;
+            this.levelData = levelData;
+            this.path = path;
+            this.first = first;
+            this.last = last;
+        }
+
+        /**
+         * Simulates the runs of the batch
+         *
+         * @return results of the runs
+         */
+        @Override
+        public Array<Run> call() {
+            NavigationGrid grid = createGrid(game, levelData);
+            Array<Run> runs = new Array<Run>(last - first);
+            for (int i = first; i < last; i++) {
+                runs.add(simulate(grid, i, MAX_TIME));
+            }
+            return runs;
+        }
+
+        /**
+         * Plays the level once with a bot of random skill until the goal or the time limit
+         *
+         * @param maxTime simulated seconds after which the run is given up
+         */
+        private Run simulate(NavigationGrid grid, long seed, float maxTime) {
+            RandomXS128 random = new RandomXS128(seed);
+            run = new Run();
+            run.levelName = levelName;
+            run.seed = seed;
+            run.maxForce = RouteBot.KEYBOARD_FORCE * (0.6f + 0.4f * random.nextFloat());
+            run.speedLimit = 2.5f + 2.5f * random.nextFloat();
+            run.noise = 0.6f * random.nextFloat();
+
+            Player player = new Player(game);
+            MazeSimulation simulation = new MazeSimulation(game, null, levelData, player, this);
+            RouteBot bot = new RouteBot(simulation, levelData, grid, getObjectRadius(game), path,
+                    run.maxForce, run.speedLimit, run.noise, random);
+            player.setInput(bot);
+
+            while (!simulation.isGoalReached() && simulation.getTimeSpent() < maxTime) {
+                simulation.update(DELTA);
+                simulation.step(DELTA);
+            }
+            run.completed = simulation.isGoalReached();
+            run.time = simulation.getTimeSpent();
+            run.replans = bot.getReplans();
+            simulation.dispose();
+            return run;
+        }
+
+        @Override
+        public void goodObjectCollected(Rectangle rectangle) {
+        }
+
+        @Override
+        public void badObjectHit(Rectangle rectangle) {
+            run.badObjectHits++;
+        }
+
+        @Override
+        public void goalReached() {
+        }
+
+        @Override
+        public void wallHit(float impulse) {
+            run.wallHits++;
+        }
+    }
+}
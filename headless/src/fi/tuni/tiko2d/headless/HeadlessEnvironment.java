@@ -0,0 +1,114 @@
+package fi.tuni.tiko2d.headless;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+import fi.tuni.tiko2d.CompiledLevel;
+import fi.tuni.tiko2d.MazeGenerator;
+import fi.tuni.tiko2d.RaccoonRoll;
+import fi.tuni.tiko2d.TiledMapUtil;
+
+/**
+ * Sets up the libGDX statics for code that runs outside an application listener, for example
+ * benchmarks and command line tools
+ *
+ * @author Heikki Kangas
+ */
+public class HeadlessEnvironment {
+    /**
+     * Names of all the levels under tilemaps/
+     */
+    public static final String[] LEVELS = {
+            "tutorial",
+            "london", "manchester",
+            "paris", "marseille",
+            "kairo", "alexandria",
+            "newyork", "philadelphia",
+            "anadyr", "egvekinot",
+            "peking", "shanghai"
+    };
+
+    /**
+     * Prefix of the names of generated levels
+     */
+    public static final String GENERATED = "generated-";
+
+    /**
+     * Empty private constructor to hide the public one
+     */
+    private HeadlessEnvironment() {
+    }
+
+    /**
+     * Creates a headless application that does nothing so Gdx.app, Gdx.files etc. are set,
+     * loads the natives and installs {@link NoOpGL}. Does nothing if already initialized
+     */
+    public static synchronized void init() {
+        if (Gdx.app != null) {
+            return;
+        }
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        config.renderInterval = -1;
+        new HeadlessApplication(new ApplicationAdapter() {
+        }, config);
+        NoOpGL.install();
+    }
+
+    /**
+     * Loads the maze of the given level, or generates it if the name is {@link #GENERATED}
+     * followed by the size of the maze in tiles and optionally the seed, for example generated-1000-7
+     *
+     * @param levelName name of the level under tilemaps/
+     * @return the loaded map
+     */
+    public static TiledMap loadLevel(String levelName) {
+        if (levelName.startsWith(GENERATED)) {
+            return generateLevel(levelName);
+        }
+        return new TmxMapLoader().load("tilemaps/" + levelName + "/maze.tmx");
+    }
+
+    /**
+     * Loads the compiled level, or maze.tmx if the level has not been compiled, with the level data.
+     * Generated levels are generated like in {@link #loadLevel(String)}
+     *
+     * @param levelName name of the level under tilemaps/
+     * @return the loaded level
+     */
+    public static CompiledLevel loadCompiledLevel(String levelName) {
+        TiledMapUtil tiledMapUtil = new TiledMapUtil(new RaccoonRoll());
+        if (levelName.startsWith(GENERATED)) {
+            TiledMap tiledMap = generateLevel(levelName);
+            return new CompiledLevel(tiledMap, tiledMapUtil.getLevelData(tiledMap));
+        }
+        return CompiledLevel.loadLevel(levelName, tiledMapUtil, Texture.TextureFilter.Nearest);
+    }
+
+    /**
+     * Generates a square maze with the tiles of the tutorial, the textures are owned by the map
+     *
+     * @param levelName generated-size or generated-size-seed
+     * @return the generated map
+     */
+    private static TiledMap generateLevel(String levelName) {
+        String[] parts = levelName.split("-");
+        int size = Integer.parseInt(parts[1]);
+        long seed = parts.length > 2 ? Long.parseLong(parts[2]) : 1;
+
+        Array<Disposable> textures = new Array<Disposable>();
+        Texture tileSet = new Texture("tilemaps/tutorial/tileset.png");
+        Texture goodObjects = new Texture("tilemaps/good_objects.png");
+        Texture badObjects = new Texture("tilemaps/bad_objects.png");
+        textures.addAll(tileSet, goodObjects, badObjects);
+        TiledMap tiledMap = new MazeGenerator(tileSet, goodObjects, badObjects).generate(size, size, seed);
+        tiledMap.setOwnedResources(textures);
+        return tiledMap;
+    }
+}
@@ -0,0 +1,153 @@
+package fi.tuni.tiko2d.headless;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.math.Rectangle;
+
+import fi.tuni.tiko2d.CompiledLevel;
+import fi.tuni.tiko2d.MazeSimulation;
+import fi.tuni.tiko2d.Player;
+import fi.tuni.tiko2d.RaccoonRoll;
+import fi.tuni.tiko2d.Replay;
+
+/**
+ * Runs a maze without graphics or audio using scripted input or a recorded run.
+ * A script ending with .replay is played back with its recorded frame times, then the level and
+ * frames arguments are ignored.
+ * Usage: HeadlessLauncher level [frames] [script]
+ *
+ * @author Heikki Kangas
+ */
+public class HeadlessLauncher extends ApplicationAdapter implements MazeSimulation.Listener {
+    private final float delta = 1 / 60f;
+    private String levelName;
+    private int frames;
+    private String scriptFile;
+
+    private int goodObjectsCollected;
+    private int badObjectsHit;
+    private int wallHits;
+    private float hardestWallHit;
+
+    public static void main(String[] arg) {
+        if (arg.length == 0) {
+            System.out.println("Usage: HeadlessLauncher level [frames] [script|replay]");
+            return;
+        }
+        int frames = 10000;
+        if (arg.length > 1) {
+            frames = Integer.parseInt(arg[1]);
+        }
+        String script = null;
+        if (arg.length > 2) {
+            script = arg[2];
+        }
+
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        // The simulation runs in create(), rendering is never needed
+        config.renderInterval = -1;
+        new HeadlessApplication(new HeadlessLauncher(arg[0], frames, script), config);
+    }
+
+    /**
+     * Creates the launcher
+     *
+     * @param levelName  name of the level under tilemaps/
+     * @param frames     maximum amount of frames to simulate
+     * @param scriptFile script file for {@link ScriptedInput}, null for no input
+     */
+    public HeadlessLauncher(String levelName, int frames, String scriptFile) {
+        this.levelName = levelName;
+        this.frames = frames;
+        this.scriptFile = scriptFile;
+    }
+
+    /**
+     * Loads the level and simulates it until goal is reached or all the frames have been run
+     */
+    @Override
+    public void create() {
+        NoOpGL.install();
+        RaccoonRoll game = new RaccoonRoll();
+
+        Replay replay = null;
+        if (scriptFile != null && scriptFile.endsWith(".replay")) {
+            replay = Replay.read(Gdx.files.absolute(scriptFile));
+            levelName = replay.getLevelName();
+            frames = replay.getFrameCount();
+        }
+
+        long loadStart = System.currentTimeMillis();
+        CompiledLevel level = HeadlessEnvironment.loadCompiledLevel(levelName);
+        TiledMap tiledMap = level.getTiledMap();
+        Player player = new Player(game);
+        if (replay != null) {
+            player.setInput(replay.createInput());
+        } else if (scriptFile != null) {
+            player.setInput(new ScriptedInput(Gdx.files.absolute(scriptFile)));
+        } else {
+            player.setInput(new ScriptedInput());
+        }
+        MazeSimulation simulation = new MazeSimulation(game, tiledMap, level.getLevelData(), player, this);
+        if (replay != null) {
+            simulation.setTimestep(replay.createTimestep());
+        }
+        long loadTime = System.currentTimeMillis() - loadStart;
+
+        long start = System.nanoTime();
+        int frame = 0;
+        while (frame < frames && (replay != null || !simulation.isGoalReached())) {
+            float frameDelta = replay != null ? replay.getFrameDelta(frame) : delta;
+            simulation.update(frameDelta);
+            int steps = simulation.step(frameDelta);
+            if (replay != null && steps != replay.getFrameSteps(frame)) {
+                Gdx.app.error("Replay", "Frame " + frame + " took " + steps + " steps instead of "
+                        + replay.getFrameSteps(frame));
+            }
+            frame++;
+        }
+        long time = System.nanoTime() - start;
+
+        Gdx.app.log("Level", levelName + " loaded in " + loadTime + "ms");
+        Gdx.app.log("Frames", frame + " in " + time / 1000000 + "ms, "
+                + (int) (frame / (time / 1000000000.0)) + " frames/s");
+        Gdx.app.log("Time spent", game.formatTime(simulation.getTimeSpent()));
+        Gdx.app.log("Good objects", goodObjectsCollected + " collected, "
+                + simulation.getGoodObjectsRemaining() + " remaining");
+        Gdx.app.log("Bad objects", "" + badObjectsHit);
+        Gdx.app.log("Wall hits", wallHits + ", hardest impulse " + hardestWallHit);
+        Gdx.app.log("Goal reached", "" + simulation.isGoalReached());
+        Gdx.app.log("Player position", "" + player.getPosition());
+        if (simulation.getChunks() != null) {
+            Gdx.app.log("Wall chunks", simulation.getChunks().getActiveChunkCount() + " active of "
+                    + simulation.getChunks().getChunkCount());
+        }
+
+        simulation.dispose();
+        tiledMap.dispose();
+        Gdx.app.exit();
+    }
+
+    @Override
+    public void goodObjectCollected(Rectangle rectangle) {
+        goodObjectsCollected++;
+    }
+
+    @Override
+    public void badObjectHit(Rectangle rectangle) {
+        badObjectsHit++;
+    }
+
+    @Override
+    public void goalReached() {
+    }
+
+    @Override
+    public void wallHit(float impulse) {
+        wallHits++;
+        hardestWallHit = Math.max(hardestWallHit, impulse);
+    }
+}
@@ -0,0 +1,247 @@
+package fi.tuni.tiko2d.headless;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.JsonWriter;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ObjectSet;
+import com.badlogic.gdx.utils.StreamUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.Comparator;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import fi.tuni.tiko2d.Leaderboard;
+
+/**
+ * Local stand-in for the leaderboard server used by {@link Leaderboard}, keeps the scores in
+ * memory only.
+ * POST /scores takes gzip compressed or plain JSON {"player": id, "scores": [{"id", "level",
+ * "time"}]}, ignores scores whose id it has already seen and keeps the best time of every player
+ * per level. GET /levels/name/top?count=n returns {"level", "scores": [{"player", "time"}]} with
+ * an ETag that changes when the level's times change, and 304 if the client has the list already.
+ * Failures and latency can be simulated to try the client's retries.
+ * Usage: LeaderboardServer [-port n] [-failRate fraction] [-latency ms]
+ *
+ * @author Heikki Kangas
+ */
+public class LeaderboardServer {
+    /**
+     * Port listened to when none is given
+     */
+    public static final int DEFAULT_PORT = 8080;
+
+    private static final String TOP_PATH = "/top";
+
+    private float failRate;
+    private int latency;
+    private ObjectSet<String> receivedIds;
+    private ObjectMap<String, ObjectMap<String, Float>> levelTimes;
+    private ObjectIntMap<String> levelVersions;
+
+    /**
+     * Creates the server with no scores
+     *
+     * @param failRate fraction of requests answered with 503 Service Unavailable
+     * @param latency  milliseconds every request is delayed
+     */
+    public LeaderboardServer(float failRate, int latency) {
+        this.failRate = failRate;
+        this.latency = latency;
+        receivedIds = new ObjectSet<String>();
+        levelTimes = new ObjectMap<String, ObjectMap<String, Float>>();
+        levelVersions = new ObjectIntMap<String>();
+    }
+
+    public static void main(String[] arg) throws IOException {
+        HeadlessEnvironment.init();
+        int port = DEFAULT_PORT;
+        float failRate = 0;
+        int latency = 0;
+        for (int i = 0; i < arg.length; i++) {
+            if (arg[i].equals("-port")) {
+                port = Integer.parseInt(arg[++i]);
+            } else if (arg[i].equals("-failRate")) {
+                failRate = Float.parseFloat(arg[++i]);
+            } else if (arg[i].equals("-latency")) {
+                latency = Integer.parseInt(arg[++i]);
+            }
+        }
+        new LeaderboardServer(failRate, latency).start(port);
+    }
+
+    /**
+     * Starts listening on a background thread
+     *
+     * @param port port to listen to
+     * @return the started server, stop it when done
+     * @throws IOException if the port can't be listened to
+     */
+    public HttpServer start(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    handleRequest(exchange);
+                } catch (RuntimeException e) {
+                    Gdx.app.error("LeaderboardServer", "Bad request " + exchange.getRequestURI(), e);
+                    respond(exchange, 400, null, null);
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+        Gdx.app.log("LeaderboardServer", String.format("Listening on port %d, failing %.0f %% of requests, "
+                + "latency %d ms", port, failRate * 100, latency));
+        return server;
+    }
+
+    /**
+     * Simulates latency and failures and passes the request to the right handler
+     */
+    private void handleRequest(HttpExchange exchange) throws IOException {
+        if (latency > 0) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException ignored) {
+            }
+        }
+        if (MathUtils.random() < failRate) {
+            respond(exchange, 503, null, null);
+            return;
+        }
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        if (method.equals("POST") && path.equals("/scores")) {
+            postScores(exchange);
+        } else if (method.equals("GET") && path.startsWith("/levels/") && path.endsWith(TOP_PATH)) {
+            getTopList(exchange, URLDecoder.decode(path.substring("/levels/".length(),
+                    path.length() - TOP_PATH.length()), "UTF-8"));
+        } else {
+            respond(exchange, 404, null, null);
+        }
+    }
+
+    /**
+     * Stores the new best times of a batch
+     */
+    private synchronized void postScores(HttpExchange exchange) throws IOException {
+        InputStream in = exchange.getRequestBody();
+        if ("gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            in = new GZIPInputStream(in);
+        }
+        JsonValue batch = new JsonReader().parse(in);
+        String player = batch.getString("player");
+        int accepted = 0;
+        for (JsonValue score = batch.get("scores").child; score != null; score = score.next) {
+            if (!receivedIds.add(score.getString("id"))) {
+                continue;
+            }
+            accepted++;
+            String levelName = score.getString("level");
+            float time = score.getFloat("time");
+            ObjectMap<String, Float> times = levelTimes.get(levelName);
+            if (times == null) {
+                times = new ObjectMap<String, Float>();
+                levelTimes.put(levelName, times);
+            }
+            Float best = times.get(player);
+            if (best == null || time < best) {
+                times.put(player, time);
+                levelVersions.getAndIncrement(levelName, 0, 1);
+            }
+        }
+        Gdx.app.log("LeaderboardServer", String.format("%d/%d scores from %s", accepted,
+                batch.get("scores").size, player));
+
+        StringWriter json = new StringWriter();
+        new JsonWriter(json).object().set("accepted", accepted).pop().close();
+        respond(exchange, 200, json.toString(), null);
+    }
+
+    /**
+     * Sends the best times of a level, or 304 if the client's ETag is current
+     */
+    private synchronized void getTopList(HttpExchange exchange, String levelName) throws IOException {
+        String etag = "\"" + levelName + "-" + levelVersions.get(levelName, 0) + "\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            respond(exchange, 304, null, null);
+            return;
+        }
+        int count = Leaderboard.TOP_LIST_SIZE;
+        String query = exchange.getRequestURI().getQuery();
+        if (query != null && query.startsWith("count=")) {
+            count = Integer.parseInt(query.substring("count=".length()));
+        }
+
+        Array<ObjectMap.Entry<String, Float>> scores = new Array<ObjectMap.Entry<String, Float>>();
+        ObjectMap<String, Float> times = levelTimes.get(levelName);
+        if (times != null) {
+            for (ObjectMap.Entry<String, Float> entry : times.entries()) {
+                ObjectMap.Entry<String, Float> copy = new ObjectMap.Entry<String, Float>();
+                copy.key = entry.key;
+                copy.value = entry.value;
+                scores.add(copy);
+            }
+        }
+        scores.sort(new Comparator<ObjectMap.Entry<String, Float>>() {
+            @Override
+            public int compare(ObjectMap.Entry<String, Float> a, ObjectMap.Entry<String, Float> b) {
+                return Float.compare(a.value, b.value);
+            }
+        });
+
+        StringWriter json = new StringWriter();
+        JsonWriter writer = new JsonWriter(json);
+        writer.object().set("level", levelName).array("scores");
+        for (int i = 0; i < Math.min(count, scores.size); i++) {
+            writer.object().set("player", scores.get(i).key).set("time", scores.get(i).value).pop();
+        }
+        writer.pop().pop().close();
+        respond(exchange, 200, json.toString(), exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+    }
+
+    /**
+     * Sends the response, gzip compressed if the client accepts it
+     *
+     * @param body           JSON to send, null for no body
+     * @param acceptEncoding Accept-Encoding header of the request
+     */
+    private void respond(HttpExchange exchange, int status, String body, String acceptEncoding) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = body.getBytes("UTF-8");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+            gzip.write(bytes);
+            gzip.close();
+            bytes = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(bytes);
+        StreamUtils.closeQuietly(out);
+    }
+}
@@ -0,0 +1,94 @@
+package fi.tuni.tiko2d.headless;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.tools.texturepacker.TexturePacker;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.imageio.ImageIO;
+
+import fi.tuni.tiko2d.CompiledLevel;
+import fi.tuni.tiko2d.LevelData;
+import fi.tuni.tiko2d.RaccoonRoll;
+import fi.tuni.tiko2d.TiledMapUtil;
+
+/**
+ * Compiles tilemaps/level/maze.tmx of every level to maze.bin next to it.
+ * Tileset images of the level are packed to maze.png so the level is drawn from one texture.
+ * Usage: LevelCompiler [level...]
+ *
+ * @author Heikki Kangas
+ */
+public class LevelCompiler {
+
+    /**
+     * Empty private constructor to hide the public one
+     */
+    private LevelCompiler() {
+    }
+
+    public static void main(String[] arg) {
+        HeadlessEnvironment.init();
+        TiledMapUtil tiledMapUtil = new TiledMapUtil(new RaccoonRoll());
+        String[] levels = arg.length > 0 ? arg : HeadlessEnvironment.LEVELS;
+
+        for (String levelName : levels) {
+            String folder = "tilemaps/" + levelName;
+            TiledMap tiledMap = HeadlessEnvironment.loadLevel(levelName);
+            LevelData levelData = tiledMapUtil.getLevelData(tiledMap);
+            TextureAtlas.TextureAtlasData tileSetAtlas = packTileSets(tiledMap, folder);
+            FileHandle file = Gdx.files.local(folder + "/maze.bin");
+            OutputStream output = file.write(false);
+            try {
+                CompiledLevel.write(tiledMap, levelData, folder, tileSetAtlas, output);
+            } catch (IOException e) {
+                throw new GdxRuntimeException("Couldn't write " + file.path(), e);
+            }
+            tiledMap.dispose();
+
+            Gdx.app.log(levelName, Gdx.files.local(folder + "/maze.tmx").length() + " bytes tmx, "
+                    + file.length() + " bytes compiled, " + tileSetAtlas.getPages().size
+                    + " tileset page(s)");
+        }
+    }
+
+    /**
+     * Packs the tileset images of the level to maze.png in the level folder.
+     * The atlas file is only needed for writing maze.bin so it is deleted afterwards
+     *
+     * @param tiledMap tilemap loaded from maze.tmx
+     * @param folder   level folder relative to assets
+     * @return the packed regions named by tileset image paths
+     */
+    private static TextureAtlas.TextureAtlasData packTileSets(TiledMap tiledMap, String folder) {
+        FileHandle atlasFile = Gdx.files.local(folder + "/maze.atlas");
+        atlasFile.delete();
+        TexturePacker packer = new TexturePacker(AtlasPacker.getSettings());
+        Array<String> imagePaths = new Array<String>();
+        for (TiledMapTileSet tileSet : tiledMap.getTileSets()) {
+            String imagePath = CompiledLevel.getImagePath(tileSet, folder);
+            if (imagePaths.contains(imagePath, false)) {
+                continue;
+            }
+            imagePaths.add(imagePath);
+            try {
+                packer.addImage(ImageIO.read(Gdx.files.local(imagePath).file()), imagePath);
+            } catch (IOException e) {
+                throw new GdxRuntimeException("Couldn't read " + imagePath, e);
+            }
+        }
+        packer.pack(Gdx.files.local(folder).file(), "maze");
+
+        TextureAtlas.TextureAtlasData atlasData = new TextureAtlas.TextureAtlasData(atlasFile,
+                Gdx.files.local(folder), false);
+        atlasFile.delete();
+        return atlasData;
+    }
+}
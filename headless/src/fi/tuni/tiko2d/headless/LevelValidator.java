@@ -0,0 +1,97 @@
+package fi.tuni.tiko2d.headless;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.math.Rectangle;
+
+import fi.tuni.tiko2d.LevelData;
+import fi.tuni.tiko2d.LevelRoute;
+import fi.tuni.tiko2d.NavigationGrid;
+import fi.tuni.tiko2d.RaccoonRoll;
+import fi.tuni.tiko2d.TiledMapUtil;
+
+/**
+ * Checks that every good object and the goal of a level can be reached from the player start
+ * position and prints the length of the shortest route found and its par time.
+ * The par time assumes the player rolls the route at {@link #PAR_SPEED} and every bad object
+ * on the route costs its time penalty. Exits with status 1 if any level can't be completed so
+ * the check can be run on every build.
+ * Usage: LevelValidator [level...]
+ *
+ * @author Heikki Kangas
+ */
+public class LevelValidator {
+    /**
+     * Average speed in meters per second of a player who knows the route, including slowing
+     * down for the corners
+     */
+    public static final float PAR_SPEED = 4f;
+
+    /**
+     * Seconds added to the time for hitting a bad object
+     */
+    public static final float BAD_OBJECT_PENALTY = 10f;
+
+    /**
+     * Empty private constructor to hide the public one
+     */
+    private LevelValidator() {
+    }
+
+    public static void main(String[] arg) {
+        HeadlessEnvironment.init();
+        RaccoonRoll game = new RaccoonRoll();
+        TiledMapUtil tiledMapUtil = new TiledMapUtil(game);
+        String[] levels = arg.length > 0 ? arg : HeadlessEnvironment.LEVELS;
+        int errors = 0;
+
+        for (String levelName : levels) {
+            TiledMap tiledMap = HeadlessEnvironment.loadLevel(levelName);
+            LevelData levelData = tiledMapUtil.getLevelData(tiledMap);
+            tiledMap.dispose();
+            errors += validate(game, levelName, levelData);
+        }
+
+        if (errors > 0) {
+            Gdx.app.error("LevelValidator", errors + " error(s)");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Solves the route of a level and logs its par time or why it can't be completed
+     *
+     * @param game      main game class for scaling
+     * @param levelName name of the level shown in the log
+     * @param levelData game play data of the level
+     * @return amount of errors found
+     */
+    public static int validate(RaccoonRoll game, String levelName, LevelData levelData) {
+        long start = System.nanoTime();
+        float objectRadius = 48 * game.getScale();
+        NavigationGrid grid = new NavigationGrid(levelData, objectRadius * 0.9f, objectRadius,
+                levelData.getTileSize() * game.getScale(), BAD_OBJECT_PENALTY * PAR_SPEED);
+        LevelRoute route = new LevelRoute(grid, levelData, objectRadius);
+        long time = (System.nanoTime() - start) / 1000000;
+
+        int errors = 0;
+        if (!route.isStartFree()) {
+            Gdx.app.error(levelName, "Player starts inside a wall at " + levelData.getStartPosition());
+            return 1;
+        }
+        for (Rectangle rectangle : route.getUnreachableObjects()) {
+            Gdx.app.error(levelName, "Good object at " + rectangle.x + ", " + rectangle.y
+                    + " can't be reached");
+            errors++;
+        }
+        if (!route.isGoalReachable()) {
+            Gdx.app.error(levelName, "Goal can't be reached");
+            return errors + 1;
+        }
+
+        Gdx.app.log(levelName, String.format("%d good objects, route %.1f m, par time %s, solved in %d ms",
+                levelData.getGoodRectangles().size(), route.getLength(),
+                game.formatTime(route.getLength() / PAR_SPEED), time));
+        return errors;
+    }
+}
@@ -0,0 +1,63 @@
+package fi.tuni.tiko2d.headless;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.IntBuffer;
+
+/**
+ * GL20 that does nothing, so TmxMapLoader can create the tileset textures without a GPU.
+ * Shaders and programs report that they compiled and linked so map renderers can be created too
+ *
+ * @author Heikki Kangas
+ */
+public class NoOpGL implements InvocationHandler {
+
+    /**
+     * Empty private constructor to hide the public one
+     */
+    private NoOpGL() {
+    }
+
+    /**
+     * Sets a GL20 doing nothing to Gdx.gl and Gdx.gl20
+     */
+    public static void install() {
+        GL20 gl = (GL20) Proxy.newProxyInstance(
+                GL20.class.getClassLoader(),
+                new Class<?>[]{GL20.class},
+                new NoOpGL());
+        Gdx.gl = gl;
+        Gdx.gl20 = gl;
+    }
+
+    /**
+     * Returns the default value of the called method's return type, or a valid handle or
+     * status for the methods creating and checking shaders
+     */
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        String name = method.getName();
+        if (name.equals("glCreateShader") || name.equals("glCreateProgram")) {
+            return 1;
+        }
+        if (name.equals("glGetShaderiv") || name.equals("glGetProgramiv")) {
+            int parameter = (Integer) args[1];
+            ((IntBuffer) args[2]).put(0, parameter == GL20.GL_COMPILE_STATUS
+                    || parameter == GL20.GL_LINK_STATUS ? GL20.GL_TRUE : 0);
+            return null;
+        }
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == String.class) {
+            return "";
+        }
+        return null;
+    }
+}
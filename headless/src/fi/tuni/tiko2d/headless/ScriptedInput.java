@@ -0,0 +1,79 @@
+package fi.tuni.tiko2d.headless;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.Vector2;
+
+import java.util.ArrayList;
+
+import fi.tuni.tiko2d.PlayerInput;
+
+/**
+ * Player input read from a script instead of keyboard or accelerometer.
+ * Each line of the script is "seconds forceX forceY", empty lines and lines starting with # are
+ * skipped. A force of 30 equals holding an arrow key on desktop. After the last line the player
+ * is not pushed anymore
+ *
+ * @author Heikki Kangas
+ */
+public class ScriptedInput implements PlayerInput {
+    private ArrayList<float[]> steps;
+    private int currentStep;
+    private float stepTime;
+
+    /**
+     * Creates input with no steps, the player is never pushed
+     */
+    public ScriptedInput() {
+        steps = new ArrayList<float[]>();
+    }
+
+    /**
+     * Reads the steps from given script file
+     *
+     * @param script file containing the steps
+     */
+    public ScriptedInput(FileHandle script) {
+        this();
+        String[] lines = script.readString().split("\n");
+        for (String line : lines) {
+            line = line.trim();
+            if (line.length() == 0 || line.startsWith("#")) {
+                continue;
+            }
+            String[] values = line.split("\\s+");
+            addStep(Float.parseFloat(values[0]), Float.parseFloat(values[1]), Float.parseFloat(values[2]));
+        }
+    }
+
+    /**
+     * Adds a step to the end of the script
+     *
+     * @param seconds how long the force is applied
+     * @param x       force on x axis per second
+     * @param y       force on y axis per second
+     */
+    public void addStep(float seconds, float x, float y) {
+        steps.add(new float[]{seconds, x, y});
+    }
+
+    /**
+     * Reads the force of the current step and moves to next step when its time has passed
+     *
+     * @param deltatime how long since last frame
+     * @param force     vector where the force is stored
+     */
+    @Override
+    public void getForce(float deltatime, Vector2 force) {
+        while (currentStep < steps.size() && stepTime >= steps.get(currentStep)[0]) {
+            stepTime -= steps.get(currentStep)[0];
+            currentStep++;
+        }
+        if (currentStep >= steps.size()) {
+            force.set(0, 0);
+            return;
+        }
+        float[] step = steps.get(currentStep);
+        force.set(step[1] * deltatime, step[2] * deltatime);
+        stepTime += deltatime;
+    }
+}
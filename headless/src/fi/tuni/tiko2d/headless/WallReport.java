@@ -0,0 +1,48 @@
+package fi.tuni.tiko2d.headless;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.World;
+
+import java.util.ArrayList;
+
+import fi.tuni.tiko2d.RaccoonRoll;
+import fi.tuni.tiko2d.TiledMapUtil;
+
+/**
+ * Prints wall body and fixture counts of every level before and after merging wall rectangles.
+ * Usage: WallReport [level...]
+ *
+ * @author Heikki Kangas
+ */
+public class WallReport {
+
+    /**
+     * Empty private constructor to hide the public one
+     */
+    private WallReport() {
+    }
+
+    public static void main(String[] arg) {
+        HeadlessEnvironment.init();
+        TiledMapUtil tiledMapUtil = new TiledMapUtil(new RaccoonRoll());
+        String[] levels = arg.length > 0 ? arg : HeadlessEnvironment.LEVELS;
+
+        for (String levelName : levels) {
+            TiledMap tiledMap = HeadlessEnvironment.loadLevel(levelName);
+            ArrayList<Rectangle> wallRectangles = tiledMapUtil.getWallRectangles(tiledMap);
+            World world = new World(new Vector2(0, 0), true);
+            Body wallBody = tiledMapUtil.createWalls(wallRectangles, world);
+
+            Gdx.app.log(levelName, "before: " + wallRectangles.size() + " bodies, "
+                    + wallRectangles.size() + " fixtures, after: " + world.getBodyCount()
+                    + " body, " + wallBody.getFixtureList().size + " fixtures");
+
+            world.dispose();
+            tiledMap.dispose();
+        }
+    }
+}